@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,15 +21,29 @@ import java.io.ObjectInputStream;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.aopalliance.intercept.MethodInvocation;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.aspectj.weaver.UnresolvedType;
+import org.aspectj.weaver.internal.tools.PointcutDesignatorHandlerBasedPointcut;
+import org.aspectj.weaver.internal.tools.PointcutExpressionImpl;
+import org.aspectj.weaver.patterns.AndPointcut;
+import org.aspectj.weaver.patterns.AnnotationPointcut;
+import org.aspectj.weaver.patterns.AnnotationTypePattern;
+import org.aspectj.weaver.patterns.ExactAnnotationTypePattern;
+import org.aspectj.weaver.patterns.KindedPointcut;
 import org.aspectj.weaver.patterns.NamePattern;
+import org.aspectj.weaver.patterns.OrPointcut;
+import org.aspectj.weaver.patterns.WithinAnnotationPointcut;
 import org.aspectj.weaver.reflect.ReflectionWorld.ReflectionWorldException;
 import org.aspectj.weaver.reflect.ShadowMatchImpl;
 import org.aspectj.weaver.tools.ContextBasedMatcher;
@@ -50,6 +64,7 @@ import org.springframework.aop.ProxyMethodInvocation;
 import org.springframework.aop.framework.autoproxy.ProxyCreationContext;
 import org.springframework.aop.interceptor.ExposeInvocationInterceptor;
 import org.springframework.aop.support.AbstractExpressionPointcut;
+import org.springframework.aop.support.AnnotationRequiringPointcut;
 import org.springframework.aop.support.AopUtils;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.BeanFactoryAware;
@@ -83,7 +98,7 @@ import org.springframework.util.StringUtils;
  */
 @SuppressWarnings("serial")
 public class AspectJExpressionPointcut extends AbstractExpressionPointcut
-		implements ClassFilter, IntroductionAwareMethodMatcher, BeanFactoryAware {
+		implements ClassFilter, IntroductionAwareMethodMatcher, BeanFactoryAware, AnnotationRequiringPointcut {
 
 	private static final Set<PointcutPrimitive> SUPPORTED_PRIMITIVES = new HashSet<>();
 
@@ -101,6 +116,10 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 	}
 
 
+	private static final Pattern QUALIFIED_NAME_PATTERN = Pattern.compile("[\\w$]+(\\.[\\w$]+)+");
+
+	private static final String NOT_PERSISTENT = "";
+
 	private static final Log logger = LogFactory.getLog(AspectJExpressionPointcut.class);
 
 	@Nullable
@@ -121,6 +140,13 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 
 	private transient Map<Method, ShadowMatch> shadowMatchCache = new ConcurrentHashMap<>(32);
 
+	@Nullable
+	private transient PersistentShadowMatchCache persistentShadowMatchCache =
+			PersistentShadowMatchCache.getSharedInstance();
+
+	@Nullable
+	private transient String persistentPointcutKey;
+
 
 	/**
 	 * Create a new default AspectJExpressionPointcut.
@@ -267,6 +293,68 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 		return obtainPointcutExpression();
 	}
 
+	/**
+	 * Determine the annotation types required by {@code @annotation}, {@code @within}
+	 * and annotated {@code execution} designators in the pointcut expression.
+	 * @since 5.1.6
+	 */
+	@Override
+	@Nullable
+	public Set<String> getRequiredAnnotationTypes() {
+		try {
+			PointcutExpression pointcutExpression = obtainPointcutExpression();
+			if (pointcutExpression instanceof PointcutExpressionImpl) {
+				return getRequiredAnnotationTypes(((PointcutExpressionImpl) pointcutExpression).getUnderlyingPointcut());
+			}
+		}
+		catch (Throwable ex) {
+			logger.debug("Could not determine required annotation types for pointcut expression", ex);
+		}
+		return null;
+	}
+
+	@Nullable
+	private static Set<String> getRequiredAnnotationTypes(org.aspectj.weaver.patterns.Pointcut pointcut) {
+		if (pointcut instanceof AndPointcut) {
+			// Requirements of either side apply
+			AndPointcut andPointcut = (AndPointcut) pointcut;
+			Set<String> left = getRequiredAnnotationTypes(andPointcut.getLeft());
+			return (left != null ? left : getRequiredAnnotationTypes(andPointcut.getRight()));
+		}
+		if (pointcut instanceof OrPointcut) {
+			// Only a requirement if both sides have one
+			OrPointcut orPointcut = (OrPointcut) pointcut;
+			Set<String> left = getRequiredAnnotationTypes(orPointcut.getLeft());
+			Set<String> right = (left != null ? getRequiredAnnotationTypes(orPointcut.getRight()) : null);
+			if (right == null) {
+				return null;
+			}
+			Set<String> both = new HashSet<>(left);
+			both.addAll(right);
+			return both;
+		}
+		if (pointcut instanceof AnnotationPointcut) {
+			return getRequiredAnnotationTypes(((AnnotationPointcut) pointcut).getAnnotationTypePattern());
+		}
+		if (pointcut instanceof WithinAnnotationPointcut) {
+			return getRequiredAnnotationTypes(((WithinAnnotationPointcut) pointcut).getAnnotationTypePattern());
+		}
+		if (pointcut instanceof KindedPointcut) {
+			return getRequiredAnnotationTypes(((KindedPointcut) pointcut).getSignature().getAnnotationPattern());
+		}
+		// Negations, runtime checks such as @target and @args, and any other designators
+		return null;
+	}
+
+	@Nullable
+	private static Set<String> getRequiredAnnotationTypes(AnnotationTypePattern annotationTypePattern) {
+		if (annotationTypePattern instanceof ExactAnnotationTypePattern) {
+			UnresolvedType annotationType = ((ExactAnnotationTypePattern) annotationTypePattern).getAnnotationType();
+			return Collections.singleton(annotationType.getName());
+		}
+		return null;
+	}
+
 	@Override
 	public boolean matches(Class<?> targetClass) {
 		PointcutExpression pointcutExpression = obtainPointcutExpression();
@@ -455,6 +543,18 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 				// Not found - now check again with full lock...
 				PointcutExpression fallbackExpression = null;
 				shadowMatch = this.shadowMatchCache.get(targetMethod);
+				String persistentKey = null;
+				if (shadowMatch == null) {
+					persistentKey = getPersistentShadowMatchKey(targetMethod, originalMethod);
+					if (persistentKey != null) {
+						Boolean matches = obtainPersistentShadowMatchCache().get(persistentKey);
+						if (matches != null) {
+							shadowMatch = new ShadowMatchImpl(org.aspectj.util.FuzzyBoolean.fromBoolean(matches),
+									null, null, null);
+							this.shadowMatchCache.put(targetMethod, shadowMatch);
+						}
+					}
+				}
 				if (shadowMatch == null) {
 					Method methodToMatch = targetMethod;
 					try {
@@ -502,6 +602,7 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 						// Possibly AspectJ 1.8.10 encountering an invalid signature
 						logger.debug("PointcutExpression matching rejected target method", ex);
 						fallbackExpression = null;
+						persistentKey = null;
 					}
 					if (shadowMatch == null) {
 						shadowMatch = new ShadowMatchImpl(org.aspectj.util.FuzzyBoolean.NO, null, null, null);
@@ -510,6 +611,10 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 						shadowMatch = new DefensiveShadowMatch(shadowMatch,
 								fallbackExpression.matchesMethodExecution(methodToMatch));
 					}
+					else if (persistentKey != null && (shadowMatch.neverMatches() ||
+							(shadowMatch.alwaysMatches() && isStaticallyDetermined()))) {
+						obtainPersistentShadowMatchCache().put(persistentKey, shadowMatch.alwaysMatches());
+					}
 					this.shadowMatchCache.put(targetMethod, shadowMatch);
 				}
 			}
@@ -517,6 +622,112 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 		return shadowMatch;
 	}
 
+	/**
+	 * Determine the key for the given methods in the persistent shadow match cache.
+	 * @return the key, or {@code null} if the match cannot be persisted
+	 */
+	@Nullable
+	private String getPersistentShadowMatchKey(Method targetMethod, Method originalMethod) {
+		if (this.persistentShadowMatchCache == null) {
+			return null;
+		}
+		String pointcutKey = this.persistentPointcutKey;
+		if (pointcutKey == null) {
+			pointcutKey = buildPersistentPointcutKey();
+			this.persistentPointcutKey = pointcutKey;
+		}
+		return (pointcutKey != NOT_PERSISTENT ?
+				PersistentShadowMatchCache.getKey(pointcutKey, targetMethod, originalMethod) : null);
+	}
+
+	/**
+	 * Build the part of the persistent shadow match key that identifies this pointcut:
+	 * the resolved pointcut, with any named pointcuts inlined, along with hashes of the
+	 * declaration scope, the parameter types and all types that the pointcut refers to.
+	 * @return the pointcut key, or {@link #NOT_PERSISTENT} if matches cannot be persisted
+	 */
+	private String buildPersistentPointcutKey() {
+		PointcutExpression pointcutExpression = obtainPointcutExpression();
+		if (!(pointcutExpression instanceof PointcutExpressionImpl)) {
+			return NOT_PERSISTENT;
+		}
+		String pointcut = ((PointcutExpressionImpl) pointcutExpression).getUnderlyingPointcut().toString();
+		if (pointcut.contains(PointcutDesignatorHandlerBasedPointcut.class.getName())) {
+			// bean() matches depend on the bean currently being proxied
+			return NOT_PERSISTENT;
+		}
+		StringBuilder pointcutKey = new StringBuilder(pointcut).append('\n');
+		if (this.pointcutDeclarationScope != null &&
+				!PersistentShadowMatchCache.appendTypeHash(pointcutKey, this.pointcutDeclarationScope)) {
+			return NOT_PERSISTENT;
+		}
+		for (int i = 0; i < this.pointcutParameterNames.length; i++) {
+			pointcutKey.append(' ').append(this.pointcutParameterNames[i]).append(':');
+			if (!PersistentShadowMatchCache.appendTypeHash(pointcutKey, this.pointcutParameterTypes[i])) {
+				return NOT_PERSISTENT;
+			}
+		}
+		for (Class<?> referencedType : getReferencedTypes(pointcut)) {
+			pointcutKey.append('\n').append(referencedType.getName());
+			if (!PersistentShadowMatchCache.appendTypeHash(pointcutKey, referencedType)) {
+				return NOT_PERSISTENT;
+			}
+		}
+		return pointcutKey.toString();
+	}
+
+	/**
+	 * Determine the types that the given resolved pointcut refers to by name,
+	 * e.g. annotation types and declaring types in method signatures.
+	 */
+	private Set<Class<?>> getReferencedTypes(String pointcut) {
+		ClassLoader classLoader = (this.pointcutClassLoader != null ?
+				this.pointcutClassLoader : ClassUtils.getDefaultClassLoader());
+		Set<Class<?>> referencedTypes = new LinkedHashSet<>();
+		Set<String> checkedNames = new HashSet<>();
+		Matcher matcher = QUALIFIED_NAME_PATTERN.matcher(pointcut);
+		while (matcher.find()) {
+			// The longest resolvable prefix, e.g. the declaring type for "com.example.Type.method"
+			String name = matcher.group();
+			while (checkedNames.add(name)) {
+				try {
+					referencedTypes.add(ClassUtils.forName(name, classLoader));
+					break;
+				}
+				catch (Throwable ex) {
+					int lastDot = name.lastIndexOf('.');
+					if (lastDot == -1) {
+						break;
+					}
+					name = name.substring(0, lastDot);
+				}
+			}
+		}
+		return referencedTypes;
+	}
+
+	private PersistentShadowMatchCache obtainPersistentShadowMatchCache() {
+		Assert.state(this.persistentShadowMatchCache != null, "No PersistentShadowMatchCache set");
+		return this.persistentShadowMatchCache;
+	}
+
+	/**
+	 * Determine whether a positive match of this pointcut can be restored from the
+	 * persistent shadow match cache, i.e. needs neither a runtime test nor parameter binding.
+	 */
+	private boolean isStaticallyDetermined() {
+		return (this.pointcutParameterNames.length == 0 && !obtainPointcutExpression().mayNeedDynamicTest());
+	}
+
+	/**
+	 * Set the persistent cache to consult for shadow matches not resolved in this
+	 * pointcut instance yet. Defaults to the
+	 * {@linkplain PersistentShadowMatchCache#getSharedInstance() shared instance}.
+	 */
+	void setPersistentShadowMatchCache(@Nullable PersistentShadowMatchCache persistentShadowMatchCache) {
+		this.persistentShadowMatchCache = persistentShadowMatchCache;
+	}
+
 
 	@Override
 	public boolean equals(Object other) {
@@ -577,6 +788,7 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 		// Initialize transient fields.
 		// pointcutExpression will be initialized lazily by checkReadyToMatch()
 		this.shadowMatchCache = new ConcurrentHashMap<>(32);
+		this.persistentShadowMatchCache = PersistentShadowMatchCache.getSharedInstance();
 	}
 
 
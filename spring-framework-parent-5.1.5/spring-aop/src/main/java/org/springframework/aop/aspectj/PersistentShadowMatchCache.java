@@ -0,0 +1,366 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.aspectj;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.NestedIOException;
+import org.springframework.core.SpringProperties;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * File-based cache of AspectJ shadow match outcomes, allowing
+ * {@link AspectJExpressionPointcut} to skip the AspectJ weaver for methods
+ * that it has already matched in a previous run.
+ *
+ * <p>Each outcome is keyed by the resolved pointcut with any named pointcuts
+ * inlined, its parameters, the signature of the matched method, and a hash of
+ * the class files of the pointcut's declaration scope, of all types that the
+ * pointcut or the method signature refer to, and of their superclasses and
+ * interfaces. Changing any of these classes therefore leads to a fresh match.
+ * Methods of classes without a class file, e.g. generated proxy classes,
+ * are not cached.
+ *
+ * <p>Only definite outcomes are cached: negative matches for any pointcut, and
+ * positive matches for pointcuts that neither bind parameters nor require
+ * runtime tests. Partial matches always go through the weaver, as do pointcuts
+ * with a {@code bean()} designator, which depend on the bean being proxied.
+ *
+ * <p>The {@linkplain #getSharedInstance() shared instance} is configured through
+ * the {@link #LOCATION_PROPERTY_NAME} property and saved by
+ * {@link org.springframework.aop.aspectj.autoproxy.AspectJAwareAdvisorAutoProxyCreator}
+ * once all singletons have been instantiated. Only the outcomes that have been
+ * used since loading end up in the saved file.
+ *
+ * @since 5.1.6
+ * @see AspectJExpressionPointcut
+ */
+public final class PersistentShadowMatchCache {
+
+	/**
+	 * System property that specifies the file to load shadow match outcomes from
+	 * and to save them to: "spring.aop.shadowMatchCache.location".
+	 * <p>If not set, AspectJ pointcuts do not use a persistent cache.
+	 */
+	public static final String LOCATION_PROPERTY_NAME = "spring.aop.shadowMatchCache.location";
+
+	private static final int MAGIC = 0x5353434d;
+
+	private static final int VERSION = 2;
+
+	private static final String NO_TYPE_HASH = "";
+
+	private static final Log logger = LogFactory.getLog(PersistentShadowMatchCache.class);
+
+	private static final Map<Class<?>, String> typeHashCache = new ConcurrentReferenceHashMap<>(256);
+
+	@Nullable
+	private static final PersistentShadowMatchCache sharedInstance = createSharedInstance();
+
+
+	private final File file;
+
+	private final Map<String, Boolean> loadedMatches;
+
+	private final Map<String, Boolean> currentMatches = new ConcurrentHashMap<>(256);
+
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+
+	/**
+	 * Create a new cache for the given file, loading any outcomes saved to it before.
+	 * <p>A file that cannot be read is ignored, starting with an empty cache.
+	 * @param file the file to load from and to save to
+	 */
+	public PersistentShadowMatchCache(File file) {
+		this.file = file;
+		this.loadedMatches = load(file);
+	}
+
+
+	/**
+	 * Return the outcome recorded for the given key.
+	 * @param key the key, as determined by {@link #getKey}
+	 * @return whether the method matches, or {@code null} if not cached
+	 */
+	@Nullable
+	Boolean get(String key) {
+		Boolean matches = this.currentMatches.get(key);
+		if (matches == null) {
+			matches = this.loadedMatches.get(key);
+			if (matches != null) {
+				this.currentMatches.put(key, matches);
+			}
+		}
+		if (matches != null) {
+			this.hitCount.increment();
+		}
+		else {
+			this.missCount.increment();
+		}
+		return matches;
+	}
+
+	/**
+	 * Record the outcome for the given key.
+	 * @param key the key, as determined by {@link #getKey}
+	 * @param matches whether the method matches
+	 */
+	void put(String key, boolean matches) {
+		this.currentMatches.put(key, matches);
+	}
+
+	/**
+	 * Return the number of outcomes used or recorded since loading,
+	 * i.e. the number of outcomes that {@link #save()} writes.
+	 */
+	public int size() {
+		return this.currentMatches.size();
+	}
+
+	/**
+	 * Return the number of lookups that found a cached outcome.
+	 */
+	public long getHitCount() {
+		return this.hitCount.sum();
+	}
+
+	/**
+	 * Return the number of lookups that did not find a cached outcome.
+	 */
+	public long getMissCount() {
+		return this.missCount.sum();
+	}
+
+	/**
+	 * Save the outcomes used or recorded since loading, unless they are
+	 * the same as the ones loaded from the file.
+	 * @throws IOException in case of I/O errors
+	 */
+	public synchronized void save() throws IOException {
+		Map<String, Boolean> matches = new HashMap<>(this.currentMatches);
+		if (matches.equals(this.loadedMatches)) {
+			return;
+		}
+		// Serialize completely before touching the target, not leaving a truncated file behind
+		ByteArrayOutputStream content = new ByteArrayOutputStream(matches.size() * 40 + 12);
+		DataOutputStream dos = new DataOutputStream(content);
+		dos.writeInt(MAGIC);
+		dos.writeInt(VERSION);
+		dos.writeInt(matches.size());
+		for (Map.Entry<String, Boolean> entry : matches.entrySet()) {
+			dos.writeUTF(entry.getKey());
+			dos.writeBoolean(entry.getValue());
+		}
+		dos.flush();
+		File directory = this.file.getAbsoluteFile().getParentFile();
+		if (directory != null) {
+			Files.createDirectories(directory.toPath());
+		}
+		File tempFile = File.createTempFile(this.file.getName(), ".tmp", directory);
+		try {
+			Files.write(tempFile.toPath(), content.toByteArray());
+			try {
+				Files.move(tempFile.toPath(), this.file.toPath(),
+						StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			}
+			catch (AtomicMoveNotSupportedException ex) {
+				Files.move(tempFile.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		finally {
+			Files.deleteIfExists(tempFile.toPath());
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Saved " + matches.size() + " shadow match outcomes to " + this.file);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "PersistentShadowMatchCache for [" + this.file + "]: " + this.currentMatches.size() +
+				" outcomes, " + getHitCount() + " hits, " + getMissCount() + " misses";
+	}
+
+
+	/**
+	 * Return the shared cache for the file specified through the
+	 * {@link #LOCATION_PROPERTY_NAME} property.
+	 * @return the shared cache, or {@code null} if no location has been specified
+	 */
+	@Nullable
+	public static PersistentShadowMatchCache getSharedInstance() {
+		return sharedInstance;
+	}
+
+	@Nullable
+	private static PersistentShadowMatchCache createSharedInstance() {
+		String location = SpringProperties.getProperty(LOCATION_PROPERTY_NAME);
+		return (StringUtils.hasText(location) ? new PersistentShadowMatchCache(new File(location.trim())) : null);
+	}
+
+	/**
+	 * Determine the key for matching the given methods against a pointcut.
+	 * @param pointcutKey the resolved pointcut and the types it depends on
+	 * @param targetMethod the method on the target class
+	 * @param originalMethod the method to fall back to for proxy classes
+	 * @return the key, or {@code null} if a type involved has no class file
+	 */
+	@Nullable
+	static String getKey(String pointcutKey, Method targetMethod, Method originalMethod) {
+		StringBuilder sb = new StringBuilder(pointcutKey);
+		if (!appendMethod(sb, targetMethod) || (originalMethod != targetMethod && !appendMethod(sb, originalMethod))) {
+			return null;
+		}
+		return DigestUtils.md5DigestAsHex(sb.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static boolean appendMethod(StringBuilder sb, Method method) {
+		sb.append('\n').append(method);
+		if (!appendTypeHash(sb, method.getDeclaringClass()) || !appendTypeHash(sb, method.getReturnType())) {
+			return false;
+		}
+		for (Class<?> parameterType : method.getParameterTypes()) {
+			if (!appendTypeHash(sb, parameterType)) {
+				return false;
+			}
+		}
+		for (Class<?> exceptionType : method.getExceptionTypes()) {
+			if (!appendTypeHash(sb, exceptionType)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Append a hash of the class files of the given type and its supertypes.
+	 * @param sb the builder to append to
+	 * @param type the type to hash
+	 * @return whether a hash could be determined, i.e. whether all classes involved
+	 * have a class file
+	 */
+	static boolean appendTypeHash(StringBuilder sb, Class<?> type) {
+		String typeHash = getTypeHash(type);
+		if (typeHash == null) {
+			return false;
+		}
+		sb.append(' ').append(typeHash);
+		return true;
+	}
+
+	/**
+	 * Return a hash of the class files of the given type and its supertypes.
+	 */
+	@Nullable
+	private static String getTypeHash(Class<?> type) {
+		String typeHash = typeHashCache.get(type);
+		if (typeHash == null) {
+			typeHash = computeTypeHash(type);
+			typeHashCache.put(type, typeHash);
+		}
+		return (typeHash != NO_TYPE_HASH ? typeHash : null);
+	}
+
+	private static String computeTypeHash(Class<?> type) {
+		if (type.isPrimitive()) {
+			return type.getName();
+		}
+		if (type.isArray()) {
+			String componentHash = getTypeHash(type.getComponentType());
+			return (componentHash != null ? "[" + componentHash : NO_TYPE_HASH);
+		}
+		ClassLoader classLoader = type.getClassLoader();
+		if (classLoader == null) {
+			// Bootstrap class: only changes with the JVM
+			return type.getName() + "@" + System.getProperty("java.vm.version");
+		}
+		StringBuilder sb = new StringBuilder();
+		String resourceName = ClassUtils.convertClassNameToResourcePath(type.getName()) + ClassUtils.CLASS_FILE_SUFFIX;
+		try (InputStream is = classLoader.getResourceAsStream(resourceName)) {
+			if (is == null) {
+				return NO_TYPE_HASH;
+			}
+			DigestUtils.appendMd5DigestAsHex(is, sb);
+		}
+		catch (IOException ex) {
+			return NO_TYPE_HASH;
+		}
+		Class<?> superclass = type.getSuperclass();
+		if (superclass != null && !appendTypeHash(sb, superclass)) {
+			return NO_TYPE_HASH;
+		}
+		for (Class<?> ifc : type.getInterfaces()) {
+			if (!appendTypeHash(sb, ifc)) {
+				return NO_TYPE_HASH;
+			}
+		}
+		return DigestUtils.md5DigestAsHex(sb.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static Map<String, Boolean> load(File file) {
+		if (!file.exists()) {
+			return Collections.emptyMap();
+		}
+		try (DataInputStream dis = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+			if (dis.readInt() != MAGIC || dis.readInt() != VERSION) {
+				throw new NestedIOException("Unsupported shadow match cache format: " + file);
+			}
+			int count = dis.readInt();
+			Map<String, Boolean> matches = new HashMap<>(count * 4 / 3 + 1);
+			for (int i = 0; i < count; i++) {
+				matches.put(dis.readUTF(), dis.readBoolean());
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Loaded " + count + " shadow match outcomes from " + file);
+			}
+			return matches;
+		}
+		catch (IOException ex) {
+			if (logger.isWarnEnabled()) {
+				logger.warn("Failed to load shadow match cache from " + file + " - starting with an empty cache", ex);
+			}
+			return Collections.emptyMap();
+		}
+	}
+
+}
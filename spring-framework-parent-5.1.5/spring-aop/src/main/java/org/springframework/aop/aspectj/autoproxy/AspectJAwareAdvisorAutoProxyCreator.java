@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.aop.aspectj.autoproxy;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
@@ -28,8 +29,10 @@ import org.springframework.aop.Advisor;
 import org.springframework.aop.aspectj.AbstractAspectJAdvice;
 import org.springframework.aop.aspectj.AspectJPointcutAdvisor;
 import org.springframework.aop.aspectj.AspectJProxyUtils;
+import org.springframework.aop.aspectj.PersistentShadowMatchCache;
 import org.springframework.aop.framework.autoproxy.AbstractAdvisorAutoProxyCreator;
 import org.springframework.aop.interceptor.ExposeInvocationInterceptor;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.core.Ordered;
 import org.springframework.util.ClassUtils;
 
@@ -38,13 +41,18 @@ import org.springframework.util.ClassUtils;
  * subclass that exposes AspectJ's invocation context and understands AspectJ's rules
  * for advice precedence when multiple pieces of advice come from the same aspect.
  *
+ * <p>As of 5.1.6, saves the {@linkplain PersistentShadowMatchCache#getSharedInstance()
+ * shared persistent shadow match cache}, if configured, once all singletons have been
+ * instantiated.
+ *
  * @author Adrian Colyer
  * @author Juergen Hoeller
  * @author Ramnivas Laddad
  * @since 2.0
  */
 @SuppressWarnings("serial")
-public class AspectJAwareAdvisorAutoProxyCreator extends AbstractAdvisorAutoProxyCreator {
+public class AspectJAwareAdvisorAutoProxyCreator extends AbstractAdvisorAutoProxyCreator
+		implements SmartInitializingSingleton {
 
 	private static final Comparator<Advisor> DEFAULT_PRECEDENCE_COMPARATOR = new AspectJPrecedenceComparator();
 
@@ -108,6 +116,24 @@ public class AspectJAwareAdvisorAutoProxyCreator extends AbstractAdvisorAutoProx
 		return super.shouldSkip(beanClass, beanName);
 	}
 
+	/**
+	 * Save the shared persistent shadow match cache, if any, now that all
+	 * singleton beans have been matched against the AspectJ pointcuts.
+	 * @see PersistentShadowMatchCache#save()
+	 */
+	@Override
+	public void afterSingletonsInstantiated() {
+		PersistentShadowMatchCache shadowMatchCache = PersistentShadowMatchCache.getSharedInstance();
+		if (shadowMatchCache != null) {
+			try {
+				shadowMatchCache.save();
+			}
+			catch (IOException ex) {
+				logger.warn("Failed to save " + shadowMatchCache, ex);
+			}
+		}
+	}
+
 
 	/**
 	 * Implements AspectJ PartialComparable interface for defining partial orderings.
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,6 +25,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.aopalliance.aop.Advice;
 
@@ -101,6 +102,9 @@ public class AdvisedSupport extends ProxyConfig implements Advised {
 	 */
 	private Advisor[] advisorArray = new Advisor[0];
 
+	/** Incremented on every advice change, invalidating precomputed advisor chains. */
+	private final AtomicInteger adviceChangeCount = new AtomicInteger();
+
 
 	/**
 	 * No-arg constructor for use as a JavaBean.
@@ -487,11 +491,44 @@ public class AdvisedSupport extends ProxyConfig implements Advised {
 		return cached;
 	}
 
+	/**
+	 * Determine the {@link org.aopalliance.intercept.MethodInterceptor} chains
+	 * for all of the given methods at once, e.g. eagerly on proxy creation.
+	 * <p>In contrast to {@link #getInterceptorsAndDynamicInterceptionAdvice(Method, Class)},
+	 * the chains do not get cached here: the method cache is keyed by the identity of
+	 * the Method instances passed in by the proxy, so the caller needs to hold on to them.
+	 * @param methods the proxied methods
+	 * @param targetClass the target class
+	 * @return a List with the chain for each method, in the order of the given methods
+	 * @since 5.1.6
+	 * @see #setPrecomputeInterceptorChains
+	 */
+	public List<List<Object>> getInterceptorsAndDynamicInterceptionAdvice(
+			Method[] methods, @Nullable Class<?> targetClass) {
+
+		List<List<Object>> chains = new ArrayList<>(methods.length);
+		for (Method method : methods) {
+			chains.add(this.advisorChainFactory.getInterceptorsAndDynamicInterceptionAdvice(this, method, targetClass));
+		}
+		return chains;
+	}
+
+	/**
+	 * Return the number of advice changes so far: advisor chains determined
+	 * before remain valid as long as this number remains the same.
+	 * @since 5.1.6
+	 * @see #adviceChanged()
+	 */
+	int getAdviceChangeCount() {
+		return this.adviceChangeCount.get();
+	}
+
 	/**
 	 * Invoked when advice has changed.
 	 */
 	protected void adviceChanged() {
 		this.methodCache.clear();
+		this.adviceChangeCount.incrementAndGet();
 	}
 
 	/**
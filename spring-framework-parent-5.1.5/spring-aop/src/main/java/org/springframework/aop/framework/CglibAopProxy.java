@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -328,8 +328,9 @@ class CglibAopProxy implements AopProxy, Serializable {
 			// TODO: small memory optimization here (can skip creation for methods with no advice)
 			for (int x = 0; x < methods.length; x++) {
 				List<Object> chain = this.advised.getInterceptorsAndDynamicInterceptionAdvice(methods[x], rootClass);
-				fixedCallbacks[x] = new FixedChainStaticTargetInterceptor(
-						chain, this.advised.getTargetSource().getTarget(), this.advised.getTargetClass());
+				fixedCallbacks[x] = new FixedChainStaticTargetInterceptor(chain,
+						this.advised.getTargetSource().getTarget(), this.advised.getTargetClass(),
+						this.advised.isRecycleInvocations());
 				this.fixedInterceptorMap.put(methods[x].toString(), x);
 			}
 
@@ -340,6 +341,24 @@ class CglibAopProxy implements AopProxy, Serializable {
 			System.arraycopy(fixedCallbacks, 0, callbacks, mainCallbacks.length, fixedCallbacks.length);
 			this.fixedInterceptorOffset = mainCallbacks.length;
 		}
+		else if (this.advised.isPrecomputeInterceptorChains()) {
+			// Determine the chains for all methods right away and dispatch each method
+			// to its own chain, falling back to the AOP interceptor once advice changes.
+			Method[] methods = rootClass.getMethods();
+			int adviceChangeCount = this.advised.getAdviceChangeCount();
+			List<List<Object>> chains = this.advised.getInterceptorsAndDynamicInterceptionAdvice(methods, rootClass);
+			Callback[] precomputedCallbacks = new Callback[methods.length];
+			this.fixedInterceptorMap = new HashMap<>(methods.length);
+			for (int x = 0; x < methods.length; x++) {
+				precomputedCallbacks[x] =
+						new PrecomputedChainInterceptor(this.advised, rootClass, chains.get(x), adviceChangeCount);
+				this.fixedInterceptorMap.put(methods[x].toString(), x);
+			}
+			callbacks = new Callback[mainCallbacks.length + precomputedCallbacks.length];
+			System.arraycopy(mainCallbacks, 0, callbacks, 0, mainCallbacks.length);
+			System.arraycopy(precomputedCallbacks, 0, callbacks, mainCallbacks.length, precomputedCallbacks.length);
+			this.fixedInterceptorOffset = mainCallbacks.length;
+		}
 		else {
 			callbacks = mainCallbacks;
 		}
@@ -622,21 +641,31 @@ class CglibAopProxy implements AopProxy, Serializable {
 		@Nullable
 		private final Class<?> targetClass;
 
-		public FixedChainStaticTargetInterceptor(
-				List<Object> adviceChain, @Nullable Object target, @Nullable Class<?> targetClass) {
+		private final boolean recycleInvocations;
+
+		public FixedChainStaticTargetInterceptor(List<Object> adviceChain, @Nullable Object target,
+				@Nullable Class<?> targetClass, boolean recycleInvocations) {
 
 			this.adviceChain = adviceChain;
 			this.target = target;
 			this.targetClass = targetClass;
+			this.recycleInvocations = recycleInvocations;
 		}
 
 		@Override
 		@Nullable
 		public Object intercept(Object proxy, Method method, Object[] args, MethodProxy methodProxy) throws Throwable {
-			MethodInvocation invocation = new CglibMethodInvocation(proxy, this.target, method, args,
-					this.targetClass, this.adviceChain, methodProxy);
-			// If we get here, we need to create a MethodInvocation.
-			Object retVal = invocation.proceed();
+			Object retVal;
+			if (this.recycleInvocations) {
+				retVal = RecyclableCglibMethodInvocation.proceedRecycled(proxy, this.target, method, args,
+						this.targetClass, this.adviceChain, methodProxy);
+			}
+			else {
+				MethodInvocation invocation = new CglibMethodInvocation(proxy, this.target, method, args,
+						this.targetClass, this.adviceChain, methodProxy);
+				// If we get here, we need to create a MethodInvocation.
+				retVal = invocation.proceed();
+			}
 			retVal = processReturnType(proxy, this.target, method, retVal);
 			return retVal;
 		}
@@ -649,7 +678,7 @@ class CglibAopProxy implements AopProxy, Serializable {
 	 */
 	private static class DynamicAdvisedInterceptor implements MethodInterceptor, Serializable {
 
-		private final AdvisedSupport advised;
+		protected final AdvisedSupport advised;
 
 		public DynamicAdvisedInterceptor(AdvisedSupport advised) {
 			this.advised = advised;
@@ -671,7 +700,7 @@ class CglibAopProxy implements AopProxy, Serializable {
 				// Get as late as possible to minimize the time we "own" the target, in case it comes from a pool...
 				target = targetSource.getTarget();
 				Class<?> targetClass = (target != null ? target.getClass() : null);
-				List<Object> chain = this.advised.getInterceptorsAndDynamicInterceptionAdvice(method, targetClass);
+				List<Object> chain = getInterceptorChain(method, targetClass);
 				Object retVal;
 				// Check whether we only have one InvokerInterceptor: that is,
 				// no real advice, but just reflective invocation of the target.
@@ -683,6 +712,11 @@ class CglibAopProxy implements AopProxy, Serializable {
 					Object[] argsToUse = AopProxyUtils.adaptArgumentsIfNecessary(method, args);
 					retVal = methodProxy.invoke(target, argsToUse);
 				}
+				else if (this.advised.isRecycleInvocations()) {
+					// Reuse a method invocation released by a previous call on this thread...
+					retVal = RecyclableCglibMethodInvocation.proceedRecycled(
+							proxy, target, method, args, targetClass, chain, methodProxy);
+				}
 				else {
 					// We need to create a method invocation...
 					retVal = new CglibMethodInvocation(proxy, target, method, args, targetClass, chain, methodProxy).proceed();
@@ -701,6 +735,13 @@ class CglibAopProxy implements AopProxy, Serializable {
 			}
 		}
 
+		/**
+		 * Determine the advisor chain for the given method.
+		 */
+		protected List<Object> getInterceptorChain(Method method, @Nullable Class<?> targetClass) {
+			return this.advised.getInterceptorsAndDynamicInterceptionAdvice(method, targetClass);
+		}
+
 		@Override
 		public boolean equals(Object other) {
 			return (this == other ||
@@ -718,6 +759,38 @@ class CglibAopProxy implements AopProxy, Serializable {
 	}
 
 
+	/**
+	 * AOP callback for a single method of a proxy with precomputed advisor chains,
+	 * using the chain determined on proxy creation until advice changes, as long
+	 * as the target is of the class that the proxy was created for.
+	 */
+	private static class PrecomputedChainInterceptor extends DynamicAdvisedInterceptor {
+
+		private final Class<?> rootClass;
+
+		private final List<Object> chain;
+
+		private final int adviceChangeCount;
+
+		public PrecomputedChainInterceptor(
+				AdvisedSupport advised, Class<?> rootClass, List<Object> chain, int adviceChangeCount) {
+
+			super(advised);
+			this.rootClass = rootClass;
+			this.chain = chain;
+			this.adviceChangeCount = adviceChangeCount;
+		}
+
+		@Override
+		protected List<Object> getInterceptorChain(Method method, @Nullable Class<?> targetClass) {
+			if (targetClass == this.rootClass && this.advised.getAdviceChangeCount() == this.adviceChangeCount) {
+				return this.chain;
+			}
+			return super.getInterceptorChain(method, targetClass);
+		}
+	}
+
+
 	/**
 	 * Implementation of AOP Alliance MethodInvocation used by this AOP proxy.
 	 */
@@ -731,9 +804,13 @@ class CglibAopProxy implements AopProxy, Serializable {
 				List<Object> interceptorsAndDynamicMethodMatchers, MethodProxy methodProxy) {
 
 			super(proxy, target, method, arguments, targetClass, interceptorsAndDynamicMethodMatchers);
+			this.methodProxy = methodProxyIfApplicable(method, methodProxy);
+		}
 
+		@Nullable
+		static MethodProxy methodProxyIfApplicable(Method method, MethodProxy methodProxy) {
 			// Only use method proxy for public methods not derived from java.lang.Object
-			this.methodProxy = (Modifier.isPublic(method.getModifiers()) &&
+			return (Modifier.isPublic(method.getModifiers()) &&
 					method.getDeclaringClass() != Object.class && !AopUtils.isEqualsMethod(method) &&
 					!AopUtils.isHashCodeMethod(method) && !AopUtils.isToStringMethod(method) ?
 					methodProxy : null);
@@ -755,6 +832,83 @@ class CglibAopProxy implements AopProxy, Serializable {
 	}
 
 
+	/**
+	 * Implementation of AOP Alliance MethodInvocation used by this AOP proxy
+	 * for configurations that recycle their invocations.
+	 */
+	private static class RecyclableCglibMethodInvocation extends RecyclableMethodInvocation {
+
+		/** Method invocations released by proxies that recycle their invocations. */
+		private static final MethodInvocationPool<RecyclableCglibMethodInvocation> invocationPool =
+				new MethodInvocationPool<>("Recycled CGLIB proxy method invocations");
+
+		@Nullable
+		private MethodProxy methodProxy;
+
+		public RecyclableCglibMethodInvocation(Object proxy, @Nullable Object target, Method method,
+				Object[] arguments, @Nullable Class<?> targetClass,
+				List<Object> interceptorsAndDynamicMethodMatchers, MethodProxy methodProxy) {
+
+			super(proxy, target, method, arguments, targetClass, interceptorsAndDynamicMethodMatchers);
+			this.methodProxy = CglibMethodInvocation.methodProxyIfApplicable(method, methodProxy);
+		}
+
+		void reinitialize(Object proxy, @Nullable Object target, Method method,
+				Object[] arguments, @Nullable Class<?> targetClass,
+				List<Object> interceptorsAndDynamicMethodMatchers, MethodProxy methodProxy) {
+
+			reinitialize(proxy, target, method, arguments, targetClass, interceptorsAndDynamicMethodMatchers);
+			this.methodProxy = CglibMethodInvocation.methodProxyIfApplicable(method, methodProxy);
+		}
+
+		@Override
+		boolean release(boolean retentionCheck) {
+			if (!super.release(retentionCheck)) {
+				return false;
+			}
+			this.methodProxy = null;
+			return true;
+		}
+
+		/**
+		 * Proceed through an invocation taken from the current thread's pool,
+		 * returning it to the pool afterwards if it can be reused.
+		 */
+		@Nullable
+		static Object proceedRecycled(Object proxy, @Nullable Object target, Method method,
+				Object[] arguments, @Nullable Class<?> targetClass,
+				List<Object> interceptorsAndDynamicMethodMatchers, MethodProxy methodProxy) throws Throwable {
+
+			RecyclableCglibMethodInvocation invocation = invocationPool.acquire();
+			if (invocation != null) {
+				invocation.reinitialize(proxy, target, method, arguments, targetClass,
+						interceptorsAndDynamicMethodMatchers, methodProxy);
+			}
+			else {
+				invocation = new RecyclableCglibMethodInvocation(proxy, target, method, arguments, targetClass,
+						interceptorsAndDynamicMethodMatchers, methodProxy);
+			}
+			try {
+				return invocation.proceed();
+			}
+			finally {
+				invocationPool.release(invocation);
+			}
+		}
+
+		@Override
+		@Nullable
+		protected Object invokeJoinpoint() throws Throwable {
+			if (this.methodProxy != null) {
+				return this.methodProxy.invoke(getThis(), getArguments());
+			}
+			else {
+				return super.invokeJoinpoint();
+			}
+		}
+	}
+
+
 	/**
 	 * CallbackFilter to assign Callbacks to methods.
 	 */
@@ -845,6 +999,17 @@ class CglibAopProxy implements AopProxy, Serializable {
 			boolean isStatic = this.advised.getTargetSource().isStatic();
 			boolean isFrozen = this.advised.isFrozen();
 			if (haveAdvice || !isFrozen) {
+				String key = method.toString();
+				// Check to see if we have a precomputed chain to serve this method,
+				// which also takes care of exposing the proxy.
+				if (this.advised.isPrecomputeInterceptorChains() && !(isStatic && isFrozen) &&
+						this.fixedInterceptorMap.containsKey(key)) {
+					if (logger.isTraceEnabled()) {
+						logger.trace("Method has precomputed advisor chain: " + method);
+					}
+					int index = this.fixedInterceptorMap.get(key);
+					return (index + this.fixedInterceptorOffset);
+				}
 				// If exposing the proxy, then AOP_PROXY must be used.
 				if (exposeProxy) {
 					if (logger.isTraceEnabled()) {
@@ -852,7 +1017,6 @@ class CglibAopProxy implements AopProxy, Serializable {
 					}
 					return AOP_PROXY;
 				}
-				String key = method.toString();
 				// Check to see if we have fixed interceptor to serve this method.
 				// Else use the AOP_PROXY.
 				if (isStatic && isFrozen && this.fixedInterceptorMap.containsKey(key)) {
@@ -913,6 +1077,9 @@ class CglibAopProxy implements AopProxy, Serializable {
 			if (this.advised.isExposeProxy() != otherAdvised.isExposeProxy()) {
 				return false;
 			}
+			if (this.advised.isPrecomputeInterceptorChains() != otherAdvised.isPrecomputeInterceptorChains()) {
+				return false;
+			}
 			if (this.advised.getTargetSource().isStatic() != otherAdvised.getTargetSource().isStatic()) {
 				return false;
 			}
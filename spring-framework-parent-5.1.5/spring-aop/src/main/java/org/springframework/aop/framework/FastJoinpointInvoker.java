@@ -0,0 +1,187 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.framework;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.aop.support.AopUtils;
+import org.springframework.cglib.reflect.FastClass;
+import org.springframework.core.KotlinDetector;
+import org.springframework.core.MethodClassKey;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Invokes a joinpoint method on a target object through a CGLIB-generated
+ * {@link FastClass} for the target class, i.e. through a direct call in
+ * generated bytecode instead of reflection.
+ *
+ * <p>Used by {@link JdkDynamicAopProxy} for frozen proxy configurations,
+ * analogous to the {@link org.springframework.cglib.proxy.MethodProxy} that
+ * {@link CglibAopProxy} uses for invoking public target methods.
+ *
+ * @since 5.1.6
+ * @see ProxyConfig#isFrozen()
+ */
+final class FastJoinpointInvoker {
+
+	private static final Log logger = LogFactory.getLog(FastJoinpointInvoker.class);
+
+	private static final Object NOT_GENERATED = new Object();
+
+	private static final Map<Class<?>, Object> fastClassCache = new ConcurrentReferenceHashMap<>(64);
+
+	private static final Map<MethodClassKey, Object> invokerCache = new ConcurrentReferenceHashMap<>(256);
+
+
+	private final Method method;
+
+	private final Class<?>[] parameterTypes;
+
+	private final FastClass fastClass;
+
+	private final int index;
+
+
+	private FastJoinpointInvoker(Method method, FastClass fastClass, int index) {
+		this.method = method;
+		this.parameterTypes = method.getParameterTypes();
+		this.fastClass = fastClass;
+		this.index = index;
+	}
+
+
+	/**
+	 * Invoke the joinpoint method on the given target.
+	 * <p>Arguments that do not match the method's parameter types are left to
+	 * reflection to report, since the generated class would fail with a
+	 * {@link ClassCastException} or {@link NullPointerException} that is
+	 * indistinguishable from one thrown by the target method itself.
+	 * @param target the target object
+	 * @param args the arguments for the method
+	 * @return the invocation result, if any
+	 * @throws Throwable if thrown by the target method
+	 * @throws org.springframework.aop.AopInvocationException in case of illegal arguments for the method
+	 * @see org.springframework.aop.support.AopUtils#invokeJoinpointUsingReflection
+	 */
+	@Nullable
+	Object invoke(Object target, Object[] args) throws Throwable {
+		if (!isApplicable(target, args)) {
+			return AopUtils.invokeJoinpointUsingReflection(target, this.method, args);
+		}
+		try {
+			return this.fastClass.invoke(this.index, target, args);
+		}
+		catch (InvocationTargetException ex) {
+			// Invoked method threw a checked exception.
+			// We must rethrow it. The client won't see the interceptor.
+			throw ex.getTargetException();
+		}
+	}
+
+	/**
+	 * Determine whether the given target and arguments match the method,
+	 * including {@code null} values for primitive parameters.
+	 */
+	private boolean isApplicable(Object target, @Nullable Object[] args) {
+		if (!this.fastClass.getJavaClass().isInstance(target)) {
+			return false;
+		}
+		int argCount = (args != null ? args.length : 0);
+		if (argCount != this.parameterTypes.length) {
+			return false;
+		}
+		for (int i = 0; i < argCount; i++) {
+			if (!ClassUtils.isAssignableValue(this.parameterTypes[i], args[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * Return the invoker for the given method on instances of the given target class,
+	 * or {@code null} if the method cannot be invoked through a generated class.
+	 * @param method the joinpoint method, typically declared on a proxied interface
+	 * @param targetClass the class of the target object
+	 */
+	@Nullable
+	static FastJoinpointInvoker forMethod(Method method, Class<?> targetClass) {
+		MethodClassKey cacheKey = new MethodClassKey(method, targetClass);
+		Object invoker = invokerCache.get(cacheKey);
+		if (invoker == null) {
+			invoker = createInvoker(method, targetClass);
+			invokerCache.put(cacheKey, invoker);
+		}
+		return (invoker != NOT_GENERATED ? (FastJoinpointInvoker) invoker : null);
+	}
+
+	private static Object createInvoker(Method method, Class<?> targetClass) {
+		FastClass fastClass = getFastClass(targetClass);
+		if (fastClass == null) {
+			return NOT_GENERATED;
+		}
+		int index = fastClass.getIndex(method.getName(), method.getParameterTypes());
+		return (index >= 0 ? new FastJoinpointInvoker(method, fastClass, index) : NOT_GENERATED);
+	}
+
+	@Nullable
+	private static FastClass getFastClass(Class<?> type) {
+		Object fastClass = fastClassCache.get(type);
+		if (fastClass == null) {
+			fastClass = NOT_GENERATED;
+			if (isFastClassCandidate(type)) {
+				try {
+					FastClass.Generator generator = new FastClass.Generator();
+					generator.setType(type);
+					generator.setContextClass(type);
+					generator.setClassLoader(type.getClassLoader());
+					fastClass = generator.create();
+				}
+				catch (Throwable ex) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Could not generate fast class for [" + type.getName() +
+								"] - falling back to reflection", ex);
+					}
+				}
+			}
+			fastClassCache.put(type, fastClass);
+		}
+		return (fastClass != NOT_GENERATED ? (FastClass) fastClass : null);
+	}
+
+	private static boolean isFastClassCandidate(Class<?> type) {
+		if (type.isInterface() || type.getClassLoader() == null || KotlinDetector.isKotlinType(type)) {
+			return false;
+		}
+		for (Class<?> current = type; current != null; current = current.getEnclosingClass()) {
+			if (Modifier.isPrivate(current.getModifiers())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -79,6 +79,10 @@ final class JdkDynamicAopProxy implements AopProxy, InvocationHandler, Serializa
 	/** We use a static Log to avoid serialization issues. */
 	private static final Log logger = LogFactory.getLog(JdkDynamicAopProxy.class);
 
+	/** Method invocations released by proxies that recycle their invocations. */
+	private static final MethodInvocationPool<RecyclableJdkMethodInvocation> invocationPool =
+			new MethodInvocationPool<>("Recycled JDK proxy method invocations");
+
 	/** Config used to configure this proxy. */
 	private final AdvisedSupport advised;
 
@@ -196,6 +200,10 @@ final class JdkDynamicAopProxy implements AopProxy, InvocationHandler, Serializa
 			// Get the interception chain for this method.
 			List<Object> chain = this.advised.getInterceptorsAndDynamicInterceptionAdvice(method, targetClass);
 
+			// For a frozen configuration, invoke the target through generated bytecode if possible.
+			FastJoinpointInvoker joinpointInvoker = (this.advised.isFrozen() && target != null ?
+					FastJoinpointInvoker.forMethod(method, targetClass) : null);
+
 			// Check whether we have any advice. If we don't, we can fallback on direct
 			// reflective invocation of the target, and avoid creating a MethodInvocation.
 			if (chain.isEmpty()) {
@@ -203,11 +211,40 @@ final class JdkDynamicAopProxy implements AopProxy, InvocationHandler, Serializa
 				// Note that the final invoker must be an InvokerInterceptor so we know it does
 				// nothing but a reflective operation on the target, and no hot swapping or fancy proxying.
 				Object[] argsToUse = AopProxyUtils.adaptArgumentsIfNecessary(method, args);
-				retVal = AopUtils.invokeJoinpointUsingReflection(target, method, argsToUse);
+				if (joinpointInvoker != null) {
+					retVal = joinpointInvoker.invoke(target, argsToUse);
+				}
+				else {
+					retVal = AopUtils.invokeJoinpointUsingReflection(target, method, argsToUse);
+				}
+			}
+			else if (this.advised.isRecycleInvocations()) {
+				// Reuse a method invocation released by a previous call on this thread...
+				RecyclableJdkMethodInvocation recyclableInvocation = invocationPool.acquire();
+				if (recyclableInvocation != null) {
+					recyclableInvocation.reinitialize(
+							proxy, target, method, args, targetClass, chain, joinpointInvoker);
+				}
+				else {
+					recyclableInvocation = new RecyclableJdkMethodInvocation(
+							proxy, target, method, args, targetClass, chain, joinpointInvoker);
+				}
+				try {
+					retVal = recyclableInvocation.proceed();
+				}
+				finally {
+					invocationPool.release(recyclableInvocation);
+				}
 			}
 			else {
 				// We need to create a method invocation...
-				invocation = new ReflectiveMethodInvocation(proxy, target, method, args, targetClass, chain);
+				if (joinpointInvoker != null) {
+					invocation = new FastJoinpointMethodInvocation(
+							proxy, target, method, args, targetClass, chain, joinpointInvoker);
+				}
+				else {
+					invocation = new ReflectiveMethodInvocation(proxy, target, method, args, targetClass, chain);
+				}
 				// Proceed to the joinpoint through the interceptor chain.
 				retVal = invocation.proceed();
 			}
@@ -283,4 +320,77 @@ final class JdkDynamicAopProxy implements AopProxy, InvocationHandler, Serializa
 		return JdkDynamicAopProxy.class.hashCode() * 13 + this.advised.getTargetSource().hashCode();
 	}
 
+
+	/**
+	 * Implementation of AOP Alliance MethodInvocation used by this AOP proxy
+	 * for frozen configurations, invoking the target through a {@link FastJoinpointInvoker}.
+	 */
+	private static class FastJoinpointMethodInvocation extends ReflectiveMethodInvocation {
+
+		private final FastJoinpointInvoker joinpointInvoker;
+
+		public FastJoinpointMethodInvocation(Object proxy, Object target, Method method,
+				@Nullable Object[] arguments, @Nullable Class<?> targetClass,
+				List<Object> interceptorsAndDynamicMethodMatchers, FastJoinpointInvoker joinpointInvoker) {
+
+			super(proxy, target, method, arguments, targetClass, interceptorsAndDynamicMethodMatchers);
+			this.joinpointInvoker = joinpointInvoker;
+		}
+
+		@Override
+		@Nullable
+		protected Object invokeJoinpoint() throws Throwable {
+			return this.joinpointInvoker.invoke(this.target, this.arguments);
+		}
+	}
+
+
+	/**
+	 * Implementation of AOP Alliance MethodInvocation used by this AOP proxy
+	 * for configurations that recycle their invocations, invoking the target
+	 * through a {@link FastJoinpointInvoker} if available.
+	 */
+	private static class RecyclableJdkMethodInvocation extends RecyclableMethodInvocation {
+
+		@Nullable
+		private FastJoinpointInvoker joinpointInvoker;
+
+		public RecyclableJdkMethodInvocation(Object proxy, @Nullable Object target, Method method,
+				@Nullable Object[] arguments, @Nullable Class<?> targetClass,
+				List<Object> interceptorsAndDynamicMethodMatchers, @Nullable FastJoinpointInvoker joinpointInvoker) {
+
+			super(proxy, target, method, arguments, targetClass, interceptorsAndDynamicMethodMatchers);
+			this.joinpointInvoker = joinpointInvoker;
+		}
+
+		void reinitialize(Object proxy, @Nullable Object target, Method method,
+				@Nullable Object[] arguments, @Nullable Class<?> targetClass,
+				List<Object> interceptorsAndDynamicMethodMatchers, @Nullable FastJoinpointInvoker joinpointInvoker) {
+
+			reinitialize(proxy, target, method, arguments, targetClass, interceptorsAndDynamicMethodMatchers);
+			this.joinpointInvoker = joinpointInvoker;
+		}
+
+		@Override
+		boolean release(boolean retentionCheck) {
+			if (!super.release(retentionCheck)) {
+				return false;
+			}
+			this.joinpointInvoker = null;
+			return true;
+		}
+
+		@Override
+		@Nullable
+		protected Object invokeJoinpoint() throws Throwable {
+			Object target = getThis();
+			if (this.joinpointInvoker != null && target != null) {
+				return this.joinpointInvoker.invoke(target, getArguments());
+			}
+			else {
+				return super.invokeJoinpoint();
+			}
+		}
+	}
+
 }
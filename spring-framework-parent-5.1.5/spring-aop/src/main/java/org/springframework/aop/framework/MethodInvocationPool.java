@@ -0,0 +1,98 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.framework;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.core.NamedThreadLocal;
+import org.springframework.core.SpringProperties;
+import org.springframework.lang.Nullable;
+
+/**
+ * Thread-confined pool of {@link RecyclableMethodInvocation} instances,
+ * used by AOP proxies that {@linkplain ProxyConfig#isRecycleInvocations()
+ * recycle their invocations}.
+ *
+ * <p>Each thread keeps a small number of released invocations, enough for
+ * nested proxied calls; invocations that are in use are never shared with
+ * other threads.
+ *
+ * @since 5.1.6
+ * @param <T> the type of invocation
+ * @see RecyclableMethodInvocation#reinitialize
+ * @see RecyclableMethodInvocation#release(boolean)
+ */
+final class MethodInvocationPool<T extends RecyclableMethodInvocation> {
+
+	private static final int MAX_POOLED_INVOCATIONS_PER_THREAD = 8;
+
+	private final ThreadLocal<List<T>> pooledInvocations;
+
+	private final boolean retentionCheck;
+
+
+	/**
+	 * Create a new pool, checking for retained invocations if the
+	 * {@link ProxyConfig#RECYCLING_DEBUG_PROPERTY_NAME} flag is set.
+	 * @param name the name of the pool's thread-local state
+	 */
+	MethodInvocationPool(String name) {
+		this(name, SpringProperties.getFlag(ProxyConfig.RECYCLING_DEBUG_PROPERTY_NAME));
+	}
+
+	/**
+	 * Create a new pool.
+	 * @param name the name of the pool's thread-local state
+	 * @param retentionCheck whether to mark reusable invocations as released
+	 * instead of reusing them, detecting invocations retained by advice
+	 */
+	MethodInvocationPool(String name, boolean retentionCheck) {
+		this.pooledInvocations = new NamedThreadLocal<>(name);
+		this.retentionCheck = retentionCheck;
+	}
+
+
+	/**
+	 * Take a released invocation from the current thread's pool.
+	 * @return the invocation to reinitialize, or {@code null} if none available
+	 */
+	@Nullable
+	T acquire() {
+		List<T> pool = this.pooledInvocations.get();
+		return (pool != null && !pool.isEmpty() ? pool.remove(pool.size() - 1) : null);
+	}
+
+	/**
+	 * Release the given invocation after its proxied call completed,
+	 * returning it to the current thread's pool if it can be reused.
+	 */
+	void release(T invocation) {
+		if (!invocation.release(this.retentionCheck)) {
+			return;
+		}
+		List<T> pool = this.pooledInvocations.get();
+		if (pool == null) {
+			pool = new ArrayList<>(MAX_POOLED_INVOCATIONS_PER_THREAD);
+			this.pooledInvocations.set(pool);
+		}
+		if (pool.size() < MAX_POOLED_INVOCATIONS_PER_THREAD) {
+			pool.add(invocation);
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -30,6 +30,17 @@ import org.springframework.util.Assert;
  */
 public class ProxyConfig implements Serializable {
 
+	/**
+	 * System property that makes AOP proxies check that recycled method invocations
+	 * are not retained beyond their proxied call: "spring.aop.invocationRecycling.debug".
+	 * <p>If set to "true", invocations that would otherwise be recycled are not reused
+	 * but marked as completed instead, letting any further use of them fail with an
+	 * {@link IllegalStateException}.
+	 * @since 5.1.6
+	 * @see #setRecycleInvocations
+	 */
+	public static final String RECYCLING_DEBUG_PROPERTY_NAME = "spring.aop.invocationRecycling.debug";
+
 	/** use serialVersionUID from Spring 1.2 for interoperability. */
 	private static final long serialVersionUID = -8409359707199703185L;
 
@@ -44,6 +55,10 @@ public class ProxyConfig implements Serializable {
 
 	private boolean frozen = false;
 
+	private boolean recycleInvocations = false;
+
+	private boolean precomputeInterceptorChains = false;
+
 
 	/**
 	 * Set whether to proxy the target class directly, instead of just proxying
@@ -146,6 +161,56 @@ public class ProxyConfig implements Serializable {
 		return this.frozen;
 	}
 
+	/**
+	 * Set whether the AOP proxy should recycle its method invocation objects
+	 * across proxied calls on the same thread, instead of creating a new one
+	 * for each call with advice. Default is "false".
+	 * <p>An invocation only gets recycled if it proceeded to the target method
+	 * on the thread that made the proxied call and has not been cloned, so
+	 * invocations handed over to asynchronous advice are never reused. Beyond
+	 * that, advice must not keep a reference to the current invocation once the
+	 * proxied call completed, e.g. one obtained through
+	 * {@link org.springframework.aop.interceptor.ExposeInvocationInterceptor};
+	 * see {@link #RECYCLING_DEBUG_PROPERTY_NAME} for detecting such retention.
+	 * @since 5.1.6
+	 */
+	public void setRecycleInvocations(boolean recycleInvocations) {
+		this.recycleInvocations = recycleInvocations;
+	}
+
+	/**
+	 * Return whether the AOP proxy will recycle its method invocation objects.
+	 * @since 5.1.6
+	 */
+	public boolean isRecycleInvocations() {
+		return this.recycleInvocations;
+	}
+
+	/**
+	 * Set whether a CGLIB proxy should determine the advisor chains for all of
+	 * its public methods on creation, instead of lazily on the first call of each
+	 * method. Default is "false".
+	 * <p>Each advised method then gets dispatched straight to its precomputed chain,
+	 * avoiding a per-call chain lookup as long as the advice does not change.
+	 * This comes at the expense of one callback per public method of the proxy class.
+	 * Frozen proxies for static targets always use fixed chains per method.
+	 * <p>JDK dynamic proxies are not affected: they do not identify methods by
+	 * an ordinal that a precomputed chain could be dispatched on.
+	 * @since 5.1.6
+	 * @see AdvisedSupport#getInterceptorsAndDynamicInterceptionAdvice(java.lang.reflect.Method[], Class)
+	 */
+	public void setPrecomputeInterceptorChains(boolean precomputeInterceptorChains) {
+		this.precomputeInterceptorChains = precomputeInterceptorChains;
+	}
+
+	/**
+	 * Return whether a CGLIB proxy determines its advisor chains on creation.
+	 * @since 5.1.6
+	 */
+	public boolean isPrecomputeInterceptorChains() {
+		return this.precomputeInterceptorChains;
+	}
+
 
 	/**
 	 * Copy configuration from the other config object.
@@ -158,6 +223,8 @@ public class ProxyConfig implements Serializable {
 		this.exposeProxy = other.exposeProxy;
 		this.frozen = other.frozen;
 		this.opaque = other.opaque;
+		this.recycleInvocations = other.recycleInvocations;
+		this.precomputeInterceptorChains = other.precomputeInterceptorChains;
 	}
 
 	@Override
@@ -167,7 +234,9 @@ public class ProxyConfig implements Serializable {
 		sb.append("optimize=").append(this.optimize).append("; ");
 		sb.append("opaque=").append(this.opaque).append("; ");
 		sb.append("exposeProxy=").append(this.exposeProxy).append("; ");
-		sb.append("frozen=").append(this.frozen);
+		sb.append("frozen=").append(this.frozen).append("; ");
+		sb.append("recycleInvocations=").append(this.recycleInvocations).append("; ");
+		sb.append("precomputeInterceptorChains=").append(this.precomputeInterceptorChains);
 		return sb.toString();
 	}
 
@@ -0,0 +1,308 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.framework;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.BridgeMethodResolver;
+import org.springframework.lang.Nullable;
+
+/**
+ * Variant of {@link ReflectiveMethodInvocation} that can be reinitialized
+ * for another proxied call once released, used by AOP proxies that
+ * {@linkplain ProxyConfig#isRecycleInvocations() recycle their invocations}.
+ *
+ * <p>Kept separate from {@code ReflectiveMethodInvocation}, whose state
+ * is fixed on construction.
+ *
+ * @since 5.1.6
+ * @see MethodInvocationPool
+ */
+class RecyclableMethodInvocation implements ProxyMethodInvocation, Cloneable {
+
+	private static final Object[] EMPTY_ARGUMENTS = new Object[0];
+
+	@Nullable
+	private Object proxy;
+
+	@Nullable
+	private Object target;
+
+	@Nullable
+	private Method method;
+
+	private Object[] arguments = EMPTY_ARGUMENTS;
+
+	@Nullable
+	private Class<?> targetClass;
+
+	@Nullable
+	private Map<String, Object> userAttributes;
+
+	private List<?> interceptorsAndDynamicMethodMatchers = Collections.emptyList();
+
+	private int currentInterceptorIndex = -1;
+
+	/** The thread that the proxied call is made on. */
+	@Nullable
+	private Thread callingThread;
+
+	/** Whether the interceptor chain proceeded to the joinpoint on the calling thread. */
+	private boolean joinpointReached;
+
+	/** Whether this invocation has been cloned, possibly for later use. */
+	private boolean cloned;
+
+	/** Whether this invocation has been released and must not be used anymore. */
+	private boolean released;
+
+
+	/**
+	 * Construct a new RecyclableMethodInvocation for a proxied call on the current thread.
+	 * @see ReflectiveMethodInvocation#ReflectiveMethodInvocation
+	 */
+	RecyclableMethodInvocation(
+			Object proxy, @Nullable Object target, Method method, @Nullable Object[] arguments,
+			@Nullable Class<?> targetClass, List<Object> interceptorsAndDynamicMethodMatchers) {
+
+		reinitialize(proxy, target, method, arguments, targetClass, interceptorsAndDynamicMethodMatchers);
+	}
+
+
+	/**
+	 * Reinitialize this invocation for another proxied call on the current thread.
+	 * @see #release(boolean)
+	 */
+	void reinitialize(
+			Object proxy, @Nullable Object target, Method method, @Nullable Object[] arguments,
+			@Nullable Class<?> targetClass, List<Object> interceptorsAndDynamicMethodMatchers) {
+
+		this.proxy = proxy;
+		this.target = target;
+		this.targetClass = targetClass;
+		this.method = BridgeMethodResolver.findBridgedMethod(method);
+		this.arguments = AopProxyUtils.adaptArgumentsIfNecessary(method, arguments);
+		this.interceptorsAndDynamicMethodMatchers = interceptorsAndDynamicMethodMatchers;
+		this.currentInterceptorIndex = -1;
+		this.callingThread = Thread.currentThread();
+		this.joinpointReached = false;
+		this.released = false;
+	}
+
+	/**
+	 * Release this invocation once its proxied call completed, clearing its state.
+	 * <p>Invocations that did not proceed to the joinpoint on the calling thread,
+	 * or that have been cloned, may have been handed over to other threads, e.g.
+	 * by asynchronous advice; they are left untouched and must not be reused.
+	 * @param retentionCheck whether to keep a releasable invocation out of reuse,
+	 * so that any further use of it reliably fails
+	 * @return whether this invocation can be {@link #reinitialize reused}
+	 */
+	boolean release(boolean retentionCheck) {
+		if (!this.joinpointReached || this.cloned) {
+			return false;
+		}
+		this.proxy = null;
+		this.target = null;
+		this.method = null;
+		this.arguments = EMPTY_ARGUMENTS;
+		this.targetClass = null;
+		this.userAttributes = null;
+		this.interceptorsAndDynamicMethodMatchers = Collections.emptyList();
+		this.callingThread = null;
+		this.released = true;
+		return !retentionCheck;
+	}
+
+	private void assertNotReleased() {
+		if (this.released) {
+			throw new IllegalStateException("MethodInvocation used after its proxied call completed: " +
+					"advice must not retain invocations of proxies that recycle them");
+		}
+	}
+
+
+	@Override
+	public final Object getProxy() {
+		assertNotReleased();
+		return this.proxy;
+	}
+
+	@Override
+	@Nullable
+	public final Object getThis() {
+		assertNotReleased();
+		return this.target;
+	}
+
+	@Override
+	public final AccessibleObject getStaticPart() {
+		return getMethod();
+	}
+
+	@Override
+	public final Method getMethod() {
+		assertNotReleased();
+		return this.method;
+	}
+
+	@Override
+	public final Object[] getArguments() {
+		assertNotReleased();
+		return this.arguments;
+	}
+
+	@Override
+	public void setArguments(Object... arguments) {
+		assertNotReleased();
+		this.arguments = arguments;
+	}
+
+
+	@Override
+	@Nullable
+	public Object proceed() throws Throwable {
+		assertNotReleased();
+		//	We start with an index of -1 and increment early.
+		if (this.currentInterceptorIndex == this.interceptorsAndDynamicMethodMatchers.size() - 1) {
+			if (Thread.currentThread() == this.callingThread) {
+				this.joinpointReached = true;
+			}
+			return invokeJoinpoint();
+		}
+
+		Object interceptorOrInterceptionAdvice =
+				this.interceptorsAndDynamicMethodMatchers.get(++this.currentInterceptorIndex);
+		if (interceptorOrInterceptionAdvice instanceof InterceptorAndDynamicMethodMatcher) {
+			// Evaluate dynamic method matcher here: static part will already have
+			// been evaluated and found to match.
+			InterceptorAndDynamicMethodMatcher dm =
+					(InterceptorAndDynamicMethodMatcher) interceptorOrInterceptionAdvice;
+			Class<?> targetClass = (this.targetClass != null ? this.targetClass : this.method.getDeclaringClass());
+			if (dm.methodMatcher.matches(this.method, targetClass, this.arguments)) {
+				return dm.interceptor.invoke(this);
+			}
+			else {
+				// Dynamic matching failed.
+				// Skip this interceptor and invoke the next in the chain.
+				return proceed();
+			}
+		}
+		else {
+			// It's an interceptor, so we just invoke it: The pointcut will have
+			// been evaluated statically before this object was constructed.
+			return ((MethodInterceptor) interceptorOrInterceptionAdvice).invoke(this);
+		}
+	}
+
+	/**
+	 * Invoke the joinpoint using reflection.
+	 * Subclasses can override this to use custom invocation.
+	 * @return the return value of the joinpoint
+	 * @throws Throwable if invoking the joinpoint resulted in an exception
+	 */
+	@Nullable
+	protected Object invokeJoinpoint() throws Throwable {
+		return AopUtils.invokeJoinpointUsingReflection(this.target, this.method, this.arguments);
+	}
+
+
+	@Override
+	public MethodInvocation invocableClone() {
+		Object[] cloneArguments = getArguments();
+		if (cloneArguments.length > 0) {
+			// Build an independent copy of the arguments array.
+			cloneArguments = cloneArguments.clone();
+		}
+		return invocableClone(cloneArguments);
+	}
+
+	@Override
+	public MethodInvocation invocableClone(Object... arguments) {
+		assertNotReleased();
+		this.cloned = true;
+		// Force initialization of the user attributes Map,
+		// for having a shared Map reference in the clone.
+		if (this.userAttributes == null) {
+			this.userAttributes = new HashMap<>();
+		}
+
+		// Create the MethodInvocation clone.
+		try {
+			RecyclableMethodInvocation clone = (RecyclableMethodInvocation) clone();
+			clone.arguments = arguments;
+			return clone;
+		}
+		catch (CloneNotSupportedException ex) {
+			throw new IllegalStateException(
+					"Should be able to clone object of type [" + getClass() + "]: " + ex);
+		}
+	}
+
+
+	@Override
+	public void setUserAttribute(String key, @Nullable Object value) {
+		assertNotReleased();
+		if (value != null) {
+			if (this.userAttributes == null) {
+				this.userAttributes = new HashMap<>();
+			}
+			this.userAttributes.put(key, value);
+		}
+		else {
+			if (this.userAttributes != null) {
+				this.userAttributes.remove(key);
+			}
+		}
+	}
+
+	@Override
+	@Nullable
+	public Object getUserAttribute(String key) {
+		assertNotReleased();
+		return (this.userAttributes != null ? this.userAttributes.get(key) : null);
+	}
+
+
+	@Override
+	public String toString() {
+		if (this.released) {
+			return "RecyclableMethodInvocation: released";
+		}
+		// Don't do toString on target, it may be proxied.
+		StringBuilder sb = new StringBuilder("RecyclableMethodInvocation: ");
+		sb.append(this.method).append("; ");
+		if (this.target == null) {
+			sb.append("target is null");
+		}
+		else {
+			sb.append("target is of class [").append(this.target.getClass().getName()).append(']');
+		}
+		return sb.toString();
+	}
+
+}
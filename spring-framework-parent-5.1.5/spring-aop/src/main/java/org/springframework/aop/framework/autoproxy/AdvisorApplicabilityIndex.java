@@ -0,0 +1,185 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.framework.autoproxy;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.aop.Advisor;
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.PointcutAdvisor;
+import org.springframework.aop.support.AnnotationRequiringPointcut;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Index for rejecting advisors that cannot apply to a given bean class
+ * before evaluating their pointcuts against each method of the class.
+ *
+ * <p>Advisors with an {@link AnnotationRequiringPointcut} are classified by
+ * the annotation types they require. For each bean class, the annotation types
+ * present on the class, its superclasses and interfaces, their methods, as well
+ * as their meta-annotations are determined once; advisors requiring none of them
+ * are rejected right away. All remaining advisors go through the regular
+ * {@link AopUtils#findAdvisorsThatCanApply} algorithm.
+ *
+ * @since 5.1.6
+ * @see AbstractAdvisorAutoProxyCreator#findAdvisorsThatCanApply
+ */
+final class AdvisorApplicabilityIndex {
+
+	private static final Log logger = LogFactory.getLog(AdvisorApplicabilityIndex.class);
+
+	private static final Object NO_REQUIRED_ANNOTATIONS = new Object();
+
+	private static final Object UNKNOWN_ANNOTATIONS = new Object();
+
+
+	private final Map<Advisor, Object> requiredAnnotationTypes = new ConcurrentReferenceHashMap<>(64);
+
+	private final Map<Class<?>, Object> presentAnnotationTypes = new ConcurrentReferenceHashMap<>(256);
+
+
+	/**
+	 * Determine the sublist of the given advisors that can apply to the given class.
+	 * @param candidateAdvisors the advisors to evaluate
+	 * @param clazz the target class
+	 * @return the advisors that can apply, in the order of the given advisors
+	 * @see AopUtils#findAdvisorsThatCanApply
+	 */
+	List<Advisor> findAdvisorsThatCanApply(List<Advisor> candidateAdvisors, Class<?> clazz) {
+		if (candidateAdvisors.isEmpty()) {
+			return candidateAdvisors;
+		}
+		Set<String> presentTypes = null;
+		List<Advisor> remainingAdvisors = new ArrayList<>(candidateAdvisors.size());
+		for (Advisor candidate : candidateAdvisors) {
+			Set<String> requiredTypes = getRequiredAnnotationTypes(candidate);
+			if (requiredTypes != null) {
+				if (presentTypes == null) {
+					presentTypes = getPresentAnnotationTypes(clazz);
+				}
+				if (presentTypes != null && Collections.disjoint(requiredTypes, presentTypes)) {
+					continue;
+				}
+			}
+			remainingAdvisors.add(candidate);
+		}
+		return AopUtils.findAdvisorsThatCanApply(remainingAdvisors, clazz);
+	}
+
+	@Nullable
+	@SuppressWarnings("unchecked")
+	private Set<String> getRequiredAnnotationTypes(Advisor advisor) {
+		Object requiredTypes = this.requiredAnnotationTypes.get(advisor);
+		if (requiredTypes == null) {
+			requiredTypes = NO_REQUIRED_ANNOTATIONS;
+			if (advisor instanceof PointcutAdvisor) {
+				Pointcut pointcut = ((PointcutAdvisor) advisor).getPointcut();
+				if (pointcut instanceof AnnotationRequiringPointcut) {
+					Set<String> types = ((AnnotationRequiringPointcut) pointcut).getRequiredAnnotationTypes();
+					if (types != null) {
+						requiredTypes = types;
+					}
+				}
+			}
+			this.requiredAnnotationTypes.put(advisor, requiredTypes);
+		}
+		return (requiredTypes != NO_REQUIRED_ANNOTATIONS ? (Set<String>) requiredTypes : null);
+	}
+
+	@Nullable
+	@SuppressWarnings("unchecked")
+	private Set<String> getPresentAnnotationTypes(Class<?> clazz) {
+		Object presentTypes = this.presentAnnotationTypes.get(clazz);
+		if (presentTypes == null) {
+			try {
+				presentTypes = collectAnnotationTypes(clazz);
+			}
+			catch (Throwable ex) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Failed to introspect annotations on " + clazz + " - evaluating all advisors", ex);
+				}
+				presentTypes = UNKNOWN_ANNOTATIONS;
+			}
+			this.presentAnnotationTypes.put(clazz, presentTypes);
+		}
+		return (presentTypes != UNKNOWN_ANNOTATIONS ? (Set<String>) presentTypes : null);
+	}
+
+	/**
+	 * Collect the annotation types on the same classes and methods that
+	 * {@link AopUtils#canApply(Pointcut, Class, boolean)} evaluates.
+	 */
+	private static Set<String> collectAnnotationTypes(Class<?> clazz) {
+		Set<Class<?>> classes = new HashSet<>();
+		if (!Proxy.isProxyClass(clazz)) {
+			classes.add(ClassUtils.getUserClass(clazz));
+		}
+		classes.addAll(ClassUtils.getAllInterfacesForClassAsSet(clazz));
+
+		Set<String> annotationTypes = new HashSet<>();
+		Set<Class<?>> visitedTypes = new HashSet<>();
+		for (Class<?> current : classes) {
+			collectTypeAnnotationTypes(current, visitedTypes, annotationTypes);
+			ReflectionUtils.doWithMethods(current, method -> collectAnnotationTypes(method, annotationTypes));
+		}
+		return annotationTypes;
+	}
+
+	private static void collectTypeAnnotationTypes(
+			@Nullable Class<?> type, Set<Class<?>> visitedTypes, Set<String> annotationTypes) {
+
+		if (type == null || type == Object.class || !visitedTypes.add(type)) {
+			return;
+		}
+		collectAnnotationTypes(type, annotationTypes);
+		for (Class<?> ifc : type.getInterfaces()) {
+			collectTypeAnnotationTypes(ifc, visitedTypes, annotationTypes);
+		}
+		collectTypeAnnotationTypes(type.getSuperclass(), visitedTypes, annotationTypes);
+	}
+
+	private static void collectAnnotationTypes(AnnotatedElement element, Set<String> annotationTypes) {
+		for (Annotation annotation : element.getAnnotations()) {
+			collectAnnotationType(annotation.annotationType(), annotationTypes);
+		}
+	}
+
+	private static void collectAnnotationType(Class<? extends Annotation> type, Set<String> annotationTypes) {
+		String typeName = type.getName();
+		if (!AnnotationUtils.isInJavaLangAnnotationPackage(typeName) && annotationTypes.add(typeName)) {
+			// Include meta-annotations, recursively
+			collectAnnotationTypes(type, annotationTypes);
+		}
+	}
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.support;
+
+import java.util.Set;
+
+import org.springframework.aop.Pointcut;
+import org.springframework.lang.Nullable;
+
+/**
+ * Extension of the {@link Pointcut} interface for pointcuts that can only
+ * match classes carrying one of a known set of annotations.
+ *
+ * <p>Allows for rejecting a class without evaluating the pointcut against each
+ * of its methods, e.g. when auto-proxying a large number of beans.
+ *
+ * @since 5.1.6
+ * @see org.springframework.aop.framework.autoproxy.AbstractAdvisorAutoProxyCreator
+ */
+public interface AnnotationRequiringPointcut extends Pointcut {
+
+	/**
+	 * Return the names of the annotation types of which at least one needs to be
+	 * present for this pointcut to match a given target class: on the class itself,
+	 * on one of its superclasses or interfaces, on one of their methods, or as a
+	 * meta-annotation on any such annotation.
+	 * @return the annotation type names, or {@code null} if this pointcut does not
+	 * require any specific annotation
+	 */
+	@Nullable
+	Set<String> getRequiredAnnotationTypes();
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,10 +17,12 @@
 package org.springframework.aop.support.annotation;
 
 import java.lang.annotation.Annotation;
+import java.util.Collections;
+import java.util.Set;
 
 import org.springframework.aop.ClassFilter;
 import org.springframework.aop.MethodMatcher;
-import org.springframework.aop.Pointcut;
+import org.springframework.aop.support.AnnotationRequiringPointcut;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 
@@ -34,12 +36,14 @@ import org.springframework.util.Assert;
  * @see AnnotationClassFilter
  * @see AnnotationMethodMatcher
  */
-public class AnnotationMatchingPointcut implements Pointcut {
+public class AnnotationMatchingPointcut implements AnnotationRequiringPointcut {
 
 	private final ClassFilter classFilter;
 
 	private final MethodMatcher methodMatcher;
 
+	private final Set<String> requiredAnnotationTypes;
+
 
 	/**
 	 * Create a new AnnotationMatchingPointcut for the given annotation type.
@@ -59,6 +63,7 @@ public class AnnotationMatchingPointcut implements Pointcut {
 	public AnnotationMatchingPointcut(Class<? extends Annotation> classAnnotationType, boolean checkInherited) {
 		this.classFilter = new AnnotationClassFilter(classAnnotationType, checkInherited);
 		this.methodMatcher = MethodMatcher.TRUE;
+		this.requiredAnnotationTypes = Collections.singleton(classAnnotationType.getName());
 	}
 
 	/**
@@ -105,6 +110,10 @@ public class AnnotationMatchingPointcut implements Pointcut {
 		else {
 			this.methodMatcher = MethodMatcher.TRUE;
 		}
+
+		// Both annotations need to be present if specified: either one is a requirement
+		this.requiredAnnotationTypes = Collections.singleton(classAnnotationType != null ?
+				classAnnotationType.getName() : methodAnnotationType.getName());
 	}
 
 
@@ -118,6 +127,18 @@ public class AnnotationMatchingPointcut implements Pointcut {
 		return this.methodMatcher;
 	}
 
+	/**
+	 * Return the class-level or method-level annotation type specified for this
+	 * pointcut. Subclasses may match differently, so no requirement is reported
+	 * for them.
+	 * @since 5.1.6
+	 */
+	@Override
+	@Nullable
+	public Set<String> getRequiredAnnotationTypes() {
+		return (getClass() == AnnotationMatchingPointcut.class ? this.requiredAnnotationTypes : null);
+	}
+
 	@Override
 	public boolean equals(Object other) {
 		if (this == other) {
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.aspectj;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.tests.sample.beans.ITestBean;
+import org.springframework.tests.sample.beans.TestBean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link PersistentShadowMatchCache}.
+ *
+ * @since 5.1.6
+ */
+public class PersistentShadowMatchCacheTests {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private File file;
+
+	private Method getAge;
+
+	private Method setAge;
+
+
+	@Before
+	public void setUp() throws Exception {
+		this.file = new File(this.temporaryFolder.getRoot(), "shadow-matches.bin");
+		this.getAge = TestBean.class.getMethod("getAge");
+		this.setAge = TestBean.class.getMethod("setAge", int.class);
+	}
+
+
+	@Test
+	public void restoresOutcomesAfterSave() throws Exception {
+		PersistentShadowMatchCache cache = new PersistentShadowMatchCache(this.file);
+		AspectJExpressionPointcut pointcut = pointcut("execution(* get*(..))", cache);
+		assertTrue(pointcut.matches(this.getAge, TestBean.class));
+		assertFalse(pointcut.matches(this.setAge, TestBean.class));
+		assertEquals(2, cache.size());
+		assertEquals(0, cache.getHitCount());
+		cache.save();
+		assertTrue(this.file.exists());
+
+		PersistentShadowMatchCache reloaded = new PersistentShadowMatchCache(this.file);
+		assertEquals(0, reloaded.size());
+		AspectJExpressionPointcut restored = pointcut("execution(* get*(..))", reloaded);
+		assertTrue(restored.matches(this.getAge, TestBean.class));
+		assertFalse(restored.matches(this.setAge, TestBean.class));
+		assertEquals(2, reloaded.getHitCount());
+		assertEquals(0, reloaded.getMissCount());
+		assertEquals(2, reloaded.size());
+
+		AspectJExpressionPointcut other = pointcut("execution(* set*(..))", reloaded);
+		assertFalse(other.matches(this.getAge, TestBean.class));
+		assertTrue(other.matches(this.setAge, TestBean.class));
+		assertEquals(2, reloaded.getHitCount());
+		assertEquals(4, reloaded.size());
+	}
+
+	@Test
+	public void onlyStoresNegativeOutcomesForBindingPointcuts() throws Exception {
+		PersistentShadowMatchCache cache = new PersistentShadowMatchCache(this.file);
+		AspectJExpressionPointcut pointcut = pointcut("execution(* setAge(..)) && args(age)", cache);
+		pointcut.setParameterNames("age");
+		pointcut.setParameterTypes(int.class);
+		assertTrue(pointcut.matches(this.setAge, TestBean.class));
+		assertFalse(pointcut.matches(this.getAge, TestBean.class));
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void doesNotStoreOutcomesForBeanPointcuts() {
+		PersistentShadowMatchCache cache = new PersistentShadowMatchCache(this.file);
+		AspectJExpressionPointcut pointcut = pointcut("execution(* get*(..)) && bean(myBean)", cache);
+		pointcut.matches(this.getAge, TestBean.class);
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.getMissCount());
+	}
+
+	@Test
+	public void doesNotStoreOutcomesForBeanPointcutsInNamedPointcuts() {
+		PersistentShadowMatchCache cache = new PersistentShadowMatchCache(this.file);
+		AspectJExpressionPointcut pointcut = pointcut("operation() && beans()", GetterPointcuts.class, cache);
+		pointcut.matches(this.getAge, TestBean.class);
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.getMissCount());
+	}
+
+	@Test
+	public void keysDependOnResolvedNamedPointcut() throws Exception {
+		PersistentShadowMatchCache cache = new PersistentShadowMatchCache(this.file);
+		assertTrue(pointcut("operation()", GetterPointcuts.class, cache).matches(this.getAge, TestBean.class));
+		cache.save();
+
+		PersistentShadowMatchCache reloaded = new PersistentShadowMatchCache(this.file);
+		assertTrue(pointcut("operation()", GetterPointcuts.class, reloaded).matches(this.getAge, TestBean.class));
+		assertEquals(1, reloaded.getHitCount());
+		// Same expression, but a different definition of the named pointcut
+		assertFalse(pointcut("operation()", SetterPointcuts.class, reloaded).matches(this.getAge, TestBean.class));
+		assertTrue(pointcut("operation()", SetterPointcuts.class, reloaded).matches(this.setAge, TestBean.class));
+		assertEquals(1, reloaded.getHitCount());
+	}
+
+	@Test
+	public void keysDependOnMethodAndExpression() throws Exception {
+		String key = PersistentShadowMatchCache.getKey("execution(* *(..))", this.getAge, this.getAge);
+		assertNotNull(key);
+		assertEquals(key, PersistentShadowMatchCache.getKey("execution(* *(..))", this.getAge, this.getAge));
+		assertNotEquals(key, PersistentShadowMatchCache.getKey("execution(* get*(..))", this.getAge, this.getAge));
+		assertNotEquals(key, PersistentShadowMatchCache.getKey("execution(* *(..))", this.setAge, this.setAge));
+		assertNotEquals(key, PersistentShadowMatchCache.getKey("execution(* *(..))", this.getAge,
+				ITestBean.class.getMethod("getAge")));
+	}
+
+	@Test
+	public void ignoresCorruptFile() throws Exception {
+		Files.write(this.file.toPath(), new byte[] {1, 2, 3});
+		PersistentShadowMatchCache cache = new PersistentShadowMatchCache(this.file);
+		AspectJExpressionPointcut pointcut = pointcut("execution(* get*(..))", cache);
+		assertTrue(pointcut.matches(this.getAge, TestBean.class));
+		assertEquals(0, cache.getHitCount());
+		cache.save();
+
+		PersistentShadowMatchCache reloaded = new PersistentShadowMatchCache(this.file);
+		assertTrue(pointcut("execution(* get*(..))", reloaded).matches(this.getAge, TestBean.class));
+		assertEquals(1, reloaded.getHitCount());
+	}
+
+
+	private static AspectJExpressionPointcut pointcut(String expression, PersistentShadowMatchCache cache) {
+		AspectJExpressionPointcut pointcut = new AspectJExpressionPointcut();
+		pointcut.setExpression(expression);
+		pointcut.setPersistentShadowMatchCache(cache);
+		return pointcut;
+	}
+
+	private static AspectJExpressionPointcut pointcut(
+			String expression, Class<?> declarationScope, PersistentShadowMatchCache cache) {
+
+		AspectJExpressionPointcut pointcut =
+				new AspectJExpressionPointcut(declarationScope, new String[0], new Class<?>[0]);
+		pointcut.setExpression(expression);
+		pointcut.setPersistentShadowMatchCache(cache);
+		return pointcut;
+	}
+
+
+	@Aspect
+	public static class GetterPointcuts {
+
+		@Pointcut("execution(* get*(..))")
+		public void operation() {
+		}
+
+		@Pointcut("bean(myBean)")
+		public void beans() {
+		}
+	}
+
+
+	@Aspect
+	public static class SetterPointcuts {
+
+		@Pointcut("execution(* set*(..))")
+		public void operation() {
+		}
+	}
+
+}
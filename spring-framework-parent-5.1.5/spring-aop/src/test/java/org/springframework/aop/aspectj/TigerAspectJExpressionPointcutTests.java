@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,9 +17,13 @@
 package org.springframework.aop.aspectj;
 
 import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -195,6 +199,29 @@ public class TigerAspectJExpressionPointcutTests {
 		assertFalse(anySpringMethodAnnotation.matches(BeanA.class.getMethod("setName", String.class), BeanA.class));
 	}
 
+	@Test
+	public void testRequiredAnnotationTypes() {
+		assertEquals(Collections.singleton(Tx.class.getName()),
+				getRequiredAnnotationTypes("@annotation(test.annotation.transaction.Tx)"));
+		assertEquals(Collections.singleton(Tx.class.getName()),
+				getRequiredAnnotationTypes("execution(@test.annotation.transaction.Tx * *(..))"));
+		assertEquals(Collections.singleton(Tx.class.getName()),
+				getRequiredAnnotationTypes("execution(* set*(..)) && @within(test.annotation.transaction.Tx)"));
+		assertEquals(new HashSet<>(Arrays.asList(Tx.class.getName(), EmptySpringAnnotation.class.getName())),
+				getRequiredAnnotationTypes("@within(test.annotation.transaction.Tx) || " +
+						"@annotation(test.annotation.EmptySpringAnnotation)"));
+		assertNull(getRequiredAnnotationTypes("execution(* set*(..))"));
+		assertNull(getRequiredAnnotationTypes("!@annotation(test.annotation.transaction.Tx)"));
+		assertNull(getRequiredAnnotationTypes("@annotation(test.annotation.transaction.Tx) || execution(* set*(..))"));
+		assertNull(getRequiredAnnotationTypes("@args(test.annotation.EmptySpringAnnotation)"));
+	}
+
+	private Set<String> getRequiredAnnotationTypes(String expression) {
+		AspectJExpressionPointcut ajexp = new AspectJExpressionPointcut();
+		ajexp.setExpression(expression);
+		return ajexp.getRequiredAnnotationTypes();
+	}
+
 	@Test
 	public void testAnnotationOnMethodArgumentsWithFQN() throws Exception {
 		String expression = "@args(*, test.annotation.EmptySpringAnnotation))";
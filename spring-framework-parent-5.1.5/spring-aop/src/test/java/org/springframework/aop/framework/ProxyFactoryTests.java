@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,8 +16,12 @@
 
 package org.springframework.aop.framework;
 
+import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.accessibility.Accessible;
 import javax.swing.JFrame;
 import javax.swing.RootPaneContainer;
@@ -28,11 +32,17 @@ import org.junit.Ignore;
 import org.junit.Test;
 
 import org.springframework.aop.Advisor;
+import org.springframework.aop.AopInvocationException;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.aop.interceptor.AsyncExecutionInterceptor;
 import org.springframework.aop.interceptor.DebugInterceptor;
 import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.ComposablePointcut;
 import org.springframework.aop.support.DefaultIntroductionAdvisor;
 import org.springframework.aop.support.DefaultPointcutAdvisor;
 import org.springframework.aop.support.DelegatingIntroductionInterceptor;
+import org.springframework.aop.support.RootClassFilter;
+import org.springframework.aop.target.HotSwappableTargetSource;
 import org.springframework.core.annotation.AnnotationAwareOrderComparator;
 import org.springframework.core.annotation.Order;
 import org.springframework.tests.TimeStamped;
@@ -379,6 +389,260 @@ public class ProxyFactoryTests {
 		assertEquals("tb", proxy.getName());
 	}
 
+	@Test
+	public void testFrozenJdkProxyInvokesTargetWithoutReflection() throws Throwable {
+		StackCapturingRunnable target = new StackCapturingRunnable();
+		ProxyFactory pf = new ProxyFactory(target);
+		pf.addAdvice(new NopInterceptor());
+		pf.setFrozen(true);
+		Runnable proxy = (Runnable) pf.getProxy();
+		assertTrue(AopUtils.isJdkDynamicProxy(proxy));
+		proxy.run();
+		assertFalse(Arrays.toString(target.stackTrace), containsReflectiveCall(target.stackTrace));
+
+		ProxyFactory pf2 = new ProxyFactory(target);
+		pf2.setFrozen(true);
+		((Runnable) pf2.getProxy()).run();
+		assertFalse(Arrays.toString(target.stackTrace), containsReflectiveCall(target.stackTrace));
+
+		ProxyFactory pf3 = new ProxyFactory(target);
+		pf3.addAdvice(new NopInterceptor());
+		((Runnable) pf3.getProxy()).run();
+		assertTrue(containsReflectiveCall(target.stackTrace));
+	}
+
+	@Test
+	public void testFrozenJdkProxyPropagatesTargetExceptionAndArguments() throws Throwable {
+		ProxyFactory pf = new ProxyFactory(new TestBean("tb"));
+		pf.addAdvice((MethodInterceptor) invocation -> {
+			if (invocation.getMethod().getName().equals("setName")) {
+				invocation.getArguments()[0] = "intercepted";
+			}
+			return invocation.proceed();
+		});
+		pf.setFrozen(true);
+		ITestBean proxy = (ITestBean) pf.getProxy();
+		proxy.setName("name");
+		assertEquals("intercepted", proxy.getName());
+		Exception ex = new Exception();
+		try {
+			proxy.exceptional(ex);
+			fail("Should have thrown exception");
+		}
+		catch (Exception actual) {
+			assertSame(ex, actual);
+		}
+	}
+
+	@Test
+	public void testRecycledInvocationsAreReusedOnJdkProxy() {
+		assertInvocationsReused(false, false);
+		assertInvocationsReused(false, true);
+	}
+
+	@Test
+	public void testRecycledInvocationsAreReusedOnCglibProxy() {
+		assertInvocationsReused(true, false);
+		assertInvocationsReused(true, true);
+	}
+
+	private void assertInvocationsReused(boolean proxyTargetClass, boolean frozen) {
+		List<MethodInvocation> invocations = new ArrayList<>();
+		ProxyFactory pf = new ProxyFactory(new TestBean("tb", 21));
+		pf.setProxyTargetClass(proxyTargetClass);
+		pf.addAdvice((MethodInterceptor) invocation -> {
+			invocations.add(invocation);
+			return invocation.proceed();
+		});
+		pf.setRecycleInvocations(true);
+		pf.setFrozen(frozen);
+		ITestBean proxy = (ITestBean) pf.getProxy();
+		assertEquals(proxyTargetClass, AopUtils.isCglibProxy(proxy));
+		assertEquals("tb", proxy.getName());
+		assertEquals(21, proxy.getAge());
+		assertEquals(2, invocations.size());
+		assertSame(invocations.get(0), invocations.get(1));
+
+		pf.setRecycleInvocations(false);
+		ITestBean otherProxy = (ITestBean) pf.getProxy();
+		assertEquals("tb", otherProxy.getName());
+		assertEquals("tb", otherProxy.getName());
+		assertEquals(4, invocations.size());
+		assertNotSame(invocations.get(2), invocations.get(3));
+	}
+
+	@Test
+	public void testRecycledInvocationsAreNotReusedIfClonedOrNotProceeded() throws Throwable {
+		List<MethodInvocation> invocations = new ArrayList<>();
+		ProxyFactory pf = new ProxyFactory(new TestBean("tb"));
+		pf.addAdvice((MethodInterceptor) invocation -> {
+			invocations.add(invocation);
+			if (invocation.getMethod().getName().equals("getName")) {
+				return ((ProxyMethodInvocation) invocation).invocableClone().proceed();
+			}
+			return (invocation.getMethod().getName().equals("getAge") ? 42 : invocation.proceed());
+		});
+		pf.setRecycleInvocations(true);
+		ITestBean proxy = (ITestBean) pf.getProxy();
+		assertEquals("tb", proxy.getName());
+		assertEquals(42, proxy.getAge());
+		proxy.toString();
+		proxy.toString();
+		assertEquals(4, invocations.size());
+		assertNotSame(invocations.get(0), invocations.get(1));
+		assertNotSame(invocations.get(1), invocations.get(2));
+		assertSame(invocations.get(2), invocations.get(3));
+	}
+
+	@Test
+	public void testRecycledInvocationsAreNotReusedAfterAsyncProceed() throws Throwable {
+		// Executor that completes the task on another thread before the proxied call returns
+		Executor executor = task -> {
+			Thread thread = new Thread(task);
+			thread.start();
+			try {
+				thread.join();
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		};
+		List<MethodInvocation> invocations = new ArrayList<>();
+		TestBean target = new TestBean();
+		ProxyFactory pf = new ProxyFactory(target);
+		pf.addAdvice((MethodInterceptor) invocation -> {
+			invocations.add(invocation);
+			return invocation.proceed();
+		});
+		pf.addAdvice(new AsyncExecutionInterceptor(executor));
+		pf.setRecycleInvocations(true);
+		ITestBean proxy = (ITestBean) pf.getProxy();
+		proxy.setName("first");
+		proxy.setName("second");
+		assertEquals("second", target.getName());
+		assertEquals(2, invocations.size());
+		assertNotSame(invocations.get(0), invocations.get(1));
+		assertSame(target, invocations.get(0).getThis());
+		assertEquals("first", invocations.get(0).getArguments()[0]);
+	}
+
+	@Test
+	public void testRecycledInvocationIsClearedOnRelease() throws Throwable {
+		List<MethodInvocation> invocations = new ArrayList<>();
+		ProxyFactory pf = new ProxyFactory(new TestBean("tb"));
+		pf.addAdvice((MethodInterceptor) invocation -> {
+			invocations.add(invocation);
+			return invocation.proceed();
+		});
+		pf.setRecycleInvocations(true);
+		ITestBean proxy = (ITestBean) pf.getProxy();
+		assertEquals("tb", proxy.getName());
+		try {
+			invocations.get(0).getThis();
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			// expected
+		}
+		assertEquals("RecyclableMethodInvocation: released", invocations.get(0).toString());
+	}
+
+	@Test
+	public void testRetainedInvocationFailsWithRetentionCheck() throws Throwable {
+		MethodInvocationPool<RecyclableMethodInvocation> pool = new MethodInvocationPool<>("test", true);
+		TestBean target = new TestBean("tb");
+		RecyclableMethodInvocation invocation = new RecyclableMethodInvocation(target, target,
+				ITestBean.class.getMethod("getName"), null, TestBean.class, new ArrayList<>());
+		assertEquals("tb", invocation.proceed());
+		pool.release(invocation);
+		assertNull(pool.acquire());
+		try {
+			invocation.getArguments();
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testPrecomputedInterceptorChainsOnCglibProxy() {
+		AtomicInteger chainCount = new AtomicInteger();
+		ProxyFactory pf = new ProxyFactory(new TestBean("tb", 21));
+		pf.setProxyTargetClass(true);
+		pf.setAdvisorChainFactory((config, method, targetClass) -> {
+			chainCount.incrementAndGet();
+			return new DefaultAdvisorChainFactory().getInterceptorsAndDynamicInterceptionAdvice(
+					config, method, targetClass);
+		});
+		NopInterceptor nop = new NopInterceptor();
+		pf.addAdvice(nop);
+		pf.setPrecomputeInterceptorChains(true);
+		ITestBean proxy = (ITestBean) pf.getProxy();
+		assertTrue(AopUtils.isCglibProxy(proxy));
+		int precomputedCount = chainCount.get();
+		assertTrue(precomputedCount > 0);
+		assertEquals("tb", proxy.getName());
+		assertEquals(21, proxy.getAge());
+		assertEquals(2, nop.getCount());
+		assertEquals(precomputedCount, chainCount.get());
+
+		NopInterceptor otherNop = new NopInterceptor();
+		pf.addAdvice(otherNop);
+		assertEquals("tb", proxy.getName());
+		assertEquals(3, nop.getCount());
+		assertEquals(1, otherNop.getCount());
+		assertEquals(precomputedCount + 1, chainCount.get());
+	}
+
+	@Test
+	public void testPrecomputedInterceptorChainsNotUsedForOtherTargetClass() {
+		HotSwappableTargetSource targetSource = new HotSwappableTargetSource(new TestBean("tb"));
+		ProxyFactory pf = new ProxyFactory();
+		pf.setTargetSource(targetSource);
+		pf.setProxyTargetClass(true);
+		NopInterceptor nop = new NopInterceptor();
+		pf.addAdvisor(new DefaultPointcutAdvisor(
+				new ComposablePointcut(new RootClassFilter(SubclassTestBean.class)), nop));
+		pf.setPrecomputeInterceptorChains(true);
+		ITestBean proxy = (ITestBean) pf.getProxy();
+		assertEquals("tb", proxy.getName());
+		assertEquals(0, nop.getCount());
+
+		targetSource.swap(new SubclassTestBean("sub"));
+		assertEquals("sub", proxy.getName());
+		assertEquals(1, nop.getCount());
+	}
+
+	@Test
+	public void testFrozenJdkProxyReportsMismatchedArguments() {
+		ProxyFactory pf = new ProxyFactory(new TestBean("tb"));
+		pf.addAdvice((MethodInterceptor) invocation -> {
+			String methodName = invocation.getMethod().getName();
+			if (methodName.equals("setName") || methodName.equals("setAge")) {
+				invocation.getArguments()[0] = (methodName.equals("setName") ? 42 : null);
+			}
+			return invocation.proceed();
+		});
+		pf.setFrozen(true);
+		ITestBean proxy = (ITestBean) pf.getProxy();
+		try {
+			proxy.setName("name");
+			fail("Should have thrown AopInvocationException");
+		}
+		catch (AopInvocationException ex) {
+			assertTrue(ex.getCause() instanceof IllegalArgumentException);
+		}
+		try {
+			proxy.setAge(42);
+			fail("Should have thrown AopInvocationException");
+		}
+		catch (AopInvocationException ex) {
+			assertTrue(ex.getCause() instanceof IllegalArgumentException);
+		}
+		assertEquals("tb", proxy.getName());
+	}
+
 
 	@SuppressWarnings("serial")
 	private static class TimestampIntroductionInterceptor extends DelegatingIntroductionInterceptor
@@ -404,6 +668,39 @@ public class ProxyFactoryTests {
 	}
 
 
+	private static boolean containsReflectiveCall(StackTraceElement[] stackTrace) {
+		// Only check the frames between the proxy call in the test method and the target
+		for (StackTraceElement element : stackTrace) {
+			if (element.getClassName().equals(ProxyFactoryTests.class.getName())) {
+				return false;
+			}
+			if (element.getClassName().equals(Method.class.getName()) && element.getMethodName().equals("invoke")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	public static class StackCapturingRunnable implements Runnable {
+
+		StackTraceElement[] stackTrace;
+
+		@Override
+		public void run() {
+			this.stackTrace = new Throwable().getStackTrace();
+		}
+	}
+
+
+	public static class SubclassTestBean extends TestBean {
+
+		public SubclassTestBean(String name) {
+			super(name);
+		}
+	}
+
+
 	@Order(2)
 	public static class A implements Runnable {
 
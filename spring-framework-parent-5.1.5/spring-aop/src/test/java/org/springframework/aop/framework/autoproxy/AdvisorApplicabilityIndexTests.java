@@ -0,0 +1,203 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.framework.autoproxy;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+import test.annotation.transaction.Tx;
+
+import org.springframework.aop.Advisor;
+import org.springframework.aop.ClassFilter;
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.aspectj.AspectJExpressionPointcut;
+import org.springframework.aop.support.AnnotationRequiringPointcut;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.tests.aop.interceptor.NopInterceptor;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link AdvisorApplicabilityIndex}.
+ *
+ * @since 5.1.6
+ */
+public class AdvisorApplicabilityIndexTests {
+
+	private final AdvisorApplicabilityIndex index = new AdvisorApplicabilityIndex();
+
+
+	@Test
+	public void rejectsAdvisorsWithoutEvaluatingMethods() {
+		CountingAnnotationPointcut pointcut = new CountingAnnotationPointcut(Tx.class.getName());
+		Advisor advisor = new DefaultPointcutAdvisor(pointcut, new NopInterceptor());
+		assertTrue(this.index.findAdvisorsThatCanApply(Collections.singletonList(advisor), Plain.class).isEmpty());
+		assertEquals(0, pointcut.count);
+		assertEquals(Collections.singletonList(advisor),
+				this.index.findAdvisorsThatCanApply(Collections.singletonList(advisor), AnnotatedMethod.class));
+		assertTrue(pointcut.count > 0);
+	}
+
+	@Test
+	public void keepsOrderAndAgreesWithAopUtils() {
+		List<Advisor> advisors = Arrays.asList(
+				advisor(AnnotationMatchingPointcut.forMethodAnnotation(Tx.class)),
+				advisor(new AnnotationMatchingPointcut(Tx.class, true)),
+				advisor(aspectJPointcut("execution(* *(..))")),
+				advisor(aspectJPointcut("@annotation(test.annotation.transaction.Tx)")),
+				advisor(aspectJPointcut("@within(test.annotation.transaction.Tx)")),
+				advisor(new AnnotationMatchingPointcut(null, Composed.class, true)),
+				advisor(new AnnotationMatchingPointcut(null, Meta.class, true)));
+
+		for (Class<?> clazz : Arrays.asList(Plain.class, AnnotatedMethod.class, AnnotatedInterfaceMethod.class,
+				AnnotatedSuperclass.class, MetaAnnotatedMethod.class)) {
+			assertEquals(clazz.getName(), AopUtils.findAdvisorsThatCanApply(advisors, clazz),
+					this.index.findAdvisorsThatCanApply(advisors, clazz));
+		}
+		assertEquals(Collections.singletonList(advisors.get(2)),
+				this.index.findAdvisorsThatCanApply(advisors, Plain.class));
+		assertEquals(Arrays.asList(advisors.get(2), advisors.get(5), advisors.get(6)),
+				this.index.findAdvisorsThatCanApply(advisors, MetaAnnotatedMethod.class));
+	}
+
+	@Test
+	public void keepsAnnotationMatchingPointcutSubclasses() {
+		AnnotationMatchingPointcut pointcut = new AnnotationMatchingPointcut(Tx.class) {
+			@Override
+			public ClassFilter getClassFilter() {
+				return ClassFilter.TRUE;
+			}
+		};
+		assertNull(pointcut.getRequiredAnnotationTypes());
+		assertEquals(Collections.singleton(Tx.class.getName()),
+				new AnnotationMatchingPointcut(Tx.class).getRequiredAnnotationTypes());
+		Advisor advisor = advisor(pointcut);
+		assertEquals(Collections.singletonList(advisor),
+				this.index.findAdvisorsThatCanApply(Collections.singletonList(advisor), Plain.class));
+	}
+
+
+	private static Advisor advisor(Pointcut pointcut) {
+		return new DefaultPointcutAdvisor(pointcut, new NopInterceptor());
+	}
+
+	private static AspectJExpressionPointcut aspectJPointcut(String expression) {
+		AspectJExpressionPointcut pointcut = new AspectJExpressionPointcut();
+		pointcut.setExpression(expression);
+		return pointcut;
+	}
+
+
+	@SuppressWarnings("serial")
+	private static class CountingAnnotationPointcut extends StaticMethodMatcherPointcut
+			implements AnnotationRequiringPointcut {
+
+		private final String annotationType;
+
+		private int count;
+
+		CountingAnnotationPointcut(String annotationType) {
+			this.annotationType = annotationType;
+		}
+
+		@Override
+		public boolean matches(Method method, Class<?> targetClass) {
+			this.count++;
+			return true;
+		}
+
+		@Override
+		public Set<String> getRequiredAnnotationTypes() {
+			return Collections.singleton(this.annotationType);
+		}
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE, ElementType.METHOD, ElementType.ANNOTATION_TYPE})
+	@interface Meta {
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target(ElementType.METHOD)
+	@Meta
+	@interface Composed {
+	}
+
+
+	public static class Plain {
+
+		public void foo() {
+		}
+	}
+
+
+	public static class AnnotatedMethod {
+
+		@Tx
+		public void foo() {
+		}
+	}
+
+
+	public interface AnnotatedInterface {
+
+		@Tx
+		void foo();
+	}
+
+
+	public static class AnnotatedInterfaceMethod implements AnnotatedInterface {
+
+		@Override
+		public void foo() {
+		}
+	}
+
+
+	@Tx
+	public static class AnnotatedBase {
+	}
+
+
+	public static class AnnotatedSuperclass extends AnnotatedBase {
+
+		public void foo() {
+		}
+	}
+
+
+	public static class MetaAnnotatedMethod {
+
+		@Composed
+		public void foo() {
+		}
+	}
+
+}
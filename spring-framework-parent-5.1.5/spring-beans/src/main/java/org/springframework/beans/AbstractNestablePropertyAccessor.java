@@ -450,8 +450,11 @@ public abstract class AbstractNestablePropertyAccessor extends AbstractPropertyA
 							}
 						}
 					}
-					valueToApply = convertForProperty(
-							tokens.canonicalName, oldValue, originalValue, ph.toTypeDescriptor());
+					Class<?> propertyType = ph.getPropertyType();
+					Object primitiveValue = (propertyType.isPrimitive() ? convertForPrimitiveProperty(
+							tokens.canonicalName, oldValue, originalValue, propertyType) : null);
+					valueToApply = (primitiveValue != null ? primitiveValue : convertForProperty(
+							tokens.canonicalName, oldValue, originalValue, ph.toTypeDescriptor()));
 				}
 				pv.getOriginalPropertyValue().conversionNecessary = (valueToApply != originalValue);
 			}
@@ -604,6 +607,34 @@ public abstract class AbstractNestablePropertyAccessor extends AbstractPropertyA
 		return convertIfNecessary(propertyName, oldValue, newValue, td.getType(), td);
 	}
 
+	/**
+	 * Convert the given value for a primitive property through the fast path
+	 * of the {@link TypeConverterDelegate}, if the default conversion rules apply.
+	 * @param propertyName the name of the property
+	 * @param oldValue the previous value, if available (may be {@code null})
+	 * @param newValue the proposed new value
+	 * @param primitiveType the primitive type of the property
+	 * @return the converted value, or {@code null} if the value
+	 * needs to go through {@link #convertForProperty} instead
+	 * @throws TypeMismatchException if type conversion failed
+	 * @since 5.1.6
+	 */
+	@Nullable
+	protected Object convertForPrimitiveProperty(
+			String propertyName, @Nullable Object oldValue, @Nullable Object newValue, Class<?> primitiveType)
+			throws TypeMismatchException {
+
+		Assert.state(this.typeConverterDelegate != null, "No TypeConverterDelegate");
+		try {
+			return this.typeConverterDelegate.convertToPrimitiveIfPossible(propertyName, newValue, primitiveType);
+		}
+		catch (IllegalArgumentException ex) {
+			PropertyChangeEvent pce =
+					new PropertyChangeEvent(getRootInstance(), this.nestedPath + propertyName, oldValue, newValue);
+			throw new TypeMismatchException(pce, primitiveType, ex);
+		}
+	}
+
 	@Override
 	@Nullable
 	public Object getPropertyValue(String propertyName) throws BeansException {
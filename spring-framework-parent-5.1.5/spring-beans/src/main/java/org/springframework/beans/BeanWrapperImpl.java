@@ -212,6 +212,13 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 			throw new InvalidPropertyException(getRootClass(), getNestedPath() + propertyName,
 					"No property '" + propertyName + "' found");
 		}
+		Class<?> propertyType = pd.getPropertyType();
+		if (propertyType != null && propertyType.isPrimitive()) {
+			Object convertedValue = convertForPrimitiveProperty(propertyName, null, value, propertyType);
+			if (convertedValue != null) {
+				return convertedValue;
+			}
+		}
 		TypeDescriptor td = cachedIntrospectionResults.getTypeDescriptor(pd);
 		if (td == null) {
 			td = cachedIntrospectionResults.addTypeDescriptor(pd, new TypeDescriptor(property(pd)));
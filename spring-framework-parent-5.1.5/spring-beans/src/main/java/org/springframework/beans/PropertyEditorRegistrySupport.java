@@ -194,6 +194,20 @@ public class PropertyEditorRegistrySupport implements PropertyEditorRegistry {
 		return this.defaultEditors.get(requiredType);
 	}
 
+	/**
+	 * Determine whether the built-in default editor applies to the given type,
+	 * i.e. whether default editors are active and not overridden for that type.
+	 * <p>In contrast to {@link #getDefaultEditor}, this does not trigger the
+	 * lazy registration of the default editors.
+	 * @param requiredType type of the property
+	 * @since 5.1.6
+	 * @see #overrideDefaultEditor
+	 */
+	boolean isBuiltInDefaultEditorActive(Class<?> requiredType) {
+		return (this.defaultEditorsActive &&
+				(this.overriddenDefaultEditors == null || !this.overriddenDefaultEditors.containsKey(requiredType)));
+	}
+
 	/**
 	 * Actually register the default editors for this registry instance.
 	 */
@@ -98,6 +98,59 @@ class TypeConverterDelegate {
 		return convertIfNecessary(propertyName, oldValue, newValue, requiredType, TypeDescriptor.valueOf(requiredType));
 	}
 
+	/**
+	 * Convert a String or Number value to the given primitive type through a fast path,
+	 * provided that the default conversion rules apply: i.e. no ConversionService
+	 * specified, no custom editor registered for the type or the property, and the
+	 * built-in default editor not overridden.
+	 * <p>Supports {@code int}, {@code long} and {@code double}, parsing Strings via
+	 * {@link NumberUtils#parseInt} etc and converting Numbers via
+	 * {@link NumberUtils#convertNumberToTargetClass}, with the same result as the
+	 * default {@link org.springframework.beans.propertyeditors.CustomNumberEditor}
+	 * but without looking up editors or creating TypeDescriptors.
+	 * @param propertyName name of the property
+	 * @param newValue the proposed new value
+	 * @param requiredType the primitive type we must convert to
+	 * @return the converted value, or {@code null} if the value needs to go through
+	 * {@link #convertIfNecessary(String, Object, Object, Class, TypeDescriptor)}
+	 * @throws IllegalArgumentException if a String value cannot be parsed
+	 * @since 5.1.6
+	 */
+	@Nullable
+	public Object convertToPrimitiveIfPossible(@Nullable String propertyName, @Nullable Object newValue,
+			Class<?> requiredType) throws IllegalArgumentException {
+
+		if ((requiredType != int.class && requiredType != long.class && requiredType != double.class) ||
+				!(newValue instanceof String || newValue instanceof Number) ||
+				this.propertyEditorRegistry.getConversionService() != null ||
+				!this.propertyEditorRegistry.isBuiltInDefaultEditorActive(requiredType) ||
+				this.propertyEditorRegistry.findCustomEditor(requiredType, propertyName) != null) {
+			return null;
+		}
+
+		if (newValue instanceof String) {
+			String text = (String) newValue;
+			if (requiredType == int.class) {
+				return NumberUtils.parseInt(text);
+			}
+			else if (requiredType == long.class) {
+				return NumberUtils.parseLong(text);
+			}
+			else {
+				return NumberUtils.parseDouble(text);
+			}
+		}
+
+		try {
+			return NumberUtils.convertNumberToTargetClass(
+					(Number) newValue, ClassUtils.resolvePrimitiveIfNecessary(requiredType).asSubclass(Number.class));
+		}
+		catch (IllegalArgumentException ex) {
+			// Overflow: let the standard algorithm report it
+			return null;
+		}
+	}
+
 	/**
 	 * Convert the value to the required type (if necessary from a String),
 	 * for the specified property.
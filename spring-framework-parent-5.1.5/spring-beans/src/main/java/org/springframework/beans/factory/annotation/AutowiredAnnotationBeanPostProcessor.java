@@ -50,6 +50,7 @@ import org.springframework.beans.factory.UnsatisfiedDependencyException;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.beans.factory.config.DependencyDescriptor;
 import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessorAdapter;
+import org.springframework.beans.factory.support.FastClassInstantiationStrategy;
 import org.springframework.beans.factory.support.LookupOverride;
 import org.springframework.beans.factory.support.MergedBeanDefinitionPostProcessor;
 import org.springframework.beans.factory.support.RootBeanDefinition;
@@ -558,6 +559,23 @@ public class AutowiredAnnotationBeanPostProcessor extends InstantiationAwareBean
 		}
 	}
 
+	/**
+	 * Invoke the given injection method, through the generated accessors of a
+	 * {@link FastClassInstantiationStrategy} if the bean factory uses one.
+	 */
+	private void invokeInjectionMethod(Method method, Object bean, Object[] arguments)
+			throws IllegalAccessException, InvocationTargetException {
+
+		FastClassInstantiationStrategy instantiationStrategy =
+				FastClassInstantiationStrategy.getInstantiationStrategy(this.beanFactory);
+		if (instantiationStrategy != null) {
+			instantiationStrategy.invokeMethod(method, bean, arguments);
+			return;
+		}
+		ReflectionUtils.makeAccessible(method);
+		method.invoke(bean, arguments);
+	}
+
 
 	/**
 	 * Class representing injection information about an annotated field.
@@ -704,8 +722,7 @@ public class AutowiredAnnotationBeanPostProcessor extends InstantiationAwareBean
 			}
 			if (arguments != null) {
 				try {
-					ReflectionUtils.makeAccessible(method);
-					method.invoke(bean, arguments);
+					invokeInjectionMethod(method, bean, arguments);
 				}
 				catch (InvocationTargetException ex) {
 					throw ex.getTargetException();
@@ -976,6 +976,7 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 					otherAbstractFactory.hasDestructionAwareBeanPostProcessors;
 			this.scopes.putAll(otherAbstractFactory.scopes);
 			this.securityContextProvider = otherAbstractFactory.securityContextProvider;
+			setAllowConcurrentSingletonCreation(otherAbstractFactory.isAllowConcurrentSingletonCreation());
 		}
 		else {
 			setTypeConverter(otherFactory.getTypeConverter());
@@ -30,6 +30,7 @@ import java.security.PrivilegedAction;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
@@ -39,12 +40,18 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 import javax.inject.Provider;
 
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.PropertyValue;
 import org.springframework.beans.TypeConverter;
 import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.beans.factory.BeanCurrentlyInCreationException;
@@ -68,8 +75,11 @@ import org.springframework.beans.factory.config.BeanDefinitionHolder;
 import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
 import org.springframework.beans.factory.config.DependencyDescriptor;
 import org.springframework.beans.factory.config.NamedBeanHolder;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.core.Conventions;
 import org.springframework.core.OrderComparator;
 import org.springframework.core.ResolvableType;
 import org.springframework.core.annotation.AnnotationUtils;
@@ -130,6 +140,18 @@ import org.springframework.util.StringUtils;
 public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFactory
 		implements ConfigurableListableBeanFactory, BeanDefinitionRegistry, Serializable {
 
+	/**
+	 * Bean definition attribute that marks a singleton as order-sensitive with
+	 * respect to parallel pre-instantiation: its creation waits for all singletons
+	 * registered before it, and singletons registered after it are not going to be
+	 * created before it. Expects a {@code Boolean} value.
+	 * @since 5.1.6
+	 * @see #setPreInstantiationParallelism
+	 */
+	public static final String SEQUENTIAL_PRE_INSTANTIATION_ATTRIBUTE =
+			Conventions.getQualifiedAttributeName(DefaultListableBeanFactory.class, "sequentialPreInstantiation");
+
+
 	@Nullable
 	private static Class<?> javaxInjectProviderClass;
 
@@ -197,6 +219,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	/** Whether bean definition metadata may be cached for all beans. */
 	private volatile boolean configurationFrozen = false;
 
+	/** Number of threads to pre-instantiate singletons with. */
+	private int preInstantiationParallelism = 1;
+
 
 	/**
 	 * Create a new DefaultListableBeanFactory.
@@ -340,6 +365,39 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return this.autowireCandidateResolver;
 	}
 
+	/**
+	 * Set the number of threads to use for {@link #preInstantiateSingletons()}.
+	 * <p>Default is 1, pre-instantiating all singletons one by one on the calling
+	 * thread. A higher value creates singletons on a dedicated {@link ForkJoinPool}
+	 * of the given parallelism, scheduling each singleton once the singletons it
+	 * is known to depend on have been created: through "depends-on" declarations,
+	 * through bean references in its constructor arguments and property values
+	 * (including inner beans and collections), through its factory bean, as well
+	 * as through dependencies registered so far. Dependencies that only get
+	 * resolved during creation, e.g. autowired fields, are not known upfront:
+	 * such singletons are created on demand by the thread that needs them, relying
+	 * on the per-bean creation guard. Singletons marked with
+	 * the {@link #SEQUENTIAL_PRE_INSTANTIATION_ATTRIBUTE} are created on the
+	 * calling thread, in registration order relative to all other singletons.
+	 * <p>Parallel pre-instantiation requires
+	 * {@link #setAllowConcurrentSingletonCreation "allowConcurrentSingletonCreation"}
+	 * to be turned on; otherwise singletons are pre-instantiated sequentially.
+	 * @since 5.1.6
+	 * @see #setAllowConcurrentSingletonCreation
+	 */
+	public void setPreInstantiationParallelism(int preInstantiationParallelism) {
+		Assert.isTrue(preInstantiationParallelism > 0, "Pre-instantiation parallelism must be greater than 0");
+		this.preInstantiationParallelism = preInstantiationParallelism;
+	}
+
+	/**
+	 * Return the number of threads to use for {@link #preInstantiateSingletons()}.
+	 * @since 5.1.6
+	 */
+	public int getPreInstantiationParallelism() {
+		return this.preInstantiationParallelism;
+	}
+
 
 	@Override
 	public void copyConfigurationFrom(ConfigurableBeanFactory otherFactory) {
@@ -349,6 +407,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			this.allowBeanDefinitionOverriding = otherListableFactory.allowBeanDefinitionOverriding;
 			this.allowEagerClassLoading = otherListableFactory.allowEagerClassLoading;
 			this.dependencyComparator = otherListableFactory.dependencyComparator;
+			this.preInstantiationParallelism = otherListableFactory.preInstantiationParallelism;
 			// A clone of the AutowireCandidateResolver since it is potentially BeanFactoryAware...
 			setAutowireCandidateResolver(BeanUtils.instantiateClass(getAutowireCandidateResolver().getClass()));
 			// Make resolvable dependencies (e.g. ResourceLoader) available here as well...
@@ -854,33 +913,21 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		List<String> beanNames = new ArrayList<>(this.beanDefinitionNames);
 
 		// Trigger initialization of all non-lazy singleton beans...
-		for (String beanName : beanNames) {
-			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
-			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
-				if (isFactoryBean(beanName)) {
-					Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
-					if (bean instanceof FactoryBean) {
-						final FactoryBean<?> factory = (FactoryBean<?>) bean;
-						boolean isEagerInit;
-						if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
-							isEagerInit = AccessController.doPrivileged((PrivilegedAction<Boolean>)
-											((SmartFactoryBean<?>) factory)::isEagerInit,
-									getAccessControlContext());
-						}
-						else {
-							isEagerInit = (factory instanceof SmartFactoryBean &&
-									((SmartFactoryBean<?>) factory).isEagerInit());
-						}
-						if (isEagerInit) {
-							getBean(beanName);
-						}
-					}
-				}
-				else {
-					getBean(beanName);
+		if (this.preInstantiationParallelism > 1) {
+			if (isAllowConcurrentSingletonCreation()) {
+				preInstantiateSingletonsInParallel(beanNames);
+			}
+			else {
+				if (logger.isInfoEnabled()) {
+					logger.info("Pre-instantiating singletons sequentially despite parallelism " +
+							this.preInstantiationParallelism + ": concurrent singleton creation not allowed");
 				}
+				preInstantiateSingletonsInSequence(beanNames);
 			}
 		}
+		else {
+			preInstantiateSingletonsInSequence(beanNames);
+		}
 
 		// Trigger post-initialization callback for all applicable beans...
 		for (String beanName : beanNames) {
@@ -900,6 +947,217 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		}
 	}
 
+	private void preInstantiateSingletonsInSequence(List<String> beanNames) {
+		for (String beanName : beanNames) {
+			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+				preInstantiateSingleton(beanName);
+			}
+		}
+	}
+
+	/**
+	 * Pre-instantiate the given singletons on a dedicated {@link ForkJoinPool}.
+	 * <p>Each singleton gets scheduled once the singletons it is known to depend on
+	 * have been created, with order-sensitive singletons acting as barriers that
+	 * are created on the calling thread. Waits for all scheduled creations to
+	 * complete, rethrowing the first failure in registration order.
+	 * @param beanNames the names of the candidate singletons, in registration order
+	 * @see #SEQUENTIAL_PRE_INSTANTIATION_ATTRIBUTE
+	 */
+	private void preInstantiateSingletonsInParallel(List<String> beanNames) {
+		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+		AtomicInteger threadCount = new AtomicInteger();
+		ForkJoinPool pool = new ForkJoinPool(this.preInstantiationParallelism, forkJoinPool -> {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+			thread.setName("preInstantiation-" + threadCount.incrementAndGet());
+			thread.setContextClassLoader(classLoader);
+			return thread;
+		}, null, false);
+
+		try {
+			Map<String, CompletableFuture<Void>> creations = new LinkedHashMap<>(beanNames.size());
+			List<CompletableFuture<Void>> pendingCreations = new ArrayList<>();
+			try {
+				scheduleSingletonCreations(beanNames, pool, creations, pendingCreations);
+			}
+			catch (RuntimeException ex) {
+				// Let scheduled creations settle before propagating the exception.
+				try {
+					awaitPreInstantiation(pendingCreations);
+				}
+				catch (RuntimeException ignored) {
+					// Propagating the original exception below.
+				}
+				throw ex;
+			}
+			awaitPreInstantiation(pendingCreations);
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	private void scheduleSingletonCreations(List<String> beanNames, ForkJoinPool pool,
+			Map<String, CompletableFuture<Void>> creations, List<CompletableFuture<Void>> pendingCreations) {
+
+		for (String beanName : beanNames) {
+			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+				if (Boolean.TRUE.equals(bd.getAttribute(SEQUENTIAL_PRE_INSTANTIATION_ATTRIBUTE))) {
+					awaitPreInstantiation(pendingCreations);
+					pendingCreations.clear();
+					preInstantiateSingleton(beanName);
+					creations.put(beanName, CompletableFuture.completedFuture(null));
+				}
+				else {
+					List<CompletableFuture<Void>> prerequisites = new ArrayList<>();
+					for (String dependency : getPreInstantiationDependencies(beanName, bd)) {
+						CompletableFuture<Void> prerequisite = creations.get(dependency);
+						if (prerequisite != null && !prerequisite.isDone()) {
+							prerequisites.add(prerequisite);
+						}
+					}
+					Runnable creation = () -> preInstantiateSingleton(beanName);
+					CompletableFuture<Void> future = (prerequisites.isEmpty() ?
+							CompletableFuture.runAsync(creation, pool) :
+							CompletableFuture.allOf(prerequisites.toArray(new CompletableFuture<?>[0]))
+									.thenRunAsync(creation, pool));
+					creations.put(beanName, future);
+					pendingCreations.add(future);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Determine the names of the beans that the given singleton is known to
+	 * depend on before its creation: its "depends-on" declarations, the beans
+	 * referenced by its definition, as well as dependencies registered for it so far.
+	 */
+	private Set<String> getPreInstantiationDependencies(String beanName, RootBeanDefinition bd) {
+		Set<String> referencedNames = new LinkedHashSet<>();
+		String[] dependsOn = bd.getDependsOn();
+		if (dependsOn != null) {
+			Collections.addAll(referencedNames, dependsOn);
+		}
+		collectReferencedBeanNames(bd, referencedNames);
+		Collections.addAll(referencedNames, getDependenciesForBean(beanName));
+		Set<String> dependencies = new LinkedHashSet<>(referencedNames.size());
+		for (String dependency : referencedNames) {
+			dependencies.add(canonicalName(BeanFactoryUtils.transformedBeanName(dependency)));
+		}
+		return dependencies;
+	}
+
+	/**
+	 * Collect the names of the beans referenced by the given bean definition,
+	 * through its factory bean, constructor arguments and property values,
+	 * without modifying the definition.
+	 */
+	private static void collectReferencedBeanNames(BeanDefinition bd, Set<String> beanNames) {
+		String factoryBeanName = bd.getFactoryBeanName();
+		if (factoryBeanName != null) {
+			beanNames.add(factoryBeanName);
+		}
+		if (bd.hasConstructorArgumentValues()) {
+			ConstructorArgumentValues cas = bd.getConstructorArgumentValues();
+			for (ConstructorArgumentValues.ValueHolder valueHolder : cas.getIndexedArgumentValues().values()) {
+				collectReferencedBeanNames(valueHolder.getValue(), beanNames);
+			}
+			for (ConstructorArgumentValues.ValueHolder valueHolder : cas.getGenericArgumentValues()) {
+				collectReferencedBeanNames(valueHolder.getValue(), beanNames);
+			}
+		}
+		if (bd.hasPropertyValues()) {
+			for (PropertyValue pv : bd.getPropertyValues().getPropertyValues()) {
+				collectReferencedBeanNames(pv.getValue(), beanNames);
+			}
+		}
+	}
+
+	private static void collectReferencedBeanNames(@Nullable Object value, Set<String> beanNames) {
+		if (value instanceof RuntimeBeanReference) {
+			RuntimeBeanReference ref = (RuntimeBeanReference) value;
+			if (!ref.isToParent()) {
+				beanNames.add(ref.getBeanName());
+			}
+		}
+		else if (value instanceof BeanDefinitionHolder) {
+			collectReferencedBeanNames(((BeanDefinitionHolder) value).getBeanDefinition(), beanNames);
+		}
+		else if (value instanceof BeanDefinition) {
+			collectReferencedBeanNames((BeanDefinition) value, beanNames);
+		}
+		else if (value instanceof Object[]) {
+			for (Object element : (Object[]) value) {
+				collectReferencedBeanNames(element, beanNames);
+			}
+		}
+		else if (value instanceof Collection) {
+			for (Object element : (Collection<?>) value) {
+				collectReferencedBeanNames(element, beanNames);
+			}
+		}
+		else if (value instanceof Map) {
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				collectReferencedBeanNames(entry.getKey(), beanNames);
+				collectReferencedBeanNames(entry.getValue(), beanNames);
+			}
+		}
+	}
+
+	/**
+	 * Wait for all given singleton creations to complete, even in case of failure,
+	 * then rethrow the first failure (in order of the given creations), if any.
+	 */
+	private void awaitPreInstantiation(List<CompletableFuture<Void>> creations) {
+		RuntimeException failure = null;
+		for (CompletableFuture<Void> creation : creations) {
+			try {
+				creation.join();
+			}
+			catch (CompletionException ex) {
+				if (failure == null) {
+					Throwable cause = ex.getCause();
+					failure = (cause instanceof RuntimeException ? (RuntimeException) cause : ex);
+				}
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * Pre-instantiate the given non-lazy singleton, only obtaining the object
+	 * from a FactoryBean if it is a {@link SmartFactoryBean} asking for eager init.
+	 */
+	private void preInstantiateSingleton(String beanName) {
+		if (isFactoryBean(beanName)) {
+			Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
+			if (bean instanceof FactoryBean) {
+				final FactoryBean<?> factory = (FactoryBean<?>) bean;
+				boolean isEagerInit;
+				if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
+					isEagerInit = AccessController.doPrivileged((PrivilegedAction<Boolean>)
+									((SmartFactoryBean<?>) factory)::isEagerInit,
+							getAccessControlContext());
+				}
+				else {
+					isEagerInit = (factory instanceof SmartFactoryBean &&
+							((SmartFactoryBean<?>) factory).isEagerInit());
+				}
+				if (isEagerInit) {
+					getBean(beanName);
+				}
+			}
+		}
+		else {
+			getBean(beanName);
+		}
+	}
+
 
 	//---------------------------------------------------------------------
 	// Implementation of BeanDefinitionRegistry interface
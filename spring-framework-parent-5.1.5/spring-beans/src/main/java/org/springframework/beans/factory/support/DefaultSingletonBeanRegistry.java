@@ -32,6 +32,7 @@ import org.springframework.beans.factory.BeanCurrentlyInCreationException;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.config.SingletonBeanRegistry;
+import org.springframework.core.NamedThreadLocal;
 import org.springframework.core.SimpleAliasRegistry;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -71,6 +72,12 @@ import org.springframework.util.StringUtils;
  * {@link AbstractBeanFactory} and {@link DefaultListableBeanFactory}
  * (which inherit from it). Can alternatively also be used as a nested
  * helper to delegate to.
+ *
+ * <p>By default, singleton creation is serialized through a single registry-wide
+ * lock (the {@linkplain #getSingletonMutex() singleton mutex}). Alternatively,
+ * {@link #setAllowConcurrentSingletonCreation "allowConcurrentSingletonCreation"}
+ * switches to a per-bean-name creation guard, allowing independent singletons to
+ * be created by different threads in parallel.
  * 
  * <p> 注意: 次类假设既不是一个bean定义概念也不是一个为bean实例指定创建过程,与 AbstractBeanFactory 和  DefaultListableBeanFactory 相比
  * (AbstractBeanFactory 继承与 DefaultListableBeanFactory),或者可以被用于作为一个嵌套的委托助手
@@ -135,6 +142,53 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	/** 在依赖bean名称之间映射：bean名称到bean依赖项的bean名称集合。 */
 	private final Map<String, Set<String>> dependenciesForBeanMap = new ConcurrentHashMap<>(64);
 
+	/** Whether to guard singleton creation per bean name instead of through the singleton mutex. */
+	private volatile boolean allowConcurrentSingletonCreation = false;
+
+	/** Threads currently creating singletons: bean name to creating Thread (concurrent creation only). */
+	private final Map<String, Thread> singletonCreationThreads = new HashMap<>(16);
+
+	/** Threads waiting for a singleton created by another thread: Thread to bean name (concurrent creation only). */
+	private final Map<Thread, String> singletonCreationWaits = new HashMap<>(16);
+
+	/** Suppressed Exceptions of the current thread's singleton creation (concurrent creation only). */
+	private final ThreadLocal<Set<Exception>> concurrentSuppressedExceptions =
+			new NamedThreadLocal<>("Suppressed exceptions of concurrent singleton creation");
+
+
+	/**
+	 * Set whether to allow independent singletons to be created by different
+	 * threads in parallel.
+	 * <p>Default is "false": The creation of any singleton is performed within
+	 * the {@linkplain #getSingletonMutex() singleton mutex}, serializing lazy
+	 * singleton creation across all threads. Turn this on to guard creation per
+	 * bean name instead: a thread asking for a singleton which is currently being
+	 * created by another thread waits for that particular singleton only, and
+	 * early references to a singleton in creation (for circular reference
+	 * resolution) are only exposed to the creating thread itself - unless the
+	 * creating threads wait for each other, in which case the circular reference
+	 * is resolved just like within a single thread.
+	 * <p><b>NOTE:</b> While waiting for a singleton created by another thread, the
+	 * singleton mutex is released even if held by the caller. Collaborators which
+	 * synchronize on the singleton mutex for an extended phase need to tolerate that.
+	 * This flag is meant to be set before any singleton gets created.
+	 * @since 5.1.6
+	 * @see #getSingleton(String, ObjectFactory)
+	 */
+	public void setAllowConcurrentSingletonCreation(boolean allowConcurrentSingletonCreation) {
+		this.allowConcurrentSingletonCreation = allowConcurrentSingletonCreation;
+	}
+
+	/**
+	 * Return whether independent singletons may be created by different
+	 * threads in parallel.
+	 * @since 5.1.6
+	 * @see #setAllowConcurrentSingletonCreation
+	 */
+	public boolean isAllowConcurrentSingletonCreation() {
+		return this.allowConcurrentSingletonCreation;
+	}
+
 
 	@Override
 	public void registerSingleton(String beanName, Object singletonObject) throws IllegalStateException {
@@ -209,20 +263,37 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		Object singletonObject = this.singletonObjects.get(beanName);
 		if (singletonObject == null && isSingletonCurrentlyInCreation(beanName)) {
 			synchronized (this.singletonObjects) {
-				singletonObject = this.earlySingletonObjects.get(beanName);
-				if (singletonObject == null && allowEarlyReference) {
-					ObjectFactory<?> singletonFactory = this.singletonFactories.get(beanName);
-					if (singletonFactory != null) {
-						singletonObject = singletonFactory.getObject();
-						this.earlySingletonObjects.put(beanName, singletonObject);
-						this.singletonFactories.remove(beanName);
-					}
+				// With concurrent creation, early references are only exposed to the creating
+				// thread; any other thread is going to wait for the fully initialized singleton.
+				if (!this.allowConcurrentSingletonCreation || isSingletonCreationThread(beanName)) {
+					singletonObject = getEarlySingleton(beanName, allowEarlyReference);
 				}
 			}
 		}
 		return singletonObject;
 	}
 
+	/**
+	 * Return the early reference for the given singleton currently in creation,
+	 * if any, to be called within the singleton mutex.
+	 * @param beanName the name of the bean to look for
+	 * @param allowEarlyReference whether early references should be created or not
+	 * @return the early singleton object, or {@code null} if none found
+	 */
+	@Nullable
+	private Object getEarlySingleton(String beanName, boolean allowEarlyReference) {
+		Object singletonObject = this.earlySingletonObjects.get(beanName);
+		if (singletonObject == null && allowEarlyReference) {
+			ObjectFactory<?> singletonFactory = this.singletonFactories.get(beanName);
+			if (singletonFactory != null) {
+				singletonObject = singletonFactory.getObject();
+				this.earlySingletonObjects.put(beanName, singletonObject);
+				this.singletonFactories.remove(beanName);
+			}
+		}
+		return singletonObject;
+	}
+
 	/**
 	 * Return the (raw) singleton object registered under the given name,
 	 * creating and registering a new one if none registered yet.
@@ -233,6 +304,9 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 */
 	public Object getSingleton(String beanName, ObjectFactory<?> singletonFactory) {
 		Assert.notNull(beanName, "Bean name must not be null");
+		if (this.allowConcurrentSingletonCreation) {
+			return getSingletonConcurrently(beanName, singletonFactory);
+		}
 		synchronized (this.singletonObjects) {
 			Object singletonObject = this.singletonObjects.get(beanName);
 			if (singletonObject == null) {
@@ -284,12 +358,183 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		}
 	}
 
+	/**
+	 * Variant of {@link #getSingleton(String, ObjectFactory)} which only holds
+	 * the singleton mutex for registry bookkeeping, guarding the actual creation
+	 * through the given bean name.
+	 * @param beanName the name of the bean
+	 * @param singletonFactory the ObjectFactory to lazily create the singleton
+	 * with, if necessary
+	 * @return the registered singleton object
+	 * @see #setAllowConcurrentSingletonCreation
+	 */
+	private Object getSingletonConcurrently(String beanName, ObjectFactory<?> singletonFactory) {
+		Object singletonObject = this.singletonObjects.get(beanName);
+		if (singletonObject != null) {
+			return singletonObject;
+		}
+		synchronized (this.singletonObjects) {
+			singletonObject = awaitSingletonCreation(beanName);
+			if (singletonObject != null) {
+				return singletonObject;
+			}
+		}
+		// Collect suppressed exceptions per creating thread, not mixing in other threads' failures.
+		Set<Exception> suppressedExceptions = this.concurrentSuppressedExceptions.get();
+		boolean recordSuppressedExceptions = (suppressedExceptions == null);
+		if (recordSuppressedExceptions) {
+			suppressedExceptions = new LinkedHashSet<>();
+			this.concurrentSuppressedExceptions.set(suppressedExceptions);
+		}
+		// Creation guard for the given bean name acquired: proceed outside of the mutex.
+		boolean newSingleton = false;
+		try {
+			singletonObject = singletonFactory.getObject();
+			newSingleton = true;
+		}
+		catch (IllegalStateException ex) {
+			// Has the singleton object implicitly appeared in the meantime ->
+			// if yes, proceed with it since the exception indicates that state.
+			singletonObject = this.singletonObjects.get(beanName);
+			if (singletonObject == null) {
+				throw ex;
+			}
+		}
+		catch (BeanCreationException ex) {
+			if (recordSuppressedExceptions) {
+				for (Exception suppressedException : suppressedExceptions) {
+					ex.addRelatedCause(suppressedException);
+				}
+			}
+			throw ex;
+		}
+		finally {
+			if (recordSuppressedExceptions) {
+				this.concurrentSuppressedExceptions.remove();
+			}
+			synchronized (this.singletonObjects) {
+				// Register the new singleton before releasing the creation guard,
+				// so that waiting threads find it once woken up.
+				if (newSingleton) {
+					addSingleton(beanName, singletonObject);
+				}
+				afterSingletonCreation(beanName);
+			}
+		}
+		return singletonObject;
+	}
+
+	/**
+	 * Wait until the specified singleton is neither registered nor currently
+	 * created by another thread, then mark it as currently in creation by the
+	 * current thread. To be called within the singleton mutex.
+	 * <p>If the creating thread transitively waits for a singleton in creation
+	 * by the current thread, the early reference to the specified singleton is
+	 * returned instead, resolving the circular reference like within a single
+	 * thread would do.
+	 * @param beanName the name of the bean
+	 * @return the singleton object (or its early reference) if available,
+	 * or {@code null} if the current thread is supposed to create it
+	 * @throws BeanCurrentlyInCreationException in case of an unresolvable
+	 * circular reference across threads
+	 */
+	@Nullable
+	private Object awaitSingletonCreation(String beanName) {
+		Thread currentThread = Thread.currentThread();
+		while (true) {
+			Object singletonObject = this.singletonObjects.get(beanName);
+			if (singletonObject != null) {
+				return singletonObject;
+			}
+			Thread creationThread = this.singletonCreationThreads.get(beanName);
+			if (creationThread == null || creationThread == currentThread) {
+				break;
+			}
+			if (isWaitingForCurrentThread(creationThread, currentThread)) {
+				singletonObject = getEarlySingleton(beanName, true);
+				if (singletonObject == null) {
+					throw new BeanCurrentlyInCreationException(beanName);
+				}
+				if (logger.isDebugEnabled()) {
+					logger.debug("Resolved circular reference to singleton bean '" + beanName +
+							"' across threads " + currentThread.getName() + " and " + creationThread.getName());
+				}
+				return singletonObject;
+			}
+			if (logger.isTraceEnabled()) {
+				logger.trace("Waiting for singleton bean '" + beanName + "' in creation by thread " +
+						creationThread.getName());
+			}
+			this.singletonCreationWaits.put(currentThread, beanName);
+			try {
+				this.singletonObjects.wait();
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new BeanCreationException(beanName,
+						"Interrupted while waiting for singleton creation in thread " + creationThread.getName(), ex);
+			}
+			finally {
+				this.singletonCreationWaits.remove(currentThread);
+			}
+		}
+
+		if (this.singletonsCurrentlyInDestruction) {
+			throw new BeanCreationNotAllowedException(beanName,
+					"Singleton bean creation not allowed while singletons of this factory are in destruction " +
+					"(Do not request a bean from a BeanFactory in a destroy method implementation!)");
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Creating shared instance of singleton bean '" + beanName + "'");
+		}
+		beforeSingletonCreation(beanName);
+		return null;
+	}
+
+	/**
+	 * Determine whether the given creation thread is (transitively) waiting for
+	 * a singleton currently in creation by the given waiting thread.
+	 * To be called within the singleton mutex.
+	 */
+	private boolean isWaitingForCurrentThread(Thread creationThread, Thread currentThread) {
+		Thread thread = creationThread;
+		for (int i = 0; i <= this.singletonCreationWaits.size(); i++) {
+			String awaitedBeanName = this.singletonCreationWaits.get(thread);
+			if (awaitedBeanName == null) {
+				return false;
+			}
+			thread = this.singletonCreationThreads.get(awaitedBeanName);
+			if (thread == null) {
+				return false;
+			}
+			if (thread == currentThread) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Determine whether the specified singleton is either not tracked as being
+	 * created by any specific thread or created by the current thread.
+	 * To be called within the singleton mutex.
+	 */
+	private boolean isSingletonCreationThread(String beanName) {
+		Thread creationThread = this.singletonCreationThreads.get(beanName);
+		return (creationThread == null || creationThread == Thread.currentThread());
+	}
+
 	/**
 	 * Register an Exception that happened to get suppressed during the creation of a
 	 * singleton bean instance, e.g. a temporary circular reference resolution problem.
 	 * @param ex the Exception to register
 	 */
 	protected void onSuppressedException(Exception ex) {
+		Set<Exception> concurrentSuppressedExceptions = this.concurrentSuppressedExceptions.get();
+		if (concurrentSuppressedExceptions != null) {
+			concurrentSuppressedExceptions.add(ex);
+			return;
+		}
 		synchronized (this.singletonObjects) {
 			if (this.suppressedExceptions != null) {
 				this.suppressedExceptions.add(ex);
@@ -370,6 +615,12 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		if (!this.inCreationCheckExclusions.contains(beanName) && !this.singletonsCurrentlyInCreation.add(beanName)) {
 			throw new BeanCurrentlyInCreationException(beanName);
 		}
+		if (this.allowConcurrentSingletonCreation) {
+			// Guard creation per bean name even for beans excluded from in-creation checks.
+			synchronized (this.singletonObjects) {
+				this.singletonCreationThreads.put(beanName, Thread.currentThread());
+			}
+		}
 	}
 
 	/**
@@ -379,6 +630,14 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 * @see #isSingletonCurrentlyInCreation
 	 */
 	protected void afterSingletonCreation(String beanName) {
+		if (this.allowConcurrentSingletonCreation) {
+			synchronized (this.singletonObjects) {
+				if (this.singletonCreationThreads.remove(beanName) != null) {
+					// Wake up threads waiting for this singleton's creation guard.
+					this.singletonObjects.notifyAll();
+				}
+			}
+		}
 		if (!this.inCreationCheckExclusions.contains(beanName) && !this.singletonsCurrentlyInCreation.remove(beanName)) {
 			throw new IllegalStateException("Singleton '" + beanName + "' isn't currently in creation");
 		}
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.BeanInstantiationException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.cglib.reflect.FastClass;
+import org.springframework.cglib.reflect.FastConstructor;
+import org.springframework.cglib.reflect.FastMember;
+import org.springframework.cglib.reflect.FastMethod;
+import org.springframework.core.KotlinDetector;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Object instantiation strategy that creates bean instances and invokes
+ * factory methods through CGLIB-generated {@link FastClass} accessors instead
+ * of reflection, generating one accessor class per bean class on first use.
+ * This avoids reflective dispatch and argument checks on every creation of
+ * prototype beans.
+ *
+ * <p>{@link #invokeMethod} offers the same dispatch for injection methods;
+ * {@link org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor}
+ * uses it for {@code @Autowired} methods when this strategy is active
+ * (see {@link #getInstantiationStrategy(BeanFactory)}).
+ * Field injection remains reflective since generated accessors cannot
+ * access private fields.
+ *
+ * <p>Falls back to the reflective {@link SimpleInstantiationStrategy} behavior
+ * for members that a generated class cannot access (e.g. private constructors
+ * or members of private nested classes), for Kotlin classes, and for classes
+ * loaded by the bootstrap class loader. Method injection is handled through
+ * {@link CglibSubclassingInstantiationStrategy} as usual.
+ *
+ * <p>Arguments are checked against the parameter types before invoking a
+ * generated accessor, since the accessor would report a mismatch as an
+ * exception thrown by the target member itself.
+ *
+ * @since 5.1.6
+ * @see AbstractAutowireCapableBeanFactory#setInstantiationStrategy
+ */
+public class FastClassInstantiationStrategy extends CglibSubclassingInstantiationStrategy {
+
+	private static final Log logger = LogFactory.getLog(FastClassInstantiationStrategy.class);
+
+	private static final Object NOT_GENERATED = new Object();
+
+
+	private final Map<Class<?>, Object> fastClassCache = new ConcurrentReferenceHashMap<>(64);
+
+	private final Map<Member, Object> fastMemberCache = new ConcurrentReferenceHashMap<>(256);
+
+
+	/**
+	 * Return the {@code FastClassInstantiationStrategy} used by the given bean factory.
+	 * @param beanFactory the bean factory to check
+	 * @return the strategy, or {@code null} if the bean factory uses a different
+	 * strategy or is not an {@link AbstractAutowireCapableBeanFactory}
+	 */
+	@Nullable
+	public static FastClassInstantiationStrategy getInstantiationStrategy(@Nullable BeanFactory beanFactory) {
+		if (beanFactory instanceof AbstractAutowireCapableBeanFactory) {
+			InstantiationStrategy instantiationStrategy =
+					((AbstractAutowireCapableBeanFactory) beanFactory).getInstantiationStrategy();
+			if (instantiationStrategy instanceof FastClassInstantiationStrategy) {
+				return (FastClassInstantiationStrategy) instantiationStrategy;
+			}
+		}
+		return null;
+	}
+
+
+	@Override
+	protected Object instantiateWithConstructor(Constructor<?> ctor, Object... args) {
+		GeneratedAccessor accessor = getGeneratedAccessor(ctor);
+		if (accessor == null) {
+			return super.instantiateWithConstructor(ctor, args);
+		}
+		if (!accessor.isApplicable(args)) {
+			throw new BeanInstantiationException(ctor, "Illegal arguments for constructor; args: " +
+					StringUtils.arrayToCommaDelimitedString(args),
+					new IllegalArgumentException("argument type mismatch"));
+		}
+		try {
+			return ((FastConstructor) accessor.member).newInstance(args);
+		}
+		catch (InvocationTargetException ex) {
+			throw new BeanInstantiationException(ctor, "Constructor threw exception", ex.getTargetException());
+		}
+	}
+
+	@Override
+	@Nullable
+	protected Object invokeFactoryMethod(Method factoryMethod, @Nullable Object factoryBean, Object... args)
+			throws IllegalAccessException, InvocationTargetException {
+
+		return invokeMethod(factoryMethod, factoryBean, args);
+	}
+
+	/**
+	 * Invoke the given method through a generated accessor if possible,
+	 * falling back to reflection otherwise.
+	 * @param method the method to invoke
+	 * @param target the target instance to invoke the method on,
+	 * or {@code null} in case of a static method
+	 * @param args the method arguments to apply
+	 * @return the method's return value
+	 * @throws IllegalArgumentException in case of illegal arguments
+	 * @throws IllegalAccessException if the method is not accessible
+	 * @throws InvocationTargetException if the method threw an exception
+	 */
+	@Nullable
+	public Object invokeMethod(Method method, @Nullable Object target, Object... args)
+			throws IllegalAccessException, InvocationTargetException {
+
+		GeneratedAccessor accessor = getGeneratedAccessor(method);
+		if (accessor == null || !accessor.isApplicable(args) ||
+				(target == null && !Modifier.isStatic(method.getModifiers()))) {
+			// Let reflection report illegal arguments
+			ReflectionUtils.makeAccessible(method);
+			return method.invoke(target, args);
+		}
+		return ((FastMethod) accessor.member).invoke(target, args);
+	}
+
+
+	/**
+	 * Return the generated accessor for the given constructor or method,
+	 * or {@code null} if it cannot be invoked through a generated class.
+	 */
+	@Nullable
+	private GeneratedAccessor getGeneratedAccessor(Member member) {
+		Object accessor = this.fastMemberCache.get(member);
+		if (accessor == null) {
+			FastMember fastMember = createFastMember(member);
+			accessor = (fastMember != null ? new GeneratedAccessor(fastMember) : NOT_GENERATED);
+			this.fastMemberCache.put(member, accessor);
+		}
+		return (accessor != NOT_GENERATED ? (GeneratedAccessor) accessor : null);
+	}
+
+	@Nullable
+	private FastMember createFastMember(Member member) {
+		if (Modifier.isPrivate(member.getModifiers())) {
+			return null;
+		}
+		FastClass fastClass = getFastClass(member.getDeclaringClass());
+		if (fastClass == null) {
+			return null;
+		}
+		if (member instanceof Constructor) {
+			Constructor<?> ctor = (Constructor<?>) member;
+			if (Modifier.isAbstract(ctor.getDeclaringClass().getModifiers()) ||
+					fastClass.getIndex(ctor.getParameterTypes()) < 0) {
+				return null;
+			}
+			return fastClass.getConstructor(ctor);
+		}
+		Method method = (Method) member;
+		if (fastClass.getIndex(method.getName(), method.getParameterTypes()) < 0) {
+			return null;
+		}
+		return fastClass.getMethod(method);
+	}
+
+	@Nullable
+	private FastClass getFastClass(Class<?> type) {
+		Object fastClass = this.fastClassCache.get(type);
+		if (fastClass == null) {
+			fastClass = NOT_GENERATED;
+			if (isFastClassCandidate(type)) {
+				try {
+					FastClass.Generator generator = new FastClass.Generator();
+					generator.setType(type);
+					generator.setContextClass(type);
+					generator.setClassLoader(type.getClassLoader());
+					fastClass = generator.create();
+				}
+				catch (Throwable ex) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Could not generate fast class for [" + type.getName() +
+								"] - falling back to reflection", ex);
+					}
+				}
+			}
+			this.fastClassCache.put(type, fastClass);
+		}
+		return (fastClass != NOT_GENERATED ? (FastClass) fastClass : null);
+	}
+
+	private static boolean isFastClassCandidate(Class<?> type) {
+		if (type.isInterface() || type.getClassLoader() == null || KotlinDetector.isKotlinType(type)) {
+			return false;
+		}
+		for (Class<?> current = type; current != null; current = current.getEnclosingClass()) {
+			if (Modifier.isPrivate(current.getModifiers())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * Generated accessor for a constructor or method, along with its parameter types.
+	 */
+	private static final class GeneratedAccessor {
+
+		final FastMember member;
+
+		private final Class<?>[] parameterTypes;
+
+		GeneratedAccessor(FastMember member) {
+			this.member = member;
+			this.parameterTypes = member.getParameterTypes();
+		}
+
+		/**
+		 * Determine whether the given arguments match the parameter types,
+		 * including {@code null} values for primitive parameters.
+		 */
+		boolean isApplicable(@Nullable Object[] args) {
+			int argCount = (args != null ? args.length : 0);
+			if (argCount != this.parameterTypes.length) {
+				return false;
+			}
+			for (int i = 0; i < argCount; i++) {
+				if (!ClassUtils.isAssignableValue(this.parameterTypes[i], args[i])) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+}
@@ -84,7 +84,7 @@ public class SimpleInstantiationStrategy implements InstantiationStrategy {
 					}
 				}
 			}
-			return BeanUtils.instantiateClass(constructorToUse);
+			return instantiateWithConstructor(constructorToUse);
 		}
 		else {
 			// Must generate CGLIB subclass.
@@ -114,7 +114,7 @@ public class SimpleInstantiationStrategy implements InstantiationStrategy {
 					return null;
 				});
 			}
-			return BeanUtils.instantiateClass(ctor, args);
+			return instantiateWithConstructor(ctor, args);
 		}
 		else {
 			return instantiateWithMethodInjection(bd, beanName, owner, ctor, args);
@@ -133,6 +133,21 @@ public class SimpleInstantiationStrategy implements InstantiationStrategy {
 		throw new UnsupportedOperationException("Method Injection not supported in SimpleInstantiationStrategy");
 	}
 
+	/**
+	 * Create a new instance through the given constructor, for a bean definition
+	 * without method overrides.
+	 * <p>The default implementation delegates to {@link BeanUtils#instantiateClass}.
+	 * Subclasses may override this in order to avoid reflective invocation.
+	 * @param ctor the constructor to use
+	 * @param args the constructor arguments to apply
+	 * @return the new instance
+	 * @throws BeanInstantiationException if the instance could not be created
+	 * @since 5.1.6
+	 */
+	protected Object instantiateWithConstructor(Constructor<?> ctor, Object... args) {
+		return BeanUtils.instantiateClass(ctor, args);
+	}
+
 	@Override
 	public Object instantiate(RootBeanDefinition bd, @Nullable String beanName, BeanFactory owner,
 			@Nullable Object factoryBean, final Method factoryMethod, Object... args) {
@@ -151,7 +166,7 @@ public class SimpleInstantiationStrategy implements InstantiationStrategy {
 			Method priorInvokedFactoryMethod = currentlyInvokedFactoryMethod.get();
 			try {
 				currentlyInvokedFactoryMethod.set(factoryMethod);
-				Object result = factoryMethod.invoke(factoryBean, args);
+				Object result = invokeFactoryMethod(factoryMethod, factoryBean, args);
 				if (result == null) {
 					result = new NullBean();
 				}
@@ -186,4 +201,25 @@ public class SimpleInstantiationStrategy implements InstantiationStrategy {
 		}
 	}
 
+	/**
+	 * Invoke the given factory method, which has been made accessible already.
+	 * <p>The default implementation uses reflection. Subclasses may override
+	 * this in order to avoid reflective invocation.
+	 * @param factoryMethod the factory method to invoke
+	 * @param factoryBean the factory bean instance to invoke the method on,
+	 * or {@code null} in case of a static factory method
+	 * @param args the factory method arguments to apply
+	 * @return the factory method's return value
+	 * @throws IllegalArgumentException in case of illegal arguments
+	 * @throws IllegalAccessException if the method is not accessible
+	 * @throws InvocationTargetException if the factory method threw an exception
+	 * @since 5.1.6
+	 */
+	@Nullable
+	protected Object invokeFactoryMethod(Method factoryMethod, @Nullable Object factoryBean, Object... args)
+			throws IllegalAccessException, InvocationTargetException {
+
+		return factoryMethod.invoke(factoryBean, args);
+	}
+
 }
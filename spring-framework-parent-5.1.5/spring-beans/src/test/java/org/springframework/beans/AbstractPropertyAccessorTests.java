@@ -757,6 +757,74 @@ public abstract class AbstractPropertyAccessorTests {
 
 	}
 
+	@Test
+	public void setPrimitivePropertiesFromHexAndNumberValues() {
+		NumberPropertyBean target = new NumberPropertyBean();
+		AbstractPropertyAccessor accessor = createAccessor(target);
+
+		accessor.setPropertyValue("myPrimitiveInt", "0x2A");
+		accessor.setPropertyValue("myPrimitiveLong", "-0x10");
+		accessor.setPropertyValue("myPrimitiveDouble", 3L);
+		assertEquals(42, target.getMyPrimitiveInt());
+		assertEquals(-16L, target.getMyPrimitiveLong());
+		assertEquals(3d, target.getMyPrimitiveDouble(), 0d);
+
+		accessor.setPropertyValue("myPrimitiveInt", new BigDecimal("7"));
+		accessor.setPropertyValue("myPrimitiveLong", 5);
+		assertEquals(7, target.getMyPrimitiveInt());
+		assertEquals(5L, target.getMyPrimitiveLong());
+	}
+
+	@Test
+	public void setPrimitivePropertyWithCustomEditor() {
+		NumberPropertyBean target = new NumberPropertyBean();
+		AbstractPropertyAccessor accessor = createAccessor(target);
+		accessor.registerCustomEditor(int.class, new PropertyEditorSupport() {
+			@Override
+			public void setAsText(String text) {
+				setValue(text.length());
+			}
+		});
+		accessor.setPropertyValue("myPrimitiveInt", "abc");
+		accessor.setPropertyValue("myPrimitiveLong", "12");
+		assertEquals(3, target.getMyPrimitiveInt());
+		assertEquals(12L, target.getMyPrimitiveLong());
+	}
+
+	@Test
+	public void setPrimitivePropertyWithConversionService() {
+		NumberPropertyBean target = new NumberPropertyBean();
+		AbstractPropertyAccessor accessor = createAccessor(target);
+		GenericConversionService conversionService = new DefaultConversionService();
+		conversionService.addConverter(String.class, Integer.class, String::length);
+		accessor.setConversionService(conversionService);
+		accessor.setPropertyValue("myPrimitiveInt", "abc");
+		assertEquals(3, target.getMyPrimitiveInt());
+	}
+
+	@Test
+	public void setPrimitivePropertyTypeMismatch() {
+		NumberPropertyBean target = new NumberPropertyBean();
+		AbstractPropertyAccessor accessor = createAccessor(target);
+		try {
+			accessor.setPropertyValue("myPrimitiveInt", "x");
+			fail("Should have thrown TypeMismatchException");
+		}
+		catch (TypeMismatchException ex) {
+			assertEquals("myPrimitiveInt", ex.getPropertyName());
+			assertEquals(int.class, ex.getRequiredType());
+			assertTrue(ex.getCause() instanceof NumberFormatException);
+		}
+		try {
+			accessor.setPropertyValue("myPrimitiveInt", Long.MAX_VALUE);
+			fail("Should have thrown TypeMismatchException");
+		}
+		catch (TypeMismatchException ex) {
+			assertEquals(int.class, ex.getRequiredType());
+		}
+		assertEquals(0, target.getMyPrimitiveInt());
+	}
+
 	@Test
 	public void setEnumProperty() {
 		EnumTester target = new EnumTester();
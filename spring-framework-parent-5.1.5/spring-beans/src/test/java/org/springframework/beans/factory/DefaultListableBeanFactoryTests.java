@@ -27,6 +27,7 @@ import java.security.PrivilegedAction;
 import java.text.NumberFormat;
 import java.text.ParseException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -37,6 +38,8 @@ import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 import javax.annotation.Priority;
 import javax.security.auth.Subject;
@@ -1391,6 +1394,136 @@ public class DefaultListableBeanFactoryTests {
 		}
 	}
 
+	@Test
+	public void testParallelPreInstantiation() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setAllowConcurrentSingletonCreation(true);
+		lbf.setPreInstantiationParallelism(4);
+		List<String> creationOrder = new CopyOnWriteArrayList<>();
+		Map<String, Thread> creationThreads = new ConcurrentHashMap<>();
+		lbf.addBeanPostProcessor(new BeanPostProcessor() {
+			@Override
+			public Object postProcessBeforeInitialization(Object bean, String beanName) {
+				creationOrder.add(beanName);
+				creationThreads.put(beanName, Thread.currentThread());
+				return bean;
+			}
+		});
+		for (int i = 0; i < 20; i++) {
+			lbf.registerBeanDefinition("tb" + i, new RootBeanDefinition(TestBean.class));
+		}
+		RootBeanDefinition lazy = new RootBeanDefinition(TestBean.class);
+		lazy.setLazyInit(true);
+		lbf.registerBeanDefinition("lazy", lazy);
+		lbf.getBeanDefinition("tb10").setAttribute(DefaultListableBeanFactory.SEQUENTIAL_PRE_INSTANTIATION_ATTRIBUTE, true);
+		lbf.getBeanDefinition("tb19").setDependsOn("tb18");
+
+		lbf.preInstantiateSingletons();
+
+		assertEquals(20, creationOrder.size());
+		assertFalse(creationOrder.contains("lazy"));
+		assertSame(Thread.currentThread(), creationThreads.get("tb10"));
+		int sequentialIndex = creationOrder.indexOf("tb10");
+		for (int i = 0; i < 10; i++) {
+			assertTrue(creationOrder.indexOf("tb" + i) < sequentialIndex);
+		}
+		for (int i = 11; i < 20; i++) {
+			assertTrue(creationOrder.indexOf("tb" + i) > sequentialIndex);
+		}
+		assertTrue(creationOrder.indexOf("tb18") < creationOrder.indexOf("tb19"));
+	}
+
+	@Test
+	public void testParallelPreInstantiationWithBeanReferences() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setAllowConcurrentSingletonCreation(true);
+		lbf.setPreInstantiationParallelism(4);
+		Map<String, Boolean> referenceCreated = new ConcurrentHashMap<>();
+		lbf.addBeanPostProcessor(new InstantiationAwareBeanPostProcessorAdapter() {
+			@Override
+			public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) {
+				if (!beanName.equals("tb0")) {
+					referenceCreated.put(beanName, lbf.containsSingleton("tb0"));
+				}
+				return null;
+			}
+			@Override
+			public Object postProcessBeforeInitialization(Object bean, String beanName) {
+				if (beanName.equals("tb0")) {
+					try {
+						Thread.sleep(100);
+					}
+					catch (InterruptedException ex) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				return bean;
+			}
+		});
+		lbf.registerBeanDefinition("tb0", new RootBeanDefinition(TestBean.class));
+		RootBeanDefinition propertyReference = new RootBeanDefinition(TestBean.class);
+		propertyReference.getPropertyValues().add("spouse", new RuntimeBeanReference("tb0"));
+		lbf.registerBeanDefinition("tb1", propertyReference);
+		RootBeanDefinition constructorReference = new RootBeanDefinition(TestBean.class);
+		ManagedList<Object> list = new ManagedList<>();
+		list.add(new RuntimeBeanReference("tb0"));
+		constructorReference.getConstructorArgumentValues().addGenericArgumentValue(list);
+		lbf.registerBeanDefinition("tb2", constructorReference);
+
+		lbf.preInstantiateSingletons();
+
+		assertEquals(2, referenceCreated.size());
+		assertTrue(referenceCreated.get("tb1"));
+		assertTrue(referenceCreated.get("tb2"));
+		assertSame(lbf.getBean("tb0"), lbf.getBean("tb1", TestBean.class).getSpouse());
+	}
+
+	@Test
+	public void testParallelPreInstantiationWithoutConcurrentSingletonCreation() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setPreInstantiationParallelism(4);
+		Map<String, Thread> creationThreads = new ConcurrentHashMap<>();
+		lbf.addBeanPostProcessor(new BeanPostProcessor() {
+			@Override
+			public Object postProcessBeforeInitialization(Object bean, String beanName) {
+				creationThreads.put(beanName, Thread.currentThread());
+				return bean;
+			}
+		});
+		for (int i = 0; i < 10; i++) {
+			lbf.registerBeanDefinition("tb" + i, new RootBeanDefinition(TestBean.class));
+		}
+
+		lbf.preInstantiateSingletons();
+
+		assertEquals(10, creationThreads.size());
+		assertEquals(Collections.singleton(Thread.currentThread()), new HashSet<>(creationThreads.values()));
+	}
+
+	@Test
+	public void testParallelPreInstantiationWithFailure() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setAllowConcurrentSingletonCreation(true);
+		lbf.setPreInstantiationParallelism(4);
+		for (int i = 0; i < 10; i++) {
+			lbf.registerBeanDefinition("tb" + i, new RootBeanDefinition(TestBean.class));
+		}
+		RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+		bd.setInitMethodName("bogusInitMethod");
+		lbf.registerBeanDefinition("failing", bd);
+		try {
+			lbf.preInstantiateSingletons();
+			fail("Should have thrown BeanCreationException");
+		}
+		catch (BeanCreationException ex) {
+			// expected
+			assertEquals("failing", ex.getBeanName());
+		}
+		for (int i = 0; i < 10; i++) {
+			assertTrue(lbf.containsSingleton("tb" + i));
+		}
+	}
+
 	@Test
 	public void testImplicitDependsOnCycle() {
 		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
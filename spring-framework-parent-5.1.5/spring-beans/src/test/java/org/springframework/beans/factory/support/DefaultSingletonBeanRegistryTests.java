@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,10 +16,20 @@
 
 package org.springframework.beans.factory.support;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.Test;
 
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
 import org.springframework.tests.sample.beans.DerivedTestBean;
 import org.springframework.tests.sample.beans.TestBean;
 
@@ -101,4 +111,189 @@ public class DefaultSingletonBeanRegistryTests {
 		assertTrue(beanRegistry.isDependent("c", "c"));
 	}
 
+	@Test
+	public void testConcurrentSingletonCreationOfIndependentSingletons() throws Exception {
+		DefaultSingletonBeanRegistry beanRegistry = new DefaultSingletonBeanRegistry();
+		beanRegistry.setAllowConcurrentSingletonCreation(true);
+		CountDownLatch bothInCreation = new CountDownLatch(2);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<Object> tb1 = executor.submit(() -> beanRegistry.getSingleton("tb1", () -> {
+				bothInCreation.countDown();
+				return awaitAndCreate(bothInCreation);
+			}));
+			Future<Object> tb2 = executor.submit(() -> beanRegistry.getSingleton("tb2", () -> {
+				bothInCreation.countDown();
+				return awaitAndCreate(bothInCreation);
+			}));
+			assertSame(tb1.get(10, TimeUnit.SECONDS), beanRegistry.getSingleton("tb1"));
+			assertSame(tb2.get(10, TimeUnit.SECONDS), beanRegistry.getSingleton("tb2"));
+			assertEquals(2, beanRegistry.getSingletonCount());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testConcurrentSingletonCreationOfSameSingleton() throws Exception {
+		DefaultSingletonBeanRegistry beanRegistry = new DefaultSingletonBeanRegistry();
+		beanRegistry.setAllowConcurrentSingletonCreation(true);
+		AtomicInteger creationCount = new AtomicInteger();
+		CountDownLatch inCreation = new CountDownLatch(1);
+		CountDownLatch proceed = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<Object> first = executor.submit(() -> beanRegistry.getSingleton("tb", () -> {
+				creationCount.incrementAndGet();
+				inCreation.countDown();
+				return awaitAndCreate(proceed);
+			}));
+			assertTrue(inCreation.await(10, TimeUnit.SECONDS));
+			Future<Object> second = executor.submit(() -> beanRegistry.getSingleton("tb", () -> {
+				creationCount.incrementAndGet();
+				return new TestBean();
+			}));
+			assertNull(beanRegistry.getSingleton("tb"));
+			proceed.countDown();
+			assertSame(first.get(10, TimeUnit.SECONDS), second.get(10, TimeUnit.SECONDS));
+			assertEquals(1, creationCount.get());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testConcurrentSingletonCreationOfSingletonExcludedFromInCreationCheck() throws Exception {
+		DefaultSingletonBeanRegistry beanRegistry = new DefaultSingletonBeanRegistry();
+		beanRegistry.setAllowConcurrentSingletonCreation(true);
+		beanRegistry.setCurrentlyInCreation("tb", false);
+		AtomicInteger creationCount = new AtomicInteger();
+		CountDownLatch inCreation = new CountDownLatch(1);
+		CountDownLatch proceed = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<Object> first = executor.submit(() -> beanRegistry.getSingleton("tb", () -> {
+				creationCount.incrementAndGet();
+				inCreation.countDown();
+				return awaitAndCreate(proceed);
+			}));
+			assertTrue(inCreation.await(10, TimeUnit.SECONDS));
+			Future<Object> second = executor.submit(() -> beanRegistry.getSingleton("tb", () -> {
+				creationCount.incrementAndGet();
+				return new TestBean();
+			}));
+			assertFalse(beanRegistry.isCurrentlyInCreation("tb"));
+			proceed.countDown();
+			assertSame(first.get(10, TimeUnit.SECONDS), second.get(10, TimeUnit.SECONDS));
+			assertEquals(1, creationCount.get());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testConcurrentSingletonCreationWithCircularReferenceAcrossThreads() throws Exception {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.setAllowConcurrentSingletonCreation(true);
+		CountDownLatch bothInstantiated = new CountDownLatch(2);
+		RootBeanDefinition bd1 = new RootBeanDefinition(LatchedBean.class);
+		bd1.getConstructorArgumentValues().addGenericArgumentValue(bothInstantiated);
+		bd1.getPropertyValues().add("other", new RuntimeBeanReference("bean2"));
+		beanFactory.registerBeanDefinition("bean1", bd1);
+		RootBeanDefinition bd2 = new RootBeanDefinition(LatchedBean.class);
+		bd2.getConstructorArgumentValues().addGenericArgumentValue(bothInstantiated);
+		bd2.getPropertyValues().add("other", new RuntimeBeanReference("bean1"));
+		beanFactory.registerBeanDefinition("bean2", bd2);
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<LatchedBean> bean1 = executor.submit(() -> beanFactory.getBean("bean1", LatchedBean.class));
+			Future<LatchedBean> bean2 = executor.submit(() -> beanFactory.getBean("bean2", LatchedBean.class));
+			LatchedBean lb1 = bean1.get(10, TimeUnit.SECONDS);
+			LatchedBean lb2 = bean2.get(10, TimeUnit.SECONDS);
+			assertSame(lb2, lb1.getOther());
+			assertSame(lb1, lb2.getOther());
+			assertSame(lb1, beanFactory.getBean("bean1"));
+			assertSame(lb2, beanFactory.getBean("bean2"));
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testConcurrentSingletonCreationKeepsSuppressedExceptionsPerThread() throws Exception {
+		DefaultSingletonBeanRegistry beanRegistry = new DefaultSingletonBeanRegistry();
+		beanRegistry.setAllowConcurrentSingletonCreation(true);
+		CountDownLatch bothSuppressed = new CountDownLatch(2);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<Object> first = executor.submit(() -> beanRegistry.getSingleton("tb1", () -> {
+				beanRegistry.onSuppressedException(new IllegalStateException("tb1"));
+				bothSuppressed.countDown();
+				awaitAndCreate(bothSuppressed);
+				throw new BeanCreationException("tb1", "failed");
+			}));
+			Future<Object> second = executor.submit(() -> beanRegistry.getSingleton("tb2", () -> {
+				beanRegistry.onSuppressedException(new IllegalStateException("tb2"));
+				bothSuppressed.countDown();
+				awaitAndCreate(bothSuppressed);
+				throw new BeanCreationException("tb2", "failed");
+			}));
+			assertRelatedCause(first, "tb1");
+			assertRelatedCause(second, "tb2");
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+
+	private static void assertRelatedCause(Future<Object> future, String message) throws Exception {
+		try {
+			future.get(10, TimeUnit.SECONDS);
+			fail("Should have thrown BeanCreationException");
+		}
+		catch (ExecutionException ex) {
+			Throwable[] relatedCauses = ((BeanCreationException) ex.getCause()).getRelatedCauses();
+			assertNotNull(relatedCauses);
+			assertEquals(1, relatedCauses.length);
+			assertEquals(message, relatedCauses[0].getMessage());
+		}
+	}
+
+	private static TestBean awaitAndCreate(CountDownLatch latch) {
+		try {
+			if (!latch.await(10, TimeUnit.SECONDS)) {
+				throw new IllegalStateException("Timed out waiting for latch");
+			}
+		}
+		catch (InterruptedException ex) {
+			throw new IllegalStateException(ex);
+		}
+		return new TestBean();
+	}
+
+
+	public static class LatchedBean {
+
+		private LatchedBean other;
+
+		public LatchedBean(CountDownLatch bothInstantiated) {
+			bothInstantiated.countDown();
+			awaitAndCreate(bothInstantiated);
+		}
+
+		public void setOther(LatchedBean other) {
+			this.other = other;
+		}
+
+		public LatchedBean getOther() {
+			return this.other;
+		}
+	}
+
 }
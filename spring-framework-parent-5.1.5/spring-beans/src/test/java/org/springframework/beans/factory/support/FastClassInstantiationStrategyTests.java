@@ -0,0 +1,267 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.beans.BeanInstantiationException;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.tests.sample.beans.TestBean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link FastClassInstantiationStrategy}.
+ *
+ * @since 5.1.6
+ */
+public class FastClassInstantiationStrategyTests {
+
+	private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+
+	@Before
+	public void setup() {
+		this.beanFactory.setInstantiationStrategy(new FastClassInstantiationStrategy());
+		AutowiredAnnotationBeanPostProcessor bpp = new AutowiredAnnotationBeanPostProcessor();
+		bpp.setBeanFactory(this.beanFactory);
+		this.beanFactory.addBeanPostProcessor(bpp);
+		this.beanFactory.registerBeanDefinition("spouse", new RootBeanDefinition(TestBean.class));
+	}
+
+
+	@Test
+	public void defaultConstructor() {
+		registerPrototype("bean", new RootBeanDefinition(TestBean.class));
+		assertNotSame(this.beanFactory.getBean("bean"), this.beanFactory.getBean("bean"));
+	}
+
+	@Test
+	public void constructorWithArguments() {
+		RootBeanDefinition bd = new RootBeanDefinition(ConstructorBean.class);
+		bd.getConstructorArgumentValues().addGenericArgumentValue(new RuntimeBeanReference("spouse"));
+		bd.getConstructorArgumentValues().addGenericArgumentValue(42);
+		registerPrototype("bean", bd);
+		ConstructorBean bean = this.beanFactory.getBean("bean", ConstructorBean.class);
+		assertSame(this.beanFactory.getBean("spouse"), bean.spouse);
+		assertEquals(42, bean.age);
+	}
+
+	@Test
+	public void constructorInvokedThroughGeneratedClass() {
+		registerPrototype("bean", new RootBeanDefinition(FailingBean.class));
+		BeanInstantiationException ex = getInstantiationException("bean");
+		assertTrue(ex.getMessage().contains("Constructor threw exception"));
+		assertTrue(ex.getCause() instanceof IllegalStateException);
+		assertTrue(invokedThroughGeneratedClass(ex.getCause()));
+	}
+
+	@Test
+	public void constructorWithMismatchedArgument() throws Exception {
+		FastClassInstantiationStrategy strategy = new FastClassInstantiationStrategy();
+		try {
+			strategy.instantiateWithConstructor(
+					ConstructorBean.class.getConstructor(TestBean.class, int.class), "spouse", 42);
+			fail("Should have thrown BeanInstantiationException");
+		}
+		catch (BeanInstantiationException ex) {
+			assertTrue(ex.getMessage().contains("Illegal arguments for constructor"));
+			assertTrue(ex.getCause() instanceof IllegalArgumentException);
+		}
+		try {
+			strategy.instantiateWithConstructor(
+					ConstructorBean.class.getConstructor(TestBean.class, int.class), new TestBean(), null);
+			fail("Should have thrown BeanInstantiationException");
+		}
+		catch (BeanInstantiationException ex) {
+			assertTrue(ex.getCause() instanceof IllegalArgumentException);
+		}
+	}
+
+	@Test
+	public void methodWithMismatchedArgument() throws Exception {
+		FastClassInstantiationStrategy strategy = new FastClassInstantiationStrategy();
+		try {
+			strategy.invokeMethod(FactoryMethods.class.getMethod("createTestBean", String.class), null, 42);
+			fail("Should have thrown IllegalArgumentException");
+		}
+		catch (IllegalArgumentException ex) {
+			// expected, instead of a ClassCastException reported as thrown by the target
+		}
+		try {
+			strategy.invokeMethod(FactoryMethods.class.getMethod("createSpouse"), null);
+			fail("Should have thrown NullPointerException");
+		}
+		catch (NullPointerException ex) {
+			assertFalse(invokedThroughGeneratedClass(ex));
+		}
+		assertEquals("name", ((TestBean) strategy.invokeMethod(
+				FactoryMethods.class.getMethod("createTestBean", String.class), null, "name")).getName());
+	}
+
+	@Test
+	public void privateNestedClassFallsBackToReflection() {
+		registerPrototype("bean", new RootBeanDefinition(PrivateFailingBean.class));
+		BeanInstantiationException ex = getInstantiationException("bean");
+		assertTrue(ex.getCause() instanceof IllegalStateException);
+		assertFalse(invokedThroughGeneratedClass(ex.getCause()));
+	}
+
+	@Test
+	public void staticFactoryMethod() {
+		RootBeanDefinition bd = new RootBeanDefinition(FactoryMethods.class);
+		bd.setFactoryMethodName("createTestBean");
+		bd.getConstructorArgumentValues().addGenericArgumentValue("static");
+		registerPrototype("bean", bd);
+		assertEquals("static", this.beanFactory.getBean("bean", TestBean.class).getName());
+	}
+
+	@Test
+	public void instanceFactoryMethod() {
+		this.beanFactory.registerBeanDefinition("factory", new RootBeanDefinition(FactoryMethods.class));
+		RootBeanDefinition bd = new RootBeanDefinition();
+		bd.setFactoryBeanName("factory");
+		bd.setFactoryMethodName("createSpouse");
+		registerPrototype("bean", bd);
+		TestBean bean = this.beanFactory.getBean("bean", TestBean.class);
+		assertSame(this.beanFactory.getBean("spouse"), bean.getSpouse());
+	}
+
+	@Test
+	public void factoryMethodInvokedThroughGeneratedClass() {
+		RootBeanDefinition bd = new RootBeanDefinition(FactoryMethods.class);
+		bd.setFactoryMethodName("createFailing");
+		registerPrototype("bean", bd);
+		BeanInstantiationException ex = getInstantiationException("bean");
+		assertTrue(ex.getCause() instanceof IllegalStateException);
+		assertTrue(invokedThroughGeneratedClass(ex.getCause()));
+	}
+
+	@Test
+	public void autowiredMethodInjection() {
+		registerPrototype("bean", new RootBeanDefinition(MethodInjectionBean.class));
+		MethodInjectionBean bean = this.beanFactory.getBean("bean", MethodInjectionBean.class);
+		assertSame(this.beanFactory.getBean("spouse"), bean.spouse);
+		assertSame(this.beanFactory.getBean("spouse"), bean.privateSpouse);
+		assertTrue(invokedThroughGeneratedClass(bean.publicInjectionTrace));
+		assertFalse(invokedThroughGeneratedClass(bean.privateInjectionTrace));
+	}
+
+
+	private void registerPrototype(String beanName, RootBeanDefinition bd) {
+		bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		this.beanFactory.registerBeanDefinition(beanName, bd);
+	}
+
+	private BeanInstantiationException getInstantiationException(String beanName) {
+		try {
+			this.beanFactory.getBean(beanName);
+			throw new AssertionError("Should have thrown BeanCreationException");
+		}
+		catch (BeanCreationException ex) {
+			assertTrue(ex.getCause() instanceof BeanInstantiationException);
+			return (BeanInstantiationException) ex.getCause();
+		}
+	}
+
+	private static boolean invokedThroughGeneratedClass(Throwable ex) {
+		return Arrays.stream(ex.getStackTrace()).anyMatch(element ->
+				element.getClassName().contains("$$FastClassByCGLIB$$"));
+	}
+
+
+	public static class ConstructorBean {
+
+		final TestBean spouse;
+
+		final int age;
+
+		public ConstructorBean(TestBean spouse, int age) {
+			this.spouse = spouse;
+			this.age = age;
+		}
+	}
+
+
+	public static class FailingBean {
+
+		public FailingBean() {
+			throw new IllegalStateException("failed");
+		}
+	}
+
+
+	private static class PrivateFailingBean {
+
+		public PrivateFailingBean() {
+			throw new IllegalStateException("failed");
+		}
+	}
+
+
+	public static class FactoryMethods {
+
+		@Autowired
+		TestBean spouse;
+
+		public static TestBean createTestBean(String name) {
+			return new TestBean(name);
+		}
+
+		public static TestBean createFailing() {
+			throw new IllegalStateException("failed");
+		}
+
+		public TestBean createSpouse() {
+			TestBean testBean = new TestBean();
+			testBean.setSpouse(this.spouse);
+			return testBean;
+		}
+	}
+
+
+	public static class MethodInjectionBean {
+
+		TestBean spouse;
+
+		TestBean privateSpouse;
+
+		Throwable publicInjectionTrace;
+
+		Throwable privateInjectionTrace;
+
+		@Autowired
+		public void setSpouse(TestBean spouse) {
+			this.spouse = spouse;
+			this.publicInjectionTrace = new Throwable();
+		}
+
+		@Autowired
+		private void setPrivateSpouse(TestBean spouse) {
+			this.privateSpouse = spouse;
+			this.privateInjectionTrace = new Throwable();
+		}
+	}
+
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+
+/**
+ * Benchmarks for bean retrieval and creation hot paths in
+ * {@link DefaultListableBeanFactory}: {@code getBean} by name and by type
+ * against singleton and prototype definitions, as well as
+ * {@code createBean} for an unregistered class with autowiring by type.
+ *
+ * @since 5.1.6
+ */
+@BenchmarkMode(Mode.Throughput)
+public class DefaultListableBeanFactoryBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class GetBeanState {
+
+		@Param({"1000", "10000", "50000"})
+		public int beanCount;
+
+		@Param({"singleton", "prototype"})
+		public String scope;
+
+		public DefaultListableBeanFactory beanFactory;
+
+		public String beanName;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.beanFactory = createBeanFactory(this.beanCount, this.scope);
+			this.beanName = "sampleBean" + (this.beanCount / 2);
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			this.beanFactory.destroySingletons();
+		}
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class CreateBeanState {
+
+		@Param({"1000", "10000", "50000"})
+		public int beanCount;
+
+		public DefaultListableBeanFactory beanFactory;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.beanFactory = createBeanFactory(this.beanCount, BeanDefinition.SCOPE_SINGLETON);
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			this.beanFactory.destroySingletons();
+		}
+	}
+
+
+	@Benchmark
+	public Object getBeanByName(GetBeanState state) {
+		return state.beanFactory.getBean(state.beanName);
+	}
+
+	@Benchmark
+	public Object getBeanByType(GetBeanState state) {
+		return state.beanFactory.getBean(TargetBean.class);
+	}
+
+	@Benchmark
+	public Object createBean(CreateBeanState state) {
+		return state.beanFactory.createBean(SampleBean.class, AutowireCapableBeanFactory.AUTOWIRE_BY_TYPE, false);
+	}
+
+
+	/**
+	 * Register the given number of {@link SampleBean} definitions with the given
+	 * scope, all referring to a shared {@link Dependency}, plus a single
+	 * {@link TargetBean} that is only resolvable by scanning all definitions.
+	 */
+	static DefaultListableBeanFactory createBeanFactory(int beanCount, String scope) {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.registerBeanDefinition("dependency", new RootBeanDefinition(Dependency.class));
+		for (int i = 0; i < beanCount; i++) {
+			RootBeanDefinition bd = new RootBeanDefinition(SampleBean.class);
+			bd.setScope(scope);
+			bd.getPropertyValues().add("dependency", new RuntimeBeanReference("dependency"));
+			beanFactory.registerBeanDefinition("sampleBean" + i, bd);
+		}
+		RootBeanDefinition target = new RootBeanDefinition(TargetBean.class);
+		target.setScope(scope);
+		beanFactory.registerBeanDefinition("targetBean", target);
+		beanFactory.preInstantiateSingletons();
+		return beanFactory;
+	}
+
+
+	public static class Dependency {
+	}
+
+
+	public static class SampleBean {
+
+		private Dependency dependency;
+
+		public void setDependency(Dependency dependency) {
+			this.dependency = dependency;
+		}
+
+		public Dependency getDependency() {
+			return this.dependency;
+		}
+	}
+
+
+	public static class TargetBean {
+	}
+
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.support;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.xml.XmlBeanDefinitionReader;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+
+/**
+ * Benchmark for a full {@link AbstractApplicationContext#refresh()} cycle with
+ * a varying number of bean definitions, either read from an XML document or
+ * registered as annotated classes on an {@link AnnotationConfigApplicationContext}.
+ *
+ * @since 5.1.6
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ApplicationContextRefreshBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"1000", "10000", "50000"})
+		public int beanCount;
+
+		@Param({"xml", "annotation"})
+		public String config;
+
+		public Resource xmlResource;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			if ("xml".equals(this.config)) {
+				this.xmlResource = new ByteArrayResource(
+						createXmlDocument(this.beanCount).getBytes(StandardCharsets.UTF_8), "benchmark beans");
+			}
+		}
+	}
+
+
+	@Benchmark
+	public ConfigurableApplicationContext refresh(BenchmarkState state) {
+		GenericApplicationContext context;
+		if ("xml".equals(state.config)) {
+			context = new GenericApplicationContext();
+			new XmlBeanDefinitionReader(context).loadBeanDefinitions(state.xmlResource);
+		}
+		else {
+			AnnotationConfigApplicationContext ac = new AnnotationConfigApplicationContext();
+			ac.register(BenchmarkConfiguration.class);
+			for (int i = 0; i < state.beanCount; i++) {
+				ac.registerBean("sampleBean" + i, AnnotatedSampleBean.class);
+			}
+			context = ac;
+		}
+		context.refresh();
+		context.close();
+		return context;
+	}
+
+
+	static String createXmlDocument(int beanCount) {
+		String sampleBeanClass = XmlSampleBean.class.getName();
+		StringBuilder sb = new StringBuilder(beanCount * 160);
+		sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		sb.append("<beans xmlns=\"http://www.springframework.org/schema/beans\"\n");
+		sb.append("\t\txmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n");
+		sb.append("\t\txsi:schemaLocation=\"http://www.springframework.org/schema/beans ");
+		sb.append("http://www.springframework.org/schema/beans/spring-beans.xsd\">\n");
+		sb.append("\t<bean id=\"dependency\" class=\"").append(Dependency.class.getName()).append("\"/>\n");
+		for (int i = 0; i < beanCount; i++) {
+			sb.append("\t<bean id=\"sampleBean").append(i).append("\" class=\"").append(sampleBeanClass).append("\">\n");
+			sb.append("\t\t<property name=\"dependency\" ref=\"dependency\"/>\n");
+			sb.append("\t</bean>\n");
+		}
+		sb.append("</beans>\n");
+		return sb.toString();
+	}
+
+
+	@Configuration
+	static class BenchmarkConfiguration {
+
+		@Bean
+		public Dependency dependency() {
+			return new Dependency();
+		}
+	}
+
+
+	public static class Dependency {
+	}
+
+
+	public static class XmlSampleBean {
+
+		private Dependency dependency;
+
+		public void setDependency(Dependency dependency) {
+			this.dependency = dependency;
+		}
+
+		public Dependency getDependency() {
+			return this.dependency;
+		}
+	}
+
+
+	public static class AnnotatedSampleBean {
+
+		@Autowired
+		private Dependency dependency;
+
+		public Dependency getDependency() {
+			return this.dependency;
+		}
+	}
+
+}
@@ -23,6 +23,10 @@ import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -40,6 +44,7 @@ import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.EnvironmentCapable;
 import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
@@ -47,6 +52,7 @@ import org.springframework.core.io.support.ResourcePatternResolver;
 import org.springframework.core.io.support.ResourcePatternUtils;
 import org.springframework.core.type.AnnotationMetadata;
 import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
+import org.springframework.core.type.classreading.ClassMetadataIndex;
 import org.springframework.core.type.classreading.MetadataReader;
 import org.springframework.core.type.classreading.MetadataReaderFactory;
 import org.springframework.core.type.filter.AnnotationTypeFilter;
@@ -60,6 +66,7 @@ import org.springframework.stereotype.Repository;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.CompiledPathMatcher;
 
 /**
  * A component provider that provides candidate components from a base package. Can
@@ -95,6 +102,10 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 
 	static final String DEFAULT_RESOURCE_PATTERN = "**/*.class";
 
+	private static final CompiledPathMatcher indexPathMatcher = new CompiledPathMatcher();
+
+	private static final int MAX_SCAN_BATCH_SIZE = 64;
+
 
 	protected final Log logger = LogFactory.getLog(getClass());
 
@@ -119,6 +130,12 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 	@Nullable
 	private CandidateComponentsIndex componentsIndex;
 
+	@Nullable
+	private ClassMetadataIndex classMetadataIndex;
+
+	@Nullable
+	private Executor scanExecutor;
+
 
 	/**
 	 * Protected constructor for flexible subclass initialization.
@@ -293,6 +310,7 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 		this.resourcePatternResolver = ResourcePatternUtils.getResourcePatternResolver(resourceLoader);
 		this.metadataReaderFactory = new CachingMetadataReaderFactory(resourceLoader);
 		this.componentsIndex = CandidateComponentsIndexLoader.loadIndex(this.resourcePatternResolver.getClassLoader());
+		this.classMetadataIndex = ClassMetadataIndex.loadIndex(this.resourcePatternResolver.getClassLoader());
 	}
 
 	/**
@@ -332,9 +350,28 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 		return this.metadataReaderFactory;
 	}
 
+	/**
+	 * Set an {@link Executor} for reading and filtering the class files found
+	 * when scanning the class path in parallel.
+	 * <p>Default is none, scanning on the calling thread only. If specified, the
+	 * calling thread shares the work with tasks submitted to the given executor;
+	 * the resulting candidate components are in class path order either way.
+	 * <p>Note that the configured {@link TypeFilter TypeFilters}, the
+	 * {@link MetadataReaderFactory} and any overridden {@code isCandidateComponent}
+	 * methods need to be thread-safe in that case.
+	 * @since 5.1.6
+	 * @see #findCandidateComponents(String)
+	 */
+	public void setScanExecutor(@Nullable Executor scanExecutor) {
+		this.scanExecutor = scanExecutor;
+	}
+
 
 	/**
 	 * Scan the class path for candidate components.
+	 * <p>Uses the {@link CandidateComponentsIndex} if available and applicable
+	 * to the include filters, otherwise the indexed classes of a
+	 * {@link ClassMetadataIndex} if available, otherwise scans the class path.
 	 * @param basePackage the package to check for annotated classes
 	 * @return a corresponding Set of autodetected bean definitions
 	 */
@@ -342,6 +379,9 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 		if (this.componentsIndex != null && indexSupportsIncludeFilters()) {
 			return addCandidateComponentsFromIndex(this.componentsIndex, basePackage);
 		}
+		else if (this.classMetadataIndex != null) {
+			return scanIndexedCandidateComponents(this.classMetadataIndex, basePackage);
+		}
 		else {
 			return scanCandidateComponents(basePackage);
 		}
@@ -443,51 +483,55 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 		return candidates;
 	}
 
+	private Set<BeanDefinition> scanIndexedCandidateComponents(ClassMetadataIndex index, String basePackage) {
+		Set<BeanDefinition> candidates = new LinkedHashSet<>();
+		CompiledPathMatcher.CompiledPattern packageSearchPattern =
+				indexPathMatcher.compile(resolveBasePackage(basePackage) + '/' + this.resourcePattern);
+		ClassLoader classLoader = getResourcePatternResolver().getClassLoader();
+		boolean traceEnabled = logger.isTraceEnabled();
+		for (String className : index.getClassNames()) {
+			String resourcePath = ClassUtils.convertClassNameToResourcePath(className) + ClassUtils.CLASS_FILE_SUFFIX;
+			if (!packageSearchPattern.matches(indexPathMatcher.split(resourcePath))) {
+				continue;
+			}
+			Resource resource = new ClassPathResource(resourcePath, classLoader);
+			if (traceEnabled) {
+				logger.trace("Scanning " + resource + " from class metadata index");
+			}
+			try {
+				BeanDefinition candidate =
+						scanCandidateComponent(getMetadataReaderFactory().getMetadataReader(resource), resource);
+				if (candidate != null) {
+					candidates.add(candidate);
+				}
+			}
+			catch (Throwable ex) {
+				throw new BeanDefinitionStoreException(
+						"Failed to read candidate component class: " + resource, ex);
+			}
+		}
+		return candidates;
+	}
+
 	private Set<BeanDefinition> scanCandidateComponents(String basePackage) {
 		Set<BeanDefinition> candidates = new LinkedHashSet<>();
 		try {
 			String packageSearchPath = ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX +
 					resolveBasePackage(basePackage) + '/' + this.resourcePattern;
 			Resource[] resources = getResourcePatternResolver().getResources(packageSearchPath);
-			boolean traceEnabled = logger.isTraceEnabled();
-			boolean debugEnabled = logger.isDebugEnabled();
-			for (Resource resource : resources) {
-				if (traceEnabled) {
-					logger.trace("Scanning " + resource);
-				}
-				if (resource.isReadable()) {
-					try {
-						MetadataReader metadataReader = getMetadataReaderFactory().getMetadataReader(resource);
-						if (isCandidateComponent(metadataReader)) {
-							ScannedGenericBeanDefinition sbd = new ScannedGenericBeanDefinition(metadataReader);
-							sbd.setResource(resource);
-							sbd.setSource(resource);
-							if (isCandidateComponent(sbd)) {
-								if (debugEnabled) {
-									logger.debug("Identified candidate component class: " + resource);
-								}
-								candidates.add(sbd);
-							}
-							else {
-								if (debugEnabled) {
-									logger.debug("Ignored because not a concrete top-level class: " + resource);
-								}
-							}
-						}
-						else {
-							if (traceEnabled) {
-								logger.trace("Ignored because not matching any filter: " + resource);
-							}
-						}
-					}
-					catch (Throwable ex) {
-						throw new BeanDefinitionStoreException(
-								"Failed to read candidate component class: " + resource, ex);
+			Executor executor = this.scanExecutor;
+			if (executor != null && resources.length > 1) {
+				for (BeanDefinition candidate : scanCandidateComponents(resources, executor)) {
+					if (candidate != null) {
+						candidates.add(candidate);
 					}
 				}
-				else {
-					if (traceEnabled) {
-						logger.trace("Ignored because not readable: " + resource);
+			}
+			else {
+				for (Resource resource : resources) {
+					BeanDefinition candidate = scanCandidateComponent(resource);
+					if (candidate != null) {
+						candidates.add(candidate);
 					}
 				}
 			}
@@ -498,6 +542,123 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 		return candidates;
 	}
 
+	/**
+	 * Scan the given resources in batches, claimed by the calling thread as well as
+	 * by tasks submitted to the given executor, so that scanning completes even if
+	 * the executor does not run any of those tasks right away.
+	 * @return the candidate component for each resource, or {@code null}
+	 * for resources that do not qualify
+	 */
+	private BeanDefinition[] scanCandidateComponents(Resource[] resources, Executor executor) {
+		int parallelism = Runtime.getRuntime().availableProcessors();
+		int batchSize = Math.max(1, Math.min(MAX_SCAN_BATCH_SIZE, resources.length / (parallelism * 4)));
+		int batchCount = (resources.length + batchSize - 1) / batchSize;
+		BeanDefinition[] candidates = new BeanDefinition[resources.length];
+		Throwable[] failures = new Throwable[batchCount];
+		AtomicInteger nextBatch = new AtomicInteger();
+		CountDownLatch remainingBatches = new CountDownLatch(batchCount);
+
+		Runnable worker = () -> {
+			int batch;
+			while ((batch = nextBatch.getAndIncrement()) < batchCount) {
+				try {
+					int end = Math.min(resources.length, (batch + 1) * batchSize);
+					for (int i = batch * batchSize; i < end; i++) {
+						candidates[i] = scanCandidateComponent(resources[i]);
+					}
+				}
+				catch (Throwable ex) {
+					failures[batch] = ex;
+				}
+				finally {
+					remainingBatches.countDown();
+				}
+			}
+		};
+		for (int i = Math.min(parallelism, batchCount) - 1; i > 0; i--) {
+			try {
+				executor.execute(worker);
+			}
+			catch (RejectedExecutionException ex) {
+				// Remaining batches get scanned by the calling thread
+				break;
+			}
+		}
+		worker.run();
+		try {
+			remainingBatches.await();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new BeanDefinitionStoreException("Interrupted while waiting for parallel classpath scanning");
+		}
+
+		// Rethrow the failure for the first failed resource in class path order
+		for (Throwable failure : failures) {
+			if (failure instanceof RuntimeException) {
+				throw (RuntimeException) failure;
+			}
+			else if (failure instanceof Error) {
+				throw (Error) failure;
+			}
+		}
+		return candidates;
+	}
+
+	@Nullable
+	private BeanDefinition scanCandidateComponent(Resource resource) {
+		boolean traceEnabled = logger.isTraceEnabled();
+		if (traceEnabled) {
+			logger.trace("Scanning " + resource);
+		}
+		if (resource.isReadable()) {
+			try {
+				return scanCandidateComponent(getMetadataReaderFactory().getMetadataReader(resource), resource);
+			}
+			catch (Throwable ex) {
+				throw new BeanDefinitionStoreException(
+						"Failed to read candidate component class: " + resource, ex);
+			}
+		}
+		else {
+			if (traceEnabled) {
+				logger.trace("Ignored because not readable: " + resource);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Create a bean definition for the class read from the given resource,
+	 * provided that it qualifies as a candidate component.
+	 * @return the candidate component, or {@code null} if the class does not qualify
+	 */
+	@Nullable
+	private BeanDefinition scanCandidateComponent(MetadataReader metadataReader, Resource resource) throws IOException {
+		if (isCandidateComponent(metadataReader)) {
+			ScannedGenericBeanDefinition sbd = new ScannedGenericBeanDefinition(metadataReader);
+			sbd.setResource(resource);
+			sbd.setSource(resource);
+			if (isCandidateComponent(sbd)) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Identified candidate component class: " + resource);
+				}
+				return sbd;
+			}
+			else {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Ignored because not a concrete top-level class: " + resource);
+				}
+			}
+		}
+		else {
+			if (logger.isTraceEnabled()) {
+				logger.trace("Ignored because not matching any filter: " + resource);
+			}
+		}
+		return null;
+	}
+
 
 	/**
 	 * Resolve the specified base package into a pattern specification for
@@ -545,6 +706,16 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 		return !this.conditionEvaluator.shouldSkip(metadataReader.getAnnotationMetadata());
 	}
 
+	/**
+	 * Return whether any condition other than a {@code @Profile} check
+	 * has been evaluated for candidate components so far.
+	 * @since 5.1.6
+	 */
+	boolean hasEvaluatedConditions() {
+		ConditionEvaluator conditionEvaluator = this.conditionEvaluator;
+		return (conditionEvaluator != null && conditionEvaluator.hasEvaluatedConditions());
+	}
+
 	/**
 	 * Determine whether the given bean definition qualifies as candidate.
 	 * <p>The default implementation checks whether the class is not an interface
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -62,6 +62,10 @@ class ComponentScanAnnotationParser {
 
 	private final BeanDefinitionRegistry registry;
 
+	private final Set<String> scannedPackages = new LinkedHashSet<>();
+
+	private boolean conditionsEvaluated;
+
 
 	public ComponentScanAnnotationParser(Environment environment, ResourceLoader resourceLoader,
 			BeanNameGenerator beanNameGenerator, BeanDefinitionRegistry registry) {
@@ -123,13 +127,36 @@ class ComponentScanAnnotationParser {
 			basePackages.add(ClassUtils.getPackageName(declaringClass));
 		}
 
+		this.scannedPackages.addAll(basePackages);
+
 		scanner.addExcludeFilter(new AbstractTypeHierarchyTraversingFilter(false, false) {
 			@Override
 			protected boolean matchClassName(String className) {
 				return declaringClass.equals(className);
 			}
 		});
-		return scanner.doScan(StringUtils.toStringArray(basePackages));
+		Set<BeanDefinitionHolder> beanDefinitions = scanner.doScan(StringUtils.toStringArray(basePackages));
+		if (scanner.hasEvaluatedConditions()) {
+			this.conditionsEvaluated = true;
+		}
+		return beanDefinitions;
+	}
+
+	/**
+	 * Return the base packages scanned so far, with placeholders resolved.
+	 * @since 5.1.6
+	 */
+	Set<String> getScannedPackages() {
+		return this.scannedPackages;
+	}
+
+	/**
+	 * Return whether any condition other than a {@code @Profile} check has been
+	 * evaluated for scanned candidate components so far.
+	 * @since 5.1.6
+	 */
+	boolean hasEvaluatedConditions() {
+		return this.conditionsEvaluated;
 	}
 
 	private List<TypeFilter> typeFiltersFor(AnnotationAttributes filterAttributes) {
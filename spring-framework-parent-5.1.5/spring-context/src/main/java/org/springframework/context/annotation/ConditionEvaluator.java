@@ -51,6 +51,8 @@ class ConditionEvaluator {
 
 	private final ConditionContextImpl context;
 
+	private volatile boolean conditionsEvaluated;
+
 
 	/**
 	 * Create a new {@link ConditionEvaluator} instance.
@@ -109,14 +111,29 @@ class ConditionEvaluator {
 			if (condition instanceof ConfigurationCondition) {
 				requiredPhase = ((ConfigurationCondition) condition).getConfigurationPhase();
 			}
-			if ((requiredPhase == null || requiredPhase == phase) && !condition.matches(this.context, metadata)) {
-				return true;
+			if (requiredPhase == null || requiredPhase == phase) {
+				if (!(condition instanceof ProfileCondition)) {
+					this.conditionsEvaluated = true;
+				}
+				if (!condition.matches(this.context, metadata)) {
+					return true;
+				}
 			}
 		}
 
 		return false;
 	}
 
+	/**
+	 * Return whether any condition other than a {@link ProfileCondition} has been
+	 * evaluated so far, i.e. a condition whose outcome may depend on state beyond
+	 * the active and default profiles, such as environment properties.
+	 * @since 5.1.6
+	 */
+	boolean hasEvaluatedConditions() {
+		return this.conditionsEvaluated;
+	}
+
 	@SuppressWarnings("unchecked")
 	private List<String[]> getConditionClasses(AnnotatedTypeMetadata metadata) {
 		MultiValueMap<String, Object> attributes = metadata.getAllAnnotationAttributes(Conditional.class.getName(), true);
@@ -107,6 +107,15 @@ class ConfigurationClassBeanDefinitionReader {
 	}
 
 
+	/**
+	 * Return whether any condition other than a {@code @Profile} check has been
+	 * evaluated for configuration classes or {@code @Bean} methods so far.
+	 * @since 5.1.6
+	 */
+	boolean hasEvaluatedConditions() {
+		return this.conditionEvaluator.hasEvaluatedConditions();
+	}
+
 	/**
 	 * Read {@code configurationModel}, registering bean definitions
 	 * with the registry based on its contents.
@@ -642,6 +642,31 @@ class ConfigurationClassParser {
 		return this.importStack;
 	}
 
+	/**
+	 * Return the name of the most recent importing class per imported class name.
+	 * @since 5.1.6
+	 */
+	Map<String, String> getImportingClassNames() {
+		return this.importStack.getImportingClassNames();
+	}
+
+	/**
+	 * Return the base packages of all component scans performed so far.
+	 * @since 5.1.6
+	 */
+	Set<String> getScannedPackages() {
+		return this.componentScanParser.getScannedPackages();
+	}
+
+	/**
+	 * Return whether any condition other than a {@code @Profile} check has been
+	 * evaluated for configuration classes or scanned components so far.
+	 * @since 5.1.6
+	 */
+	boolean hasEvaluatedConditions() {
+		return (this.conditionEvaluator.hasEvaluatedConditions() || this.componentScanParser.hasEvaluatedConditions());
+	}
+
 
 	/**
 	 * Factory method to obtain a {@link SourceClass} from a {@link ConfigurationClass}.
@@ -725,6 +750,17 @@ class ConfigurationClassParser {
 			return CollectionUtils.lastElement(this.imports.get(importedClass));
 		}
 
+		public Map<String, String> getImportingClassNames() {
+			Map<String, String> importingClassNames = new LinkedHashMap<>(this.imports.size());
+			this.imports.forEach((importedClass, importingClasses) -> {
+				AnnotationMetadata importingClass = CollectionUtils.lastElement(importingClasses);
+				if (importingClass != null) {
+					importingClassNames.put(importedClass, importingClass.getClassName());
+				}
+			});
+			return importingClassNames;
+		}
+
 		@Override
 		public void removeImportingClass(String importingClass) {
 			for (List<AnnotationMetadata> list : this.imports.values()) {
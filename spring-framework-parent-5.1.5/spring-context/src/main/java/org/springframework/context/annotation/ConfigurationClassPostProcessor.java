@@ -16,6 +16,14 @@
 
 package org.springframework.context.annotation;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -55,7 +63,9 @@ import org.springframework.core.PriorityOrdered;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.StandardEnvironment;
 import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.WritableResource;
 import org.springframework.core.type.AnnotationMetadata;
 import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
 import org.springframework.core.type.classreading.MetadataReaderFactory;
@@ -94,6 +104,14 @@ import static org.springframework.context.annotation.AnnotationConfigUtils.CONFI
 public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPostProcessor,
 		PriorityOrdered, ResourceLoaderAware, BeanClassLoaderAware, EnvironmentAware {
 
+	/**
+	 * Name of the property that specifies the location of a configuration class
+	 * snapshot, if not set locally via {@link #setSnapshotLocation}.
+	 * @since 5.1.6
+	 * @see #setSnapshotLocation
+	 */
+	public static final String SNAPSHOT_LOCATION_PROPERTY_NAME = "spring.context.snapshot.location";
+
 	private static final String IMPORT_REGISTRY_BEAN_NAME =
 			ConfigurationClassPostProcessor.class.getName() + ".importRegistry";
 
@@ -125,6 +143,9 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 
 	private boolean localBeanNameGeneratorSet = false;
 
+	@Nullable
+	private Resource snapshotLocation;
+
 	/* Using short class names as default bean names */
 	/* 使用短的类名称作为默认的bean名称 */
 	private BeanNameGenerator componentScanBeanNameGenerator = new AnnotationBeanNameGenerator();
@@ -198,6 +219,29 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 		this.importBeanNameGenerator = beanNameGenerator;
 	}
 
+	/**
+	 * Set the location of a snapshot of the bean definitions derived from
+	 * configuration classes, e.g. a file generated as part of the build.
+	 * <p>If the snapshot exists and its fingerprint (initial bean definitions,
+	 * profiles, classpath archives, configuration class files and scanned package
+	 * directories) matches the current state, its bean
+	 * definitions are registered without parsing any configuration class.
+	 * Otherwise, configuration classes are processed as usual and the outcome
+	 * is written to the given location if it is a {@link WritableResource}.
+	 * <p>Alternatively, the location can be specified through the
+	 * {@link #SNAPSHOT_LOCATION_PROPERTY_NAME} environment property.
+	 * <p>Conditions other than {@link Profile @Profile} may depend on environment
+	 * properties or other state not covered by the fingerprint: if any of them
+	 * gets evaluated, no snapshot is written, and configuration classes keep
+	 * getting processed on every refresh.
+	 * <p>A snapshot file gets replaced atomically where the file system allows,
+	 * so that concurrently starting applications never read a partial snapshot.
+	 * @since 5.1.6
+	 */
+	public void setSnapshotLocation(@Nullable Resource snapshotLocation) {
+		this.snapshotLocation = snapshotLocation;
+	}
+
 	@Override
 	public void setEnvironment(Environment environment) {
 		Assert.notNull(environment, "Environment must not be null");
@@ -272,6 +316,24 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 	 * <p> 基于Configuration类的注册表构建和验证配置模型。
 	 */
 	public void processConfigBeanDefinitions(BeanDefinitionRegistry registry) {
+		if (this.environment == null) {
+			this.environment = new StandardEnvironment();
+		}
+
+		Resource snapshotLocation = resolveSnapshotLocation();
+		String initialState = null;
+		Map<String, BeanDefinition> initialDefinitions = null;
+		if (snapshotLocation != null) {
+			initialState = ConfigurationClassSnapshot.computeInitialState(registry, this.environment);
+			if (loadSnapshot(registry, snapshotLocation, initialState)) {
+				return;
+			}
+			initialDefinitions = new LinkedHashMap<>();
+			for (String beanName : registry.getBeanDefinitionNames()) {
+				initialDefinitions.put(beanName, registry.getBeanDefinition(beanName));
+			}
+		}
+
 		List<BeanDefinitionHolder> configCandidates = new ArrayList<>();
 		String[] candidateNames = registry.getBeanDefinitionNames();
 
@@ -313,10 +375,6 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 			}
 		}
 
-		if (this.environment == null) {
-			this.environment = new StandardEnvironment();
-		}
-
 		// Parse each @Configuration class
 		// 解析每个@Configuration类
 		ConfigurationClassParser parser = new ConfigurationClassParser(
@@ -368,13 +426,143 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 			sbr.registerSingleton(IMPORT_REGISTRY_BEAN_NAME, parser.getImportRegistry());
 		}
 
-		if (this.metadataReaderFactory instanceof CachingMetadataReaderFactory) {
+		if (snapshotLocation != null && (parser.hasEvaluatedConditions() || this.reader.hasEvaluatedConditions())) {
+			// Condition outcomes may depend on environment properties or other state beyond the fingerprint
+			if (logger.isDebugEnabled()) {
+				logger.debug("Not writing configuration class snapshot to " + snapshotLocation +
+						" since conditions other than @Profile have been evaluated");
+			}
+		}
+		else if (snapshotLocation != null) {
+			Set<String> configurationClassNames = new LinkedHashSet<>();
+			for (ConfigurationClass configClass : alreadyParsed) {
+				configurationClassNames.add(configClass.getMetadata().getClassName());
+			}
+			writeSnapshot(ConfigurationClassSnapshot.capture(registry, initialDefinitions, initialState,
+					this.beanClassLoader, parser.getImportingClassNames(), parser.getScannedPackages(),
+					configurationClassNames), snapshotLocation);
+		}
+
+		if (this.metadataReaderFactory instanceof CachingMetadataReaderFactory &&
+				((CachingMetadataReaderFactory) this.metadataReaderFactory).getMetadataReaderCache() == null) {
 			// Clear cache in externally provided MetadataReaderFactory; this is a no-op
 			// for a shared cache since it'll be cleared by the ApplicationContext.
+			// A MetadataReaderCache is left to sibling application contexts.
 			((CachingMetadataReaderFactory) this.metadataReaderFactory).clearCache();
 		}
 	}
 
+	@Nullable
+	private Resource resolveSnapshotLocation() {
+		if (this.snapshotLocation != null) {
+			return this.snapshotLocation;
+		}
+		String location = (this.environment != null ?
+				this.environment.getProperty(SNAPSHOT_LOCATION_PROPERTY_NAME) : null);
+		return (location != null ? this.resourceLoader.getResource(location) : null);
+	}
+
+	/**
+	 * Register the bean definitions from the snapshot at the given location,
+	 * provided that it exists and matches the given initial state and the current classpath.
+	 * @return {@code true} if the snapshot has been applied, {@code false}
+	 * if configuration classes need to be processed
+	 */
+	private boolean loadSnapshot(BeanDefinitionRegistry registry, Resource snapshotLocation, String initialState) {
+		if (!snapshotLocation.exists()) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("No configuration class snapshot found at " + snapshotLocation);
+			}
+			return false;
+		}
+		ConfigurationClassSnapshot snapshot;
+		try (InputStream is = snapshotLocation.getInputStream()) {
+			snapshot = ConfigurationClassSnapshot.readFrom(is, this.beanClassLoader, this.metadataReaderFactory);
+		}
+		catch (IOException ex) {
+			if (logger.isWarnEnabled()) {
+				logger.warn("Failed to read configuration class snapshot from " + snapshotLocation +
+						" - processing configuration classes instead", ex);
+			}
+			return false;
+		}
+		if (!snapshot.matches(initialState, this.beanClassLoader)) {
+			if (logger.isInfoEnabled()) {
+				logger.info("Configuration class snapshot at " + snapshotLocation +
+						" does not match current classpath - processing configuration classes instead");
+			}
+			return false;
+		}
+
+		snapshot.registerBeanDefinitions(registry);
+		if (registry instanceof SingletonBeanRegistry) {
+			SingletonBeanRegistry sbr = (SingletonBeanRegistry) registry;
+			if (!sbr.containsSingleton(IMPORT_REGISTRY_BEAN_NAME)) {
+				sbr.registerSingleton(IMPORT_REGISTRY_BEAN_NAME, snapshot.createImportRegistry(this.metadataReaderFactory));
+			}
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Registered " + snapshot.getBeanDefinitionCount() +
+					" bean definitions from configuration class snapshot at " + snapshotLocation);
+		}
+		return true;
+	}
+
+	private void writeSnapshot(ConfigurationClassSnapshot snapshot, Resource snapshotLocation) {
+		if (!(snapshotLocation instanceof WritableResource)) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Cannot write configuration class snapshot to non-writable " + snapshotLocation);
+			}
+			return;
+		}
+		try {
+			// Serialize completely before touching the target, not leaving a truncated snapshot behind
+			ByteArrayOutputStream content = new ByteArrayOutputStream(4096);
+			snapshot.writeTo(content);
+			if (snapshotLocation.isFile()) {
+				writeSnapshotFile(content.toByteArray(), snapshotLocation.getFile());
+			}
+			else {
+				try (OutputStream os = ((WritableResource) snapshotLocation).getOutputStream()) {
+					content.writeTo(os);
+				}
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Wrote configuration class snapshot to " + snapshotLocation);
+			}
+		}
+		catch (IOException | IllegalArgumentException ex) {
+			if (logger.isWarnEnabled()) {
+				logger.warn("Failed to write configuration class snapshot to " + snapshotLocation, ex);
+			}
+		}
+	}
+
+	/**
+	 * Replace the given snapshot file through a temporary file in the same directory,
+	 * so that a crash or a concurrent start never leaves a partially written snapshot.
+	 */
+	private static void writeSnapshotFile(byte[] content, File file) throws IOException {
+		File directory = file.getAbsoluteFile().getParentFile();
+		if (directory != null) {
+			Files.createDirectories(directory.toPath());
+		}
+		File tempFile = File.createTempFile(file.getName(), ".tmp", directory);
+		try {
+			Files.write(tempFile.toPath(), content);
+			try {
+				Files.move(tempFile.toPath(), file.toPath(),
+						StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			}
+			catch (AtomicMoveNotSupportedException ex) {
+				Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		finally {
+			Files.deleteIfExists(tempFile.toPath());
+		}
+	}
+
 	/**
 	 * Post-processes a BeanFactory in search of Configuration class BeanDefinitions;
 	 * any candidates are then enhanced by a {@link ConfigurationClassEnhancer}.
@@ -0,0 +1,1268 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.springframework.beans.BeanMetadataAttributeAccessor;
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.RuntimeBeanNameReference;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.config.TypedStringValue;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.AutowireCandidateQualifier;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.GenericBeanDefinition;
+import org.springframework.beans.factory.support.LookupOverride;
+import org.springframework.beans.factory.support.ManagedArray;
+import org.springframework.beans.factory.support.ManagedList;
+import org.springframework.beans.factory.support.ManagedMap;
+import org.springframework.beans.factory.support.ManagedProperties;
+import org.springframework.beans.factory.support.ManagedSet;
+import org.springframework.beans.factory.support.MethodOverride;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.core.AttributeAccessor;
+import org.springframework.core.env.Environment;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.ResourceUtils;
+
+/**
+ * Binary snapshot of the bean definitions produced by {@link ConfigurationClassPostProcessor},
+ * allowing a subsequent startup against the same classpath to register the outcome of
+ * configuration class parsing, component scanning, condition evaluation and
+ * {@link ImportBeanDefinitionRegistrar} invocations without performing any of them again.
+ *
+ * <p>A snapshot is only valid for the fingerprint it has been captured with: the names and
+ * classes of the bean definitions registered before configuration class processing, the
+ * active and default profiles, the name, size and modification time of every classpath
+ * archive, the size and modification time of the class files of all configuration classes,
+ * and the modification times of the directories of all scanned packages. The latter catch
+ * added and removed components but not in-place changes to existing component classes.
+ * Since conditions other than {@link Profile @Profile} may depend on anything else (e.g.
+ * individual environment properties), no snapshot is captured once any of them has been
+ * evaluated.
+ *
+ * <p>Bean definitions removed during processing (e.g. by an {@link ImportBeanDefinitionRegistrar})
+ * are removed again when applying a snapshot. Annotated bean definitions
+ * are restored as {@link AnnotatedBeanDefinition AnnotatedBeanDefinitions}, reading their
+ * metadata on demand.
+ *
+ * <p>Only declarative bean definition content is supported: definitions with an instance
+ * supplier, replaced methods or arbitrary object values are rejected on {@link #writeTo}.
+ *
+ * @since 5.1.6
+ * @see ConfigurationClassPostProcessor#setSnapshotLocation
+ */
+final class ConfigurationClassSnapshot {
+
+	private static final int MAGIC = 0x53424453;
+
+	private static final int VERSION = 2;
+
+	private static final byte ENTRY_EXISTING = 0;
+
+	private static final byte ENTRY_REGISTERED = 1;
+
+	private static final byte DEFINITION_GENERIC = 0;
+
+	private static final byte DEFINITION_ROOT = 1;
+
+	private static final byte DEFINITION_BEAN_METHOD = 2;
+
+	private static final byte DEFINITION_ANNOTATED_GENERIC = 3;
+
+	private static final byte VALUE_NULL = 0;
+
+	private static final byte VALUE_STRING = 1;
+
+	private static final byte VALUE_BOOLEAN = 2;
+
+	private static final byte VALUE_INTEGER = 3;
+
+	private static final byte VALUE_LONG = 4;
+
+	private static final byte VALUE_CLASS = 5;
+
+	private static final byte VALUE_ENUM = 6;
+
+	private static final byte VALUE_STRING_ARRAY = 7;
+
+	private static final byte VALUE_TYPED_STRING = 8;
+
+	private static final byte VALUE_BEAN_REFERENCE = 9;
+
+	private static final byte VALUE_BEAN_NAME_REFERENCE = 10;
+
+	private static final byte VALUE_BEAN_DEFINITION_HOLDER = 11;
+
+	private static final byte VALUE_BEAN_DEFINITION = 12;
+
+	private static final byte VALUE_MANAGED_LIST = 13;
+
+	private static final byte VALUE_MANAGED_ARRAY = 14;
+
+	private static final byte VALUE_MANAGED_SET = 15;
+
+	private static final byte VALUE_MANAGED_MAP = 16;
+
+	private static final byte VALUE_MANAGED_PROPERTIES = 17;
+
+
+	private final String fingerprint;
+
+	private final List<Entry> entries;
+
+	private final List<String> removedBeanNames;
+
+	private final Map<String, String> importingClassNames;
+
+	private final List<String> scannedPackages;
+
+	private final List<String> configurationClassNames;
+
+
+	private ConfigurationClassSnapshot(String fingerprint, List<Entry> entries, List<String> removedBeanNames,
+			Map<String, String> importingClassNames, List<String> scannedPackages,
+			List<String> configurationClassNames) {
+
+		this.fingerprint = fingerprint;
+		this.entries = entries;
+		this.removedBeanNames = removedBeanNames;
+		this.importingClassNames = importingClassNames;
+		this.scannedPackages = scannedPackages;
+		this.configurationClassNames = configurationClassNames;
+	}
+
+
+	/**
+	 * Return the fingerprint that this snapshot has been captured with.
+	 */
+	public String getFingerprint() {
+		return this.fingerprint;
+	}
+
+	/**
+	 * Determine whether this snapshot applies to the current classpath,
+	 * recomputing the fingerprint for the packages and configuration classes
+	 * recorded in this snapshot.
+	 * @param initialState the initial state, as computed by {@link #computeInitialState}
+	 * @param classLoader the ClassLoader to derive the classpath from
+	 */
+	public boolean matches(String initialState, @Nullable ClassLoader classLoader) {
+		return this.fingerprint.equals(computeFingerprint(
+				initialState, classLoader, this.scannedPackages, this.configurationClassNames));
+	}
+
+	/**
+	 * Return the number of bean definitions newly registered by this snapshot.
+	 */
+	public int getBeanDefinitionCount() {
+		int count = 0;
+		for (Entry entry : this.entries) {
+			if (!entry.existing) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Apply this snapshot to the given registry: remove the bean definitions that
+	 * configuration class processing removed, register all bean definitions and
+	 * aliases that it derived, and transfer the attributes it set on pre-existing
+	 * bean definitions (e.g. the configuration class marker).
+	 * @param registry the registry to populate
+	 */
+	public void registerBeanDefinitions(BeanDefinitionRegistry registry) {
+		for (String beanName : this.removedBeanNames) {
+			if (registry.containsBeanDefinition(beanName)) {
+				registry.removeBeanDefinition(beanName);
+			}
+		}
+		for (Entry entry : this.entries) {
+			if (entry.existing) {
+				if (!registry.containsBeanDefinition(entry.beanName)) {
+					continue;
+				}
+				BeanDefinition existingDefinition = registry.getBeanDefinition(entry.beanName);
+				for (String attributeName : entry.definition.attributeNames()) {
+					existingDefinition.setAttribute(attributeName, entry.definition.getAttribute(attributeName));
+				}
+			}
+			else {
+				registry.registerBeanDefinition(entry.beanName, entry.definition);
+			}
+			for (String alias : entry.aliases) {
+				if (!registry.isAlias(alias)) {
+					registry.registerAlias(entry.beanName, alias);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Create an {@link ImportRegistry} for the imports recorded in this snapshot,
+	 * lazily reading the metadata of importing classes when asked for it.
+	 * @param metadataReaderFactory the factory to read importing class metadata with
+	 */
+	public ImportRegistry createImportRegistry(MetadataReaderFactory metadataReaderFactory) {
+		return new SnapshotImportRegistry(this.importingClassNames, metadataReaderFactory);
+	}
+
+	/**
+	 * Write this snapshot to the given stream, leaving the stream open.
+	 * @param out the stream to write to
+	 * @throws IOException in case of I/O errors
+	 * @throws IllegalArgumentException if a bean definition contains
+	 * content that cannot be represented in a snapshot
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(out));
+		dos.writeInt(MAGIC);
+		dos.writeInt(VERSION);
+		writeString(dos, this.fingerprint);
+		dos.writeInt(this.entries.size());
+		for (Entry entry : this.entries) {
+			dos.writeByte(entry.existing ? ENTRY_EXISTING : ENTRY_REGISTERED);
+			writeString(dos, entry.beanName);
+			writeStringArray(dos, entry.aliases);
+			if (entry.existing) {
+				writeAttributes(dos, entry.definition, entry.beanName);
+			}
+			else {
+				writeBeanDefinition(dos, entry.definition, entry.beanName);
+			}
+		}
+		writeStringArray(dos, this.removedBeanNames.toArray(new String[0]));
+		dos.writeInt(this.importingClassNames.size());
+		for (Map.Entry<String, String> importEntry : this.importingClassNames.entrySet()) {
+			writeString(dos, importEntry.getKey());
+			writeString(dos, importEntry.getValue());
+		}
+		writeStringArray(dos, this.scannedPackages.toArray(new String[0]));
+		writeStringArray(dos, this.configurationClassNames.toArray(new String[0]));
+		dos.flush();
+	}
+
+
+	/**
+	 * Capture the outcome of configuration class processing in the given registry.
+	 * @param registry the registry after configuration class processing
+	 * @param initialDefinitions the bean definitions that had been registered
+	 * before configuration class processing, keyed by bean name
+	 * @param initialState the initial state computed before configuration class processing
+	 * @param classLoader the ClassLoader to derive the classpath from
+	 * @param importingClassNames the importing class name per imported class name
+	 * @param scannedPackages the base packages of all component scans
+	 * @param configurationClassNames the names of all processed configuration classes
+	 * @return the snapshot (not written yet)
+	 * @see #computeInitialState
+	 */
+	public static ConfigurationClassSnapshot capture(BeanDefinitionRegistry registry,
+			Map<String, BeanDefinition> initialDefinitions, String initialState, @Nullable ClassLoader classLoader,
+			Map<String, String> importingClassNames, Collection<String> scannedPackages,
+			Collection<String> configurationClassNames) {
+
+		String[] beanNames = registry.getBeanDefinitionNames();
+		List<Entry> entries = new ArrayList<>(beanNames.length);
+		for (String beanName : beanNames) {
+			BeanDefinition definition = registry.getBeanDefinition(beanName);
+			boolean existing = (initialDefinitions.get(beanName) == definition);
+			entries.add(new Entry(beanName, registry.getAliases(beanName), definition, existing));
+		}
+		List<String> removedBeanNames = new ArrayList<>();
+		for (String beanName : initialDefinitions.keySet()) {
+			if (!registry.containsBeanDefinition(beanName)) {
+				removedBeanNames.add(beanName);
+			}
+		}
+		String fingerprint = computeFingerprint(initialState, classLoader, scannedPackages, configurationClassNames);
+		return new ConfigurationClassSnapshot(fingerprint, entries, removedBeanNames,
+				new LinkedHashMap<>(importingClassNames), new ArrayList<>(scannedPackages),
+				new ArrayList<>(configurationClassNames));
+	}
+
+	/**
+	 * Read a snapshot from the given stream, leaving the stream open.
+	 * @param in the stream to read from
+	 * @param classLoader the ClassLoader to resolve class and enum values with
+	 * @param metadataReaderFactory the factory to read the metadata of annotated
+	 * bean definitions with, once asked for it
+	 * @return the snapshot
+	 * @throws IOException in case of I/O errors or an unrecognized format
+	 */
+	public static ConfigurationClassSnapshot readFrom(InputStream in, @Nullable ClassLoader classLoader,
+			MetadataReaderFactory metadataReaderFactory) throws IOException {
+
+		DataInputStream dis = new DataInputStream(new BufferedInputStream(in));
+		if (dis.readInt() != MAGIC) {
+			throw new IOException("Not a configuration class snapshot");
+		}
+		int version = dis.readInt();
+		if (version != VERSION) {
+			throw new IOException("Unsupported configuration class snapshot version " + version);
+		}
+		SnapshotReader reader = new SnapshotReader(dis, classLoader, metadataReaderFactory);
+		String fingerprint = reader.readRequiredString();
+		int entryCount = dis.readInt();
+		List<Entry> entries = new ArrayList<>(entryCount);
+		for (int i = 0; i < entryCount; i++) {
+			boolean existing = (dis.readByte() == ENTRY_EXISTING);
+			String beanName = reader.readRequiredString();
+			String[] aliases = reader.readStringArray();
+			BeanDefinition definition;
+			if (existing) {
+				definition = new GenericBeanDefinition();
+				reader.readAttributes((AbstractBeanDefinition) definition);
+			}
+			else {
+				definition = reader.readBeanDefinition();
+			}
+			entries.add(new Entry(beanName, aliases, definition, existing));
+		}
+		List<String> removedBeanNames = reader.readStringList();
+		int importCount = dis.readInt();
+		Map<String, String> importingClassNames = new LinkedHashMap<>(importCount);
+		for (int i = 0; i < importCount; i++) {
+			importingClassNames.put(reader.readRequiredString(), reader.readRequiredString());
+		}
+		List<String> scannedPackages = reader.readStringList();
+		List<String> configurationClassNames = reader.readStringList();
+		return new ConfigurationClassSnapshot(fingerprint, entries, removedBeanNames, importingClassNames,
+				scannedPackages, configurationClassNames);
+	}
+
+	/**
+	 * Compute the part of the fingerprint that is known before configuration
+	 * class processing: the initial bean definitions and the profiles.
+	 * @param registry the registry before configuration class processing
+	 * @param environment the environment to take the profiles from
+	 * @return the initial state as hex string
+	 */
+	public static String computeInitialState(BeanDefinitionRegistry registry, Environment environment) {
+		StringBuilder content = new StringBuilder();
+		for (String beanName : registry.getBeanDefinitionNames()) {
+			content.append(beanName).append('=').append(registry.getBeanDefinition(beanName).getBeanClassName()).append('\n');
+		}
+		content.append("activeProfiles=").append(String.join(",", environment.getActiveProfiles())).append('\n');
+		content.append("defaultProfiles=").append(String.join(",", environment.getDefaultProfiles())).append('\n');
+		return DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Compute the fingerprint for the given initial state and classpath, only
+	 * looking at classpath directories for the given packages and classes.
+	 * @param initialState the initial state, as computed by {@link #computeInitialState}
+	 * @param classLoader the ClassLoader to derive the classpath from
+	 * @param scannedPackages the base packages whose directories to take into account
+	 * @param configurationClassNames the classes whose class files to take into account
+	 * @return the fingerprint as hex string
+	 */
+	static String computeFingerprint(String initialState, @Nullable ClassLoader classLoader,
+			Collection<String> scannedPackages, Collection<String> configurationClassNames) {
+
+		ClassLoader classLoaderToUse = (classLoader != null ? classLoader : ClassUtils.getDefaultClassLoader());
+		StringBuilder content = new StringBuilder(initialState).append('\n');
+		for (URL url : getClassPathUrls(classLoaderToUse)) {
+			appendClassPathArchive(content, url);
+		}
+		for (String scannedPackage : scannedPackages) {
+			appendPackageDirectories(content, classLoaderToUse, scannedPackage);
+		}
+		for (String className : configurationClassNames) {
+			appendClassFile(content, classLoaderToUse, className);
+		}
+		return DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static List<URL> getClassPathUrls(@Nullable ClassLoader classLoader) {
+		List<URL> urls = new ArrayList<>();
+		ClassLoader current = classLoader;
+		while (current != null) {
+			if (current instanceof URLClassLoader) {
+				Collections.addAll(urls, ((URLClassLoader) current).getURLs());
+			}
+			current = current.getParent();
+		}
+		if (urls.isEmpty()) {
+			// JDK 9+ application class loader: fall back to the system class path
+			for (String path : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+				if (!path.isEmpty()) {
+					try {
+						urls.add(new File(path).toURI().toURL());
+					}
+					catch (IOException ex) {
+						// ignore malformed class path entry
+					}
+				}
+			}
+		}
+		return urls;
+	}
+
+	private static void appendClassPathArchive(StringBuilder content, URL url) {
+		File file = getFile(url);
+		if (file == null) {
+			content.append(url).append('\n');
+		}
+		else if (!file.isDirectory()) {
+			// Only the entry name counts, allowing the application to be relocated
+			content.append(file.getName()).append('=').append(file.length()).append(':')
+					.append(file.lastModified()).append('\n');
+		}
+		// Classpath directories are covered by the package directories and class files below
+	}
+
+	private static void appendPackageDirectories(StringBuilder content, ClassLoader classLoader, String basePackage) {
+		String packagePath = ClassUtils.convertClassNameToResourcePath(basePackage);
+		int wildcardIndex = indexOfWildcard(packagePath);
+		if (wildcardIndex >= 0) {
+			packagePath = packagePath.substring(0, packagePath.lastIndexOf('/', wildcardIndex) + 1);
+		}
+		content.append(basePackage).append('/').append('\n');
+		Map<String, Long> directories = new TreeMap<>();
+		try {
+			Enumeration<URL> urls = classLoader.getResources(packagePath);
+			while (urls.hasMoreElements()) {
+				File root = getFile(urls.nextElement());
+				if (root != null && root.isDirectory()) {
+					// Directory modification times reflect added, removed and renamed entries
+					Path rootPath = root.toPath();
+					Files.walkFileTree(rootPath, new SimpleFileVisitor<Path>() {
+						@Override
+						public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+							directories.merge(rootPath.relativize(dir).toString(),
+									attrs.lastModifiedTime().toMillis(), Math::max);
+							return FileVisitResult.CONTINUE;
+						}
+					});
+				}
+			}
+		}
+		catch (IOException ex) {
+			content.append("unreadable").append('\n');
+		}
+		directories.forEach((name, lastModified) -> content.append(name).append('=').append(lastModified).append('\n'));
+	}
+
+	private static int indexOfWildcard(String path) {
+		for (int i = 0; i < path.length(); i++) {
+			char c = path.charAt(i);
+			if (c == '*' || c == '?' || c == '{') {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static void appendClassFile(StringBuilder content, ClassLoader classLoader, String className) {
+		URL url = classLoader.getResource(ClassUtils.convertClassNameToResourcePath(className) +
+				ClassUtils.CLASS_FILE_SUFFIX);
+		File file = (url != null ? getFile(url) : null);
+		if (file != null) {
+			content.append(className).append('=').append(file.length()).append(':')
+					.append(file.lastModified()).append('\n');
+		}
+		// Class files within archives are covered by the archive entries above
+	}
+
+	@Nullable
+	private static File getFile(URL url) {
+		if (!ResourceUtils.URL_PROTOCOL_FILE.equals(url.getProtocol())) {
+			return null;
+		}
+		try {
+			return ResourceUtils.getFile(url).getAbsoluteFile();
+		}
+		catch (IOException ex) {
+			return null;
+		}
+	}
+
+
+	private static void writeBeanDefinition(DataOutputStream dos, BeanDefinition definition, String beanName)
+			throws IOException {
+
+		if (!(definition instanceof AbstractBeanDefinition)) {
+			throw new IllegalArgumentException("Bean definition '" + beanName + "' of type [" +
+					definition.getClass().getName() + "] is not supported in a configuration class snapshot");
+		}
+		AbstractBeanDefinition bd = (AbstractBeanDefinition) definition;
+		if (bd.getInstanceSupplier() != null) {
+			throw new IllegalArgumentException("Bean definition '" + beanName +
+					"' with instance supplier is not supported in a configuration class snapshot");
+		}
+
+		if (bd instanceof RootBeanDefinition) {
+			if (((RootBeanDefinition) bd).getQualifiedElement() != null) {
+				throw new IllegalArgumentException("Bean definition '" + beanName +
+						"' with qualified element is not supported in a configuration class snapshot");
+			}
+			MethodMetadata factoryMethod = (bd instanceof AnnotatedBeanDefinition ?
+					((AnnotatedBeanDefinition) bd).getFactoryMethodMetadata() : null);
+			if (factoryMethod != null) {
+				dos.writeByte(DEFINITION_BEAN_METHOD);
+				writeString(dos, ((AnnotatedBeanDefinition) bd).getMetadata().getClassName());
+				writeString(dos, factoryMethod.getDeclaringClassName());
+				writeString(dos, factoryMethod.getMethodName());
+			}
+			else {
+				dos.writeByte(DEFINITION_ROOT);
+			}
+		}
+		else if (bd instanceof AnnotatedBeanDefinition) {
+			dos.writeByte(DEFINITION_ANNOTATED_GENERIC);
+			writeString(dos, ((AnnotatedBeanDefinition) bd).getMetadata().getClassName());
+		}
+		else {
+			dos.writeByte(DEFINITION_GENERIC);
+		}
+
+		writeString(dos, bd.getBeanClassName());
+		writeString(dos, bd.getParentName());
+		writeString(dos, bd.getScope());
+		writeString(dos, bd.getFactoryBeanName());
+		writeString(dos, bd.getFactoryMethodName());
+		writeString(dos, bd.getInitMethodName());
+		writeString(dos, bd.getDestroyMethodName());
+		writeString(dos, bd.getDescription());
+		dos.writeBoolean(bd.isAbstract());
+		dos.writeBoolean(bd.isLazyInit());
+		dos.writeBoolean(bd.isAutowireCandidate());
+		dos.writeBoolean(bd.isPrimary());
+		dos.writeBoolean(bd.isNonPublicAccessAllowed());
+		dos.writeBoolean(bd.isLenientConstructorResolution());
+		dos.writeBoolean(bd.isEnforceInitMethod());
+		dos.writeBoolean(bd.isEnforceDestroyMethod());
+		dos.writeBoolean(bd.isSynthetic());
+		dos.writeInt(bd.getAutowireMode());
+		dos.writeInt(bd.getDependencyCheck());
+		dos.writeInt(bd.getRole());
+		writeStringArray(dos, bd.getDependsOn());
+
+		Set<AutowireCandidateQualifier> qualifiers = bd.getQualifiers();
+		dos.writeInt(qualifiers.size());
+		for (AutowireCandidateQualifier qualifier : qualifiers) {
+			writeString(dos, qualifier.getTypeName());
+			writeAttributes(dos, qualifier, beanName);
+		}
+
+		ConstructorArgumentValues cargs = bd.getConstructorArgumentValues();
+		dos.writeInt(cargs.getIndexedArgumentValues().size());
+		for (Map.Entry<Integer, ConstructorArgumentValues.ValueHolder> entry : cargs.getIndexedArgumentValues().entrySet()) {
+			dos.writeInt(entry.getKey());
+			writeValueHolder(dos, entry.getValue(), beanName);
+		}
+		dos.writeInt(cargs.getGenericArgumentValues().size());
+		for (ConstructorArgumentValues.ValueHolder valueHolder : cargs.getGenericArgumentValues()) {
+			writeValueHolder(dos, valueHolder, beanName);
+		}
+
+		PropertyValue[] pvs = bd.getPropertyValues().getPropertyValues();
+		dos.writeInt(pvs.length);
+		for (PropertyValue pv : pvs) {
+			writeString(dos, pv.getName());
+			writeValue(dos, pv.getValue(), beanName);
+		}
+
+		Set<MethodOverride> overrides = bd.getMethodOverrides().getOverrides();
+		dos.writeInt(overrides.size());
+		for (MethodOverride override : overrides) {
+			if (!(override instanceof LookupOverride)) {
+				throw new IllegalArgumentException("Bean definition '" + beanName + "' with method override [" +
+						override + "] is not supported in a configuration class snapshot");
+			}
+			writeString(dos, override.getMethodName());
+			writeString(dos, ((LookupOverride) override).getBeanName());
+		}
+
+		writeAttributes(dos, bd, beanName);
+
+		BeanDefinition originating = bd.getOriginatingBeanDefinition();
+		dos.writeBoolean(originating != null);
+		if (originating != null) {
+			writeBeanDefinition(dos, originating, beanName);
+		}
+		else {
+			writeString(dos, bd.getResourceDescription());
+		}
+
+		if (bd instanceof RootBeanDefinition) {
+			BeanDefinitionHolder decorated = ((RootBeanDefinition) bd).getDecoratedDefinition();
+			dos.writeBoolean(decorated != null);
+			if (decorated != null) {
+				writeBeanDefinitionHolder(dos, decorated);
+			}
+		}
+	}
+
+	private static void writeBeanDefinitionHolder(DataOutputStream dos, BeanDefinitionHolder holder)
+			throws IOException {
+
+		writeString(dos, holder.getBeanName());
+		writeStringArray(dos, holder.getAliases());
+		writeBeanDefinition(dos, holder.getBeanDefinition(), holder.getBeanName());
+	}
+
+	private static void writeValueHolder(DataOutputStream dos, ConstructorArgumentValues.ValueHolder valueHolder,
+			String beanName) throws IOException {
+
+		writeValue(dos, valueHolder.getValue(), beanName);
+		writeString(dos, valueHolder.getType());
+		writeString(dos, valueHolder.getName());
+	}
+
+	private static void writeAttributes(DataOutputStream dos, AttributeAccessor accessor, String beanName)
+			throws IOException {
+
+		String[] attributeNames = accessor.attributeNames();
+		dos.writeInt(attributeNames.length);
+		for (String attributeName : attributeNames) {
+			writeString(dos, attributeName);
+			writeValue(dos, accessor.getAttribute(attributeName), beanName);
+		}
+	}
+
+	private static void writeValue(DataOutputStream dos, @Nullable Object value, String beanName) throws IOException {
+		if (value == null) {
+			dos.writeByte(VALUE_NULL);
+		}
+		else if (value instanceof String) {
+			dos.writeByte(VALUE_STRING);
+			writeString(dos, (String) value);
+		}
+		else if (value instanceof Boolean) {
+			dos.writeByte(VALUE_BOOLEAN);
+			dos.writeBoolean((Boolean) value);
+		}
+		else if (value instanceof Integer) {
+			dos.writeByte(VALUE_INTEGER);
+			dos.writeInt((Integer) value);
+		}
+		else if (value instanceof Long) {
+			dos.writeByte(VALUE_LONG);
+			dos.writeLong((Long) value);
+		}
+		else if (value instanceof Class) {
+			dos.writeByte(VALUE_CLASS);
+			writeString(dos, ((Class<?>) value).getName());
+		}
+		else if (value instanceof Enum) {
+			dos.writeByte(VALUE_ENUM);
+			writeString(dos, ((Enum<?>) value).getDeclaringClass().getName());
+			writeString(dos, ((Enum<?>) value).name());
+		}
+		else if (value instanceof String[]) {
+			dos.writeByte(VALUE_STRING_ARRAY);
+			writeStringArray(dos, (String[]) value);
+		}
+		else if (value instanceof TypedStringValue) {
+			TypedStringValue typedStringValue = (TypedStringValue) value;
+			dos.writeByte(VALUE_TYPED_STRING);
+			writeString(dos, typedStringValue.getValue());
+			writeString(dos, typedStringValue.getTargetTypeName());
+			writeString(dos, typedStringValue.getSpecifiedTypeName());
+			dos.writeBoolean(typedStringValue.isDynamic());
+		}
+		else if (value instanceof RuntimeBeanReference) {
+			dos.writeByte(VALUE_BEAN_REFERENCE);
+			writeString(dos, ((RuntimeBeanReference) value).getBeanName());
+			dos.writeBoolean(((RuntimeBeanReference) value).isToParent());
+		}
+		else if (value instanceof RuntimeBeanNameReference) {
+			dos.writeByte(VALUE_BEAN_NAME_REFERENCE);
+			writeString(dos, ((RuntimeBeanNameReference) value).getBeanName());
+		}
+		else if (value instanceof BeanDefinitionHolder) {
+			dos.writeByte(VALUE_BEAN_DEFINITION_HOLDER);
+			writeBeanDefinitionHolder(dos, (BeanDefinitionHolder) value);
+		}
+		else if (value instanceof BeanDefinition) {
+			dos.writeByte(VALUE_BEAN_DEFINITION);
+			writeBeanDefinition(dos, (BeanDefinition) value, beanName);
+		}
+		else if (value instanceof ManagedArray) {
+			ManagedArray array = (ManagedArray) value;
+			dos.writeByte(VALUE_MANAGED_ARRAY);
+			writeString(dos, array.getElementTypeName());
+			dos.writeBoolean(array.isMergeEnabled());
+			writeValues(dos, array, beanName);
+		}
+		else if (value instanceof ManagedList) {
+			ManagedList<?> list = (ManagedList<?>) value;
+			dos.writeByte(VALUE_MANAGED_LIST);
+			writeString(dos, list.getElementTypeName());
+			dos.writeBoolean(list.isMergeEnabled());
+			writeValues(dos, list, beanName);
+		}
+		else if (value instanceof ManagedSet) {
+			ManagedSet<?> set = (ManagedSet<?>) value;
+			dos.writeByte(VALUE_MANAGED_SET);
+			writeString(dos, set.getElementTypeName());
+			dos.writeBoolean(set.isMergeEnabled());
+			writeValues(dos, set, beanName);
+		}
+		else if (value instanceof ManagedMap) {
+			ManagedMap<?, ?> map = (ManagedMap<?, ?>) value;
+			dos.writeByte(VALUE_MANAGED_MAP);
+			writeString(dos, map.getKeyTypeName());
+			writeString(dos, map.getValueTypeName());
+			dos.writeBoolean(map.isMergeEnabled());
+			dos.writeInt(map.size());
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				writeValue(dos, entry.getKey(), beanName);
+				writeValue(dos, entry.getValue(), beanName);
+			}
+		}
+		else if (value instanceof ManagedProperties) {
+			ManagedProperties properties = (ManagedProperties) value;
+			dos.writeByte(VALUE_MANAGED_PROPERTIES);
+			dos.writeBoolean(properties.isMergeEnabled());
+			dos.writeInt(properties.size());
+			for (Map.Entry<Object, Object> entry : properties.entrySet()) {
+				writeValue(dos, entry.getKey(), beanName);
+				writeValue(dos, entry.getValue(), beanName);
+			}
+		}
+		else {
+			throw new IllegalArgumentException("Bean definition '" + beanName + "' with value of type [" +
+					value.getClass().getName() + "] is not supported in a configuration class snapshot");
+		}
+	}
+
+	private static void writeValues(DataOutputStream dos, Collection<?> values, String beanName)
+			throws IOException {
+
+		dos.writeInt(values.size());
+		for (Object element : values) {
+			writeValue(dos, element, beanName);
+		}
+	}
+
+	private static void writeStringArray(DataOutputStream dos, @Nullable String[] values) throws IOException {
+		if (values == null) {
+			dos.writeInt(-1);
+			return;
+		}
+		dos.writeInt(values.length);
+		for (String value : values) {
+			writeString(dos, value);
+		}
+	}
+
+	private static void writeString(DataOutputStream dos, @Nullable String value) throws IOException {
+		if (value == null) {
+			dos.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		dos.writeInt(bytes.length);
+		dos.write(bytes);
+	}
+
+
+	/**
+	 * Snapshot entry for a single bean name in registration order.
+	 */
+	private static class Entry {
+
+		final String beanName;
+
+		final String[] aliases;
+
+		final BeanDefinition definition;
+
+		final boolean existing;
+
+		Entry(String beanName, String[] aliases, BeanDefinition definition, boolean existing) {
+			this.beanName = beanName;
+			this.aliases = aliases;
+			this.definition = definition;
+			this.existing = existing;
+		}
+	}
+
+
+	/**
+	 * Reads snapshot content, resolving class and enum values against a given ClassLoader.
+	 */
+	private static class SnapshotReader {
+
+		private final DataInputStream dis;
+
+		@Nullable
+		private final ClassLoader classLoader;
+
+		private final MetadataReaderFactory metadataReaderFactory;
+
+		SnapshotReader(DataInputStream dis, @Nullable ClassLoader classLoader,
+				MetadataReaderFactory metadataReaderFactory) {
+
+			this.dis = dis;
+			this.classLoader = classLoader;
+			this.metadataReaderFactory = metadataReaderFactory;
+		}
+
+		AbstractBeanDefinition readBeanDefinition() throws IOException {
+			byte type = this.dis.readByte();
+			AbstractBeanDefinition bd;
+			switch (type) {
+				case DEFINITION_GENERIC:
+					bd = new GenericBeanDefinition();
+					break;
+				case DEFINITION_ANNOTATED_GENERIC:
+					bd = new AnnotatedSnapshotBeanDefinition(
+							new MetadataSource(readRequiredString(), this.metadataReaderFactory));
+					break;
+				case DEFINITION_BEAN_METHOD:
+					bd = new BeanMethodBeanDefinition(
+							new MetadataSource(readRequiredString(), this.metadataReaderFactory),
+							new MetadataSource(readRequiredString(), this.metadataReaderFactory),
+							readRequiredString());
+					break;
+				default:
+					bd = new RootBeanDefinition();
+			}
+
+			bd.setBeanClassName(readString());
+			bd.setParentName(readString());
+			bd.setScope(readString());
+			bd.setFactoryBeanName(readString());
+			String factoryMethodName = readString();
+			if (type == DEFINITION_BEAN_METHOD && factoryMethodName != null && bd.getFactoryBeanName() != null) {
+				// Instance @Bean methods are unique as registered by ConfigurationClassBeanDefinitionReader
+				((RootBeanDefinition) bd).setUniqueFactoryMethodName(factoryMethodName);
+			}
+			else {
+				bd.setFactoryMethodName(factoryMethodName);
+			}
+			bd.setInitMethodName(readString());
+			bd.setDestroyMethodName(readString());
+			bd.setDescription(readString());
+			bd.setAbstract(this.dis.readBoolean());
+			bd.setLazyInit(this.dis.readBoolean());
+			bd.setAutowireCandidate(this.dis.readBoolean());
+			bd.setPrimary(this.dis.readBoolean());
+			bd.setNonPublicAccessAllowed(this.dis.readBoolean());
+			bd.setLenientConstructorResolution(this.dis.readBoolean());
+			bd.setEnforceInitMethod(this.dis.readBoolean());
+			bd.setEnforceDestroyMethod(this.dis.readBoolean());
+			bd.setSynthetic(this.dis.readBoolean());
+			bd.setAutowireMode(this.dis.readInt());
+			bd.setDependencyCheck(this.dis.readInt());
+			bd.setRole(this.dis.readInt());
+			bd.setDependsOn(readStringArray());
+
+			int qualifierCount = this.dis.readInt();
+			for (int i = 0; i < qualifierCount; i++) {
+				AutowireCandidateQualifier qualifier = new AutowireCandidateQualifier(readRequiredString());
+				readAttributes(qualifier);
+				bd.addQualifier(qualifier);
+			}
+
+			ConstructorArgumentValues cargs = bd.getConstructorArgumentValues();
+			int indexedCount = this.dis.readInt();
+			for (int i = 0; i < indexedCount; i++) {
+				int index = this.dis.readInt();
+				cargs.addIndexedArgumentValue(index, readValueHolder());
+			}
+			int genericCount = this.dis.readInt();
+			for (int i = 0; i < genericCount; i++) {
+				cargs.addGenericArgumentValue(readValueHolder());
+			}
+
+			MutablePropertyValues pvs = bd.getPropertyValues();
+			int propertyCount = this.dis.readInt();
+			for (int i = 0; i < propertyCount; i++) {
+				pvs.addPropertyValue(readRequiredString(), readValue());
+			}
+
+			int overrideCount = this.dis.readInt();
+			for (int i = 0; i < overrideCount; i++) {
+				bd.getMethodOverrides().addOverride(new LookupOverride(readRequiredString(), readString()));
+			}
+
+			readAttributes(bd);
+
+			if (this.dis.readBoolean()) {
+				bd.setOriginatingBeanDefinition(readBeanDefinition());
+			}
+			else {
+				bd.setResourceDescription(readString());
+			}
+
+			if (bd instanceof RootBeanDefinition && this.dis.readBoolean()) {
+				((RootBeanDefinition) bd).setDecoratedDefinition(readBeanDefinitionHolder());
+			}
+			return bd;
+		}
+
+		BeanDefinitionHolder readBeanDefinitionHolder() throws IOException {
+			String beanName = readRequiredString();
+			String[] aliases = readStringArray();
+			return new BeanDefinitionHolder(readBeanDefinition(), beanName, aliases);
+		}
+
+		ConstructorArgumentValues.ValueHolder readValueHolder() throws IOException {
+			return new ConstructorArgumentValues.ValueHolder(readValue(), readString(), readString());
+		}
+
+		void readAttributes(BeanMetadataAttributeAccessor accessor) throws IOException {
+			int attributeCount = this.dis.readInt();
+			for (int i = 0; i < attributeCount; i++) {
+				accessor.setAttribute(readRequiredString(), readValue());
+			}
+		}
+
+		@Nullable
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		Object readValue() throws IOException {
+			byte type = this.dis.readByte();
+			switch (type) {
+				case VALUE_NULL:
+					return null;
+				case VALUE_STRING:
+					return readString();
+				case VALUE_BOOLEAN:
+					return this.dis.readBoolean();
+				case VALUE_INTEGER:
+					return this.dis.readInt();
+				case VALUE_LONG:
+					return this.dis.readLong();
+				case VALUE_CLASS:
+					return resolveClass(readRequiredString());
+				case VALUE_ENUM:
+					Class enumType = resolveClass(readRequiredString());
+					return Enum.valueOf(enumType, readRequiredString());
+				case VALUE_STRING_ARRAY:
+					return readStringArray();
+				case VALUE_TYPED_STRING:
+					TypedStringValue typedStringValue = new TypedStringValue(readString());
+					typedStringValue.setTargetTypeName(readString());
+					typedStringValue.setSpecifiedTypeName(readString());
+					if (this.dis.readBoolean()) {
+						typedStringValue.setDynamic();
+					}
+					return typedStringValue;
+				case VALUE_BEAN_REFERENCE:
+					return new RuntimeBeanReference(readRequiredString(), this.dis.readBoolean());
+				case VALUE_BEAN_NAME_REFERENCE:
+					return new RuntimeBeanNameReference(readRequiredString());
+				case VALUE_BEAN_DEFINITION_HOLDER:
+					return readBeanDefinitionHolder();
+				case VALUE_BEAN_DEFINITION:
+					return readBeanDefinition();
+				case VALUE_MANAGED_ARRAY:
+					String arrayElementTypeName = readRequiredString();
+					boolean arrayMerge = this.dis.readBoolean();
+					int arraySize = this.dis.readInt();
+					ManagedArray array = new ManagedArray(arrayElementTypeName, arraySize);
+					array.setMergeEnabled(arrayMerge);
+					readValues(array, arraySize);
+					return array;
+				case VALUE_MANAGED_LIST:
+					String listElementTypeName = readString();
+					boolean listMerge = this.dis.readBoolean();
+					int listSize = this.dis.readInt();
+					ManagedList<Object> list = new ManagedList<>(listSize);
+					list.setElementTypeName(listElementTypeName);
+					list.setMergeEnabled(listMerge);
+					readValues(list, listSize);
+					return list;
+				case VALUE_MANAGED_SET:
+					String setElementTypeName = readString();
+					boolean setMerge = this.dis.readBoolean();
+					int setSize = this.dis.readInt();
+					ManagedSet<Object> set = new ManagedSet<>(setSize);
+					set.setElementTypeName(setElementTypeName);
+					set.setMergeEnabled(setMerge);
+					readValues(set, setSize);
+					return set;
+				case VALUE_MANAGED_MAP:
+					ManagedMap<Object, Object> map = new ManagedMap<>();
+					map.setKeyTypeName(readString());
+					map.setValueTypeName(readString());
+					map.setMergeEnabled(this.dis.readBoolean());
+					int mapSize = this.dis.readInt();
+					for (int i = 0; i < mapSize; i++) {
+						map.put(readValue(), readValue());
+					}
+					return map;
+				case VALUE_MANAGED_PROPERTIES:
+					ManagedProperties properties = new ManagedProperties();
+					properties.setMergeEnabled(this.dis.readBoolean());
+					int propertiesSize = this.dis.readInt();
+					for (int i = 0; i < propertiesSize; i++) {
+						((Properties) properties).put(readValue(), readValue());
+					}
+					return properties;
+				default:
+					throw new IOException("Unknown value type " + type + " in configuration class snapshot");
+			}
+		}
+
+		void readValues(Collection<Object> values, int size) throws IOException {
+			for (int i = 0; i < size; i++) {
+				values.add(readValue());
+			}
+		}
+
+		private Class<?> resolveClass(String className) throws IOException {
+			try {
+				return ClassUtils.forName(className, this.classLoader);
+			}
+			catch (ClassNotFoundException | LinkageError ex) {
+				throw new IOException("Cannot resolve class [" + className + "] from configuration class snapshot", ex);
+			}
+		}
+
+		List<String> readStringList() throws IOException {
+			String[] values = readStringArray();
+			return (values != null ? new ArrayList<>(Arrays.asList(values)) : new ArrayList<>());
+		}
+
+		@Nullable
+		String[] readStringArray() throws IOException {
+			int length = this.dis.readInt();
+			if (length < 0) {
+				return null;
+			}
+			String[] values = new String[length];
+			for (int i = 0; i < length; i++) {
+				values[i] = readString();
+			}
+			return values;
+		}
+
+		String readRequiredString() throws IOException {
+			String value = readString();
+			if (value == null) {
+				throw new IOException("Unexpected null value in configuration class snapshot");
+			}
+			return value;
+		}
+
+		@Nullable
+		String readString() throws IOException {
+			int length = this.dis.readInt();
+			if (length < 0) {
+				return null;
+			}
+			byte[] bytes = new byte[length];
+			this.dis.readFully(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+	}
+
+
+	/**
+	 * Lazily read annotation metadata of a given class.
+	 */
+	private static class MetadataSource {
+
+		private final String className;
+
+		private final MetadataReaderFactory metadataReaderFactory;
+
+		@Nullable
+		private volatile AnnotationMetadata metadata;
+
+		MetadataSource(String className, MetadataReaderFactory metadataReaderFactory) {
+			this.className = className;
+			this.metadataReaderFactory = metadataReaderFactory;
+		}
+
+		AnnotationMetadata getMetadata() {
+			AnnotationMetadata metadata = this.metadata;
+			if (metadata == null) {
+				try {
+					metadata = this.metadataReaderFactory.getMetadataReader(this.className).getAnnotationMetadata();
+				}
+				catch (IOException ex) {
+					throw new IllegalStateException("Failed to read metadata of class [" + this.className + "]", ex);
+				}
+				this.metadata = metadata;
+			}
+			return metadata;
+		}
+	}
+
+
+	/**
+	 * Restored counterpart of a scanned or imported annotated bean definition,
+	 * reading its metadata on demand.
+	 */
+	@SuppressWarnings("serial")
+	private static class AnnotatedSnapshotBeanDefinition extends GenericBeanDefinition
+			implements AnnotatedBeanDefinition {
+
+		private final MetadataSource metadataSource;
+
+		AnnotatedSnapshotBeanDefinition(MetadataSource metadataSource) {
+			this.metadataSource = metadataSource;
+		}
+
+		@Override
+		public AnnotationMetadata getMetadata() {
+			return this.metadataSource.getMetadata();
+		}
+
+		@Override
+		@Nullable
+		public MethodMetadata getFactoryMethodMetadata() {
+			return null;
+		}
+	}
+
+
+	/**
+	 * Restored counterpart of a {@code @Bean} method definition, only considering
+	 * {@code @Bean}-annotated methods as factory method candidates and reading
+	 * its metadata on demand.
+	 */
+	@SuppressWarnings("serial")
+	private static class BeanMethodBeanDefinition extends RootBeanDefinition implements AnnotatedBeanDefinition {
+
+		private final MetadataSource metadataSource;
+
+		private final MetadataSource declaringClassSource;
+
+		private final String methodName;
+
+		BeanMethodBeanDefinition(MetadataSource metadataSource, MetadataSource declaringClassSource,
+				String methodName) {
+
+			this.metadataSource = metadataSource;
+			this.declaringClassSource = declaringClassSource;
+			this.methodName = methodName;
+		}
+
+		private BeanMethodBeanDefinition(BeanMethodBeanDefinition original) {
+			super(original);
+			this.metadataSource = original.metadataSource;
+			this.declaringClassSource = original.declaringClassSource;
+			this.methodName = original.methodName;
+		}
+
+		@Override
+		public AnnotationMetadata getMetadata() {
+			return this.metadataSource.getMetadata();
+		}
+
+		@Override
+		public MethodMetadata getFactoryMethodMetadata() {
+			for (MethodMetadata method : this.declaringClassSource.getMetadata().getAnnotatedMethods(
+					Bean.class.getName())) {
+				if (method.getMethodName().equals(this.methodName)) {
+					return method;
+				}
+			}
+			throw new IllegalStateException("No @Bean method '" + this.methodName + "' found in class [" +
+					this.declaringClassSource.className + "]");
+		}
+
+		@Override
+		public boolean isFactoryMethod(Method candidate) {
+			return (super.isFactoryMethod(candidate) && BeanAnnotationHelper.isBeanAnnotated(candidate));
+		}
+
+		@Override
+		public BeanMethodBeanDefinition cloneBeanDefinition() {
+			return new BeanMethodBeanDefinition(this);
+		}
+	}
+
+
+	/**
+	 * {@link ImportRegistry} backed by the import relationships recorded in a snapshot.
+	 */
+	private static class SnapshotImportRegistry implements ImportRegistry {
+
+		private final Map<String, String> importingClassNames;
+
+		private final MetadataReaderFactory metadataReaderFactory;
+
+		SnapshotImportRegistry(Map<String, String> importingClassNames, MetadataReaderFactory metadataReaderFactory) {
+			this.importingClassNames = importingClassNames;
+			this.metadataReaderFactory = metadataReaderFactory;
+		}
+
+		@Override
+		@Nullable
+		public AnnotationMetadata getImportingClassFor(String importedClass) {
+			String importingClassName = this.importingClassNames.get(importedClass);
+			if (importingClassName == null) {
+				return null;
+			}
+			try {
+				return this.metadataReaderFactory.getMetadataReader(importingClassName).getAnnotationMetadata();
+			}
+			catch (IOException ex) {
+				throw new IllegalStateException("Failed to read metadata of importing class [" +
+						importingClassName + "]", ex);
+			}
+		}
+
+		@Override
+		public void removeImportingClass(String importingClass) {
+			this.importingClassNames.values().removeIf(importingClass::equals);
+		}
+
+		@Override
+		public String toString() {
+			return this.importingClassNames.toString();
+		}
+	}
+
+}
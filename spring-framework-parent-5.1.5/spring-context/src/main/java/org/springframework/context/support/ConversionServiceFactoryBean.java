@@ -53,6 +53,8 @@ public class ConversionServiceFactoryBean implements FactoryBean<ConversionServi
 	@Nullable
 	private Set<?> converters;
 
+	private boolean freeze = false;
+
 	@Nullable
 	private GenericConversionService conversionService;
 
@@ -67,10 +69,25 @@ public class ConversionServiceFactoryBean implements FactoryBean<ConversionServi
 		this.converters = converters;
 	}
 
+	/**
+	 * Specify whether to {@linkplain GenericConversionService#freeze() freeze}
+	 * the ConversionService once all converters have been registered, compiling
+	 * converter lookups into a dispatch table. Converters cannot be added or
+	 * removed from a frozen ConversionService anymore.
+	 * <p>Default is "false".
+	 * @since 5.1.6
+	 */
+	public void setFreeze(boolean freeze) {
+		this.freeze = freeze;
+	}
+
 	@Override
 	public void afterPropertiesSet() {
 		this.conversionService = createConversionService();
 		ConversionServiceFactory.registerConverters(this.converters, this.conversionService);
+		if (this.freeze) {
+			this.conversionService.freeze();
+		}
 	}
 
 	/**
@@ -202,6 +202,30 @@ public class GenericApplicationContext extends AbstractApplicationContext implem
 		this.beanFactory.setAllowCircularReferences(allowCircularReferences);
 	}
 
+	/**
+	 * Set whether to allow independent singletons to be created by different
+	 * threads in parallel, guarding singleton creation per bean name instead of
+	 * through a single registry-wide lock.
+	 * <p>Default is "false".
+	 * @since 5.1.6
+	 * @see org.springframework.beans.factory.support.DefaultSingletonBeanRegistry#setAllowConcurrentSingletonCreation
+	 */
+	public void setAllowConcurrentSingletonCreation(boolean allowConcurrentSingletonCreation) {
+		this.beanFactory.setAllowConcurrentSingletonCreation(allowConcurrentSingletonCreation);
+	}
+
+	/**
+	 * Set the number of threads to use for pre-instantiating singletons
+	 * on refresh, with parallel pre-instantiation requiring
+	 * {@link #setAllowConcurrentSingletonCreation "allowConcurrentSingletonCreation"}.
+	 * <p>Default is 1, pre-instantiating all singletons on the calling thread.
+	 * @since 5.1.6
+	 * @see org.springframework.beans.factory.support.DefaultListableBeanFactory#setPreInstantiationParallelism
+	 */
+	public void setPreInstantiationParallelism(int preInstantiationParallelism) {
+		this.beanFactory.setPreInstantiationParallelism(preInstantiationParallelism);
+	}
+
 	/**
 	 * Set a ResourceLoader to use for this context. If set, the context will
 	 * delegate all {@code getResource} calls to the given ResourceLoader.
@@ -16,9 +16,21 @@
 
 package org.springframework.context.annotation;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.regex.Pattern;
 
 import example.profilescan.DevComponent;
@@ -38,7 +50,9 @@ import example.scannable.ServiceInvocationCounter;
 import example.scannable.StubFooDao;
 import example.scannable.sub.BarComponent;
 import org.aspectj.lang.annotation.Aspect;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import org.springframework.beans.factory.annotation.AnnotatedGenericBeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinition;
@@ -47,6 +61,9 @@ import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.core.env.StandardEnvironment;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.type.classreading.ClassMetadataIndex;
 import org.springframework.core.type.filter.AnnotationTypeFilter;
 import org.springframework.core.type.filter.AssignableTypeFilter;
 import org.springframework.core.type.filter.RegexPatternTypeFilter;
@@ -74,6 +91,9 @@ public class ClassPathScanningCandidateComponentProviderTests {
 			ClassPathScanningCandidateComponentProviderTests.class.getClassLoader(),
 			new ClassPathResource("spring.components", NamedComponent.class));
 
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
 
 	@Test
 	public void defaultsWithScan() {
@@ -83,6 +103,42 @@ public class ClassPathScanningCandidateComponentProviderTests {
 		testDefault(provider, ScannedGenericBeanDefinition.class);
 	}
 
+	@Test
+	public void defaultsWithParallelScan() {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(true);
+			provider.setResourceLoader(new DefaultResourceLoader(
+					CandidateComponentsTestClassLoader.disableIndex(getClass().getClassLoader())));
+			provider.setScanExecutor(executor);
+			testDefault(provider, ScannedGenericBeanDefinition.class);
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void parallelScanKeepsClassPathOrder() {
+		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(true);
+		provider.setResourceLoader(new DefaultResourceLoader(
+				CandidateComponentsTestClassLoader.disableIndex(getClass().getClassLoader())));
+		List<String> expected = getBeanClassNames(provider.findCandidateComponents(TEST_BASE_PACKAGE));
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			provider.setScanExecutor(executor);
+			assertEquals(expected, getBeanClassNames(provider.findCandidateComponents(TEST_BASE_PACKAGE)));
+		}
+		finally {
+			executor.shutdown();
+		}
+		provider.setScanExecutor(command -> {
+			throw new RejectedExecutionException();
+		});
+		assertEquals(expected, getBeanClassNames(provider.findCandidateComponents(TEST_BASE_PACKAGE)));
+	}
+
 	@Test
 	public void defaultsWithIndex() {
 		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(true);
@@ -104,6 +160,15 @@ public class ClassPathScanningCandidateComponentProviderTests {
 		assertBeanDefinitionType(candidates, expectedBeanDefinitionType);
 	}
 
+	@Test
+	public void defaultsWithClassMetadataIndex() throws IOException {
+		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(true);
+		provider.setResourceLoader(new DefaultResourceLoader(createClassMetadataIndexClassLoader()));
+		testDefault(provider, ScannedGenericBeanDefinition.class);
+		provider.findCandidateComponents(TEST_BASE_PACKAGE).forEach(candidate ->
+				assertThat(candidate.getSource(), is(instanceOf(ClassPathResource.class))));
+	}
+
 	@Test
 	public void antStylePackageWithScan() {
 		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(true);
@@ -119,6 +184,13 @@ public class ClassPathScanningCandidateComponentProviderTests {
 		testAntStyle(provider, AnnotatedGenericBeanDefinition.class);
 	}
 
+	@Test
+	public void antStylePackageWithClassMetadataIndex() throws IOException {
+		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(true);
+		provider.setResourceLoader(new DefaultResourceLoader(createClassMetadataIndexClassLoader()));
+		testAntStyle(provider, ScannedGenericBeanDefinition.class);
+	}
+
 	private void testAntStyle(ClassPathScanningCandidateComponentProvider provider,
 			Class<? extends BeanDefinition> expectedBeanDefinitionType) {
 		Set<BeanDefinition> candidates = provider.findCandidateComponents(TEST_BASE_PACKAGE + ".**.sub");
@@ -501,6 +573,19 @@ public class ClassPathScanningCandidateComponentProviderTests {
 		}
 	}
 
+	private ClassLoader createClassMetadataIndexClassLoader() throws IOException {
+		Resource[] classResources = new PathMatchingResourcePatternResolver().getResources(
+				"classpath*:" + TEST_BASE_PACKAGE.replace('.', '/') + "/**/*.class");
+		File root = this.temporaryFolder.newFolder();
+		File indexFile = new File(root, ClassMetadataIndex.INDEX_LOCATION);
+		Files.createDirectories(indexFile.getParentFile().toPath());
+		try (OutputStream out = Files.newOutputStream(indexFile.toPath())) {
+			ClassMetadataIndex.writeIndex(Arrays.asList(classResources), out);
+		}
+		return new URLClassLoader(new URL[] {root.toURI().toURL()},
+				CandidateComponentsTestClassLoader.disableIndex(getClass().getClassLoader()));
+	}
+
 	private boolean containsBeanClass(Set<BeanDefinition> candidates, Class<?> beanClass) {
 		for (BeanDefinition candidate : candidates) {
 			if (beanClass.getName().equals(candidate.getBeanClassName())) {
@@ -510,6 +595,12 @@ public class ClassPathScanningCandidateComponentProviderTests {
 		return false;
 	}
 
+	private List<String> getBeanClassNames(Set<BeanDefinition> candidates) {
+		List<String> beanClassNames = new ArrayList<>(candidates.size());
+		candidates.forEach(candidate -> beanClassNames.add(candidate.getBeanClassName()));
+		return beanClassNames;
+	}
+
 	private void assertBeanDefinitionType(Set<BeanDefinition> candidates,
 			Class<? extends BeanDefinition> expectedType) {
 		candidates.forEach(c -> {
@@ -0,0 +1,377 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.ManagedList;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.tests.sample.beans.TestBean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for configuration class snapshots as written and read by
+ * {@link ConfigurationClassPostProcessor}.
+ *
+ * @since 5.1.6
+ */
+public class ConfigurationClassSnapshotTests {
+
+	private File snapshotFile;
+
+
+	@Before
+	public void setup() throws IOException {
+		this.snapshotFile = File.createTempFile("configurationClassSnapshot", ".bin");
+		assertTrue(this.snapshotFile.delete());
+		CountingCondition.evaluations.set(0);
+		SnapshotRegistrar.invocations.set(0);
+	}
+
+	@After
+	public void cleanup() {
+		this.snapshotFile.delete();
+	}
+
+
+	@Test
+	public void snapshotWrittenAndLoaded() {
+		DefaultListableBeanFactory beanFactory = processConfiguration(SnapshotConfig.class);
+		assertTrue(this.snapshotFile.exists());
+		assertEquals(1, SnapshotRegistrar.invocations.get());
+		assertSnapshotConfig(beanFactory);
+		File[] tempFiles = this.snapshotFile.getParentFile().listFiles((dir, name) ->
+				name.startsWith(this.snapshotFile.getName()) && name.endsWith(".tmp"));
+		assertEquals(0, tempFiles.length);
+
+		beanFactory = processConfiguration(SnapshotConfig.class);
+		assertEquals("Registrars must not be invoked again", 1, SnapshotRegistrar.invocations.get());
+		assertSnapshotConfig(beanFactory);
+	}
+
+	@Test
+	public void snapshotRestoresAnnotatedDefinitions() {
+		processConfiguration(SnapshotConfig.class);
+		DefaultListableBeanFactory beanFactory = processConfiguration(SnapshotConfig.class);
+		assertEquals(1, SnapshotRegistrar.invocations.get());
+
+		BeanDefinition beanMethodDefinition = beanFactory.getBeanDefinition("testBean");
+		assertTrue(beanMethodDefinition instanceof AnnotatedBeanDefinition);
+		AnnotatedBeanDefinition annotated = (AnnotatedBeanDefinition) beanMethodDefinition;
+		assertEquals(SnapshotConfig.class.getName(), annotated.getMetadata().getClassName());
+		assertEquals("testBean", annotated.getFactoryMethodMetadata().getMethodName());
+		assertTrue(annotated.getFactoryMethodMetadata().isAnnotated(Bean.class.getName()));
+
+		BeanDefinition importedDefinition = beanFactory.getBeanDefinition(ImportAwareConfig.class.getName());
+		assertTrue(importedDefinition instanceof AnnotatedBeanDefinition);
+		assertEquals(ImportAwareConfig.class.getName(),
+				((AnnotatedBeanDefinition) importedDefinition).getMetadata().getClassName());
+		assertNull(((AnnotatedBeanDefinition) importedDefinition).getFactoryMethodMetadata());
+	}
+
+	@Test
+	public void snapshotNotWrittenAfterConditionEvaluation() {
+		DefaultListableBeanFactory beanFactory = processConfiguration(SkippedConfig.class);
+		assertFalse(this.snapshotFile.exists());
+		assertEquals(1, CountingCondition.evaluations.get());
+		assertFalse(beanFactory.containsBeanDefinition("config"));
+
+		beanFactory = processConfiguration(SkippedConfig.class);
+		assertEquals("Conditions must be evaluated again", 2, CountingCondition.evaluations.get());
+		assertFalse(beanFactory.containsBeanDefinition("config"));
+		assertFalse(beanFactory.containsBeanDefinition("skippedBean"));
+
+		beanFactory = processConfiguration(ConditionalBeanConfig.class);
+		assertFalse(this.snapshotFile.exists());
+		assertEquals(3, CountingCondition.evaluations.get());
+		assertFalse(beanFactory.containsBeanDefinition("conditionalBean"));
+	}
+
+	@Test
+	public void snapshotWithDifferentActiveProfilesIgnored() {
+		DefaultListableBeanFactory beanFactory = processConfiguration(SnapshotConfig.class);
+		assertFalse(beanFactory.containsBeanDefinition("excludedBean"));
+
+		StandardEnvironment environment = new StandardEnvironment();
+		environment.setActiveProfiles("snapshotTestsInactive");
+		beanFactory = processConfiguration(SnapshotConfig.class, environment);
+		assertEquals(2, SnapshotRegistrar.invocations.get());
+		assertTrue(beanFactory.containsBeanDefinition("excludedBean"));
+
+		beanFactory = processConfiguration(SnapshotConfig.class);
+		assertEquals(3, SnapshotRegistrar.invocations.get());
+		assertFalse(beanFactory.containsBeanDefinition("excludedBean"));
+	}
+
+	@Test
+	public void fingerprintCoversScannedPackageDirectories() throws IOException {
+		File root = File.createTempFile("configurationClassSnapshot", "");
+		assertTrue(root.delete());
+		File packageDir = new File(root, "com/example");
+		assertTrue(packageDir.mkdirs());
+		try (URLClassLoader classLoader = new URLClassLoader(new URL[] {root.toURI().toURL()}, null)) {
+			List<String> packages = Collections.singletonList("com.example");
+			String fingerprint = ConfigurationClassSnapshot.computeFingerprint(
+					"state", classLoader, packages, Collections.emptyList());
+			assertEquals(fingerprint, ConfigurationClassSnapshot.computeFingerprint(
+					"state", classLoader, packages, Collections.emptyList()));
+			assertNotEquals(fingerprint, ConfigurationClassSnapshot.computeFingerprint(
+					"other", classLoader, packages, Collections.emptyList()));
+
+			File subPackageDir = new File(packageDir, "sub");
+			assertTrue(subPackageDir.mkdir());
+			assertNotEquals(fingerprint, ConfigurationClassSnapshot.computeFingerprint(
+					"state", classLoader, packages, Collections.emptyList()));
+			assertTrue(subPackageDir.delete());
+		}
+		finally {
+			assertTrue(packageDir.delete());
+			assertTrue(packageDir.getParentFile().delete());
+			assertTrue(root.delete());
+		}
+	}
+
+	@Test
+	public void snapshotWithDifferentInitialDefinitionsIgnored() {
+		processConfiguration(SnapshotConfig.class);
+		assertEquals(1, SnapshotRegistrar.invocations.get());
+
+		DefaultListableBeanFactory beanFactory = processConfiguration(OtherConfig.class);
+		assertEquals(2, SnapshotRegistrar.invocations.get());
+		assertFalse(beanFactory.containsBeanDefinition("testBean"));
+		assertTrue(beanFactory.containsBeanDefinition("otherBean"));
+
+		beanFactory = processConfiguration(OtherConfig.class);
+		assertEquals(2, SnapshotRegistrar.invocations.get());
+		assertTrue(beanFactory.containsBeanDefinition("otherBean"));
+	}
+
+	@Test
+	public void snapshotWithUnsupportedDefinitionNotWritten() {
+		DefaultListableBeanFactory beanFactory = processConfiguration(SupplierConfig.class);
+		assertFalse(this.snapshotFile.exists());
+		assertEquals("supplied", beanFactory.getBean("suppliedBean", TestBean.class).getName());
+	}
+
+	@Test
+	public void snapshotViaEnvironmentProperty() {
+		AnnotationConfigApplicationContext ctx = createContext();
+		assertTrue(this.snapshotFile.exists());
+		assertEquals(1, SnapshotRegistrar.invocations.get());
+		ctx.close();
+
+		ctx = createContext();
+		assertEquals(1, SnapshotRegistrar.invocations.get());
+		assertEquals("registered", ctx.getBean("testBean", TestBean.class).getName());
+		assertSame(ctx.getBean("spouse"), ctx.getBean("testBean", TestBean.class).getSpouse());
+		assertEquals(SnapshotConfig.class.getName(), ctx.getBean(ImportAwareConfig.class).importingClassName);
+		assertTrue(ctx.getBean(SnapshotConfig.class).getClass().getName().contains("$$EnhancerBySpringCGLIB"));
+		ctx.close();
+	}
+
+
+	private DefaultListableBeanFactory processConfiguration(Class<?> configClass) {
+		return processConfiguration(configClass, new StandardEnvironment());
+	}
+
+	private DefaultListableBeanFactory processConfiguration(Class<?> configClass, Environment environment) {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.registerBeanDefinition("config", new RootBeanDefinition(configClass));
+		ConfigurationClassPostProcessor pp = new ConfigurationClassPostProcessor();
+		pp.setEnvironment(environment);
+		pp.setSnapshotLocation(new FileSystemResource(this.snapshotFile));
+		pp.postProcessBeanDefinitionRegistry(beanFactory);
+		pp.postProcessBeanFactory(beanFactory);
+		return beanFactory;
+	}
+
+	private AnnotationConfigApplicationContext createContext() {
+		AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
+		ctx.getEnvironment().getPropertySources().addFirst(new MapPropertySource("snapshot", Collections.singletonMap(
+				ConfigurationClassPostProcessor.SNAPSHOT_LOCATION_PROPERTY_NAME, "file:" + this.snapshotFile.getAbsolutePath())));
+		ctx.register(SnapshotConfig.class);
+		ctx.refresh();
+		return ctx;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void assertSnapshotConfig(DefaultListableBeanFactory beanFactory) {
+		assertTrue(ConfigurationClassUtils.isFullConfigurationClass(beanFactory.getBeanDefinition("config")));
+		assertTrue(beanFactory.isAlias("testBeanAlias"));
+		BeanDefinition registered = beanFactory.getBeanDefinition("registeredBean");
+		assertEquals(new RuntimeBeanReference("spouse"), registered.getPropertyValues().get("spouse"));
+		List<Object> friends = (List<Object>) registered.getPropertyValues().get("friends");
+		assertEquals(2, friends.size());
+		assertEquals("friend", friends.get(0));
+		assertEquals(new RuntimeBeanReference("testBean"), friends.get(1));
+
+		TestBean testBean = beanFactory.getBean("testBeanAlias", TestBean.class);
+		assertEquals("registered", testBean.getName());
+		assertSame(beanFactory.getBean("spouse"), testBean.getSpouse());
+		assertTrue(beanFactory.getBean("registeredBean", TestBean.class).getFriends().contains(testBean));
+		assertEquals(SnapshotConfig.class.getName(), beanFactory.getBean(ImportAwareConfig.class).importingClassName);
+		assertFalse(beanFactory.containsBeanDefinition("excludedBean"));
+	}
+
+
+	@Configuration
+	@Import({ImportAwareConfig.class, SnapshotRegistrar.class})
+	static class SnapshotConfig {
+
+		@Bean(name = {"testBean", "testBeanAlias"})
+		public TestBean testBean(@Qualifier("spouse") TestBean spouse) {
+			TestBean testBean = new TestBean("registered");
+			testBean.setSpouse(spouse);
+			return testBean;
+		}
+
+		@Bean
+		@Profile("snapshotTestsInactive")
+		public TestBean excludedBean() {
+			return new TestBean();
+		}
+	}
+
+
+	@Configuration
+	static class ImportAwareConfig implements ImportAware {
+
+		String importingClassName;
+
+		@Override
+		public void setImportMetadata(AnnotationMetadata importMetadata) {
+			this.importingClassName = importMetadata.getClassName();
+		}
+
+		@Bean
+		public TestBean spouse() {
+			return new TestBean("spouse");
+		}
+	}
+
+
+	static class SnapshotRegistrar implements ImportBeanDefinitionRegistrar {
+
+		static final AtomicInteger invocations = new AtomicInteger();
+
+		@Override
+		public void registerBeanDefinitions(AnnotationMetadata importingClassMetadata, BeanDefinitionRegistry registry) {
+			invocations.incrementAndGet();
+			RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+			bd.getPropertyValues().add("spouse", new RuntimeBeanReference("spouse"));
+			ManagedList<Object> friends = new ManagedList<>();
+			friends.add("friend");
+			friends.add(new RuntimeBeanReference("testBean"));
+			bd.getPropertyValues().add("friends", friends);
+			registry.registerBeanDefinition("registeredBean", bd);
+		}
+	}
+
+
+	@Configuration
+	@Import(SnapshotRegistrar.class)
+	static class OtherConfig {
+
+		@Bean
+		public TestBean otherBean() {
+			return new TestBean();
+		}
+	}
+
+
+	@Configuration
+	static class ConditionalBeanConfig {
+
+		@Bean
+		@Conditional(CountingCondition.class)
+		public TestBean conditionalBean() {
+			return new TestBean();
+		}
+	}
+
+
+	@Configuration
+	@Conditional(CountingRegistrationCondition.class)
+	static class SkippedConfig {
+
+		@Bean
+		public TestBean skippedBean() {
+			return new TestBean();
+		}
+	}
+
+
+	@Configuration
+	@Import(SupplierRegistrar.class)
+	static class SupplierConfig {
+	}
+
+
+	static class SupplierRegistrar implements ImportBeanDefinitionRegistrar {
+
+		@Override
+		public void registerBeanDefinitions(AnnotationMetadata importingClassMetadata, BeanDefinitionRegistry registry) {
+			registry.registerBeanDefinition("suppliedBean",
+					new RootBeanDefinition(TestBean.class, () -> new TestBean("supplied")));
+		}
+	}
+
+
+	static class CountingCondition implements Condition {
+
+		static final AtomicInteger evaluations = new AtomicInteger();
+
+		@Override
+		public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+			evaluations.incrementAndGet();
+			return false;
+		}
+	}
+
+
+	static class CountingRegistrationCondition extends CountingCondition implements ConfigurationCondition {
+
+		@Override
+		public ConfigurationPhase getConfigurationPhase() {
+			return ConfigurationPhase.REGISTER_BEAN;
+		}
+	}
+
+}
@@ -139,6 +139,13 @@ public class ClassReader {
   /** The offset in bytes, in {@link #b}, of the ClassFile's access_flags field. */
   public final int header;
 
+  // SPRING PATCH: OPTIONALLY REUSE CONSTANT POOL AND CHAR BUFFERS ACROSS CLASS READERS
+  /** The buffers shared with other class readers, or null if this reader owns its buffers. */
+  private final Buffers buffers;
+
+  /** The number of constant pool entries, which may be less than the cpInfoOffsets length. */
+  private final int constantPoolCount;
+
   // -----------------------------------------------------------------------------------------------
   // Constructors
   // -----------------------------------------------------------------------------------------------
@@ -166,6 +173,21 @@ public class ClassReader {
     this(classFileBuffer, classFileOffset, /* checkClassVersion = */ true);
   }
 
+  // SPRING PATCH: OPTIONALLY REUSE CONSTANT POOL AND CHAR BUFFERS ACROSS CLASS READERS
+  /**
+   * Constructs a new {@link ClassReader} object backed by the given reusable buffers. The new
+   * reader invalidates any reader previously created with the same buffers, so each reader must
+   * be used (and discarded) before the next one is created.
+   *
+   * @param classFileBuffer a byte array containing the JVMS ClassFile structure to be read,
+   *     possibly followed by unused bytes.
+   * @param classFileOffset the offset in byteBuffer of the first byte of the ClassFile to be read.
+   * @param buffers the constant pool and char buffers to reuse.
+   */
+  public ClassReader(final byte[] classFileBuffer, final int classFileOffset, final Buffers buffers) {
+    this(classFileBuffer, classFileOffset, /* checkClassVersion = */ true, buffers);
+  }
+
   /**
    * Constructs a new {@link ClassReader} object. <i>This internal constructor must not be exposed
    * as a public API</i>.
@@ -176,7 +198,16 @@ public class ClassReader {
    */
   ClassReader(
       final byte[] classFileBuffer, final int classFileOffset, final boolean checkClassVersion) {
+    this(classFileBuffer, classFileOffset, checkClassVersion, null);
+  }
+
+  private ClassReader(
+      final byte[] classFileBuffer,
+      final int classFileOffset,
+      final boolean checkClassVersion,
+      final Buffers buffers) {
     b = classFileBuffer;
+    this.buffers = buffers;
     // Check the class' major_version. This field is after the magic and minor_version fields, which
     // use 4 and 2 bytes respectively.
     if (checkClassVersion && readShort(classFileOffset + 6) > Opcodes.V12) {
@@ -186,8 +217,14 @@ public class ClassReader {
     // Create the constant pool arrays. The constant_pool_count field is after the magic,
     // minor_version and major_version fields, which use 4, 2 and 2 bytes respectively.
     int constantPoolCount = readUnsignedShort(classFileOffset + 8);
-    cpInfoOffsets = new int[constantPoolCount];
-    constantUtf8Values = new String[constantPoolCount];
+    this.constantPoolCount = constantPoolCount;
+    if (buffers != null) {
+      cpInfoOffsets = buffers.getCpInfoOffsets(constantPoolCount);
+      constantUtf8Values = buffers.getConstantUtf8Values(constantPoolCount);
+    } else {
+      cpInfoOffsets = new int[constantPoolCount];
+      constantUtf8Values = new String[constantPoolCount];
+    }
     // Compute the offset of each constant pool entry, as well as a conservative estimate of the
     // maximum length of the constant pool strings. The first constant pool entry is after the
     // magic, minor_version, major_version and constant_pool_count fields, which use 4, 2, 2 and 2
@@ -412,7 +449,8 @@ public class ClassReader {
     Context context = new Context();
     context.attributePrototypes = attributePrototypes;
     context.parsingOptions = parsingOptions;
-    context.charBuffer = new char[maxStringLength];
+    context.charBuffer =
+        buffers != null ? buffers.getCharBuffer(maxStringLength) : new char[maxStringLength];
 
     // Read the access_flags, this_class, super_class, interface_count and interfaces fields.
     char[] charBuffer = context.charBuffer;
@@ -3308,7 +3346,8 @@ public class ClassReader {
    * @return the number of entries in the class's constant pool table.
    */
   public int getItemCount() {
-    return cpInfoOffsets.length;
+    // SPRING PATCH: cpInfoOffsets may be a larger reused buffer
+    return constantPoolCount;
   }
 
   /**
@@ -3605,4 +3644,42 @@ public class ClassReader {
         throw new IllegalArgumentException();
     }
   }
+
+  // SPRING PATCH: OPTIONALLY REUSE CONSTANT POOL AND CHAR BUFFERS ACROSS CLASS READERS
+  /**
+   * Constant pool and char buffers that can be reused by consecutive {@link ClassReader}s, in
+   * order to avoid allocating them for each class that is read. Not thread safe.
+   */
+  public static final class Buffers {
+
+    private int[] cpInfoOffsets = new int[0];
+
+    private String[] constantUtf8Values = new String[0];
+
+    private char[] charBuffer = new char[0];
+
+    int[] getCpInfoOffsets(final int constantPoolCount) {
+      if (cpInfoOffsets.length < constantPoolCount) {
+        cpInfoOffsets = new int[constantPoolCount];
+      }
+      return cpInfoOffsets;
+    }
+
+    String[] getConstantUtf8Values(final int constantPoolCount) {
+      if (constantUtf8Values.length < constantPoolCount) {
+        constantUtf8Values = new String[constantPoolCount];
+      } else {
+        // Clear the strings cached for the previous class.
+        java.util.Arrays.fill(constantUtf8Values, 0, constantPoolCount, null);
+      }
+      return constantUtf8Values;
+    }
+
+    char[] getCharBuffer(final int maxStringLength) {
+      if (charBuffer.length < maxStringLength) {
+        charBuffer = new char[maxStringLength];
+      }
+      return charBuffer;
+    }
+  }
 }
@@ -35,11 +35,14 @@ import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentMap;
 
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.util.OpenAddressingReferenceHashMap;
 import org.springframework.util.ReflectionUtils;
 
 /**
@@ -55,6 +58,22 @@ import org.springframework.util.ReflectionUtils;
  */
 public final class CollectionFactory {
 
+	/**
+	 * System property that instructs Spring to back its internal reference-based
+	 * caches with an {@link OpenAddressingReferenceHashMap} instead of a
+	 * {@link ConcurrentReferenceHashMap}: {@code "spring.cache.openAddressing"}.
+	 * <p>The default is "false". Consider switching this flag to "true" for
+	 * applications with large numbers of cached types, where lock-free lookups
+	 * and the absence of per-segment tables pay off.
+	 * @since 5.1.6
+	 * @see #createReferenceCache
+	 */
+	public static final String OPEN_ADDRESSING_REFERENCE_CACHE_PROPERTY_NAME = "spring.cache.openAddressing";
+
+	private static final boolean openAddressingReferenceCache =
+			SpringProperties.getFlag(OPEN_ADDRESSING_REFERENCE_CACHE_PROPERTY_NAME);
+
+
 	private static final Set<Class<?>> approximableCollectionTypes = new HashSet<>();
 
 	private static final Set<Class<?>> approximableMapTypes = new HashSet<>();
@@ -346,6 +365,21 @@ public final class CollectionFactory {
 		};
 	}
 
+	/**
+	 * Create a concurrent cache map with soft entry references, as used for
+	 * Spring's internal metadata caches.
+	 * <p>Returns an {@link OpenAddressingReferenceHashMap} if the
+	 * {@link #OPEN_ADDRESSING_REFERENCE_CACHE_PROPERTY_NAME} flag is set,
+	 * and a {@link ConcurrentReferenceHashMap} otherwise.
+	 * @param initialCapacity the initial capacity of the cache
+	 * @return a new, empty cache map
+	 * @since 5.1.6
+	 */
+	public static <K, V> ConcurrentMap<K, V> createReferenceCache(int initialCapacity) {
+		return (openAddressingReferenceCache ? new OpenAddressingReferenceHashMap<>(initialCapacity) :
+				new ConcurrentReferenceHashMap<>(initialCapacity));
+	}
+
 	/**
 	 * Cast the given type to a subtype of {@link Enum}.
 	 * @param enumType the enum type, never {@code null}
@@ -27,7 +27,6 @@ import java.util.Map;
 
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
-import org.springframework.util.ConcurrentReferenceHashMap;
 
 /**
  * Helper class for resolving generic types against type variables.
@@ -49,7 +48,8 @@ public final class GenericTypeResolver {
 
 	/** Cache from Class to TypeVariable Map. */
 	@SuppressWarnings("rawtypes")
-	private static final Map<Class<?>, Map<TypeVariable, Type>> typeVariableCache = new ConcurrentReferenceHashMap<>();
+	private static final Map<Class<?>, Map<TypeVariable, Type>> typeVariableCache =
+			CollectionFactory.createReferenceCache(16);
 
 
 	private GenericTypeResolver() {
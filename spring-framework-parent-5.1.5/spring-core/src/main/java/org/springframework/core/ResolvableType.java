@@ -30,6 +30,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.IdentityHashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.springframework.core.SerializableTypeWrapper.FieldTypeProvider;
 import org.springframework.core.SerializableTypeWrapper.MethodParameterTypeProvider;
@@ -37,7 +38,6 @@ import org.springframework.core.SerializableTypeWrapper.TypeProvider;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
-import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.ObjectUtils;
 import org.springframework.util.StringUtils;
 
@@ -71,6 +71,11 @@ import org.springframework.util.StringUtils;
  * }
  * </pre>
  *
+ * <p>Instances for plain {@link Class} and {@link ParameterizedType} references are
+ * canonicalized, and results of {@link #isAssignableFrom(ResolvableType)} checks are
+ * cached, both in bounded reference caches for types visible to the class loader of
+ * this class; see {@link #CACHE_LIMIT_PROPERTY_NAME} and {@link #getCacheStatistics()}.
+ *
  * @author Phillip Webb
  * @author Juergen Hoeller
  * @author Stephane Nicoll
@@ -95,8 +100,36 @@ public class ResolvableType implements Serializable {
 
 	private static final ResolvableType[] EMPTY_TYPES_ARRAY = new ResolvableType[0];
 
-	private static final ConcurrentReferenceHashMap<ResolvableType, ResolvableType> cache =
-			new ConcurrentReferenceHashMap<>(256);
+	/**
+	 * System property that specifies the maximum number of entries in the caches
+	 * for canonical {@code ResolvableType} instances and for assignability results:
+	 * {@code "spring.resolvabletype.cacheLimit"}.
+	 * <p>The default is 4096. Once a cache is full, its entries are evicted before
+	 * further instances and results are cached; entries may also be reclaimed by the
+	 * garbage collector. A value of 0 (or less) switches canonicalization and
+	 * assignability caching off; a value that is not a number is ignored.
+	 * @since 5.1.6
+	 */
+	public static final String CACHE_LIMIT_PROPERTY_NAME = "spring.resolvabletype.cacheLimit";
+
+	private static final int DEFAULT_CACHE_LIMIT = 4096;
+
+	private static final Map<ResolvableType, ResolvableType> cache = CollectionFactory.createReferenceCache(256);
+
+	private static final int cacheLimit = determineCacheLimit();
+
+	private static final Map<Type, ResolvableType> canonicalCache = CollectionFactory.createReferenceCache(256);
+
+	private static final Map<AssignabilityKey, Boolean> assignabilityCache =
+			CollectionFactory.createReferenceCache(256);
+
+	private static final LongAdder canonicalHitCount = new LongAdder();
+
+	private static final LongAdder canonicalMissCount = new LongAdder();
+
+	private static final LongAdder assignabilityHitCount = new LongAdder();
+
+	private static final LongAdder assignabilityMissCount = new LongAdder();
 
 
 	/**
@@ -129,13 +162,13 @@ public class ResolvableType implements Serializable {
 	private Class<?> resolved;
 
 	@Nullable
-	private volatile ResolvableType superType;
+	private transient volatile ResolvableType superType;
 
 	@Nullable
-	private volatile ResolvableType[] interfaces;
+	private transient volatile ResolvableType[] interfaces;
 
 	@Nullable
-	private volatile ResolvableType[] generics;
+	private transient volatile ResolvableType[] generics;
 
 
 	/**
@@ -266,7 +299,7 @@ public class ResolvableType implements Serializable {
 	 * @see #isAssignableFrom(ResolvableType)
 	 */
 	public boolean isAssignableFrom(Class<?> other) {
-		return isAssignableFrom(forClass(other), null);
+		return isAssignableFrom(forClass(other));
 	}
 
 	/**
@@ -281,7 +314,24 @@ public class ResolvableType implements Serializable {
 	 * {@code ResolvableType}; {@code false} otherwise
 	 */
 	public boolean isAssignableFrom(ResolvableType other) {
-		return isAssignableFrom(other, null);
+		Assert.notNull(other, "ResolvableType must not be null");
+		// Subclasses such as forRawClass variants may apply different rules
+		if (cacheLimit <= 0 || getClass() != ResolvableType.class || other.getClass() != ResolvableType.class) {
+			return isAssignableFrom(other, null);
+		}
+		AssignabilityKey key = new AssignabilityKey(this, other);
+		Boolean assignable = assignabilityCache.get(key);
+		if (assignable != null) {
+			assignabilityHitCount.increment();
+			return assignable;
+		}
+		assignabilityMissCount.increment();
+		assignable = isAssignableFrom(other, null);
+		if (isCacheSafe(getType()) && isCacheSafe(other.getType())) {
+			evictIfFull(assignabilityCache);
+			assignabilityCache.put(key, assignable);
+		}
+		return assignable;
 	}
 
 	private boolean isAssignableFrom(ResolvableType other, @Nullable Map<Type, Type> matchedBefore) {
@@ -1036,7 +1086,7 @@ public class ResolvableType implements Serializable {
 	 * @see #forClassWithGenerics(Class, Class...)
 	 */
 	public static ResolvableType forClass(@Nullable Class<?> clazz) {
-		return new ResolvableType(clazz);
+		return getCanonicalType(clazz != null ? clazz : Object.class);
 	}
 
 	/**
@@ -1456,16 +1506,19 @@ public class ResolvableType implements Serializable {
 			return NONE;
 		}
 
+		// Plain Class and ParameterizedType references: share a canonical instance...
+		if (typeProvider == null && variableResolver == null &&
+				(type instanceof Class || type instanceof ParameterizedType)) {
+			return getCanonicalType(type);
+		}
+
 		// For simple Class references, build the wrapper right away -
 		// no expensive resolution necessary, so not worth caching...
 		if (type instanceof Class) {
 			return new ResolvableType(type, typeProvider, variableResolver, (ResolvableType) null);
 		}
 
-		// Purge empty entries on access since we don't have a clean-up thread or the like.
-		cache.purgeUnreferencedEntries();
-
-		// Check the cache - we may have a ResolvableType which has been resolved before...
+		// Check the cache (purging empty entries on access) - we may have a ResolvableType which has been resolved before...
 		ResolvableType resultType = new ResolvableType(type, typeProvider, variableResolver);
 		ResolvableType cachedType = cache.get(resultType);
 		if (cachedType == null) {
@@ -1482,9 +1535,188 @@ public class ResolvableType implements Serializable {
 	 */
 	public static void clearCache() {
 		cache.clear();
+		canonicalCache.clear();
+		assignabilityCache.clear();
 		SerializableTypeWrapper.cache.clear();
 	}
 
+	/**
+	 * Return statistics for the caches of canonical {@code ResolvableType}
+	 * instances and of assignability results.
+	 * <p>Hit and miss counts accumulate over the lifetime of this class,
+	 * independent of {@link #clearCache()} calls.
+	 * @since 5.1.6
+	 * @see #CACHE_LIMIT_PROPERTY_NAME
+	 */
+	public static CacheStatistics getCacheStatistics() {
+		return new CacheStatistics(canonicalCache.size(), canonicalHitCount.sum(), canonicalMissCount.sum(),
+				assignabilityCache.size(), assignabilityHitCount.sum(), assignabilityMissCount.sum());
+	}
+
+	/**
+	 * Return the canonical {@code ResolvableType} for the given {@link Class}
+	 * or {@link ParameterizedType}, without type provider or variable resolver.
+	 */
+	private static ResolvableType getCanonicalType(Type type) {
+		ResolvableType canonicalType = canonicalCache.get(type);
+		if (canonicalType != null) {
+			canonicalHitCount.increment();
+			return canonicalType;
+		}
+		canonicalMissCount.increment();
+		canonicalType = (type instanceof Class ? new ResolvableType((Class<?>) type) :
+				new ResolvableType(type, null, null, (ResolvableType) null));
+		if (cacheLimit > 0 && isCacheSafe(type)) {
+			evictIfFull(canonicalCache);
+			ResolvableType existing = canonicalCache.putIfAbsent(type, canonicalType);
+			if (existing != null) {
+				return existing;
+			}
+		}
+		return canonicalType;
+	}
+
+	/**
+	 * Determine whether the classes that the given type refers to are visible to
+	 * the class loader of this class, so that caching them does not keep another
+	 * class loader alive. Type variables are covered by their declarations.
+	 */
+	private static boolean isCacheSafe(Type type) {
+		if (type instanceof Class) {
+			return ClassUtils.isCacheSafe((Class<?>) type, ResolvableType.class.getClassLoader());
+		}
+		if (type instanceof ParameterizedType) {
+			ParameterizedType parameterizedType = (ParameterizedType) type;
+			if (!isCacheSafe(parameterizedType.getRawType())) {
+				return false;
+			}
+			Type ownerType = parameterizedType.getOwnerType();
+			if (ownerType != null && !isCacheSafe(ownerType)) {
+				return false;
+			}
+			return Arrays.stream(parameterizedType.getActualTypeArguments()).allMatch(ResolvableType::isCacheSafe);
+		}
+		if (type instanceof GenericArrayType) {
+			return isCacheSafe(((GenericArrayType) type).getGenericComponentType());
+		}
+		if (type instanceof WildcardType) {
+			WildcardType wildcardType = (WildcardType) type;
+			return (Arrays.stream(wildcardType.getUpperBounds()).allMatch(ResolvableType::isCacheSafe) &&
+					Arrays.stream(wildcardType.getLowerBounds()).allMatch(ResolvableType::isCacheSafe));
+		}
+		if (type instanceof TypeVariable) {
+			Object declaration = ((TypeVariable<?>) type).getGenericDeclaration();
+			Class<?> declaringClass = (declaration instanceof Class ? (Class<?>) declaration :
+					declaration instanceof Method ? ((Method) declaration).getDeclaringClass() :
+					declaration instanceof Constructor ? ((Constructor<?>) declaration).getDeclaringClass() : null);
+			return (declaringClass != null && isCacheSafe(declaringClass));
+		}
+		return false;
+	}
+
+	/**
+	 * Evict all entries from the given cache once it has reached the cache limit.
+	 */
+	private static void evictIfFull(Map<?, ?> cache) {
+		if (cache.size() >= cacheLimit) {
+			cache.clear();
+		}
+	}
+
+	private static int determineCacheLimit() {
+		String limit = SpringProperties.getProperty(CACHE_LIMIT_PROPERTY_NAME);
+		if (limit == null) {
+			return DEFAULT_CACHE_LIMIT;
+		}
+		try {
+			return Math.max(Integer.parseInt(limit.trim()), 0);
+		}
+		catch (NumberFormatException ex) {
+			return DEFAULT_CACHE_LIMIT;
+		}
+	}
+
+
+	/**
+	 * Statistics for the caches of canonical {@code ResolvableType} instances
+	 * and of assignability results, as returned by {@link #getCacheStatistics()}.
+	 * @since 5.1.6
+	 */
+	public static final class CacheStatistics {
+
+		private final int canonicalTypeCount;
+
+		private final long canonicalTypeHitCount;
+
+		private final long canonicalTypeMissCount;
+
+		private final int assignabilityCount;
+
+		private final long assignabilityHitCount;
+
+		private final long assignabilityMissCount;
+
+		CacheStatistics(int canonicalTypeCount, long canonicalTypeHitCount, long canonicalTypeMissCount,
+				int assignabilityCount, long assignabilityHitCount, long assignabilityMissCount) {
+
+			this.canonicalTypeCount = canonicalTypeCount;
+			this.canonicalTypeHitCount = canonicalTypeHitCount;
+			this.canonicalTypeMissCount = canonicalTypeMissCount;
+			this.assignabilityCount = assignabilityCount;
+			this.assignabilityHitCount = assignabilityHitCount;
+			this.assignabilityMissCount = assignabilityMissCount;
+		}
+
+		/**
+		 * Return the number of currently cached canonical instances.
+		 */
+		public int getCanonicalTypeCount() {
+			return this.canonicalTypeCount;
+		}
+
+		/**
+		 * Return the number of lookups that found a canonical instance.
+		 */
+		public long getCanonicalTypeHitCount() {
+			return this.canonicalTypeHitCount;
+		}
+
+		/**
+		 * Return the number of lookups that had to create a new instance.
+		 */
+		public long getCanonicalTypeMissCount() {
+			return this.canonicalTypeMissCount;
+		}
+
+		/**
+		 * Return the number of currently cached assignability results.
+		 */
+		public int getAssignabilityCount() {
+			return this.assignabilityCount;
+		}
+
+		/**
+		 * Return the number of assignability checks answered from the cache.
+		 */
+		public long getAssignabilityHitCount() {
+			return this.assignabilityHitCount;
+		}
+
+		/**
+		 * Return the number of assignability checks that had to be computed.
+		 */
+		public long getAssignabilityMissCount() {
+			return this.assignabilityMissCount;
+		}
+
+		@Override
+		public String toString() {
+			return "canonical types: " + this.canonicalTypeCount + " cached, " + this.canonicalTypeHitCount +
+					" hits, " + this.canonicalTypeMissCount + " misses; assignability: " + this.assignabilityCount +
+					" cached, " + this.assignabilityHitCount + " hits, " + this.assignabilityMissCount + " misses";
+		}
+	}
+
 
 	/**
 	 * Strategy interface used to resolve {@link TypeVariable TypeVariables}.
@@ -1622,6 +1854,43 @@ public class ResolvableType implements Serializable {
 	}
 
 
+	/**
+	 * Key for the assignability cache: a pair of {@code ResolvableType} instances,
+	 * compared by equality since assignability only depends on what equality covers.
+	 */
+	private static final class AssignabilityKey {
+
+		private final ResolvableType type;
+
+		private final ResolvableType other;
+
+		private final int hash;
+
+		AssignabilityKey(ResolvableType type, ResolvableType other) {
+			this.type = type;
+			this.other = other;
+			this.hash = type.hashCode() * 31 + other.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof AssignabilityKey)) {
+				return false;
+			}
+			AssignabilityKey otherKey = (AssignabilityKey) other;
+			return (this.type.equals(otherKey.type) && this.other.equals(otherKey.other));
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+	}
+
+
 	/**
 	 * Internal helper to handle bounds from {@link WildcardType WildcardTypes}.
 	 */
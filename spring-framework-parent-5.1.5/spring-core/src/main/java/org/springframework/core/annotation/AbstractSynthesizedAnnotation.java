@@ -0,0 +1,88 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+
+import org.springframework.util.Assert;
+
+/**
+ * Base class for generated implementations of annotations that Spring has
+ * <em>synthesized</em>, used by {@link AnnotationUtils} instead of a JDK dynamic
+ * proxy if {@link AnnotationUtils#GENERATED_SYNTHESIZED_ANNOTATIONS_PROPERTY_NAME}
+ * is set and a class can be generated for the annotation type.
+ *
+ * <p>A subclass is generated per annotation type, implementing each attribute
+ * method through {@link #getAttributeValue(int)}. Attribute values as well as
+ * {@code equals}, {@code hashCode} and {@code toString} follow the same rules
+ * as for proxy-based synthesized annotations.
+ *
+ * @since 5.1.6
+ * @see SynthesizedAnnotationGenerator
+ */
+abstract class AbstractSynthesizedAnnotation implements Annotation, SynthesizedAnnotation {
+
+	private final SynthesizedAnnotationInvocationHandler handler;
+
+	private final Method[] attributeMethods;
+
+
+	/**
+	 * Create a new synthesized annotation.
+	 * @param handler the handler resolving attribute values, as created by {@link AnnotationUtils}
+	 * @param attributeMethods the attribute methods of the annotation type, in index order
+	 */
+	AbstractSynthesizedAnnotation(InvocationHandler handler, Method[] attributeMethods) {
+		Assert.isInstanceOf(SynthesizedAnnotationInvocationHandler.class, handler);
+		this.handler = (SynthesizedAnnotationInvocationHandler) handler;
+		this.attributeMethods = attributeMethods;
+	}
+
+
+	/**
+	 * Return the value of the attribute with the given index,
+	 * with aliases resolved and nested annotations synthesized.
+	 * @param index the index of the attribute method
+	 * @return the attribute value (a copy in case of an array)
+	 */
+	final Object getAttributeValue(int index) {
+		return this.handler.getAttributeValue(this.attributeMethods[index]);
+	}
+
+	@Override
+	public Class<? extends Annotation> annotationType() {
+		return this.handler.annotationType();
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		return (this == other || this.handler.annotationEquals(other));
+	}
+
+	@Override
+	public int hashCode() {
+		return this.handler.annotationHashCode();
+	}
+
+	@Override
+	public String toString() {
+		return this.handler.annotationToString();
+	}
+
+}
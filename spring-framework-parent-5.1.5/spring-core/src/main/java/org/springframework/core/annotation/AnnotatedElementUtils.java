@@ -18,6 +18,8 @@ package org.springframework.core.annotation;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Array;
+import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -28,10 +30,12 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import org.springframework.core.BridgeMethodResolver;
 import org.springframework.lang.Nullable;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 
@@ -86,6 +90,12 @@ import org.springframework.util.MultiValueMap;
  * search algorithm manually traverses type and method hierarchies and thereby
  * implicitly supports annotation inheritance without a need for {@code @Inherited}.
  *
+ * <h3>Caching</h3>
+ * <p>Results of merged annotation lookups on classes, methods, fields and
+ * constructors are cached per element, so that repeated lookups do not traverse
+ * the annotation hierarchy again. Merged {@link AnnotationAttributes} are returned
+ * as copies and may be modified by the caller.
+ *
  * @author Phillip Webb
  * @author Juergen Hoeller
  * @author Sam Brannen
@@ -107,6 +117,23 @@ public abstract class AnnotatedElementUtils {
 
 	private static final Processor<Boolean> alwaysTrueAnnotationProcessor = new AlwaysTrueBooleanAnnotationProcessor();
 
+	// Lookup flags, distinguishing cached results for the same element and annotation
+
+	private static final int FIND_SEMANTICS = 1;
+
+	private static final int CLASS_VALUES_AS_STRING = 2;
+
+	private static final int NESTED_ANNOTATIONS_AS_MAP = 4;
+
+	private static final int MERGED_ANNOTATION = 8;
+
+	private static final int PRESENCE = 16;
+
+	private static final Object NOT_FOUND = new Object();
+
+	private static final Map<MergedResultCacheKey, Object> mergedResultCache =
+			new ConcurrentReferenceHashMap<>(256);
+
 
 	/**
 	 * Build an adapted {@link AnnotatedElement} for the given annotations,
@@ -261,7 +288,8 @@ public abstract class AnnotatedElementUtils {
 		if (element.isAnnotationPresent(annotationType)) {
 			return true;
 		}
-		return Boolean.TRUE.equals(searchWithGetSemantics(element, annotationType, null, alwaysTrueAnnotationProcessor));
+		return getCachedResult(element, annotationType, PRESENCE, () -> Boolean.TRUE.equals(
+				searchWithGetSemantics(element, annotationType, null, alwaysTrueAnnotationProcessor)));
 	}
 
 	/**
@@ -277,7 +305,8 @@ public abstract class AnnotatedElementUtils {
 	 * @return {@code true} if a matching annotation is present
 	 */
 	public static boolean isAnnotated(AnnotatedElement element, String annotationName) {
-		return Boolean.TRUE.equals(searchWithGetSemantics(element, null, annotationName, alwaysTrueAnnotationProcessor));
+		return getCachedResult(element, annotationName, PRESENCE, () -> Boolean.TRUE.equals(
+				searchWithGetSemantics(element, null, annotationName, alwaysTrueAnnotationProcessor)));
 	}
 
 	/**
@@ -301,10 +330,12 @@ public abstract class AnnotatedElementUtils {
 	public static AnnotationAttributes getMergedAnnotationAttributes(
 			AnnotatedElement element, Class<? extends Annotation> annotationType) {
 
-		AnnotationAttributes attributes = searchWithGetSemantics(element, annotationType, null,
-				new MergedAnnotationAttributesProcessor());
-		AnnotationUtils.postProcessAnnotationAttributes(element, attributes, false, false);
-		return attributes;
+		return getCachedAttributes(element, annotationType, 0, () -> {
+			AnnotationAttributes attributes = searchWithGetSemantics(element, annotationType, null,
+					new MergedAnnotationAttributesProcessor());
+			AnnotationUtils.postProcessAnnotationAttributes(element, attributes, false, false);
+			return attributes;
+		});
 	}
 
 	/**
@@ -387,10 +418,14 @@ public abstract class AnnotatedElementUtils {
 	public static AnnotationAttributes getMergedAnnotationAttributes(AnnotatedElement element,
 			String annotationName, boolean classValuesAsString, boolean nestedAnnotationsAsMap) {
 
-		AnnotationAttributes attributes = searchWithGetSemantics(element, null, annotationName,
-				new MergedAnnotationAttributesProcessor(classValuesAsString, nestedAnnotationsAsMap));
-		AnnotationUtils.postProcessAnnotationAttributes(element, attributes, classValuesAsString, nestedAnnotationsAsMap);
-		return attributes;
+		int flags = attributeFlags(classValuesAsString, nestedAnnotationsAsMap);
+		return getCachedAttributes(element, annotationName, flags, () -> {
+			AnnotationAttributes attributes = searchWithGetSemantics(element, null, annotationName,
+					new MergedAnnotationAttributesProcessor(classValuesAsString, nestedAnnotationsAsMap));
+			AnnotationUtils.postProcessAnnotationAttributes(
+					element, attributes, classValuesAsString, nestedAnnotationsAsMap);
+			return attributes;
+		});
 	}
 
 	/**
@@ -413,20 +448,26 @@ public abstract class AnnotatedElementUtils {
 	 */
 	@Nullable
 	public static <A extends Annotation> A getMergedAnnotation(AnnotatedElement element, Class<A> annotationType) {
-		// Shortcut: directly present on the element, with no merging needed?
-		A annotation = element.getDeclaredAnnotation(annotationType);
-		if (annotation != null) {
-			return AnnotationUtils.synthesizeAnnotation(annotation, element);
-		}
+		return getCachedResult(element, annotationType, MERGED_ANNOTATION, () -> {
+			// Shortcut: directly present on the element, with no merging needed?
+			A annotation = element.getDeclaredAnnotation(annotationType);
+			if (annotation != null) {
+				return AnnotationUtils.synthesizeAnnotation(annotation, element);
+			}
 
-		// Shortcut: no searchable annotations to be found on plain Java classes and org.springframework.lang types...
-		if (AnnotationUtils.hasPlainJavaAnnotationsOnly(element)) {
-			return null;
-		}
+			// Shortcut: no searchable annotations to be found on plain Java classes
+			// and org.springframework.lang types...
+			if (AnnotationUtils.hasPlainJavaAnnotationsOnly(element)) {
+				return null;
+			}
 
-		// Exhaustive retrieval of merged annotation attributes...
-		AnnotationAttributes attributes = getMergedAnnotationAttributes(element, annotationType);
-		return (attributes != null ? AnnotationUtils.synthesizeAnnotation(attributes, annotationType, element) : null);
+			// Exhaustive retrieval of merged annotation attributes...
+			AnnotationAttributes attributes = searchWithGetSemantics(element, annotationType, null,
+					new MergedAnnotationAttributesProcessor());
+			AnnotationUtils.postProcessAnnotationAttributes(element, attributes, false, false);
+			return (attributes != null ?
+					AnnotationUtils.synthesizeAnnotation(attributes, annotationType, element) : null);
+		});
 	}
 
 	/**
@@ -626,7 +667,8 @@ public abstract class AnnotatedElementUtils {
 		if (element.isAnnotationPresent(annotationType)) {
 			return true;
 		}
-		return Boolean.TRUE.equals(searchWithFindSemantics(element, annotationType, null, alwaysTrueAnnotationProcessor));
+		return getCachedResult(element, annotationType, FIND_SEMANTICS | PRESENCE, () -> Boolean.TRUE.equals(
+				searchWithFindSemantics(element, annotationType, null, alwaysTrueAnnotationProcessor)));
 	}
 
 	/**
@@ -660,10 +702,14 @@ public abstract class AnnotatedElementUtils {
 	public static AnnotationAttributes findMergedAnnotationAttributes(AnnotatedElement element,
 			Class<? extends Annotation> annotationType, boolean classValuesAsString, boolean nestedAnnotationsAsMap) {
 
-		AnnotationAttributes attributes = searchWithFindSemantics(element, annotationType, null,
-				new MergedAnnotationAttributesProcessor(classValuesAsString, nestedAnnotationsAsMap));
-		AnnotationUtils.postProcessAnnotationAttributes(element, attributes, classValuesAsString, nestedAnnotationsAsMap);
-		return attributes;
+		int flags = FIND_SEMANTICS | attributeFlags(classValuesAsString, nestedAnnotationsAsMap);
+		return getCachedAttributes(element, annotationType, flags, () -> {
+			AnnotationAttributes attributes = searchWithFindSemantics(element, annotationType, null,
+					new MergedAnnotationAttributesProcessor(classValuesAsString, nestedAnnotationsAsMap));
+			AnnotationUtils.postProcessAnnotationAttributes(
+					element, attributes, classValuesAsString, nestedAnnotationsAsMap);
+			return attributes;
+		});
 	}
 
 	/**
@@ -697,10 +743,14 @@ public abstract class AnnotatedElementUtils {
 	public static AnnotationAttributes findMergedAnnotationAttributes(AnnotatedElement element,
 			String annotationName, boolean classValuesAsString, boolean nestedAnnotationsAsMap) {
 
-		AnnotationAttributes attributes = searchWithFindSemantics(element, null, annotationName,
-				new MergedAnnotationAttributesProcessor(classValuesAsString, nestedAnnotationsAsMap));
-		AnnotationUtils.postProcessAnnotationAttributes(element, attributes, classValuesAsString, nestedAnnotationsAsMap);
-		return attributes;
+		int flags = FIND_SEMANTICS | attributeFlags(classValuesAsString, nestedAnnotationsAsMap);
+		return getCachedAttributes(element, annotationName, flags, () -> {
+			AnnotationAttributes attributes = searchWithFindSemantics(element, null, annotationName,
+					new MergedAnnotationAttributesProcessor(classValuesAsString, nestedAnnotationsAsMap));
+			AnnotationUtils.postProcessAnnotationAttributes(
+					element, attributes, classValuesAsString, nestedAnnotationsAsMap);
+			return attributes;
+		});
 	}
 
 	/**
@@ -723,20 +773,26 @@ public abstract class AnnotatedElementUtils {
 	 */
 	@Nullable
 	public static <A extends Annotation> A findMergedAnnotation(AnnotatedElement element, Class<A> annotationType) {
-		// Shortcut: directly present on the element, with no merging needed?
-		A annotation = element.getDeclaredAnnotation(annotationType);
-		if (annotation != null) {
-			return AnnotationUtils.synthesizeAnnotation(annotation, element);
-		}
+		return getCachedResult(element, annotationType, FIND_SEMANTICS | MERGED_ANNOTATION, () -> {
+			// Shortcut: directly present on the element, with no merging needed?
+			A annotation = element.getDeclaredAnnotation(annotationType);
+			if (annotation != null) {
+				return AnnotationUtils.synthesizeAnnotation(annotation, element);
+			}
 
-		// Shortcut: no searchable annotations to be found on plain Java classes and org.springframework.lang types...
-		if (AnnotationUtils.hasPlainJavaAnnotationsOnly(element)) {
-			return null;
-		}
+			// Shortcut: no searchable annotations to be found on plain Java classes
+			// and org.springframework.lang types...
+			if (AnnotationUtils.hasPlainJavaAnnotationsOnly(element)) {
+				return null;
+			}
 
-		// Exhaustive retrieval of merged annotation attributes...
-		AnnotationAttributes attributes = findMergedAnnotationAttributes(element, annotationType, false, false);
-		return (attributes != null ? AnnotationUtils.synthesizeAnnotation(attributes, annotationType, element) : null);
+			// Exhaustive retrieval of merged annotation attributes...
+			AnnotationAttributes attributes = searchWithFindSemantics(element, annotationType, null,
+					new MergedAnnotationAttributesProcessor());
+			AnnotationUtils.postProcessAnnotationAttributes(element, attributes, false, false);
+			return (attributes != null ?
+					AnnotationUtils.synthesizeAnnotation(attributes, annotationType, element) : null);
+		});
 	}
 
 	/**
@@ -1272,6 +1328,9 @@ public abstract class AnnotatedElementUtils {
 
 				if (element instanceof Method) {
 					Method method = (Method) element;
+					if (AnnotationUtils.isFilteredFromSearch(method.getDeclaringClass())) {
+						return null;
+					}
 					T result;
 
 					// Search on possibly bridged method
@@ -1298,7 +1357,7 @@ public abstract class AnnotatedElementUtils {
 					Class<?> clazz = method.getDeclaringClass();
 					while (true) {
 						clazz = clazz.getSuperclass();
-						if (clazz == null || clazz == Object.class) {
+						if (clazz == null || clazz == Object.class || AnnotationUtils.isFilteredFromSearch(clazz)) {
 							break;
 						}
 						Set<Method> annotatedMethods = AnnotationUtils.getAnnotatedMethodsInBaseType(clazz);
@@ -1324,7 +1383,7 @@ public abstract class AnnotatedElementUtils {
 				}
 				else if (element instanceof Class) {
 					Class<?> clazz = (Class<?>) element;
-					if (!Annotation.class.isAssignableFrom(clazz)) {
+					if (!Annotation.class.isAssignableFrom(clazz) && !AnnotationUtils.canSkipTypeHierarchy(clazz)) {
 						// Search on interfaces
 						for (Class<?> ifc : clazz.getInterfaces()) {
 							T result = searchWithFindSemantics(ifc, annotationTypes, annotationName,
@@ -1358,6 +1417,9 @@ public abstract class AnnotatedElementUtils {
 			Processor<T> processor, Set<AnnotatedElement> visited, int metaDepth, Class<?>[] ifcs) {
 
 		for (Class<?> ifc : ifcs) {
+			if (AnnotationUtils.isFilteredFromSearch(ifc)) {
+				continue;
+			}
 			Set<Method> annotatedMethods = AnnotationUtils.getAnnotatedMethodsInBaseType(ifc);
 			if (!annotatedMethods.isEmpty()) {
 				for (Method annotatedMethod : annotatedMethods) {
@@ -1466,6 +1528,88 @@ public abstract class AnnotatedElementUtils {
 		return annotations;
 	}
 
+	/**
+	 * Clear the internal cache of merged annotation lookup results.
+	 * @since 5.1.6
+	 * @see AnnotationUtils#clearCache()
+	 */
+	static void clearCache() {
+		mergedResultCache.clear();
+	}
+
+	private static int attributeFlags(boolean classValuesAsString, boolean nestedAnnotationsAsMap) {
+		return (classValuesAsString ? CLASS_VALUES_AS_STRING : 0) |
+				(nestedAnnotationsAsMap ? NESTED_ANNOTATIONS_AS_MAP : 0);
+	}
+
+	/**
+	 * Perform the given lookup, or return its cached result if the supplied
+	 * element is a class or a member of a class.
+	 * @param element the annotated element
+	 * @param annotation the annotation type or the fully qualified class name
+	 * of the annotation type to look up
+	 * @param flags the flags describing the kind of lookup
+	 * @param lookup the lookup to perform on a cache miss
+	 * @return the (potentially cached) result of the lookup
+	 */
+	@SuppressWarnings("unchecked")
+	@Nullable
+	private static <T> T getCachedResult(
+			AnnotatedElement element, Object annotation, int flags, Supplier<T> lookup) {
+
+		if (!(element instanceof Class || element instanceof Member)) {
+			return lookup.get();
+		}
+		MergedResultCacheKey cacheKey = new MergedResultCacheKey(element, annotation, flags);
+		Object result = mergedResultCache.get(cacheKey);
+		if (result == null) {
+			result = lookup.get();
+			mergedResultCache.put(cacheKey, (result != null ? result : NOT_FOUND));
+		}
+		return (result != NOT_FOUND ? (T) result : null);
+	}
+
+	/**
+	 * Variant of {@link #getCachedResult} for merged annotation attributes,
+	 * returning a copy of any cached attributes to the caller.
+	 */
+	@Nullable
+	private static AnnotationAttributes getCachedAttributes(AnnotatedElement element, Object annotation,
+			int flags, Supplier<AnnotationAttributes> lookup) {
+
+		if (!(element instanceof Class || element instanceof Member)) {
+			return lookup.get();
+		}
+		AnnotationAttributes attributes = getCachedResult(element, annotation, flags, lookup);
+		return (attributes != null ? copyAttributes(attributes) : null);
+	}
+
+	private static AnnotationAttributes copyAttributes(AnnotationAttributes attributes) {
+		AnnotationAttributes copy = new AnnotationAttributes(attributes);
+		copy.replaceAll((name, value) -> copyAttributeValue(value));
+		return copy;
+	}
+
+	private static Object copyAttributeValue(Object value) {
+		if (value instanceof AnnotationAttributes) {
+			return copyAttributes((AnnotationAttributes) value);
+		}
+		if (value instanceof AnnotationAttributes[]) {
+			AnnotationAttributes[] array = ((AnnotationAttributes[]) value).clone();
+			for (int i = 0; i < array.length; i++) {
+				array[i] = copyAttributes(array[i]);
+			}
+			return array;
+		}
+		if (value.getClass().isArray()) {
+			int length = Array.getLength(value);
+			Object array = Array.newInstance(value.getClass().getComponentType(), length);
+			System.arraycopy(value, 0, array, 0, length);
+			return array;
+		}
+		return value;
+	}
+
 
 	/**
 	 * Callback interface that is used to process annotations during a search.
@@ -1748,4 +1892,41 @@ public abstract class AnnotatedElementUtils {
 		}
 	}
 
+
+	/**
+	 * Cache key for the result of a merged annotation lookup.
+	 */
+	private static final class MergedResultCacheKey {
+
+		private final AnnotatedElement element;
+
+		private final Object annotation;
+
+		private final int flags;
+
+		MergedResultCacheKey(AnnotatedElement element, Object annotation, int flags) {
+			this.element = element;
+			this.annotation = annotation;
+			this.flags = flags;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof MergedResultCacheKey)) {
+				return false;
+			}
+			MergedResultCacheKey otherKey = (MergedResultCacheKey) other;
+			return (this.element.equals(otherKey.element) && this.annotation.equals(otherKey.annotation) &&
+					this.flags == otherKey.flags);
+		}
+
+		@Override
+		public int hashCode() {
+			return (this.element.hashCode() * 29 + this.annotation.hashCode()) * 29 + this.flags;
+		}
+	}
+
 }
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import org.springframework.util.Assert;
+
+/**
+ * Filter for types that annotation searches do not need to introspect beyond
+ * the annotations directly present on them.
+ *
+ * <p>A matching type is assumed to carry no annotations that are relevant to
+ * Spring's meta-annotation programming model, neither on its supertypes nor on
+ * the methods that it declares. {@link AnnotationUtils} and
+ * {@link AnnotatedElementUtils} therefore stop their search at such a type,
+ * without walking its meta-annotations, interfaces, superclasses or the methods
+ * overridden from them. Typical candidates are JDK and third-party library types.
+ *
+ * @since 5.1.6
+ * @see AnnotationUtils#addSearchFilter(AnnotationSearchFilter)
+ * @see AnnotationUtils#EXCLUDED_PACKAGES_PROPERTY_NAME
+ */
+@FunctionalInterface
+public interface AnnotationSearchFilter {
+
+	/**
+	 * {@link AnnotationSearchFilter} matching the core JDK types in {@code java.*}
+	 * packages, which is always applied by {@link AnnotationUtils}.
+	 */
+	AnnotationSearchFilter JAVA = packages("java.");
+
+
+	/**
+	 * Determine whether annotation searches can stop at the given type.
+	 * @param type the type to check (never {@code null})
+	 * @return {@code true} if neither the type nor its supertypes declare
+	 * searchable annotations beyond the ones directly present on the type
+	 */
+	boolean matches(Class<?> type);
+
+
+	/**
+	 * Create a new {@link AnnotationSearchFilter} that matches types in the
+	 * given packages, including their sub-packages.
+	 * @param packageNames the package names or package name prefixes to match,
+	 * e.g. {@code "javax."} or {@code "com.example.library."}
+	 * @return a new filter for the given packages
+	 */
+	static AnnotationSearchFilter packages(String... packageNames) {
+		Assert.notNull(packageNames, "Package names must not be null");
+		String[] prefixes = packageNames.clone();
+		return type -> {
+			String name = type.getName();
+			for (String prefix : prefixes) {
+				if (name.startsWith(prefix)) {
+					return true;
+				}
+			}
+			return false;
+		};
+	}
+
+}
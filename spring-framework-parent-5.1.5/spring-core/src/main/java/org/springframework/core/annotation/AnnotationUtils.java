@@ -20,7 +20,6 @@ import java.lang.annotation.Annotation;
 import java.lang.annotation.Repeatable;
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Array;
-import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Member;
 import java.lang.reflect.Method;
@@ -35,16 +34,19 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import org.springframework.core.BridgeMethodResolver;
+import org.springframework.core.CollectionFactory;
 import org.springframework.core.ResolvableType;
+import org.springframework.core.SpringProperties;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
-import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.ObjectUtils;
 import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
@@ -96,6 +98,11 @@ import org.springframework.util.StringUtils;
  * found. As a consequence, additional annotations of the specified type will
  * be silently ignored.
  *
+ * <p>Searches through type hierarchies stop at types matched by an
+ * {@link AnnotationSearchFilter}, by default at core JDK types, as well as at
+ * types whose entire hierarchy is known to declare no annotations at all.
+ * See {@link #addSearchFilter} and {@link #getSearchStatistics()}.
+ *
  * @author Rob Harrop
  * @author Juergen Hoeller
  * @author Sam Brannen
@@ -119,33 +126,70 @@ public abstract class AnnotationUtils {
 	 */
 	public static final String VALUE = "value";
 
+	/**
+	 * System property that specifies a comma-separated list of package names,
+	 * or package name prefixes, in addition to {@code java.*}, whose types
+	 * annotation searches may stop at: e.g. {@code "javax.,com.example.library."}.
+	 * @since 5.1.6
+	 * @see AnnotationSearchFilter#packages(String...)
+	 */
+	public static final String EXCLUDED_PACKAGES_PROPERTY_NAME = "spring.annotation.search.excludedPackages";
+
+	/**
+	 * System property that instructs Spring to synthesize annotations as instances
+	 * of classes generated per annotation type instead of JDK dynamic proxies:
+	 * "spring.annotation.synthesis.generateClasses".
+	 * <p>The default is "false". If set to "true", a class is generated for every
+	 * annotation type that is visible from Spring's own class loader and accessible
+	 * from Spring's annotation support, and permanently defined in Spring's class
+	 * loader; other annotation types keep getting synthesized as JDK proxies.
+	 * Either way, synthesized annotations implement {@link SynthesizedAnnotation}.
+	 * @since 5.1.6
+	 * @see #synthesizeAnnotation(Annotation, AnnotatedElement)
+	 */
+	public static final String GENERATED_SYNTHESIZED_ANNOTATIONS_PROPERTY_NAME =
+			"spring.annotation.synthesis.generateClasses";
+
+	private static final boolean generateSynthesizedAnnotations =
+			SpringProperties.getFlag(GENERATED_SYNTHESIZED_ANNOTATIONS_PROPERTY_NAME);
+
 	private static final Map<AnnotationCacheKey, Annotation> findAnnotationCache =
-			new ConcurrentReferenceHashMap<>(256);
+			CollectionFactory.createReferenceCache(256);
 
 	private static final Map<AnnotationCacheKey, Boolean> metaPresentCache =
-			new ConcurrentReferenceHashMap<>(256);
+			CollectionFactory.createReferenceCache(256);
 
 	private static final Map<AnnotatedElement, Annotation[]> declaredAnnotationsCache =
-			new ConcurrentReferenceHashMap<>(256);
+			CollectionFactory.createReferenceCache(256);
 
 	private static final Map<Class<?>, Set<Method>> annotatedBaseTypeCache =
-			new ConcurrentReferenceHashMap<>(256);
+			CollectionFactory.createReferenceCache(256);
 
 	@SuppressWarnings("unused")
 	@Deprecated  // just here for older tool versions trying to reflectively clear the cache
 	private static final Map<Class<?>, ?> annotatedInterfaceCache = annotatedBaseTypeCache;
 
 	private static final Map<Class<? extends Annotation>, Boolean> synthesizableCache =
-			new ConcurrentReferenceHashMap<>(256);
+			CollectionFactory.createReferenceCache(256);
 
 	private static final Map<Class<? extends Annotation>, Map<String, List<String>>> attributeAliasesCache =
-			new ConcurrentReferenceHashMap<>(256);
+			CollectionFactory.createReferenceCache(256);
 
 	private static final Map<Class<? extends Annotation>, List<Method>> attributeMethodsCache =
-			new ConcurrentReferenceHashMap<>(256);
+			CollectionFactory.createReferenceCache(256);
 
 	private static final Map<Method, AliasDescriptor> aliasDescriptorCache =
-			new ConcurrentReferenceHashMap<>(256);
+			CollectionFactory.createReferenceCache(256);
+
+	private static final Map<Class<?>, Boolean> annotationFreeHierarchyCache =
+			CollectionFactory.createReferenceCache(256);
+
+	private static final List<AnnotationSearchFilter> searchFilters =
+			new CopyOnWriteArrayList<>(initialSearchFilters());
+
+	private static final LongAdder filteredSearchCount = new LongAdder();
+
+	private static final LongAdder annotationFreeSearchCount = new LongAdder();
 
 	@Nullable
 	private static transient Log logger;
@@ -523,32 +567,37 @@ public abstract class AnnotationUtils {
 		A result = (A) findAnnotationCache.get(cacheKey);
 
 		if (result == null) {
-			Method resolvedMethod = BridgeMethodResolver.findBridgedMethod(method);
-			result = findAnnotation((AnnotatedElement) resolvedMethod, annotationType);
-			if (result == null) {
-				result = searchOnInterfaces(method, annotationType, method.getDeclaringClass().getInterfaces());
+			if (isFilteredFromSearch(method.getDeclaringClass())) {
+				result = method.getDeclaredAnnotation(annotationType);
 			}
-
-			Class<?> clazz = method.getDeclaringClass();
-			while (result == null) {
-				clazz = clazz.getSuperclass();
-				if (clazz == null || clazz == Object.class) {
-					break;
+			else {
+				Method resolvedMethod = BridgeMethodResolver.findBridgedMethod(method);
+				result = findAnnotation((AnnotatedElement) resolvedMethod, annotationType);
+				if (result == null) {
+					result = searchOnInterfaces(method, annotationType, method.getDeclaringClass().getInterfaces());
 				}
-				Set<Method> annotatedMethods = getAnnotatedMethodsInBaseType(clazz);
-				if (!annotatedMethods.isEmpty()) {
-					for (Method annotatedMethod : annotatedMethods) {
-						if (isOverride(method, annotatedMethod)) {
-							Method resolvedSuperMethod = BridgeMethodResolver.findBridgedMethod(annotatedMethod);
-							result = findAnnotation((AnnotatedElement) resolvedSuperMethod, annotationType);
-							if (result != null) {
-								break;
+
+				Class<?> clazz = method.getDeclaringClass();
+				while (result == null) {
+					clazz = clazz.getSuperclass();
+					if (clazz == null || clazz == Object.class || isFilteredFromSearch(clazz)) {
+						break;
+					}
+					Set<Method> annotatedMethods = getAnnotatedMethodsInBaseType(clazz);
+					if (!annotatedMethods.isEmpty()) {
+						for (Method annotatedMethod : annotatedMethods) {
+							if (isOverride(method, annotatedMethod)) {
+								Method resolvedSuperMethod = BridgeMethodResolver.findBridgedMethod(annotatedMethod);
+								result = findAnnotation((AnnotatedElement) resolvedSuperMethod, annotationType);
+								if (result != null) {
+									break;
+								}
 							}
 						}
 					}
-				}
-				if (result == null) {
-					result = searchOnInterfaces(method, annotationType, clazz.getInterfaces());
+					if (result == null) {
+						result = searchOnInterfaces(method, annotationType, clazz.getInterfaces());
+					}
 				}
 			}
 
@@ -564,6 +613,9 @@ public abstract class AnnotationUtils {
 	@Nullable
 	private static <A extends Annotation> A searchOnInterfaces(Method method, Class<A> annotationType, Class<?>... ifcs) {
 		for (Class<?> ifc : ifcs) {
+			if (isFilteredFromSearch(ifc)) {
+				continue;
+			}
 			Set<Method> annotatedMethods = getAnnotatedMethodsInBaseType(ifc);
 			if (!annotatedMethods.isEmpty()) {
 				for (Method annotatedMethod : annotatedMethods) {
@@ -755,6 +807,9 @@ public abstract class AnnotationUtils {
 			if (annotation != null) {
 				return annotation;
 			}
+			if (canSkipTypeHierarchy(clazz)) {
+				return null;
+			}
 			for (Annotation declaredAnn : getDeclaredAnnotations(clazz)) {
 				Class<? extends Annotation> declaredType = declaredAnn.annotationType();
 				if (!isInJavaLangAnnotationPackage(declaredType) && visited.add(declaredAnn)) {
@@ -959,6 +1014,104 @@ public abstract class AnnotationUtils {
 		return (name.startsWith("java") || name.startsWith("org.springframework.lang."));
 	}
 
+	/**
+	 * Determine whether a search may skip the meta-annotations, the supertypes and
+	 * the overridden methods of the given type, either because the type is matched
+	 * by an {@link AnnotationSearchFilter} or because neither the type nor any of
+	 * its supertypes declare any annotations.
+	 * @param type the type to check
+	 * @return {@code true} if the search can stop at the given type
+	 * @since 5.1.6
+	 */
+	static boolean canSkipTypeHierarchy(Class<?> type) {
+		if (isFilteredFromSearch(type)) {
+			return true;
+		}
+		if (hasAnnotationFreeHierarchy(type)) {
+			annotationFreeSearchCount.increment();
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Determine whether the given type is matched by a registered
+	 * {@link AnnotationSearchFilter}.
+	 * @param type the type to check
+	 * @return {@code true} if the search can stop at the given type
+	 * @since 5.1.6
+	 */
+	static boolean isFilteredFromSearch(Class<?> type) {
+		for (AnnotationSearchFilter filter : searchFilters) {
+			if (filter.matches(type)) {
+				filteredSearchCount.increment();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean hasAnnotationFreeHierarchy(Class<?> type) {
+		Boolean annotationFree = annotationFreeHierarchyCache.get(type);
+		if (annotationFree == null) {
+			boolean result = (getDeclaredAnnotations(type).length == 0);
+			if (result) {
+				for (Class<?> ifc : type.getInterfaces()) {
+					if (!hasAnnotationFreeHierarchy(ifc)) {
+						result = false;
+						break;
+					}
+				}
+			}
+			Class<?> superclass = type.getSuperclass();
+			if (result && superclass != null) {
+				result = hasAnnotationFreeHierarchy(superclass);
+			}
+			annotationFree = result;
+			annotationFreeHierarchyCache.put(type, annotationFree);
+		}
+		return annotationFree;
+	}
+
+	/**
+	 * Register an {@link AnnotationSearchFilter} for types that annotation
+	 * searches do not need to introspect beyond their directly present
+	 * annotations, in addition to {@link AnnotationSearchFilter#JAVA} and
+	 * the packages specified through {@link #EXCLUDED_PACKAGES_PROPERTY_NAME}.
+	 * <p>Filters are applied to all subsequent searches. Since they may change
+	 * search results, all annotation caches get {@linkplain #clearCache() cleared},
+	 * including merged annotation lookups cached by {@link AnnotatedElementUtils}.
+	 * @param filter the filter to register
+	 * @since 5.1.6
+	 */
+	public static void addSearchFilter(AnnotationSearchFilter filter) {
+		Assert.notNull(filter, "AnnotationSearchFilter must not be null");
+		searchFilters.add(filter);
+		clearCache();
+	}
+
+	/**
+	 * Return statistics on the type hierarchy traversals that annotation searches
+	 * have avoided so far, through {@link AnnotationSearchFilter AnnotationSearchFilters}
+	 * or through types known to declare no annotations at all.
+	 * @since 5.1.6
+	 */
+	public static SearchStatistics getSearchStatistics() {
+		return new SearchStatistics(filteredSearchCount.sum(), annotationFreeSearchCount.sum(),
+				annotationFreeHierarchyCache.size());
+	}
+
+	private static List<AnnotationSearchFilter> initialSearchFilters() {
+		List<AnnotationSearchFilter> filters = new ArrayList<>(2);
+		filters.add(AnnotationSearchFilter.JAVA);
+		String excludedPackages = SpringProperties.getProperty(EXCLUDED_PACKAGES_PROPERTY_NAME);
+		if (StringUtils.hasText(excludedPackages)) {
+			filters.add(AnnotationSearchFilter.packages(
+					StringUtils.commaDelimitedListToStringArray(StringUtils.trimAllWhitespace(excludedPackages))));
+		}
+		return filters;
+	}
+
 	/**
 	 * Determine if the supplied {@link Annotation} is defined in the core JDK
 	 * {@code java.lang.annotation} package.
@@ -1568,6 +1721,9 @@ public abstract class AnnotationUtils {
 	 * by wrapping it in a dynamic proxy that transparently enforces
 	 * <em>attribute alias</em> semantics for annotation attributes that are
 	 * annotated with {@link AliasFor @AliasFor}.
+	 * <p>As of 5.1.6, the synthesized annotation may be an instance of a class
+	 * generated for the annotation type instead of a JDK dynamic proxy, provided
+	 * that {@link #GENERATED_SYNTHESIZED_ANNOTATIONS_PROPERTY_NAME} is set.
 	 * @param annotation the annotation to synthesize
 	 * @param annotatedElement the element that is annotated with the supplied
 	 * annotation; may be {@code null} if unknown
@@ -1599,7 +1755,12 @@ public abstract class AnnotationUtils {
 
 		DefaultAnnotationAttributeExtractor attributeExtractor =
 				new DefaultAnnotationAttributeExtractor(annotation, annotatedElement);
-		InvocationHandler handler = new SynthesizedAnnotationInvocationHandler(attributeExtractor);
+		SynthesizedAnnotationInvocationHandler handler = new SynthesizedAnnotationInvocationHandler(attributeExtractor);
+		A generated = (generateSynthesizedAnnotations ?
+				SynthesizedAnnotationGenerator.newInstance((Class<A>) annotationType, handler) : null);
+		if (generated != null) {
+			return generated;
+		}
 
 		// Can always expose Spring's SynthesizedAnnotation marker since we explicitly check for a
 		// synthesizable annotation before (which needs to declare @AliasFor from the same package)
@@ -1642,7 +1803,12 @@ public abstract class AnnotationUtils {
 
 		MapAnnotationAttributeExtractor attributeExtractor =
 				new MapAnnotationAttributeExtractor(attributes, annotationType, annotatedElement);
-		InvocationHandler handler = new SynthesizedAnnotationInvocationHandler(attributeExtractor);
+		SynthesizedAnnotationInvocationHandler handler = new SynthesizedAnnotationInvocationHandler(attributeExtractor);
+		A generated = (generateSynthesizedAnnotations ?
+				SynthesizedAnnotationGenerator.newInstance(annotationType, handler) : null);
+		if (generated != null) {
+			return generated;
+		}
 		Class<?>[] exposedInterfaces = (canExposeSynthesizedMarker(annotationType) ?
 				new Class<?>[] {annotationType, SynthesizedAnnotation.class} : new Class<?>[] {annotationType});
 		return (A) Proxy.newProxyInstance(annotationType.getClassLoader(), exposedInterfaces, handler);
@@ -2045,6 +2211,66 @@ public abstract class AnnotationUtils {
 		attributeAliasesCache.clear();
 		attributeMethodsCache.clear();
 		aliasDescriptorCache.clear();
+		annotationFreeHierarchyCache.clear();
+		AnnotatedElementUtils.clearCache();
+	}
+
+
+	/**
+	 * Statistics on the type hierarchy traversals avoided by annotation searches,
+	 * as returned by {@link #getSearchStatistics()}.
+	 * @since 5.1.6
+	 */
+	public static final class SearchStatistics {
+
+		private final long filteredSearchCount;
+
+		private final long annotationFreeSearchCount;
+
+		private final int checkedHierarchyCount;
+
+		SearchStatistics(long filteredSearchCount, long annotationFreeSearchCount, int checkedHierarchyCount) {
+			this.filteredSearchCount = filteredSearchCount;
+			this.annotationFreeSearchCount = annotationFreeSearchCount;
+			this.checkedHierarchyCount = checkedHierarchyCount;
+		}
+
+		/**
+		 * Return the number of traversals stopped at a type matched by an
+		 * {@link AnnotationSearchFilter}.
+		 */
+		public long getFilteredSearchCount() {
+			return this.filteredSearchCount;
+		}
+
+		/**
+		 * Return the number of traversals stopped at a type whose entire
+		 * hierarchy declares no annotations.
+		 */
+		public long getAnnotationFreeSearchCount() {
+			return this.annotationFreeSearchCount;
+		}
+
+		/**
+		 * Return the number of types for which it is currently cached whether
+		 * their hierarchy declares any annotations.
+		 */
+		public int getCheckedHierarchyCount() {
+			return this.checkedHierarchyCount;
+		}
+
+		/**
+		 * Return the total number of avoided traversals.
+		 */
+		public long getAvoidedSearchCount() {
+			return this.filteredSearchCount + this.annotationFreeSearchCount;
+		}
+
+		@Override
+		public String toString() {
+			return "filtered=" + this.filteredSearchCount + ", annotationFree=" + this.annotationFreeSearchCount +
+					", checkedHierarchies=" + this.checkedHierarchyCount;
+		}
 	}
 
 
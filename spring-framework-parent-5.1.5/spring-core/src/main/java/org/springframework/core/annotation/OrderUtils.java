@@ -19,9 +19,9 @@ package org.springframework.core.annotation;
 import java.lang.annotation.Annotation;
 import java.util.Map;
 
+import org.springframework.core.CollectionFactory;
 import org.springframework.lang.Nullable;
 import org.springframework.util.ClassUtils;
-import org.springframework.util.ConcurrentReferenceHashMap;
 
 /**
  * General utility for determining the order of an object based on its type declaration.
@@ -56,10 +56,10 @@ public abstract class OrderUtils {
 
 
 	/** Cache for @Order value (or NOT_ANNOTATED marker) per Class. */
-	private static final Map<Class<?>, Object> orderCache = new ConcurrentReferenceHashMap<>(64);
+	private static final Map<Class<?>, Object> orderCache = CollectionFactory.createReferenceCache(64);
 
 	/** Cache for @Priority value (or NOT_ANNOTATED marker) per Class. */
-	private static final Map<Class<?>, Object> priorityCache = new ConcurrentReferenceHashMap<>();
+	private static final Map<Class<?>, Object> priorityCache = CollectionFactory.createReferenceCache(16);
 
 
 	/**
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.cglib.core.ReflectUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Generates {@link AbstractSynthesizedAnnotation} subclasses for annotation types,
+ * defined in this package and in the class loader of Spring's annotation support,
+ * never in a class loader that the framework does not own.
+ *
+ * <p>Annotation types for which no class can be generated, e.g. types that are not
+ * visible from Spring's class loader or that are not accessible from this package,
+ * are reported as such, letting {@link AnnotationUtils} fall back to a JDK dynamic proxy.
+ *
+ * @since 5.1.6
+ * @see AbstractSynthesizedAnnotation
+ */
+final class SynthesizedAnnotationGenerator implements Opcodes {
+
+	private static final String PACKAGE_NAME = ClassUtils.getPackageName(AbstractSynthesizedAnnotation.class);
+
+	private static final String CLASS_NAME_SUFFIX = "$$SpringSynthesized";
+
+	private static final String CONSTRUCTOR_DESCRIPTOR = Type.getMethodDescriptor(Type.VOID_TYPE,
+			Type.getType(InvocationHandler.class), Type.getType(Method[].class));
+
+	private static final String GET_ATTRIBUTE_VALUE_DESCRIPTOR =
+			Type.getMethodDescriptor(Type.getType(Object.class), Type.INT_TYPE);
+
+	private static final Object NOT_GENERATED = new Object();
+
+	private static final Log logger = LogFactory.getLog(SynthesizedAnnotationGenerator.class);
+
+	private static final Map<Class<? extends Annotation>, Object> generatedTypeCache =
+			new ConcurrentReferenceHashMap<>(64);
+
+
+	private SynthesizedAnnotationGenerator() {
+	}
+
+
+	/**
+	 * Create a generated synthesized annotation of the given type.
+	 * @param annotationType the annotation type to implement
+	 * @param handler the handler resolving the attribute values
+	 * @return the synthesized annotation, or {@code null} if no class
+	 * can be generated for the given annotation type
+	 */
+	@Nullable
+	static <A extends Annotation> A newInstance(
+			Class<A> annotationType, SynthesizedAnnotationInvocationHandler handler) {
+
+		GeneratedType generatedType = getGeneratedType(annotationType);
+		if (generatedType == null) {
+			return null;
+		}
+		try {
+			return annotationType.cast(generatedType.constructor.newInstance(handler, generatedType.attributeMethods));
+		}
+		catch (ReflectiveOperationException ex) {
+			throw new IllegalStateException("Failed to instantiate synthesized annotation of type [" +
+					annotationType.getName() + "]", ex);
+		}
+	}
+
+	@Nullable
+	private static GeneratedType getGeneratedType(Class<? extends Annotation> annotationType) {
+		Object generatedType = generatedTypeCache.get(annotationType);
+		if (generatedType == null) {
+			synchronized (generatedTypeCache) {
+				generatedType = generatedTypeCache.get(annotationType);
+				if (generatedType == null) {
+					GeneratedType generated = generateType(annotationType);
+					generatedType = (generated != null ? generated : NOT_GENERATED);
+					generatedTypeCache.put(annotationType, generatedType);
+				}
+			}
+		}
+		return (generatedType != NOT_GENERATED ? (GeneratedType) generatedType : null);
+	}
+
+	@Nullable
+	private static GeneratedType generateType(Class<? extends Annotation> annotationType) {
+		ClassLoader classLoader = AbstractSynthesizedAnnotation.class.getClassLoader();
+		if (classLoader == null || !isAccessible(annotationType, classLoader)) {
+			return null;
+		}
+		// Sorted by name: stable indexes for a class that has been generated before
+		Method[] attributeMethods = AnnotationUtils.getAttributeMethods(annotationType).toArray(new Method[0]);
+		Arrays.sort(attributeMethods, Comparator.comparing(Method::getName));
+		for (Method attributeMethod : attributeMethods) {
+			if (!isAccessible(attributeMethod.getReturnType(), classLoader)) {
+				return null;
+			}
+		}
+		String className = PACKAGE_NAME + "." + annotationType.getName().replace('.', '$') + CLASS_NAME_SUFFIX;
+		try {
+			Class<?> generatedClass;
+			try {
+				generatedClass = classLoader.loadClass(className);
+			}
+			catch (ClassNotFoundException ex) {
+				byte[] bytes = generateClass(className, annotationType, attributeMethods);
+				generatedClass = ReflectUtils.defineClass(className, bytes, classLoader,
+						AbstractSynthesizedAnnotation.class.getProtectionDomain(), AbstractSynthesizedAnnotation.class);
+			}
+			if (!AbstractSynthesizedAnnotation.class.isAssignableFrom(generatedClass) ||
+					!annotationType.isAssignableFrom(generatedClass)) {
+				return null;
+			}
+			return new GeneratedType(
+					generatedClass.getConstructor(InvocationHandler.class, Method[].class), attributeMethods);
+		}
+		catch (Throwable ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to generate synthesized annotation class for [" + annotationType.getName() +
+						"] - falling back to JDK proxy", ex);
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Determine whether a class generated in this package and in the given
+	 * ClassLoader may refer to the given type.
+	 */
+	private static boolean isAccessible(Class<?> type, ClassLoader classLoader) {
+		Class<?> typeToCheck = type;
+		while (typeToCheck.isArray()) {
+			typeToCheck = typeToCheck.getComponentType();
+		}
+		if (typeToCheck.isPrimitive()) {
+			return true;
+		}
+		if (!ClassUtils.isVisible(typeToCheck, classLoader)) {
+			return false;
+		}
+		return (Modifier.isPublic(typeToCheck.getModifiers()) || (typeToCheck.getClassLoader() == classLoader &&
+				ClassUtils.getPackageName(typeToCheck).equals(PACKAGE_NAME)));
+	}
+
+	private static byte[] generateClass(
+			String className, Class<? extends Annotation> annotationType, Method[] attributeMethods) {
+
+		String internalName = className.replace('.', '/');
+		String superName = Type.getInternalName(AbstractSynthesizedAnnotation.class);
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		cw.visit(V1_8, ACC_PUBLIC | ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC, internalName, null, superName,
+				new String[] {Type.getInternalName(annotationType)});
+
+		MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", CONSTRUCTOR_DESCRIPTOR, null, null);
+		mv.visitCode();
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitVarInsn(ALOAD, 1);
+		mv.visitVarInsn(ALOAD, 2);
+		mv.visitMethodInsn(INVOKESPECIAL, superName, "<init>", CONSTRUCTOR_DESCRIPTOR, false);
+		mv.visitInsn(RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		for (int i = 0; i < attributeMethods.length; i++) {
+			Method attributeMethod = attributeMethods[i];
+			mv = cw.visitMethod(ACC_PUBLIC, attributeMethod.getName(),
+					Type.getMethodDescriptor(attributeMethod), null, null);
+			mv.visitCode();
+			mv.visitVarInsn(ALOAD, 0);
+			mv.visitLdcInsn(i);
+			mv.visitMethodInsn(INVOKEVIRTUAL, superName, "getAttributeValue", GET_ATTRIBUTE_VALUE_DESCRIPTOR, false);
+			generateReturn(mv, attributeMethod.getReturnType());
+			mv.visitMaxs(0, 0);
+			mv.visitEnd();
+		}
+
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	private static void generateReturn(MethodVisitor mv, Class<?> returnType) {
+		if (!returnType.isPrimitive()) {
+			mv.visitTypeInsn(CHECKCAST, Type.getInternalName(returnType));
+			mv.visitInsn(ARETURN);
+			return;
+		}
+		Type wrapperType = Type.getType(ClassUtils.resolvePrimitiveIfNecessary(returnType));
+		Type primitiveType = Type.getType(returnType);
+		mv.visitTypeInsn(CHECKCAST, wrapperType.getInternalName());
+		mv.visitMethodInsn(INVOKEVIRTUAL, wrapperType.getInternalName(), returnType.getName() + "Value",
+				Type.getMethodDescriptor(primitiveType), false);
+		mv.visitInsn(primitiveType.getOpcode(IRETURN));
+	}
+
+
+	/**
+	 * A generated class along with the attribute methods backing its indexes.
+	 */
+	private static final class GeneratedType {
+
+		final Constructor<?> constructor;
+
+		final Method[] attributeMethods;
+
+		GeneratedType(Constructor<?> constructor, Method[] attributeMethods) {
+			this.constructor = constructor;
+			this.attributeMethods = attributeMethods;
+		}
+	}
+
+}
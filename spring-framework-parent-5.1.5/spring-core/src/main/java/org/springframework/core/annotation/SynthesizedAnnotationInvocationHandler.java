@@ -35,6 +35,10 @@ import org.springframework.util.StringUtils;
  * <em>synthesized</em> (i.e., wrapped in a dynamic proxy) with additional
  * functionality.
  *
+ * <p>Also backs generated {@link AbstractSynthesizedAnnotation} implementations,
+ * which delegate attribute access, {@code equals}, {@code hashCode} and
+ * {@code toString} to this handler.
+ *
  * @author Sam Brannen
  * @since 4.2
  * @see Annotation
@@ -80,11 +84,11 @@ class SynthesizedAnnotationInvocationHandler implements InvocationHandler {
 		return getAttributeValue(method);
 	}
 
-	private Class<? extends Annotation> annotationType() {
+	Class<? extends Annotation> annotationType() {
 		return this.attributeExtractor.getAnnotationType();
 	}
 
-	private Object getAttributeValue(Method attributeMethod) {
+	Object getAttributeValue(Method attributeMethod) {
 		String attributeName = attributeMethod.getName();
 		Object value = this.valueCache.get(attributeName);
 		if (value == null) {
@@ -153,7 +157,7 @@ class SynthesizedAnnotationInvocationHandler implements InvocationHandler {
 	 * See {@link Annotation#equals(Object)} for a definition of the required algorithm.
 	 * @param other the other object to compare against
 	 */
-	private boolean annotationEquals(Object other) {
+	boolean annotationEquals(Object other) {
 		if (this == other) {
 			return true;
 		}
@@ -175,7 +179,7 @@ class SynthesizedAnnotationInvocationHandler implements InvocationHandler {
 	/**
 	 * See {@link Annotation#hashCode()} for a definition of the required algorithm.
 	 */
-	private int annotationHashCode() {
+	int annotationHashCode() {
 		int result = 0;
 
 		for (Method attributeMethod : AnnotationUtils.getAttributeMethods(annotationType())) {
@@ -233,7 +237,7 @@ class SynthesizedAnnotationInvocationHandler implements InvocationHandler {
 	/**
 	 * See {@link Annotation#toString()} for guidelines on the recommended format.
 	 */
-	private String annotationToString() {
+	String annotationToString() {
 		StringBuilder sb = new StringBuilder("@").append(annotationType().getName()).append("(");
 
 		Iterator<Method> iterator = AnnotationUtils.getAttributeMethods(annotationType()).iterator();
@@ -53,6 +53,10 @@ import org.springframework.util.StringUtils;
  * Indirectly implements {@link ConverterRegistry} as registration API through the
  * {@link ConfigurableConversionService} interface.
  *
+ * <p>Once all converters are registered, the service may be {@linkplain #freeze() frozen},
+ * compiling converter lookups for plain class-to-class conversions into a dispatch
+ * table keyed by source and target class.
+ *
  * @author Keith Donald
  * @author Juergen Hoeller
  * @author Chris Beams
@@ -78,6 +82,15 @@ public class GenericConversionService implements ConfigurableConversionService {
 
 	private final Map<ConverterCacheKey, GenericConverter> converterCache = new ConcurrentReferenceHashMap<>(64);
 
+	private final Map<Class<?>, Map<Class<?>, ConverterDispatch>> dispatchTable =
+			new ConcurrentReferenceHashMap<>(64);
+
+	private volatile boolean frozen;
+
+	/** Whether class-based lookups may use the dispatch table without going through overridable methods. */
+	private final boolean dispatchShortcut =
+			(getClass() == GenericConversionService.class || getClass() == DefaultConversionService.class);
+
 
 	// ConverterRegistry implementation
 
@@ -102,6 +115,7 @@ public class GenericConversionService implements ConfigurableConversionService {
 
 	@Override
 	public void addConverter(GenericConverter converter) {
+		assertNotFrozen();
 		this.converters.add(converter);
 		invalidateCache();
 	}
@@ -122,16 +136,51 @@ public class GenericConversionService implements ConfigurableConversionService {
 
 	@Override
 	public void removeConvertible(Class<?> sourceType, Class<?> targetType) {
+		assertNotFrozen();
 		this.converters.remove(sourceType, targetType);
 		invalidateCache();
 	}
 
 
+	/**
+	 * Freeze the converter registry: no converters may be added or removed anymore.
+	 * <p>From then on, converter lookups for types without generics or annotations,
+	 * as used by {@link #convert(Object, Class)} and {@link #canConvert(Class, Class)},
+	 * go through a dispatch table keyed by source and target class, avoiding
+	 * {@link TypeDescriptor} creation once a pair of classes has been resolved.
+	 * <p>Note that the dispatch table assumes that the converter chosen for such
+	 * plain types only depends on their classes, as {@link ConditionalConverter}
+	 * implementations usually do.
+	 * <p>Within subclasses other than {@link DefaultConversionService}, the class-based
+	 * variants keep delegating to the overridable {@link TypeDescriptor} variants, with
+	 * only {@link #getConverter} consulting the dispatch table.
+	 * @since 5.1.6
+	 * @see #isFrozen()
+	 */
+	public void freeze() {
+		this.frozen = true;
+	}
+
+	/**
+	 * Return whether this service has been {@linkplain #freeze() frozen}.
+	 * @since 5.1.6
+	 */
+	public boolean isFrozen() {
+		return this.frozen;
+	}
+
+
 	// ConversionService implementation
 
 	@Override
 	public boolean canConvert(@Nullable Class<?> sourceType, Class<?> targetType) {
 		Assert.notNull(targetType, "Target type to convert to cannot be null");
+		if (sourceType != null && this.frozen && this.dispatchShortcut) {
+			ConverterDispatch dispatch = getConverterDispatch(sourceType, targetType);
+			if (dispatch != null) {
+				return (dispatch.converter != null);
+			}
+		}
 		return canConvert((sourceType != null ? TypeDescriptor.valueOf(sourceType) : null),
 				TypeDescriptor.valueOf(targetType));
 	}
@@ -171,6 +220,17 @@ public class GenericConversionService implements ConfigurableConversionService {
 	@Nullable
 	public <T> T convert(@Nullable Object source, Class<T> targetType) {
 		Assert.notNull(targetType, "Target type to convert to cannot be null");
+		if (source != null && this.frozen && this.dispatchShortcut) {
+			ConverterDispatch dispatch = getConverterDispatch(source.getClass(), targetType);
+			if (dispatch != null) {
+				if (dispatch.converter != null) {
+					Object result = ConversionUtils.invokeConverter(
+							dispatch.converter, source, dispatch.sourceType, dispatch.targetType);
+					return (T) handleResult(dispatch.sourceType, dispatch.targetType, result);
+				}
+				return (T) handleConverterNotFound(source, dispatch.sourceType, dispatch.targetType);
+			}
+		}
 		return (T) convert(source, TypeDescriptor.forObject(source), TypeDescriptor.valueOf(targetType));
 	}
 
@@ -251,6 +311,20 @@ public class GenericConversionService implements ConfigurableConversionService {
 	 */
 	@Nullable
 	protected GenericConverter getConverter(TypeDescriptor sourceType, TypeDescriptor targetType) {
+		if (this.frozen && isPlainType(sourceType) && isPlainType(targetType)) {
+			ConverterDispatch dispatch = getConverterDispatch(sourceType.getType(), targetType.getType());
+			if (dispatch == null) {
+				dispatch = new ConverterDispatch(sourceType, targetType, findConverter(sourceType, targetType));
+				this.dispatchTable.computeIfAbsent(sourceType.getType(), type -> new ConcurrentReferenceHashMap<>(16))
+						.put(targetType.getType(), dispatch);
+			}
+			return dispatch.converter;
+		}
+		return findConverter(sourceType, targetType);
+	}
+
+	@Nullable
+	private GenericConverter findConverter(TypeDescriptor sourceType, TypeDescriptor targetType) {
 		ConverterCacheKey key = new ConverterCacheKey(sourceType, targetType);
 		GenericConverter converter = this.converterCache.get(key);
 		if (converter != null) {
@@ -306,6 +380,25 @@ public class GenericConversionService implements ConfigurableConversionService {
 		this.converterCache.clear();
 	}
 
+	private void assertNotFrozen() {
+		Assert.state(!this.frozen, "ConversionService has been frozen: cannot add or remove converters");
+	}
+
+	/**
+	 * Determine whether the given type is fully described by its class,
+	 * i.e. declares neither annotations nor generics.
+	 */
+	private static boolean isPlainType(TypeDescriptor typeDescriptor) {
+		return (typeDescriptor.getAnnotations().length == 0 &&
+				typeDescriptor.getResolvableType().getType() instanceof Class);
+	}
+
+	@Nullable
+	private ConverterDispatch getConverterDispatch(Class<?> sourceType, Class<?> targetType) {
+		Map<Class<?>, ConverterDispatch> dispatchForSource = this.dispatchTable.get(sourceType);
+		return (dispatchForSource != null ? dispatchForSource.get(targetType) : null);
+	}
+
 	@Nullable
 	private Object handleConverterNotFound(
 			@Nullable Object source, @Nullable TypeDescriptor sourceType, TypeDescriptor targetType) {
@@ -443,6 +536,27 @@ public class GenericConversionService implements ConfigurableConversionService {
 	}
 
 
+	/**
+	 * Entry in the dispatch table of a frozen service: the converter for a pair
+	 * of plain types, along with their descriptors.
+	 */
+	private static final class ConverterDispatch {
+
+		final TypeDescriptor sourceType;
+
+		final TypeDescriptor targetType;
+
+		@Nullable
+		final GenericConverter converter;
+
+		ConverterDispatch(TypeDescriptor sourceType, TypeDescriptor targetType, @Nullable GenericConverter converter) {
+			this.sourceType = sourceType;
+			this.targetType = targetType;
+			this.converter = converter;
+		}
+	}
+
+
 	/**
 	 * Key for use with the converter cache.
 	 */
@@ -16,12 +16,26 @@
 
 package org.springframework.core.env;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.core.SpringProperties;
+import org.springframework.core.convert.support.ConfigurableConversionService;
 import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ObjectUtils;
 
 /**
  * {@link PropertyResolver} implementation that resolves property values against
  * an underlying set of {@link PropertySources}.
  *
+ * <p>As of 5.1.6, lookups may optionally go through a property index: a merged
+ * key index over all {@link EnumerablePropertySource EnumerablePropertySources}
+ * plus a cache of resolved and converted values, see {@link #setPropertyIndexing}.
+ *
  * @author Chris Beams
  * @author Juergen Hoeller
  * @since 3.1
@@ -31,9 +45,29 @@ import org.springframework.lang.Nullable;
  */
 public class PropertySourcesPropertyResolver extends AbstractPropertyResolver {
 
+	/**
+	 * System property that instructs Spring to index property sources by default:
+	 * {@code "spring.env.propertyIndexing"}. Also applies to the resolver
+	 * used by {@link AbstractEnvironment}.
+	 * <p>The default is "false", searching all property sources on every lookup.
+	 * @since 5.1.6
+	 * @see #setPropertyIndexing
+	 */
+	public static final String PROPERTY_INDEXING_PROPERTY_NAME = "spring.env.propertyIndexing";
+
+	private static final boolean propertyIndexingDefault = SpringProperties.getFlag(PROPERTY_INDEXING_PROPERTY_NAME);
+
+	private static final Object NO_VALUE = new Object();
+
+
 	@Nullable
 	private final PropertySources propertySources;
 
+	private volatile boolean propertyIndexing = propertyIndexingDefault;
+
+	@Nullable
+	private volatile PropertyIndex propertyIndex;
+
 
 	/**
 	 * Create a new resolver against the given property sources.
@@ -44,8 +78,66 @@ public class PropertySourcesPropertyResolver extends AbstractPropertyResolver {
 	}
 
 
+	/**
+	 * Set whether to resolve properties through an index of the property sources.
+	 * <p>The index maps the property names of all {@link EnumerablePropertySource
+	 * EnumerablePropertySources} to the sources that contain them, so that every
+	 * lookup only queries those sources plus the sources that cannot be indexed:
+	 * non-enumerable sources and {@link SystemEnvironmentPropertySource}, which
+	 * also accepts variants of the given names. In addition, resolved and converted
+	 * values are cached per key and target type, including misses. Only immutable
+	 * values (Strings, primitive wrappers, enums and classes) are cached.
+	 * <p>The index is rebuilt whenever {@link MutablePropertySources} are added,
+	 * removed or replaced, and when a new {@link #setConversionService ConversionService}
+	 * or {@link #setIgnoreUnresolvableNestedPlaceholders} is set. It does not notice changes <i>within</i> a property source, such as
+	 * system properties set at runtime, or converters added to an existing
+	 * ConversionService: call {@link #clearPropertyIndex()} in such a case.
+	 * The same applies to changes of {@link PropertySources} implementations
+	 * other than {@link MutablePropertySources}.
+	 * <p>Default is "false", unless the {@value #PROPERTY_INDEXING_PROPERTY_NAME}
+	 * system property is set.
+	 * @since 5.1.6
+	 */
+	public void setPropertyIndexing(boolean propertyIndexing) {
+		this.propertyIndexing = propertyIndexing;
+		this.propertyIndex = null;
+	}
+
+	/**
+	 * Return whether properties are resolved through an index of the property sources.
+	 * @since 5.1.6
+	 */
+	public boolean isPropertyIndexing() {
+		return this.propertyIndexing;
+	}
+
+	/**
+	 * Discard the current property index and its cached values, if any.
+	 * @since 5.1.6
+	 * @see #setPropertyIndexing
+	 */
+	public void clearPropertyIndex() {
+		this.propertyIndex = null;
+	}
+
+	@Override
+	public void setConversionService(ConfigurableConversionService conversionService) {
+		super.setConversionService(conversionService);
+		this.propertyIndex = null;
+	}
+
+	@Override
+	public void setIgnoreUnresolvableNestedPlaceholders(boolean ignoreUnresolvableNestedPlaceholders) {
+		super.setIgnoreUnresolvableNestedPlaceholders(ignoreUnresolvableNestedPlaceholders);
+		this.propertyIndex = null;
+	}
+
+
 	@Override
 	public boolean containsProperty(String key) {
+		if (this.propertySources != null && this.propertyIndexing) {
+			return getPropertyIndex(this.propertySources).containsProperty(key);
+		}
 		if (this.propertySources != null) {
 			for (PropertySource<?> propertySource : this.propertySources) {
 				if (propertySource.containsProperty(key)) {
@@ -76,6 +168,10 @@ public class PropertySourcesPropertyResolver extends AbstractPropertyResolver {
 
 	@Nullable
 	protected <T> T getProperty(String key, Class<T> targetValueType, boolean resolveNestedPlaceholders) {
+		if (this.propertySources != null && this.propertyIndexing) {
+			return getIndexedProperty(getPropertyIndex(this.propertySources),
+					key, targetValueType, resolveNestedPlaceholders);
+		}
 		if (this.propertySources != null) {
 			for (PropertySource<?> propertySource : this.propertySources) {
 				if (logger.isTraceEnabled()) {
@@ -98,6 +194,56 @@ public class PropertySourcesPropertyResolver extends AbstractPropertyResolver {
 		return null;
 	}
 
+	@Nullable
+	@SuppressWarnings("unchecked")
+	private <T> T getIndexedProperty(PropertyIndex index, String key, Class<T> targetValueType,
+			boolean resolveNestedPlaceholders) {
+
+		ValueCacheKey cacheKey = new ValueCacheKey(key, targetValueType, resolveNestedPlaceholders);
+		Object cachedValue = index.valueCache.get(cacheKey);
+		if (cachedValue != null) {
+			return (cachedValue != NO_VALUE ? (T) cachedValue : null);
+		}
+		T result = null;
+		for (PropertySource<?> propertySource : index.getCandidateSources(key)) {
+			Object value = propertySource.getProperty(key);
+			if (value != null) {
+				if (resolveNestedPlaceholders && value instanceof String) {
+					value = resolveNestedPlaceholders((String) value);
+				}
+				logKeyFound(key, propertySource, value);
+				result = convertValueIfNecessary(value, targetValueType);
+				break;
+			}
+		}
+		if (result == null) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("Could not find key '" + key + "' in any property source");
+			}
+			index.valueCache.put(cacheKey, NO_VALUE);
+		}
+		else if (isCacheableValue(result)) {
+			index.valueCache.put(cacheKey, result);
+		}
+		return result;
+	}
+
+	private static boolean isCacheableValue(Object value) {
+		return (value instanceof String || value instanceof Enum || value instanceof Class ||
+				ClassUtils.isPrimitiveWrapper(value.getClass()));
+	}
+
+	private PropertyIndex getPropertyIndex(PropertySources propertySources) {
+		int modificationCount = (propertySources instanceof MutablePropertySources ?
+				((MutablePropertySources) propertySources).getModificationCount() : 0);
+		PropertyIndex index = this.propertyIndex;
+		if (index == null || index.modificationCount != modificationCount) {
+			index = new PropertyIndex(propertySources, modificationCount);
+			this.propertyIndex = index;
+		}
+		return index;
+	}
+
 	/**
 	 * Log the given key as found in the given {@link PropertySource}, resulting in
 	 * the given value.
@@ -117,4 +263,142 @@ public class PropertySourcesPropertyResolver extends AbstractPropertyResolver {
 		}
 	}
 
+
+	/**
+	 * Index of the property sources at a given modification count, with the
+	 * values resolved against them.
+	 */
+	private static final class PropertyIndex {
+
+		final int modificationCount;
+
+		private final List<PropertySource<?>> propertySources = new ArrayList<>();
+
+		/** Positions of the sources that have to be queried for every key. */
+		private final int[] opaqueSources;
+
+		/** Positions of the indexed sources that contain a given key, in order. */
+		private final Map<String, int[]> indexedSources = new HashMap<>(256);
+
+		final Map<ValueCacheKey, Object> valueCache = new ConcurrentReferenceHashMap<>(256);
+
+		PropertyIndex(PropertySources propertySources, int modificationCount) {
+			this.modificationCount = modificationCount;
+			List<Integer> opaqueSources = new ArrayList<>();
+			for (PropertySource<?> propertySource : propertySources) {
+				int position = this.propertySources.size();
+				this.propertySources.add(propertySource);
+				String[] propertyNames = getPropertyNames(propertySource);
+				if (propertyNames == null) {
+					opaqueSources.add(position);
+					continue;
+				}
+				for (String propertyName : propertyNames) {
+					int[] positions = this.indexedSources.get(propertyName);
+					if (positions == null) {
+						this.indexedSources.put(propertyName, new int[] {position});
+					}
+					else if (positions[positions.length - 1] != position) {
+						int[] newPositions = new int[positions.length + 1];
+						System.arraycopy(positions, 0, newPositions, 0, positions.length);
+						newPositions[positions.length] = position;
+						this.indexedSources.put(propertyName, newPositions);
+					}
+				}
+			}
+			this.opaqueSources = new int[opaqueSources.size()];
+			for (int i = 0; i < this.opaqueSources.length; i++) {
+				this.opaqueSources[i] = opaqueSources.get(i);
+			}
+		}
+
+		@Nullable
+		private static String[] getPropertyNames(PropertySource<?> propertySource) {
+			if (!(propertySource instanceof EnumerablePropertySource) ||
+					propertySource instanceof SystemEnvironmentPropertySource) {
+				return null;
+			}
+			try {
+				return ((EnumerablePropertySource<?>) propertySource).getPropertyNames();
+			}
+			catch (RuntimeException ex) {
+				// e.g. a CompositePropertySource with non-enumerable nested sources
+				return null;
+			}
+		}
+
+		/**
+		 * Return the sources that may contain the given key, in order of precedence.
+		 */
+		List<PropertySource<?>> getCandidateSources(String key) {
+			int[] indexed = this.indexedSources.get(key);
+			if (indexed == null) {
+				indexed = new int[0];
+			}
+			int[] opaque = this.opaqueSources;
+			List<PropertySource<?>> candidates = new ArrayList<>(indexed.length + opaque.length);
+			int i = 0;
+			int j = 0;
+			while (i < indexed.length || j < opaque.length) {
+				if (j == opaque.length || (i < indexed.length && indexed[i] < opaque[j])) {
+					candidates.add(this.propertySources.get(indexed[i++]));
+				}
+				else {
+					candidates.add(this.propertySources.get(opaque[j++]));
+				}
+			}
+			return candidates;
+		}
+
+		boolean containsProperty(String key) {
+			if (this.indexedSources.containsKey(key)) {
+				return true;
+			}
+			for (int position : this.opaqueSources) {
+				if (this.propertySources.get(position).containsProperty(key)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+
+	/**
+	 * Cache key for resolved values.
+	 */
+	private static final class ValueCacheKey {
+
+		private final String key;
+
+		private final Class<?> targetType;
+
+		private final boolean resolveNestedPlaceholders;
+
+		ValueCacheKey(String key, Class<?> targetType, boolean resolveNestedPlaceholders) {
+			this.key = key;
+			this.targetType = targetType;
+			this.resolveNestedPlaceholders = resolveNestedPlaceholders;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof ValueCacheKey)) {
+				return false;
+			}
+			ValueCacheKey otherKey = (ValueCacheKey) other;
+			return (this.key.equals(otherKey.key) && this.targetType == otherKey.targetType &&
+					this.resolveNestedPlaceholders == otherKey.resolveNestedPlaceholders);
+		}
+
+		@Override
+		public int hashCode() {
+			return (this.key.hashCode() * 31 + ObjectUtils.nullSafeHashCode(this.targetType)) * 2 +
+					(this.resolveNestedPlaceholders ? 1 : 0);
+		}
+	}
+
 }
@@ -0,0 +1,473 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.support;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.io.UrlResource;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Read-only view of a jar file, based on a memory-mapped copy of the file
+ * and an index of entry names sorted for prefix lookups.
+ *
+ * <p>The central directory is parsed once per file; entry contents are read
+ * straight from the mapped buffer, without any further system calls.
+ * Supports stored and deflated entries in jar files up to 2 GB;
+ * {@link #forFile} returns {@code null} for anything else (e.g. ZIP64 archives),
+ * letting callers fall back to {@link java.util.jar.JarFile} access.
+ *
+ * <p>A file found to have changed is mapped anew, with the previous view being
+ * released: its entries stop reading from the stale mapping, which is left to
+ * be unmapped by the garbage collector.
+ *
+ * @since 5.1.6
+ * @see PathMatchingResourcePatternResolver#setMappedJarScanning
+ */
+final class MappedJarFile {
+
+	private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+
+	private static final int CENTRAL_DIRECTORY_SIGNATURE = 0x02014b50;
+
+	private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+
+	private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+
+	private static final int CENTRAL_DIRECTORY_HEADER_SIZE = 46;
+
+	private static final int LOCAL_HEADER_SIZE = 30;
+
+	private static final int MAX_COMMENT_SIZE = 0xffff;
+
+	private static final int STORED = 0;
+
+	private static final int DEFLATED = 8;
+
+	private static final Log logger = LogFactory.getLog(MappedJarFile.class);
+
+	private static final Map<String, MappedJarFile> cache = new ConcurrentReferenceHashMap<>();
+
+
+	private final long lastModified;
+
+	private final long length;
+
+	@Nullable
+	private volatile ByteBuffer buffer;
+
+	private final Entry[] entries;
+
+
+	private MappedJarFile(long lastModified, long length, ByteBuffer buffer, Entry[] entries) {
+		this.lastModified = lastModified;
+		this.length = length;
+		this.buffer = buffer;
+		this.entries = entries;
+	}
+
+
+	/**
+	 * Return all entries whose name starts with the given prefix, sorted by name.
+	 * @param prefix the entry name prefix ("" for all entries)
+	 */
+	public List<Entry> getEntries(String prefix) {
+		int from = findFirstIndex(prefix);
+		int to = from;
+		while (to < this.entries.length && this.entries[to].name.startsWith(prefix)) {
+			to++;
+		}
+		return Collections.unmodifiableList(Arrays.asList(this.entries).subList(from, to));
+	}
+
+	private int findFirstIndex(String prefix) {
+		int low = 0;
+		int high = this.entries.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (this.entries[mid].name.compareTo(prefix) < 0) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private boolean isUpToDate(File file) {
+		return (file.lastModified() == this.lastModified && file.length() == this.length);
+	}
+
+	/**
+	 * Return whether this view has been released since its file has changed.
+	 */
+	public boolean isReleased() {
+		return (this.buffer == null);
+	}
+
+	private ByteBuffer getBuffer() throws IOException {
+		ByteBuffer buffer = this.buffer;
+		if (buffer == null) {
+			throw new ZipException("Jar file has changed since it was mapped");
+		}
+		return buffer;
+	}
+
+	/**
+	 * Drop the reference to the mapped buffer, so that it is not accessed
+	 * anymore once the underlying file has changed.
+	 */
+	private void release() {
+		this.buffer = null;
+	}
+
+
+	/**
+	 * Return a mapped view of the given jar file, reusing a previously
+	 * parsed view as long as the file has not changed.
+	 * @param file the jar file
+	 * @return the mapped view, or {@code null} if the file could not be mapped
+	 * or uses unsupported archive features
+	 */
+	@Nullable
+	public static MappedJarFile forFile(File file) {
+		String key = file.getAbsolutePath();
+		MappedJarFile jarFile = cache.get(key);
+		if (jarFile != null) {
+			if (jarFile.isUpToDate(file)) {
+				return jarFile;
+			}
+			// Stop reading from the stale mapping before looking at the file again
+			jarFile.release();
+			cache.remove(key, jarFile);
+		}
+		try {
+			jarFile = map(file);
+		}
+		catch (IOException | RuntimeException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Cannot map jar file [" + file + "] - falling back to regular jar access: " + ex);
+			}
+			return null;
+		}
+		cache.put(key, jarFile);
+		return jarFile;
+	}
+
+	private static MappedJarFile map(File file) throws IOException {
+		long lastModified = file.lastModified();
+		ByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < END_OF_CENTRAL_DIRECTORY_SIZE || size > Integer.MAX_VALUE) {
+				throw new ZipException("Unsupported jar file size: " + size);
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+		}
+		int endRecord = findEndOfCentralDirectory(buffer);
+		int entryCount = getUnsignedShort(buffer, endRecord + 10);
+		long directorySize = getUnsignedInt(buffer, endRecord + 12);
+		long directoryOffset = getUnsignedInt(buffer, endRecord + 16);
+		if (entryCount == 0xffff || directorySize == 0xffffffffL || directoryOffset == 0xffffffffL) {
+			throw new ZipException("ZIP64 archives not supported");
+		}
+		// Offsets are relative to the start of the archive, which may follow a preamble (e.g. a launch script)
+		int directoryStart = (int) (endRecord - directorySize);
+		long base = directoryStart - directoryOffset;
+		if (directoryStart < 0 || base < 0) {
+			throw new ZipException("Invalid central directory");
+		}
+
+		Entry[] entries = new Entry[entryCount];
+		MappedJarFile jarFile = new MappedJarFile(lastModified, buffer.capacity(), buffer, entries);
+		int pos = directoryStart;
+		for (int i = 0; i < entryCount; i++) {
+			if (buffer.getInt(pos) != CENTRAL_DIRECTORY_SIGNATURE) {
+				throw new ZipException("Invalid central directory header at offset " + pos);
+			}
+			int method = getUnsignedShort(buffer, pos + 10);
+			long compressedSize = getUnsignedInt(buffer, pos + 20);
+			long size = getUnsignedInt(buffer, pos + 24);
+			int nameLength = getUnsignedShort(buffer, pos + 28);
+			int extraLength = getUnsignedShort(buffer, pos + 30);
+			int commentLength = getUnsignedShort(buffer, pos + 32);
+			long localHeaderOffset = base + getUnsignedInt(buffer, pos + 42);
+			byte[] name = new byte[nameLength];
+			ByteBuffer nameBuffer = buffer.duplicate();
+			nameBuffer.position(pos + CENTRAL_DIRECTORY_HEADER_SIZE);
+			nameBuffer.get(name);
+			entries[i] = new Entry(jarFile, new String(name, StandardCharsets.UTF_8),
+					method, compressedSize, size, localHeaderOffset);
+			pos += CENTRAL_DIRECTORY_HEADER_SIZE + nameLength + extraLength + commentLength;
+		}
+		Arrays.sort(entries, Comparator.comparing(Entry::getName));
+		return jarFile;
+	}
+
+	private static int findEndOfCentralDirectory(ByteBuffer buffer) throws ZipException {
+		int last = buffer.capacity() - END_OF_CENTRAL_DIRECTORY_SIZE;
+		int first = Math.max(0, last - MAX_COMMENT_SIZE);
+		for (int pos = last; pos >= first; pos--) {
+			if (buffer.getInt(pos) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+				return pos;
+			}
+		}
+		throw new ZipException("End of central directory not found");
+	}
+
+	private static int getUnsignedShort(ByteBuffer buffer, int index) {
+		return (buffer.getShort(index) & 0xffff);
+	}
+
+	private static long getUnsignedInt(ByteBuffer buffer, int index) {
+		return (buffer.getInt(index) & 0xffffffffL);
+	}
+
+
+	/**
+	 * A single entry of a {@link MappedJarFile}.
+	 */
+	static final class Entry {
+
+		private final MappedJarFile jarFile;
+
+		private final String name;
+
+		private final int method;
+
+		private final long compressedSize;
+
+		private final long size;
+
+		private final long localHeaderOffset;
+
+		Entry(MappedJarFile jarFile, String name, int method, long compressedSize, long size, long localHeaderOffset) {
+			this.jarFile = jarFile;
+			this.name = name;
+			this.method = method;
+			this.compressedSize = compressedSize;
+			this.size = size;
+			this.localHeaderOffset = localHeaderOffset;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public boolean isDirectory() {
+			return this.name.endsWith("/");
+		}
+
+		/**
+		 * Return the uncompressed size of this entry.
+		 */
+		public long getSize() {
+			return this.size;
+		}
+
+		/**
+		 * Return whether the content of this entry can be read from the mapped buffer,
+		 * i.e. whether it uses a supported compression method and its jar file has not
+		 * been released.
+		 */
+		public boolean isReadable() {
+			return (!this.jarFile.isReleased() && (this.method == STORED || this.method == DEFLATED) &&
+					this.size < Integer.MAX_VALUE && this.compressedSize < Integer.MAX_VALUE);
+		}
+
+		/**
+		 * Return a view of the raw (possibly compressed) data of this entry
+		 * within the mapped buffer.
+		 */
+		public ByteBuffer getRawData() throws IOException {
+			ByteBuffer buffer = this.jarFile.getBuffer().duplicate().order(ByteOrder.LITTLE_ENDIAN);
+			int localHeader = (int) this.localHeaderOffset;
+			if (buffer.getInt(localHeader) != LOCAL_HEADER_SIGNATURE) {
+				throw new ZipException("Invalid local header for entry " + this.name);
+			}
+			int start = localHeader + LOCAL_HEADER_SIZE +
+					getUnsignedShort(buffer, localHeader + 26) + getUnsignedShort(buffer, localHeader + 28);
+			buffer.limit(start + (int) this.compressedSize);
+			buffer.position(start);
+			return buffer.slice();
+		}
+
+		/**
+		 * Return the uncompressed content of this entry: a direct view of the
+		 * mapped buffer for stored entries, inflated on the fly otherwise.
+		 */
+		public ByteBuffer getContent() throws IOException {
+			if (this.jarFile.isReleased()) {
+				throw new ZipException("Jar file has changed since entry " + this.name + " was mapped");
+			}
+			if (!isReadable()) {
+				throw new ZipException("Unsupported compression method " + this.method + " for entry " + this.name);
+			}
+			ByteBuffer data = getRawData();
+			if (this.method == STORED) {
+				return data.asReadOnlyBuffer();
+			}
+			// Inflater in "nowrap" mode requires an extra dummy byte of input
+			byte[] input = new byte[data.remaining() + 1];
+			data.get(input, 0, input.length - 1);
+			byte[] output = new byte[(int) this.size];
+			Inflater inflater = new Inflater(true);
+			try {
+				inflater.setInput(input);
+				int length = 0;
+				while (length < output.length) {
+					int count = inflater.inflate(output, length, output.length - length);
+					if (count == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+						break;
+					}
+					length += count;
+				}
+				if (length != output.length) {
+					throw new ZipException("Invalid deflated data for entry " + this.name);
+				}
+			}
+			catch (DataFormatException ex) {
+				throw new ZipException("Invalid deflated data for entry " + this.name + ": " + ex.getMessage());
+			}
+			finally {
+				inflater.end();
+			}
+			return ByteBuffer.wrap(output);
+		}
+
+		@Override
+		public String toString() {
+			return this.name;
+		}
+	}
+
+
+	/**
+	 * {@link UrlResource} for a jar entry, reading its content from a {@link MappedJarFile}
+	 * instead of opening a connection to the jar URL.
+	 */
+	static final class MappedJarEntryResource extends UrlResource {
+
+		private final Entry entry;
+
+		MappedJarEntryResource(URL url, Entry entry) {
+			super(url);
+			this.entry = entry;
+		}
+
+		/**
+		 * Return the content of the jar entry as a read-only buffer.
+		 */
+		public ByteBuffer getContent() throws IOException {
+			return this.entry.getContent();
+		}
+
+		@Override
+		public InputStream getInputStream() throws IOException {
+			if (!this.entry.isReadable()) {
+				return super.getInputStream();
+			}
+			ByteBuffer content = getContent();
+			if (content.hasArray()) {
+				return new ByteArrayInputStream(content.array(), content.arrayOffset() + content.position(),
+						content.remaining());
+			}
+			return new ByteBufferInputStream(content);
+		}
+
+		@Override
+		public boolean exists() {
+			return true;
+		}
+
+		@Override
+		public boolean isReadable() {
+			return !this.entry.isDirectory();
+		}
+
+		@Override
+		public long contentLength() {
+			return this.entry.getSize();
+		}
+	}
+
+
+	/**
+	 * {@link InputStream} over a {@link ByteBuffer}.
+	 */
+	private static final class ByteBufferInputStream extends InputStream {
+
+		private final ByteBuffer buffer;
+
+		ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return (this.buffer.hasRemaining() ? (this.buffer.get() & 0xff) : -1);
+		}
+
+		@Override
+		public int read(byte[] bytes, int off, int len) {
+			if (len == 0) {
+				return 0;
+			}
+			if (!this.buffer.hasRemaining()) {
+				return -1;
+			}
+			int count = Math.min(len, this.buffer.remaining());
+			this.buffer.get(bytes, off, count);
+			return count;
+		}
+
+		@Override
+		public long skip(long n) {
+			int count = (int) Math.max(0, Math.min(n, this.buffer.remaining()));
+			this.buffer.position(this.buffer.position() + count);
+			return count;
+		}
+
+		@Override
+		public int available() {
+			return this.buffer.remaining();
+		}
+	}
+
+}
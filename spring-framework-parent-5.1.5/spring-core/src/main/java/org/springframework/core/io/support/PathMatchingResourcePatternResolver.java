@@ -40,6 +40,7 @@ import java.util.zip.ZipException;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.springframework.core.SpringProperties;
 import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
@@ -182,6 +183,17 @@ import org.springframework.util.StringUtils;
  */
 public class PathMatchingResourcePatternResolver implements ResourcePatternResolver {
 
+	/**
+	 * System property that instructs Spring to scan jar files through a
+	 * memory-mapped index of their entries by default: {@code "spring.io.mappedJarScanning"}.
+	 * <p>The default is "false", scanning jar files via {@link JarFile}.
+	 * @since 5.1.6
+	 * @see #setMappedJarScanning
+	 */
+	public static final String MAPPED_JAR_SCANNING_PROPERTY_NAME = "spring.io.mappedJarScanning";
+
+	private static final boolean mappedJarScanningDefault = SpringProperties.getFlag(MAPPED_JAR_SCANNING_PROPERTY_NAME);
+
 	private static final Log logger = LogFactory.getLog(PathMatchingResourcePatternResolver.class);
 
 	@Nullable
@@ -205,6 +217,8 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 
 	private PathMatcher pathMatcher = new AntPathMatcher();
 
+	private boolean mappedJarScanning = mappedJarScanningDefault;
+
 
 	/**
 	 * Create a new PathMatchingResourcePatternResolver with a DefaultResourceLoader.
@@ -268,6 +282,41 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 		return this.pathMatcher;
 	}
 
+	/**
+	 * Set whether to scan jar files through a memory-mapped index of their
+	 * entries rather than through {@link JarFile} enumeration.
+	 * <p>In this mode, the central directory of each jar file is parsed once and
+	 * kept as a sorted list of entry names, so that every scan only visits the
+	 * entries below its root directory; matching resources read their content
+	 * straight from the mapped file. Resources are returned in entry name order.
+	 * Jar files within jar files, ZIP64 archives and non-file jar URLs are still
+	 * scanned via {@link JarFile}.
+	 * <p>Note that a mapped file remains open until the mapping is garbage
+	 * collected, which prevents deletion of the jar file on Windows. Likewise,
+	 * a jar file that gets rewritten in place (rather than replaced by a new
+	 * file) while mapped may crash the JVM with a SIGBUS error on access to its
+	 * mapped content on Linux and other Unix platforms. A changed timestamp or
+	 * length is detected on the next scan of the jar file, dropping the stale
+	 * mapping before reading the file again, but resources obtained earlier may
+	 * still hit the mapping in the meantime: do not turn this mode on for jar
+	 * files that get modified at runtime.
+	 * <p>Default is "false", unless the {@value #MAPPED_JAR_SCANNING_PROPERTY_NAME}
+	 * system property is set.
+	 * @since 5.1.6
+	 * @see #doFindPathMatchingJarResources
+	 */
+	public void setMappedJarScanning(boolean mappedJarScanning) {
+		this.mappedJarScanning = mappedJarScanning;
+	}
+
+	/**
+	 * Return whether jar files are scanned through a memory-mapped index of their entries.
+	 * @since 5.1.6
+	 */
+	public boolean isMappedJarScanning() {
+		return this.mappedJarScanning;
+	}
+
 
 	@Override
 	public Resource getResource(String location) {
@@ -588,6 +637,13 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 	protected Set<Resource> doFindPathMatchingJarResources(Resource rootDirResource, URL rootDirURL, String subPattern)
 			throws IOException {
 
+		if (this.mappedJarScanning) {
+			Set<Resource> result = doFindPathMatchingMappedJarResources(rootDirURL, subPattern);
+			if (result != null) {
+				return result;
+			}
+		}
+
 		URLConnection con = rootDirURL.openConnection();
 		JarFile jarFile;
 		String jarFileUrl;
@@ -664,6 +720,56 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 		}
 	}
 
+	/**
+	 * Find all resources in a plain jar file that match the given sub pattern,
+	 * based on a memory-mapped index of the jar entries.
+	 * @param rootDirURL the pre-resolved root directory URL
+	 * @param subPattern the sub pattern to match (below the root directory)
+	 * @return a mutable Set of matching Resource instances, or {@code null}
+	 * if the jar file cannot be scanned that way
+	 * @throws IOException in case of I/O errors
+	 * @see MappedJarFile
+	 */
+	@Nullable
+	private Set<Resource> doFindPathMatchingMappedJarResources(URL rootDirURL, String subPattern) throws IOException {
+		if (!ResourceUtils.URL_PROTOCOL_JAR.equals(rootDirURL.getProtocol())) {
+			return null;
+		}
+		String urlFile = rootDirURL.getFile();
+		int separatorIndex = urlFile.indexOf(ResourceUtils.JAR_URL_SEPARATOR);
+		if (separatorIndex == -1 ||
+				urlFile.indexOf(ResourceUtils.JAR_URL_SEPARATOR, separatorIndex + 2) != -1) {
+			// Not a jar URL, or a jar file within a jar file
+			return null;
+		}
+		String jarFileUrl = urlFile.substring(0, separatorIndex);
+		String rootEntryPath = urlFile.substring(separatorIndex + 2);
+		if (!jarFileUrl.startsWith(ResourceUtils.FILE_URL_PREFIX) || rootEntryPath.indexOf('%') != -1) {
+			return null;
+		}
+		MappedJarFile jarFile = MappedJarFile.forFile(ResourceUtils.getFile(new URL(jarFileUrl)));
+		if (jarFile == null) {
+			return null;
+		}
+
+		if (logger.isTraceEnabled()) {
+			logger.trace("Looking for matching resources in mapped jar file [" + jarFileUrl + "]");
+		}
+		if (!"".equals(rootEntryPath) && !rootEntryPath.endsWith("/")) {
+			rootEntryPath = rootEntryPath + "/";
+		}
+		Set<Resource> result = new LinkedHashSet<>(8);
+		for (MappedJarFile.Entry entry : jarFile.getEntries(rootEntryPath)) {
+			String relativePath = entry.getName().substring(rootEntryPath.length());
+			if (getPathMatcher().match(subPattern, relativePath)) {
+				URL entryUrl = new URL(ResourceUtils.JAR_URL_PREFIX + jarFileUrl +
+						ResourceUtils.JAR_URL_SEPARATOR + entry.getName());
+				result.add(new MappedJarFile.MappedJarEntryResource(entryUrl, entry));
+			}
+		}
+		return result;
+	}
+
 	/**
 	 * Resolve the given jar file URL into a JarFile object.
 	 */
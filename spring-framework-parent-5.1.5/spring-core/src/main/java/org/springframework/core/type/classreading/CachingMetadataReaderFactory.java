@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,10 +21,12 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
 
+import org.springframework.core.SpringProperties;
 import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
 
 /**
  * Caching implementation of the {@link MetadataReaderFactory} interface,
@@ -44,10 +46,31 @@ public class CachingMetadataReaderFactory extends SimpleMetadataReaderFactory {
 	/** 本地MetadataReader缓存的默认最大条目数: 256. */
 	public static final int DEFAULT_CACHE_LIMIT = 256;
 
+	/**
+	 * System property that instructs Spring to use the JVM-wide
+	 * {@link MetadataReaderCache#getSharedInstance() shared MetadataReaderCache}
+	 * for all factories created for a {@link ResourceLoader}, letting sibling
+	 * application contexts reuse each other's class metadata:
+	 * "spring.metadatareader.sharedCache".
+	 * <p>The default is "false", keeping a cache per ResourceLoader. Factories
+	 * for a ClassLoader that the shared cache might keep from being garbage
+	 * collected keep a cache per ResourceLoader in any case.
+	 * @see MetadataReaderCache#isSharedCacheSafe(ClassLoader)
+	 * @since 5.1.6
+	 */
+	public static final String SHARED_CACHE_PROPERTY_NAME = "spring.metadatareader.sharedCache";
+
+	private static final boolean useSharedCache = SpringProperties.getFlag(SHARED_CACHE_PROPERTY_NAME);
+
+
 	/** MetadataReader cache: either local or shared at the ResourceLoader level. */
 	@Nullable
 	private Map<Resource, MetadataReader> metadataReaderCache;
 
+	/** Class name based MetadataReader cache, taking precedence over the resource cache. */
+	@Nullable
+	private MetadataReaderCache sharedMetadataReaderCache;
+
 
 	/**
 	 * Create a new CachingMetadataReaderFactory for the default class loader,
@@ -82,10 +105,14 @@ public class CachingMetadataReaderFactory extends SimpleMetadataReaderFactory {
 	 * <p> 要使用的Spring ResourceLoader(同时也确定了要使用的ClassLoader)
 	 * 
 	 * @see DefaultResourceLoader#getResourceCache
+	 * @see #SHARED_CACHE_PROPERTY_NAME
 	 */
 	public CachingMetadataReaderFactory(@Nullable ResourceLoader resourceLoader) {
 		super(resourceLoader);
-		if (resourceLoader instanceof DefaultResourceLoader) {
+		if (useSharedCache && MetadataReaderCache.isSharedCacheSafe(getResourceLoader().getClassLoader())) {
+			this.sharedMetadataReaderCache = MetadataReaderCache.getSharedInstance();
+		}
+		else if (resourceLoader instanceof DefaultResourceLoader) {
 			this.metadataReaderCache =
 					((DefaultResourceLoader) resourceLoader).getResourceCache(MetadataReader.class);
 		}
@@ -94,14 +121,34 @@ public class CachingMetadataReaderFactory extends SimpleMetadataReaderFactory {
 		}
 	}
 
+	/**
+	 * Create a new CachingMetadataReaderFactory for the given {@link ResourceLoader},
+	 * using the given {@link MetadataReaderCache}, which may be shared with other
+	 * factories, e.g. the ones of sibling application contexts.
+	 * @param resourceLoader the Spring ResourceLoader to use
+	 * (also determines the ClassLoader to use)
+	 * @param metadataReaderCache the class name based cache to use
+	 * @since 5.1.6
+	 * @see MetadataReaderCache#getSharedInstance()
+	 */
+	public CachingMetadataReaderFactory(
+			@Nullable ResourceLoader resourceLoader, MetadataReaderCache metadataReaderCache) {
+
+		super(resourceLoader);
+		Assert.notNull(metadataReaderCache, "MetadataReaderCache must not be null");
+		this.sharedMetadataReaderCache = metadataReaderCache;
+	}
+
 
 	/**
 	 * Specify the maximum number of entries for the MetadataReader cache.
 	 * <p>Default is 256 for a local cache, whereas a shared cache is
 	 * typically unbounded. This method enforces a local resource cache,
-	 * even if the {@link ResourceLoader} supports a shared resource cache.
+	 * even if the {@link ResourceLoader} supports a shared resource cache,
+	 * or if a {@link MetadataReaderCache} has been specified.
 	 */
 	public void setCacheLimit(int cacheLimit) {
+		this.sharedMetadataReaderCache = null;
 		if (cacheLimit <= 0) {
 			this.metadataReaderCache = null;
 		}
@@ -117,7 +164,10 @@ public class CachingMetadataReaderFactory extends SimpleMetadataReaderFactory {
 	 * Return the maximum number of entries for the MetadataReader cache.
 	 */
 	public int getCacheLimit() {
-		if (this.metadataReaderCache instanceof LocalResourceCache) {
+		if (this.sharedMetadataReaderCache != null) {
+			return Integer.MAX_VALUE;
+		}
+		else if (this.metadataReaderCache instanceof LocalResourceCache) {
 			return ((LocalResourceCache) this.metadataReaderCache).getCacheLimit();
 		}
 		else {
@@ -125,10 +175,42 @@ public class CachingMetadataReaderFactory extends SimpleMetadataReaderFactory {
 		}
 	}
 
+	/**
+	 * Return the class name based {@link MetadataReaderCache} in use, if any,
+	 * e.g. for checking its {@link MetadataReaderCache#getStatistics() statistics}.
+	 * @since 5.1.6
+	 */
+	@Nullable
+	public MetadataReaderCache getMetadataReaderCache() {
+		return this.sharedMetadataReaderCache;
+	}
+
+
+	@Override
+	public MetadataReader getMetadataReader(String className) throws IOException {
+		MetadataReaderCache cache = this.sharedMetadataReaderCache;
+		if (cache != null) {
+			MetadataReader metadataReader = cache.getIfCached(className, getResourceLoader().getClassLoader());
+			if (metadataReader != null) {
+				return metadataReader;
+			}
+		}
+		return super.getMetadataReader(className);
+	}
 
 	@Override
 	public MetadataReader getMetadataReader(Resource resource) throws IOException {
-		if (this.metadataReaderCache instanceof ConcurrentMap) {
+		MetadataReaderCache cache = this.sharedMetadataReaderCache;
+		if (cache != null) {
+			ClassLoader classLoader = getResourceLoader().getClassLoader();
+			MetadataReader metadataReader = cache.get(resource, classLoader);
+			if (metadataReader == null) {
+				metadataReader = super.getMetadataReader(resource);
+				cache.put(metadataReader, classLoader);
+			}
+			return metadataReader;
+		}
+		else if (this.metadataReaderCache instanceof ConcurrentMap) {
 			// No synchronization necessary...
 			MetadataReader metadataReader = this.metadataReaderCache.get(resource);
 			if (metadataReader == null) {
@@ -138,14 +220,22 @@ public class CachingMetadataReaderFactory extends SimpleMetadataReaderFactory {
 			return metadataReader;
 		}
 		else if (this.metadataReaderCache != null) {
-			synchronized (this.metadataReaderCache) {
-				MetadataReader metadataReader = this.metadataReaderCache.get(resource);
-				if (metadataReader == null) {
-					metadataReader = super.getMetadataReader(resource);
-					this.metadataReaderCache.put(resource, metadataReader);
+			Map<Resource, MetadataReader> localCache = this.metadataReaderCache;
+			MetadataReader metadataReader;
+			synchronized (localCache) {
+				metadataReader = localCache.get(resource);
+			}
+			if (metadataReader == null) {
+				// Read outside of the lock, not serializing concurrent scanning threads
+				metadataReader = super.getMetadataReader(resource);
+				synchronized (localCache) {
+					MetadataReader existing = localCache.putIfAbsent(resource, metadataReader);
+					if (existing != null) {
+						metadataReader = existing;
+					}
 				}
-				return metadataReader;
 			}
+			return metadataReader;
 		}
 		else {
 			return super.getMetadataReader(resource);
@@ -154,9 +244,16 @@ public class CachingMetadataReaderFactory extends SimpleMetadataReaderFactory {
 
 	/**
 	 * Clear the local MetadataReader cache, if any, removing all cached class metadata.
+	 * <p>A {@link MetadataReaderCache} may be shared with other factories: only the
+	 * entries for this factory's ClassLoader get removed from it, and this factory
+	 * keeps using it.
+	 * @see MetadataReaderCache#clear(ClassLoader)
 	 */
 	public void clearCache() {
-		if (this.metadataReaderCache instanceof LocalResourceCache) {
+		if (this.sharedMetadataReaderCache != null) {
+			this.sharedMetadataReaderCache.clear(getResourceLoader().getClassLoader());
+		}
+		else if (this.metadataReaderCache instanceof LocalResourceCache) {
 			synchronized (this.metadataReaderCache) {
 				this.metadataReaderCache.clear();
 			}
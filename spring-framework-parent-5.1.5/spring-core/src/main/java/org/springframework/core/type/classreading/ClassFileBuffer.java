@@ -0,0 +1,127 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import org.springframework.asm.ClassReader;
+import org.springframework.core.NamedThreadLocal;
+
+/**
+ * Reusable buffers for reading class files: the class file content itself
+ * as well as ASM's constant pool and char buffers. Each thread keeps one
+ * instance, so that reading a large number of classes, e.g. during component
+ * scanning, does not allocate fresh buffers for every class.
+ *
+ * <p>A {@link ClassReader} obtained from {@link #createClassReader()} is only
+ * valid until the buffer gets {@linkplain #release() released}; metadata that
+ * needs to keep the class file around has to {@linkplain #copyClassFile() copy} it.
+ *
+ * @since 5.1.6
+ * @see SimpleMetadataReader
+ */
+final class ClassFileBuffer {
+
+	private static final int INITIAL_BUFFER_SIZE = 16 * 1024;
+
+	/** Larger buffers are not kept beyond the class file they were grown for. */
+	private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
+	private static final ThreadLocal<ClassFileBuffer> threadBuffer =
+			new NamedThreadLocal<>("Class file buffer");
+
+
+	private byte[] bytes = new byte[INITIAL_BUFFER_SIZE];
+
+	private int length;
+
+	private final ClassReader.Buffers readerBuffers = new ClassReader.Buffers();
+
+	private boolean inUse;
+
+
+	private ClassFileBuffer() {
+	}
+
+
+	/**
+	 * Return the buffer of the current thread, or a new buffer if the thread's
+	 * buffer is already in use.
+	 */
+	static ClassFileBuffer acquire() {
+		ClassFileBuffer buffer = threadBuffer.get();
+		if (buffer == null) {
+			buffer = new ClassFileBuffer();
+			threadBuffer.set(buffer);
+		}
+		else if (buffer.inUse) {
+			return new ClassFileBuffer();
+		}
+		buffer.inUse = true;
+		return buffer;
+	}
+
+	/**
+	 * Read the given class file content into this buffer, replacing its previous content.
+	 * @param inputStream the stream to read (not closed by this method)
+	 */
+	void read(InputStream inputStream) throws IOException {
+		byte[] bytes = this.bytes;
+		int length = 0;
+		int bytesRead;
+		while ((bytesRead = inputStream.read(bytes, length, bytes.length - length)) != -1) {
+			length += bytesRead;
+			if (length == bytes.length) {
+				bytes = Arrays.copyOf(bytes, bytes.length * 2);
+			}
+		}
+		this.bytes = bytes;
+		this.length = length;
+	}
+
+	/**
+	 * Create a {@link ClassReader} for the class file currently held by this buffer,
+	 * reusing the buffers of any previously created reader.
+	 */
+	ClassReader createClassReader() {
+		if (this.length < 10) {
+			// Not even a class file header: let ASM fail on the actual content
+			return new ClassReader(copyClassFile());
+		}
+		return new ClassReader(this.bytes, 0, this.readerBuffers);
+	}
+
+	/**
+	 * Return a copy of the class file currently held by this buffer.
+	 */
+	byte[] copyClassFile() {
+		return Arrays.copyOf(this.bytes, this.length);
+	}
+
+	/**
+	 * Release this buffer for reuse on the current thread.
+	 */
+	void release() {
+		if (this.bytes.length > MAX_RETAINED_BUFFER_SIZE) {
+			this.bytes = new byte[INITIAL_BUFFER_SIZE];
+		}
+		this.inUse = false;
+	}
+
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.asm.ClassReader;
+import org.springframework.core.NestedIOException;
+import org.springframework.core.SpringProperties;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.UrlResource;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Pre-built index of class metadata, allowing {@link MetadataReader} instances
+ * to be created without reading the corresponding class files.
+ *
+ * <p>An index is generated at build time through {@link #writeIndex(File)} and
+ * stored as {@value #INDEX_LOCATION} next to the indexed classes; it can be
+ * present in multiple JAR files. For every class, it holds the class declaration,
+ * enclosing and member classes as well as class-level and method-level annotations
+ * with their attributes, i.e. everything exposed through
+ * {@link org.springframework.core.type.AnnotationMetadata}.
+ *
+ * <p>{@link SimpleMetadataReaderFactory} consults the index of its class loader
+ * for every class path resource, and component scanning may use the indexed
+ * class names instead of searching the class path.
+ *
+ * @since 5.1.6
+ * @see #loadIndex(ClassLoader)
+ * @see org.springframework.core.type.AnnotationMetadata
+ */
+public final class ClassMetadataIndex {
+
+	/**
+	 * The location of the index within a class path root.
+	 */
+	public static final String INDEX_LOCATION = "META-INF/spring.classmetadata";
+
+	/**
+	 * System property that instructs Spring to ignore class metadata indexes, i.e.
+	 * to always return {@code null} from {@link #loadIndex(ClassLoader)}.
+	 * <p>The default is "false", allowing for regular use of the index. Switching this
+	 * flag to {@code true} is recommended when an index is available for some
+	 * libraries but couldn't be built for the whole application, since component
+	 * scanning only considers indexed classes once an index is present.
+	 */
+	public static final String IGNORE_INDEX_PROPERTY_NAME = "spring.classmetadata.ignore";
+
+	private static final int MAGIC = 0x53434d49;
+
+	private static final int VERSION = 1;
+
+	private static final boolean shouldIgnoreIndex = SpringProperties.getFlag(IGNORE_INDEX_PROPERTY_NAME);
+
+	private static final Log logger = LogFactory.getLog(ClassMetadataIndex.class);
+
+	private static final ClassMetadataIndex NO_INDEX = new ClassMetadataIndex(Collections.emptyMap());
+
+	private static final ConcurrentMap<ClassLoader, ClassMetadataIndex> cache = new ConcurrentReferenceHashMap<>();
+
+
+	private final Map<String, byte[]> recordedClasses;
+
+
+	private ClassMetadataIndex(Map<String, byte[]> recordedClasses) {
+		this.recordedClasses = recordedClasses;
+	}
+
+
+	/**
+	 * Return the names of all indexed classes, in class path order.
+	 */
+	public Set<String> getClassNames() {
+		return Collections.unmodifiableSet(this.recordedClasses.keySet());
+	}
+
+	/**
+	 * Determine whether the given class is indexed.
+	 * @param className the fully qualified name of the class
+	 */
+	public boolean containsClass(String className) {
+		return this.recordedClasses.containsKey(className);
+	}
+
+	/**
+	 * Create a {@link MetadataReader} for the given class from the index.
+	 * @param className the fully qualified name of the class
+	 * @param resource the class file resource to expose from the reader
+	 * @param classLoader the ClassLoader to use for resolving annotation types
+	 * @return the metadata reader, or {@code null} if the class is not indexed
+	 * @throws IOException if the index entry is corrupt
+	 */
+	@Nullable
+	public MetadataReader getMetadataReader(String className, Resource resource, @Nullable ClassLoader classLoader)
+			throws IOException {
+
+		byte[] events = this.recordedClasses.get(className);
+		if (events == null) {
+			return null;
+		}
+		AnnotationMetadataReadingVisitor visitor = new AnnotationMetadataReadingVisitor(classLoader);
+		ClassMetadataRecorder.replay(events, visitor);
+		return new IndexedMetadataReader(resource, visitor);
+	}
+
+
+	/**
+	 * Load the class metadata indexes found at {@value #INDEX_LOCATION} via the
+	 * given class loader, merging them in class path order.
+	 * @param classLoader the ClassLoader to use for loading
+	 * (can be {@code null} to use the default)
+	 * @return the index to use, or {@code null} if no index was found
+	 * @throws IllegalStateException if any index cannot be loaded
+	 */
+	@Nullable
+	public static ClassMetadataIndex loadIndex(@Nullable ClassLoader classLoader) {
+		if (shouldIgnoreIndex) {
+			return null;
+		}
+		ClassLoader classLoaderToUse = classLoader;
+		if (classLoaderToUse == null) {
+			classLoaderToUse = ClassMetadataIndex.class.getClassLoader();
+		}
+		ClassMetadataIndex index = cache.computeIfAbsent(classLoaderToUse, ClassMetadataIndex::doLoadIndex);
+		return (index != NO_INDEX ? index : null);
+	}
+
+	private static ClassMetadataIndex doLoadIndex(ClassLoader classLoader) {
+		try {
+			Enumeration<URL> urls = classLoader.getResources(INDEX_LOCATION);
+			if (!urls.hasMoreElements()) {
+				return NO_INDEX;
+			}
+			Map<String, byte[]> recordedClasses = new LinkedHashMap<>(1024);
+			int indexCount = 0;
+			while (urls.hasMoreElements()) {
+				readIndex(new UrlResource(urls.nextElement()), recordedClasses);
+				indexCount++;
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Loaded " + indexCount + " class metadata index(es) with " +
+						recordedClasses.size() + " classes");
+			}
+			return (!recordedClasses.isEmpty() ? new ClassMetadataIndex(recordedClasses) : NO_INDEX);
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Unable to load class metadata indexes from location [" +
+					INDEX_LOCATION + "]", ex);
+		}
+	}
+
+	private static void readIndex(Resource resource, Map<String, byte[]> recordedClasses) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(resource.getInputStream()))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new NestedIOException("Unsupported class metadata index format: " + resource);
+			}
+			int classCount = in.readInt();
+			for (int i = 0; i < classCount; i++) {
+				String className = in.readUTF();
+				byte[] events = new byte[in.readInt()];
+				in.readFully(events);
+				// The first class path root wins, as for class loading
+				recordedClasses.putIfAbsent(className, events);
+			}
+		}
+	}
+
+	/**
+	 * Write an index for all class files in the given directory, typically the
+	 * output directory of a build, to {@value #INDEX_LOCATION} within that directory.
+	 * @param classesDirectory the root directory of the classes to index
+	 * @throws IOException in case of I/O errors
+	 */
+	public static void writeIndex(File classesDirectory) throws IOException {
+		Assert.isTrue(classesDirectory.isDirectory(), () -> "Not a directory: " + classesDirectory);
+		List<Resource> classResources;
+		try (Stream<Path> files = Files.walk(classesDirectory.toPath())) {
+			classResources = files.filter(file -> isIndexableClassFile(file.getFileName().toString()))
+					.sorted()
+					.map(FileSystemResource::new)
+					.collect(Collectors.toList());
+		}
+		File indexFile = new File(classesDirectory, INDEX_LOCATION);
+		Files.createDirectories(indexFile.getParentFile().toPath());
+		try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(indexFile.toPath()))) {
+			writeIndex(classResources, out);
+		}
+	}
+
+	/**
+	 * Write an index for the given class files to the given stream.
+	 * @param classResources the class files to index
+	 * @param out the stream to write to (not closed by this method)
+	 * @throws IOException in case of I/O errors or unreadable class files
+	 */
+	public static void writeIndex(Iterable<? extends Resource> classResources, OutputStream out) throws IOException {
+		Map<String, byte[]> recordedClasses = new LinkedHashMap<>();
+		for (Resource resource : classResources) {
+			ClassReader classReader;
+			try (InputStream is = new BufferedInputStream(resource.getInputStream())) {
+				classReader = new ClassReader(is);
+			}
+			catch (IllegalArgumentException ex) {
+				throw new NestedIOException("ASM ClassReader failed to parse class file - " +
+						"probably due to a new Java class file version that isn't supported yet: " + resource, ex);
+			}
+			ClassMetadataRecorder recorder = new ClassMetadataRecorder();
+			classReader.accept(recorder, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+			recordedClasses.put(ClassUtils.convertResourcePathToClassName(classReader.getClassName()),
+					recorder.getRecordedEvents());
+		}
+		DataOutputStream dos = new DataOutputStream(out);
+		dos.writeInt(MAGIC);
+		dos.writeInt(VERSION);
+		dos.writeInt(recordedClasses.size());
+		for (Map.Entry<String, byte[]> entry : recordedClasses.entrySet()) {
+			dos.writeUTF(entry.getKey());
+			dos.writeInt(entry.getValue().length);
+			dos.write(entry.getValue());
+		}
+		dos.flush();
+	}
+
+	private static boolean isIndexableClassFile(String fileName) {
+		return (fileName.endsWith(ClassUtils.CLASS_FILE_SUFFIX) && !fileName.equals("module-info.class"));
+	}
+
+}
@@ -0,0 +1,529 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import org.springframework.asm.AnnotationVisitor;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.SpringAsmInfo;
+import org.springframework.asm.Type;
+import org.springframework.lang.Nullable;
+
+/**
+ * ASM class visitor which records the events relevant to an
+ * {@link AnnotationMetadataReadingVisitor} in a compact binary form,
+ * for later {@linkplain #replay replay} without reading the class file.
+ *
+ * <p>Records the class declaration, enclosing and member classes, class-level
+ * annotations, and annotated methods along with their annotations. Fields,
+ * method code and all other class file content are skipped.
+ *
+ * @since 5.1.6
+ * @see ClassMetadataIndex
+ */
+final class ClassMetadataRecorder extends ClassVisitor {
+
+	private static final byte END = 0;
+
+	private static final byte VISIT = 1;
+
+	private static final byte OUTER_CLASS = 2;
+
+	private static final byte INNER_CLASS = 3;
+
+	private static final byte ANNOTATION = 4;
+
+	private static final byte METHOD = 5;
+
+	private static final byte VALUE = 6;
+
+	private static final byte ENUM = 7;
+
+	private static final byte NESTED_ANNOTATION = 8;
+
+	private static final byte ARRAY = 9;
+
+
+	private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+
+	private final DataOutputStream out = new DataOutputStream(this.buffer);
+
+
+	ClassMetadataRecorder() {
+		super(SpringAsmInfo.ASM_VERSION);
+	}
+
+
+	@Override
+	public void visit(
+			int version, int access, String name, String signature, @Nullable String supername, String[] interfaces) {
+
+		write(() -> {
+			this.out.writeByte(VISIT);
+			this.out.writeInt(access);
+			this.out.writeUTF(name);
+			writeNullableString(supername);
+			this.out.writeInt(interfaces.length);
+			for (String ifc : interfaces) {
+				this.out.writeUTF(ifc);
+			}
+		});
+	}
+
+	@Override
+	public void visitOuterClass(String owner, String name, String desc) {
+		write(() -> {
+			this.out.writeByte(OUTER_CLASS);
+			this.out.writeUTF(owner);
+		});
+	}
+
+	@Override
+	public void visitInnerClass(String name, @Nullable String outerName, String innerName, int access) {
+		if (outerName != null) {
+			write(() -> {
+				this.out.writeByte(INNER_CLASS);
+				this.out.writeUTF(name);
+				this.out.writeUTF(outerName);
+				this.out.writeInt(access);
+			});
+		}
+	}
+
+	@Override
+	public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+		write(() -> {
+			this.out.writeByte(ANNOTATION);
+			this.out.writeUTF(desc);
+			this.out.writeBoolean(visible);
+		});
+		return new AnnotationRecorder();
+	}
+
+	@Override
+	public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+		return new MethodRecorder(access, name, desc);
+	}
+
+	/**
+	 * Return the events recorded so far, terminated by an end marker.
+	 */
+	public byte[] getRecordedEvents() {
+		write(() -> this.out.writeByte(END));
+		return this.buffer.toByteArray();
+	}
+
+
+	private void writeNullableString(@Nullable String value) throws IOException {
+		this.out.writeBoolean(value != null);
+		if (value != null) {
+			this.out.writeUTF(value);
+		}
+	}
+
+	private void writeValue(Object value) throws IOException {
+		if (value instanceof String) {
+			this.out.writeByte('s');
+			this.out.writeUTF((String) value);
+		}
+		else if (value instanceof Type) {
+			this.out.writeByte('T');
+			this.out.writeUTF(((Type) value).getDescriptor());
+		}
+		else if (value instanceof Boolean) {
+			this.out.writeByte('Z');
+			this.out.writeBoolean((Boolean) value);
+		}
+		else if (value instanceof Byte) {
+			this.out.writeByte('B');
+			this.out.writeByte((Byte) value);
+		}
+		else if (value instanceof Character) {
+			this.out.writeByte('C');
+			this.out.writeChar((Character) value);
+		}
+		else if (value instanceof Short) {
+			this.out.writeByte('S');
+			this.out.writeShort((Short) value);
+		}
+		else if (value instanceof Integer) {
+			this.out.writeByte('I');
+			this.out.writeInt((Integer) value);
+		}
+		else if (value instanceof Long) {
+			this.out.writeByte('J');
+			this.out.writeLong((Long) value);
+		}
+		else if (value instanceof Float) {
+			this.out.writeByte('F');
+			this.out.writeFloat((Float) value);
+		}
+		else if (value instanceof Double) {
+			this.out.writeByte('D');
+			this.out.writeDouble((Double) value);
+		}
+		else if (value instanceof boolean[]) {
+			boolean[] array = (boolean[]) value;
+			this.out.writeByte('z');
+			this.out.writeInt(array.length);
+			for (boolean element : array) {
+				this.out.writeBoolean(element);
+			}
+		}
+		else if (value instanceof byte[]) {
+			byte[] array = (byte[]) value;
+			this.out.writeByte('b');
+			this.out.writeInt(array.length);
+			this.out.write(array);
+		}
+		else if (value instanceof char[]) {
+			char[] array = (char[]) value;
+			this.out.writeByte('c');
+			this.out.writeInt(array.length);
+			for (char element : array) {
+				this.out.writeChar(element);
+			}
+		}
+		else if (value instanceof short[]) {
+			short[] array = (short[]) value;
+			this.out.writeByte('h');
+			this.out.writeInt(array.length);
+			for (short element : array) {
+				this.out.writeShort(element);
+			}
+		}
+		else if (value instanceof int[]) {
+			int[] array = (int[]) value;
+			this.out.writeByte('i');
+			this.out.writeInt(array.length);
+			for (int element : array) {
+				this.out.writeInt(element);
+			}
+		}
+		else if (value instanceof long[]) {
+			long[] array = (long[]) value;
+			this.out.writeByte('j');
+			this.out.writeInt(array.length);
+			for (long element : array) {
+				this.out.writeLong(element);
+			}
+		}
+		else if (value instanceof float[]) {
+			float[] array = (float[]) value;
+			this.out.writeByte('f');
+			this.out.writeInt(array.length);
+			for (float element : array) {
+				this.out.writeFloat(element);
+			}
+		}
+		else if (value instanceof double[]) {
+			double[] array = (double[]) value;
+			this.out.writeByte('d');
+			this.out.writeInt(array.length);
+			for (double element : array) {
+				this.out.writeDouble(element);
+			}
+		}
+		else {
+			throw new IllegalArgumentException("Unsupported annotation value type: " + value.getClass().getName());
+		}
+	}
+
+	private void write(EventWriter writer) {
+		try {
+			writer.write();
+		}
+		catch (IOException ex) {
+			// Cannot happen with an in-memory buffer
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+
+	/**
+	 * Replay the given recorded events to the given visitor.
+	 * @param events the events as returned from {@link #getRecordedEvents()}
+	 * @param visitor the visitor to notify
+	 * @throws IOException if the recorded events are corrupt
+	 */
+	public static void replay(byte[] events, ClassVisitor visitor) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(events));
+		byte event = in.readByte();
+		while (event != END) {
+			switch (event) {
+				case VISIT:
+					int access = in.readInt();
+					String name = in.readUTF();
+					String supername = readNullableString(in);
+					String[] interfaces = new String[in.readInt()];
+					for (int i = 0; i < interfaces.length; i++) {
+						interfaces[i] = in.readUTF();
+					}
+					visitor.visit(0, access, name, null, supername, interfaces);
+					break;
+				case OUTER_CLASS:
+					visitor.visitOuterClass(in.readUTF(), null, null);
+					break;
+				case INNER_CLASS:
+					String innerName = in.readUTF();
+					String outerName = in.readUTF();
+					visitor.visitInnerClass(innerName, outerName, null, in.readInt());
+					break;
+				case ANNOTATION:
+					String desc = in.readUTF();
+					replayAnnotation(in, visitor.visitAnnotation(desc, in.readBoolean()));
+					break;
+				case METHOD:
+					MethodVisitor mv = visitor.visitMethod(in.readInt(), in.readUTF(), in.readUTF(), null, null);
+					while (in.readByte() == ANNOTATION) {
+						String annotationDesc = in.readUTF();
+						replayAnnotation(in, (mv != null ? mv.visitAnnotation(annotationDesc, in.readBoolean()) : null));
+					}
+					if (mv != null) {
+						mv.visitEnd();
+					}
+					break;
+				default:
+					throw new IOException("Corrupt class metadata: unexpected event " + event);
+			}
+			event = in.readByte();
+		}
+		visitor.visitEnd();
+	}
+
+	private static void replayAnnotation(DataInputStream in, @Nullable AnnotationVisitor av) throws IOException {
+		byte event = in.readByte();
+		while (event != END) {
+			String name = readNullableString(in);
+			switch (event) {
+				case VALUE:
+					Object value = readValue(in);
+					if (av != null) {
+						av.visit(name, value);
+					}
+					break;
+				case ENUM:
+					String enumDesc = in.readUTF();
+					String enumValue = in.readUTF();
+					if (av != null) {
+						av.visitEnum(name, enumDesc, enumValue);
+					}
+					break;
+				case NESTED_ANNOTATION:
+					String desc = in.readUTF();
+					replayAnnotation(in, (av != null ? av.visitAnnotation(name, desc) : null));
+					break;
+				case ARRAY:
+					replayAnnotation(in, (av != null ? av.visitArray(name) : null));
+					break;
+				default:
+					throw new IOException("Corrupt class metadata: unexpected annotation event " + event);
+			}
+			event = in.readByte();
+		}
+		if (av != null) {
+			av.visitEnd();
+		}
+	}
+
+	@Nullable
+	private static String readNullableString(DataInputStream in) throws IOException {
+		return (in.readBoolean() ? in.readUTF() : null);
+	}
+
+	private static Object readValue(DataInputStream in) throws IOException {
+		byte tag = in.readByte();
+		switch (tag) {
+			case 's': return in.readUTF();
+			case 'T': return Type.getType(in.readUTF());
+			case 'Z': return in.readBoolean();
+			case 'B': return in.readByte();
+			case 'C': return in.readChar();
+			case 'S': return in.readShort();
+			case 'I': return in.readInt();
+			case 'J': return in.readLong();
+			case 'F': return in.readFloat();
+			case 'D': return in.readDouble();
+		}
+		int length = in.readInt();
+		switch (tag) {
+			case 'z':
+				boolean[] booleans = new boolean[length];
+				for (int i = 0; i < length; i++) {
+					booleans[i] = in.readBoolean();
+				}
+				return booleans;
+			case 'b':
+				byte[] bytes = new byte[length];
+				in.readFully(bytes);
+				return bytes;
+			case 'c':
+				char[] chars = new char[length];
+				for (int i = 0; i < length; i++) {
+					chars[i] = in.readChar();
+				}
+				return chars;
+			case 'h':
+				short[] shorts = new short[length];
+				for (int i = 0; i < length; i++) {
+					shorts[i] = in.readShort();
+				}
+				return shorts;
+			case 'i':
+				int[] ints = new int[length];
+				for (int i = 0; i < length; i++) {
+					ints[i] = in.readInt();
+				}
+				return ints;
+			case 'j':
+				long[] longs = new long[length];
+				for (int i = 0; i < length; i++) {
+					longs[i] = in.readLong();
+				}
+				return longs;
+			case 'f':
+				float[] floats = new float[length];
+				for (int i = 0; i < length; i++) {
+					floats[i] = in.readFloat();
+				}
+				return floats;
+			case 'd':
+				double[] doubles = new double[length];
+				for (int i = 0; i < length; i++) {
+					doubles[i] = in.readDouble();
+				}
+				return doubles;
+			default:
+				throw new IOException("Corrupt class metadata: unexpected value type " + (char) tag);
+		}
+	}
+
+
+	@FunctionalInterface
+	private interface EventWriter {
+
+		void write() throws IOException;
+	}
+
+
+	/**
+	 * Records the values of a single annotation, nested annotation or array.
+	 */
+	private class AnnotationRecorder extends AnnotationVisitor {
+
+		AnnotationRecorder() {
+			super(SpringAsmInfo.ASM_VERSION);
+		}
+
+		@Override
+		public void visit(String name, Object value) {
+			write(() -> {
+				out.writeByte(VALUE);
+				writeNullableString(name);
+				writeValue(value);
+			});
+		}
+
+		@Override
+		public void visitEnum(String name, String desc, String value) {
+			write(() -> {
+				out.writeByte(ENUM);
+				writeNullableString(name);
+				out.writeUTF(desc);
+				out.writeUTF(value);
+			});
+		}
+
+		@Override
+		public AnnotationVisitor visitAnnotation(String name, String desc) {
+			write(() -> {
+				out.writeByte(NESTED_ANNOTATION);
+				writeNullableString(name);
+				out.writeUTF(desc);
+			});
+			return new AnnotationRecorder();
+		}
+
+		@Override
+		public AnnotationVisitor visitArray(String name) {
+			write(() -> {
+				out.writeByte(ARRAY);
+				writeNullableString(name);
+			});
+			return new AnnotationRecorder();
+		}
+
+		@Override
+		public void visitEnd() {
+			write(() -> out.writeByte(END));
+		}
+	}
+
+
+	/**
+	 * Records a method if it declares any annotations.
+	 */
+	private class MethodRecorder extends MethodVisitor {
+
+		private final int access;
+
+		private final String name;
+
+		private final String desc;
+
+		private boolean recorded;
+
+		MethodRecorder(int access, String name, String desc) {
+			super(SpringAsmInfo.ASM_VERSION);
+			this.access = access;
+			this.name = name;
+			this.desc = desc;
+		}
+
+		@Override
+		public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+			write(() -> {
+				if (!this.recorded) {
+					out.writeByte(METHOD);
+					out.writeInt(this.access);
+					out.writeUTF(this.name);
+					out.writeUTF(this.desc);
+					this.recorded = true;
+				}
+				out.writeByte(ANNOTATION);
+				out.writeUTF(desc);
+				out.writeBoolean(visible);
+			});
+			return new AnnotationRecorder();
+		}
+
+		@Override
+		public void visitEnd() {
+			if (this.recorded) {
+				write(() -> out.writeByte(END));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.springframework.asm.AnnotationVisitor;
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.FieldVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.SpringAsmInfo;
+import org.springframework.asm.Type;
+import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MultiValueMap;
+
+/**
+ * {@link AnnotationMetadata} implementation which reads a class file in two phases.
+ *
+ * <p>The first phase only records the class declaration and the names of the
+ * annotation types declared on the class, skipping annotation attributes, fields
+ * and methods. This is sufficient for {@link #getClassName()},
+ * {@link #hasAnnotation(String)}, {@link #getAnnotationTypes()} and all other
+ * {@link org.springframework.core.type.ClassMetadata} methods.
+ *
+ * <p>The second phase reads annotation attributes, meta-annotations and method
+ * metadata through an {@link AnnotationMetadataReadingVisitor}, once any of them
+ * is requested for the first time. Classes without any annotations never need
+ * the second phase, so no class file content is retained for them.
+ *
+ * @since 5.1.6
+ * @see SimpleMetadataReader
+ */
+final class LazyAnnotationMetadata extends ClassMetadataReadingVisitor implements AnnotationMetadata {
+
+	private static final int HEADER_PARSING_OPTIONS =
+			ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES;
+
+	@Nullable
+	private final ClassLoader classLoader;
+
+	private final Set<String> annotationSet = new LinkedHashSet<>(4);
+
+	private boolean hasMethodAnnotations;
+
+	@Nullable
+	private volatile ClassReader classReader;
+
+	@Nullable
+	private volatile AnnotationMetadataReadingVisitor fullMetadata;
+
+
+	/**
+	 * Create a new {@code LazyAnnotationMetadata} instance, performing the
+	 * first reading phase right away.
+	 * @param classReader the reader for the class file
+	 * @param classLoader the ClassLoader to use for the second reading phase
+	 */
+	LazyAnnotationMetadata(ClassReader classReader, @Nullable ClassLoader classLoader) {
+		this.classLoader = classLoader;
+		classReader.accept(this, HEADER_PARSING_OPTIONS);
+		if (needsSecondPhase()) {
+			this.classReader = classReader;
+		}
+	}
+
+	/**
+	 * Create a new {@code LazyAnnotationMetadata} instance for the class file
+	 * held by the given buffer, performing the first reading phase right away.
+	 * <p>The class file only gets copied out of the buffer if it is needed
+	 * for the second reading phase.
+	 * @param classFileBuffer the buffer holding the class file
+	 * @param classLoader the ClassLoader to use for the second reading phase
+	 */
+	LazyAnnotationMetadata(ClassFileBuffer classFileBuffer, @Nullable ClassLoader classLoader) {
+		this.classLoader = classLoader;
+		classFileBuffer.createClassReader().accept(this, HEADER_PARSING_OPTIONS);
+		if (needsSecondPhase()) {
+			this.classReader = new ClassReader(classFileBuffer.copyClassFile());
+		}
+	}
+
+
+	@Override
+	@Nullable
+	public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+		this.annotationSet.add(Type.getType(desc).getClassName());
+		return null;
+	}
+
+	@Override
+	@Nullable
+	public FieldVisitor visitField(int access, String name, String desc, String signature, Object value) {
+		return null;
+	}
+
+	@Override
+	@Nullable
+	public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+		if (this.hasMethodAnnotations) {
+			return null;
+		}
+		return new MethodVisitor(SpringAsmInfo.ASM_VERSION) {
+			@Override
+			@Nullable
+			public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+				hasMethodAnnotations = true;
+				return null;
+			}
+		};
+	}
+
+
+	private boolean needsSecondPhase() {
+		return (!this.annotationSet.isEmpty() || this.hasMethodAnnotations);
+	}
+
+	@Override
+	public Set<String> getAnnotationTypes() {
+		return this.annotationSet;
+	}
+
+	@Override
+	public boolean hasAnnotation(String annotationName) {
+		return this.annotationSet.contains(annotationName);
+	}
+
+	@Override
+	public Set<String> getMetaAnnotationTypes(String annotationName) {
+		if (!this.annotationSet.contains(annotationName)) {
+			return Collections.emptySet();
+		}
+		return getFullMetadata().getMetaAnnotationTypes(annotationName);
+	}
+
+	@Override
+	public boolean hasMetaAnnotation(String metaAnnotationName) {
+		return (!this.annotationSet.isEmpty() && getFullMetadata().hasMetaAnnotation(metaAnnotationName));
+	}
+
+	@Override
+	public boolean isAnnotated(String annotationName) {
+		return (!this.annotationSet.isEmpty() && getFullMetadata().isAnnotated(annotationName));
+	}
+
+	@Override
+	@Nullable
+	public AnnotationAttributes getAnnotationAttributes(String annotationName) {
+		return getAnnotationAttributes(annotationName, false);
+	}
+
+	@Override
+	@Nullable
+	public AnnotationAttributes getAnnotationAttributes(String annotationName, boolean classValuesAsString) {
+		if (this.annotationSet.isEmpty()) {
+			return null;
+		}
+		return getFullMetadata().getAnnotationAttributes(annotationName, classValuesAsString);
+	}
+
+	@Override
+	@Nullable
+	public MultiValueMap<String, Object> getAllAnnotationAttributes(String annotationName) {
+		return getAllAnnotationAttributes(annotationName, false);
+	}
+
+	@Override
+	@Nullable
+	public MultiValueMap<String, Object> getAllAnnotationAttributes(String annotationName, boolean classValuesAsString) {
+		if (this.annotationSet.isEmpty()) {
+			return null;
+		}
+		return getFullMetadata().getAllAnnotationAttributes(annotationName, classValuesAsString);
+	}
+
+	@Override
+	public boolean hasAnnotatedMethods(String annotationName) {
+		return (this.hasMethodAnnotations && getFullMetadata().hasAnnotatedMethods(annotationName));
+	}
+
+	@Override
+	public Set<MethodMetadata> getAnnotatedMethods(String annotationName) {
+		if (!this.hasMethodAnnotations) {
+			return new LinkedHashSet<>(4);
+		}
+		return getFullMetadata().getAnnotatedMethods(annotationName);
+	}
+
+	/**
+	 * Estimate the memory footprint of the annotation metadata, in bytes:
+	 * the retained class file until the second reading phase, or a rough
+	 * per-annotation estimate of the fully read metadata afterwards.
+	 * @see MetadataReaderCache
+	 */
+	int getEstimatedAnnotationWeight() {
+		int weight = 64 * this.annotationSet.size();
+		ClassReader classReader = this.classReader;
+		if (classReader != null) {
+			weight += classReader.b.length;
+		}
+		else if (this.fullMetadata != null) {
+			weight += 512 * this.annotationSet.size();
+		}
+		return weight;
+	}
+
+	/**
+	 * Return the metadata from the second reading phase, performing it if necessary.
+	 */
+	private AnnotationMetadataReadingVisitor getFullMetadata() {
+		AnnotationMetadataReadingVisitor fullMetadata = this.fullMetadata;
+		if (fullMetadata == null) {
+			synchronized (this) {
+				fullMetadata = this.fullMetadata;
+				if (fullMetadata == null) {
+					ClassReader classReader = this.classReader;
+					fullMetadata = new AnnotationMetadataReadingVisitor(this.classLoader);
+					if (classReader != null) {
+						classReader.accept(fullMetadata, ClassReader.SKIP_DEBUG);
+					}
+					this.fullMetadata = fullMetadata;
+					this.classReader = null;
+				}
+			}
+		}
+		return fullMetadata;
+	}
+
+}
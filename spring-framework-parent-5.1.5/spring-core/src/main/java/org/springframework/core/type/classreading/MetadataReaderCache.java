@@ -0,0 +1,467 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.io.Resource;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.ClassMetadata;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Concurrent cache for {@link MetadataReader} instances, keyed by class file
+ * resource and {@link ClassLoader}, and bounded by the estimated memory
+ * footprint of the cached metadata rather than by the number of entries.
+ *
+ * <p>Metadata read from a {@link Resource} is also found through its class name,
+ * so that e.g. classes detected by component scanning do not get read again when
+ * {@code ConfigurationClassParser} or AspectJ type matching ask for them by name.
+ * For duplicate class files on the class path, the one cached first is found
+ * by name.
+ * Since a cache instance is not tied to a specific resource loader, it can
+ * be shared by the {@link CachingMetadataReaderFactory} instances of several
+ * application contexts in the same JVM, e.g. through {@link #getSharedInstance()}.
+ * Cached metadata keeps a reference to the ClassLoader it was read for, until
+ * evicted or until {@linkplain #clear(ClassLoader) cleared} for that ClassLoader.
+ *
+ * <p>Eviction approximates least-recently-used order: entries are evicted in
+ * insertion order, except for entries that have been accessed since they were
+ * last considered for eviction.
+ *
+ * @since 5.1.6
+ * @see CachingMetadataReaderFactory#SHARED_CACHE_PROPERTY_NAME
+ */
+public class MetadataReaderCache {
+
+	/** Default maximum weight of a cache: 32 MB of estimated metadata. */
+	public static final long DEFAULT_MAXIMUM_WEIGHT = 32 * 1024 * 1024;
+
+	private static final Log logger = LogFactory.getLog(MetadataReaderCache.class);
+
+	private static final MetadataReaderCache sharedInstance = new MetadataReaderCache(DEFAULT_MAXIMUM_WEIGHT);
+
+
+	private final long maximumWeight;
+
+	private final Map<CacheKey, Entry> entries = new ConcurrentHashMap<>(256);
+
+	private final Map<CacheKey, Entry> classNameEntries = new ConcurrentHashMap<>(256);
+
+	private final Queue<Entry> evictionQueue = new ConcurrentLinkedQueue<>();
+
+	private final ReentrantLock evictionLock = new ReentrantLock();
+
+	private final AtomicLong weight = new AtomicLong();
+
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+	private final LongAdder evictionCount = new LongAdder();
+
+
+	/**
+	 * Create a new {@code MetadataReaderCache} with the
+	 * {@linkplain #DEFAULT_MAXIMUM_WEIGHT default maximum weight}.
+	 */
+	public MetadataReaderCache() {
+		this(DEFAULT_MAXIMUM_WEIGHT);
+	}
+
+	/**
+	 * Create a new {@code MetadataReaderCache} with the given maximum weight.
+	 * @param maximumWeight the maximum estimated size of all cached metadata,
+	 * in bytes
+	 */
+	public MetadataReaderCache(long maximumWeight) {
+		Assert.isTrue(maximumWeight > 0, "Maximum weight must be greater than 0");
+		this.maximumWeight = maximumWeight;
+	}
+
+
+	/**
+	 * Return the maximum estimated size of all cached metadata, in bytes.
+	 */
+	public long getMaximumWeight() {
+		return this.maximumWeight;
+	}
+
+	/**
+	 * Return the cached {@link MetadataReader} for the given class, if any.
+	 * @param className the name of the class
+	 * @param classLoader the ClassLoader that the metadata was read for
+	 * @return the cached MetadataReader, or {@code null} if none
+	 */
+	@Nullable
+	public MetadataReader get(String className, @Nullable ClassLoader classLoader) {
+		return getEntry(this.classNameEntries, new CacheKey(className, classLoader), true);
+	}
+
+	/**
+	 * Variant of {@link #get(String, ClassLoader)} for callers that fall back to a
+	 * lookup by resource, which records the miss in that case.
+	 */
+	@Nullable
+	MetadataReader getIfCached(String className, @Nullable ClassLoader classLoader) {
+		return getEntry(this.classNameEntries, new CacheKey(className, classLoader), false);
+	}
+
+	/**
+	 * Return the cached {@link MetadataReader} for the given class file, if any.
+	 * @param resource the class file resource
+	 * @param classLoader the ClassLoader that the metadata was read for
+	 * @return the cached MetadataReader, or {@code null} if none
+	 */
+	@Nullable
+	public MetadataReader get(Resource resource, @Nullable ClassLoader classLoader) {
+		return getEntry(this.entries, new CacheKey(resource, classLoader), true);
+	}
+
+	/**
+	 * Add the given {@link MetadataReader} to this cache, evicting other
+	 * entries as necessary to stay within the maximum weight.
+	 * <p>The {@linkplain #getSharedInstance() shared instance} ignores metadata
+	 * read for a ClassLoader that it could otherwise keep from being garbage
+	 * collected, as determined by {@link #isSharedCacheSafe(ClassLoader)}.
+	 * <p>If metadata for the same class has already been cached from
+	 * another resource, lookups by class name keep returning the existing
+	 * entry, whereas lookups by resource find either entry.
+	 * @param metadataReader the MetadataReader to cache
+	 * @param classLoader the ClassLoader that the metadata was read for
+	 */
+	public void put(MetadataReader metadataReader, @Nullable ClassLoader classLoader) {
+		if (this == sharedInstance && !isSharedCacheSafe(classLoader)) {
+			return;
+		}
+		CacheKey key = new CacheKey(metadataReader.getResource(), classLoader);
+		CacheKey classNameKey = new CacheKey(metadataReader.getClassMetadata().getClassName(), classLoader);
+		Entry entry = new Entry(key, classNameKey, metadataReader, estimateWeight(metadataReader));
+		if (this.entries.putIfAbsent(key, entry) != null) {
+			return;
+		}
+		Entry existing = this.classNameEntries.putIfAbsent(classNameKey, entry);
+		if (existing != null && logger.isDebugEnabled()) {
+			logger.debug("Class [" + classNameKey.identifier + "] found in " + metadataReader.getResource() +
+					" as well as in " + existing.metadataReader.getResource() + " - using the latter by name");
+		}
+		this.evictionQueue.add(entry);
+		if (this.weight.addAndGet(entry.weight) > this.maximumWeight) {
+			evict();
+		}
+	}
+
+	/**
+	 * Remove all entries for the given ClassLoader from this cache.
+	 * @param classLoader the ClassLoader that the metadata was read for
+	 */
+	public void clear(@Nullable ClassLoader classLoader) {
+		this.evictionLock.lock();
+		try {
+			for (Iterator<Entry> it = this.evictionQueue.iterator(); it.hasNext();) {
+				Entry entry = it.next();
+				if (entry.key.classLoader == classLoader) {
+					it.remove();
+					remove(entry);
+				}
+			}
+		}
+		finally {
+			this.evictionLock.unlock();
+		}
+	}
+
+	/**
+	 * Remove all entries from this cache.
+	 */
+	public void clear() {
+		this.evictionLock.lock();
+		try {
+			Entry entry;
+			while ((entry = this.evictionQueue.poll()) != null) {
+				remove(entry);
+			}
+		}
+		finally {
+			this.evictionLock.unlock();
+		}
+	}
+
+	/**
+	 * Return the number of currently cached entries.
+	 */
+	public int size() {
+		return this.entries.size();
+	}
+
+	/**
+	 * Return statistics on this cache's current content and its use so far.
+	 */
+	public Statistics getStatistics() {
+		return new Statistics(this.entries.size(), this.weight.get(),
+				this.hitCount.sum(), this.missCount.sum(), this.evictionCount.sum());
+	}
+
+
+	@Nullable
+	private MetadataReader getEntry(Map<CacheKey, Entry> entries, CacheKey key, boolean recordMiss) {
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			if (recordMiss) {
+				this.missCount.increment();
+			}
+			return null;
+		}
+		entry.accessed = true;
+		this.hitCount.increment();
+		return entry.metadataReader;
+	}
+
+	private void evict() {
+		// A single thread evicts at a time; others rely on it to catch up
+		if (!this.evictionLock.tryLock()) {
+			return;
+		}
+		try {
+			while (this.weight.get() > this.maximumWeight) {
+				Entry entry = this.evictionQueue.poll();
+				if (entry == null) {
+					break;
+				}
+				if (entry.accessed) {
+					// Second chance: keep recently used entries
+					entry.accessed = false;
+					this.evictionQueue.add(entry);
+				}
+				else {
+					remove(entry);
+					this.evictionCount.increment();
+				}
+			}
+		}
+		finally {
+			this.evictionLock.unlock();
+		}
+	}
+
+	private void remove(Entry entry) {
+		if (this.entries.remove(entry.key, entry)) {
+			this.classNameEntries.remove(entry.classNameKey, entry);
+			this.weight.addAndGet(-entry.weight);
+		}
+	}
+
+
+	/**
+	 * Return the {@code MetadataReaderCache} shared within this JVM, with the
+	 * {@linkplain #DEFAULT_MAXIMUM_WEIGHT default maximum weight}.
+	 * <p>The shared instance only caches metadata read for the ClassLoader that
+	 * loaded this class or one of its ancestors, so that e.g. the ClassLoader of a
+	 * web application does not get pinned by a Spring installation in a parent
+	 * ClassLoader once the application has been undeployed.
+	 * @see #isSharedCacheSafe(ClassLoader)
+	 * @see CachingMetadataReaderFactory#SHARED_CACHE_PROPERTY_NAME
+	 */
+	public static MetadataReaderCache getSharedInstance() {
+		return sharedInstance;
+	}
+
+	/**
+	 * Determine whether the {@linkplain #getSharedInstance() shared instance}
+	 * may cache metadata read for the given ClassLoader, i.e. whether the
+	 * ClassLoader is the one that loaded this class or one of its ancestors.
+	 * @param classLoader the ClassLoader that the metadata was read for
+	 * @return {@code true} if the shared instance cannot outlive the ClassLoader
+	 */
+	public static boolean isSharedCacheSafe(@Nullable ClassLoader classLoader) {
+		if (classLoader == null) {
+			return true;
+		}
+		ClassLoader candidate = MetadataReaderCache.class.getClassLoader();
+		while (candidate != null) {
+			if (candidate == classLoader) {
+				return true;
+			}
+			candidate = candidate.getParent();
+		}
+		return false;
+	}
+
+	/**
+	 * Estimate the memory footprint of the given {@link MetadataReader}, in bytes.
+	 */
+	static int estimateWeight(MetadataReader metadataReader) {
+		ClassMetadata classMetadata = metadataReader.getClassMetadata();
+		int weight = 256 + 2 * classMetadata.getClassName().length();
+		for (String interfaceName : classMetadata.getInterfaceNames()) {
+			weight += 48 + 2 * interfaceName.length();
+		}
+		AnnotationMetadata annotationMetadata = metadataReader.getAnnotationMetadata();
+		if (annotationMetadata instanceof LazyAnnotationMetadata) {
+			weight += ((LazyAnnotationMetadata) annotationMetadata).getEstimatedAnnotationWeight();
+		}
+		else {
+			// Attributes, meta-annotations and annotated methods per annotation type
+			weight += 512 * annotationMetadata.getAnnotationTypes().size();
+		}
+		return weight;
+	}
+
+
+	/**
+	 * Statistics on a {@link MetadataReaderCache}, as returned by
+	 * {@link MetadataReaderCache#getStatistics()}.
+	 */
+	public static final class Statistics {
+
+		private final int size;
+
+		private final long weight;
+
+		private final long hitCount;
+
+		private final long missCount;
+
+		private final long evictionCount;
+
+		Statistics(int size, long weight, long hitCount, long missCount, long evictionCount) {
+			this.size = size;
+			this.weight = weight;
+			this.hitCount = hitCount;
+			this.missCount = missCount;
+			this.evictionCount = evictionCount;
+		}
+
+		/**
+		 * Return the number of currently cached entries.
+		 */
+		public int getSize() {
+			return this.size;
+		}
+
+		/**
+		 * Return the estimated size of all currently cached metadata, in bytes.
+		 */
+		public long getWeight() {
+			return this.weight;
+		}
+
+		/**
+		 * Return the number of lookups that found a cached entry.
+		 */
+		public long getHitCount() {
+			return this.hitCount;
+		}
+
+		/**
+		 * Return the number of lookups that did not find a cached entry.
+		 */
+		public long getMissCount() {
+			return this.missCount;
+		}
+
+		/**
+		 * Return the ratio of lookups that found a cached entry,
+		 * or {@code 0} if there have not been any lookups yet.
+		 */
+		public double getHitRatio() {
+			long lookupCount = this.hitCount + this.missCount;
+			return (lookupCount > 0 ? (double) this.hitCount / lookupCount : 0);
+		}
+
+		/**
+		 * Return the number of entries evicted to stay within the maximum weight.
+		 */
+		public long getEvictionCount() {
+			return this.evictionCount;
+		}
+
+		@Override
+		public String toString() {
+			return "size=" + this.size + ", weight=" + this.weight + ", hits=" + this.hitCount +
+					", misses=" + this.missCount + ", evictions=" + this.evictionCount;
+		}
+	}
+
+
+	/**
+	 * Key for a class file resource or a class name, along with a ClassLoader.
+	 */
+	private static final class CacheKey {
+
+		private final Object identifier;
+
+		@Nullable
+		private final ClassLoader classLoader;
+
+		CacheKey(Object identifier, @Nullable ClassLoader classLoader) {
+			this.identifier = identifier;
+			this.classLoader = classLoader;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof CacheKey)) {
+				return false;
+			}
+			CacheKey otherKey = (CacheKey) other;
+			return (this.identifier.equals(otherKey.identifier) && this.classLoader == otherKey.classLoader);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.identifier.hashCode() * 29 + ObjectUtils.nullSafeHashCode(this.classLoader);
+		}
+	}
+
+
+	private static final class Entry {
+
+		final CacheKey key;
+
+		final CacheKey classNameKey;
+
+		final MetadataReader metadataReader;
+
+		final int weight;
+
+		volatile boolean accessed;
+
+		Entry(CacheKey key, CacheKey classNameKey, MetadataReader metadataReader, int weight) {
+			this.key = key;
+			this.classNameKey = classNameKey;
+			this.metadataReader = metadataReader;
+			this.weight = weight;
+		}
+	}
+
+}
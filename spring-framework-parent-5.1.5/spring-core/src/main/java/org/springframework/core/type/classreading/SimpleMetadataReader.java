@@ -16,11 +16,9 @@
 
 package org.springframework.core.type.classreading;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
-import org.springframework.asm.ClassReader;
 import org.springframework.core.NestedIOException;
 import org.springframework.core.io.Resource;
 import org.springframework.core.type.AnnotationMetadata;
@@ -31,6 +29,10 @@ import org.springframework.lang.Nullable;
  * {@link MetadataReader} implementation based on an ASM
  * {@link org.springframework.asm.ClassReader}.
  *
+ * <p>As of 5.1.6, only the class declaration and the names of its annotation
+ * types are read up front; see {@link LazyAnnotationMetadata}. Class files are
+ * read into a {@link ClassFileBuffer} that is reused across classes.
+ *
  * <p>Package-visible in order to allow for repackaging the ASM library
  * without effect on users of the {@code core.type} package.
  *
@@ -48,25 +50,26 @@ final class SimpleMetadataReader implements MetadataReader {
 
 
 	SimpleMetadataReader(Resource resource, @Nullable ClassLoader classLoader) throws IOException {
-		InputStream is = new BufferedInputStream(resource.getInputStream());
-		ClassReader classReader;
+		// Annotation attributes and method metadata only get read on demand
+		LazyAnnotationMetadata metadata;
+		ClassFileBuffer buffer = ClassFileBuffer.acquire();
 		try {
-			classReader = new ClassReader(is);
+			try (InputStream is = resource.getInputStream()) {
+				buffer.read(is);
+			}
+			metadata = new LazyAnnotationMetadata(buffer, classLoader);
 		}
 		catch (IllegalArgumentException ex) {
 			throw new NestedIOException("ASM ClassReader failed to parse class file - " +
 					"probably due to a new Java class file version that isn't supported yet: " + resource, ex);
 		}
 		finally {
-			is.close();
+			buffer.release();
 		}
 
-		AnnotationMetadataReadingVisitor visitor = new AnnotationMetadataReadingVisitor(classLoader);
-		classReader.accept(visitor, ClassReader.SKIP_DEBUG);
-
-		this.annotationMetadata = visitor;
-		// (since AnnotationMetadataReadingVisitor extends ClassMetadataReadingVisitor)
-		this.classMetadata = visitor;
+		this.annotationMetadata = metadata;
+		// (since LazyAnnotationMetadata extends ClassMetadataReadingVisitor)
+		this.classMetadata = metadata;
 		this.resource = resource;
 	}
 
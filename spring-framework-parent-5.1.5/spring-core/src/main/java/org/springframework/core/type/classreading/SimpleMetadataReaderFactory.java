@@ -19,6 +19,7 @@ package org.springframework.core.type.classreading;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
@@ -28,6 +29,9 @@ import org.springframework.util.ClassUtils;
 /**
  * Simple implementation of the {@link MetadataReaderFactory} interface,
  * creating a new ASM {@link org.springframework.asm.ClassReader} for every request.
+ *
+ * <p>As of 5.1.6, class path resources covered by a {@link ClassMetadataIndex}
+ * are served from the index instead, without reading the class file.
  * 
  * <p> 这{@link MetadataReaderFactory}接口的简单实现类,为每个请求创建一个新的ASM {@link org.springframework.asm.ClassReader}
  *
@@ -107,7 +111,35 @@ public class SimpleMetadataReaderFactory implements MetadataReaderFactory {
 
 	@Override
 	public MetadataReader getMetadataReader(Resource resource) throws IOException {
-		return new SimpleMetadataReader(resource, this.resourceLoader.getClassLoader());
+		ClassLoader classLoader = this.resourceLoader.getClassLoader();
+		if (resource instanceof ClassPathResource) {
+			MetadataReader indexedReader = getIndexedMetadataReader((ClassPathResource) resource, classLoader);
+			if (indexedReader != null) {
+				return indexedReader;
+			}
+		}
+		return new SimpleMetadataReader(resource, classLoader);
+	}
+
+	/**
+	 * Obtain a MetadataReader for the given class path resource from the
+	 * {@link ClassMetadataIndex} of the given class loader, if available.
+	 */
+	@Nullable
+	private MetadataReader getIndexedMetadataReader(ClassPathResource resource, @Nullable ClassLoader classLoader)
+			throws IOException {
+
+		String path = resource.getPath();
+		if (!path.endsWith(ClassUtils.CLASS_FILE_SUFFIX) || resource.getClassLoader() != classLoader) {
+			return null;
+		}
+		ClassMetadataIndex index = ClassMetadataIndex.loadIndex(classLoader);
+		if (index == null) {
+			return null;
+		}
+		String className = ClassUtils.convertResourcePathToClassName(
+				path.substring(0, path.length() - ClassUtils.CLASS_FILE_SUFFIX.length()));
+		return index.getMetadataReader(className, resource, classLoader);
 	}
 
 }
@@ -0,0 +1,533 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * {@link AntPathMatcher} variant that compiles each pattern once into a
+ * sequence of typed segments: literals, single wildcards ({@code *}),
+ * double wildcards ({@code **}), simple globs with {@code *} and {@code ?},
+ * and URI template captures.
+ *
+ * <p>Paths are split into segment boundaries rather than substrings, and all
+ * but capturing segments are matched in place, without regular expressions.
+ * Captures still go through {@link AntPathStringMatcher}. Matching results are
+ * identical to {@link AntPathMatcher}, which also remains in charge of
+ * {@link #combine}, {@link #extractPathWithinPattern} and the pattern comparator.
+ *
+ * <p>Compiled patterns are kept in a soft-referenced cache rather than being
+ * dropped past a fixed threshold. A {@link SplitPath} may be matched against
+ * any number of {@link CompiledPattern CompiledPatterns}; see also
+ * {@link PathPatternTrie} for matching a path against many patterns at once.
+ *
+ * @since 5.1.6
+ * @see #compile(String)
+ * @see #split(String)
+ */
+public class CompiledPathMatcher extends AntPathMatcher {
+
+	private static final int LITERAL = 0;
+
+	private static final int WILDCARD = 1;
+
+	private static final int DOUBLE_WILDCARD = 2;
+
+	private static final int GLOB = 3;
+
+	private static final int TEMPLATE = 4;
+
+
+	private String pathSeparator;
+
+	private boolean caseSensitive = true;
+
+	private boolean trimTokens = false;
+
+	private final Map<String, CompiledPattern> compiledPatternCache = new ConcurrentReferenceHashMap<>(256);
+
+
+	/**
+	 * Create a new instance with the {@link #DEFAULT_PATH_SEPARATOR}.
+	 */
+	public CompiledPathMatcher() {
+		this.pathSeparator = DEFAULT_PATH_SEPARATOR;
+	}
+
+	/**
+	 * Create a new instance with a custom path separator.
+	 * @param pathSeparator the path separator to use, must not be {@code null}.
+	 */
+	public CompiledPathMatcher(String pathSeparator) {
+		super(pathSeparator);
+		this.pathSeparator = pathSeparator;
+	}
+
+
+	@Override
+	public void setPathSeparator(@Nullable String pathSeparator) {
+		super.setPathSeparator(pathSeparator);
+		this.pathSeparator = (pathSeparator != null ? pathSeparator : DEFAULT_PATH_SEPARATOR);
+		this.compiledPatternCache.clear();
+	}
+
+	@Override
+	public void setCaseSensitive(boolean caseSensitive) {
+		super.setCaseSensitive(caseSensitive);
+		this.caseSensitive = caseSensitive;
+		this.compiledPatternCache.clear();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>Note that trimming tokens is not supported by compiled patterns:
+	 * with this flag on, matching falls back to {@link AntPathMatcher}.
+	 */
+	@Override
+	public void setTrimTokens(boolean trimTokens) {
+		super.setTrimTokens(trimTokens);
+		this.trimTokens = trimTokens;
+	}
+
+
+	/**
+	 * Compile the given pattern, or return the previously compiled version.
+	 * @param pattern the pattern to compile
+	 * @return the compiled pattern, bound to the current settings of this matcher
+	 */
+	public CompiledPattern compile(String pattern) {
+		CompiledPattern compiled = this.compiledPatternCache.get(pattern);
+		if (compiled == null) {
+			compiled = new CompiledPattern(pattern, this.pathSeparator, this.caseSensitive);
+			this.compiledPatternCache.put(pattern, compiled);
+		}
+		return compiled;
+	}
+
+	/**
+	 * Split the given path into segments, according to this matcher's path separator.
+	 * @param path the path to split
+	 * @return the split path, to be matched against any number of compiled patterns
+	 */
+	public SplitPath split(String path) {
+		return new SplitPath(path, this.pathSeparator);
+	}
+
+	@Override
+	protected boolean doMatch(String pattern, String path, boolean fullMatch,
+			@Nullable Map<String, String> uriTemplateVariables) {
+
+		if (this.trimTokens) {
+			return super.doMatch(pattern, path, fullMatch, uriTemplateVariables);
+		}
+		return compile(pattern).matches(split(path), fullMatch, uriTemplateVariables);
+	}
+
+
+	private static boolean isSeparator(char c, String pathSeparator) {
+		// Like StringTokenizer: every character of the separator acts as a delimiter
+		return (pathSeparator.length() == 1 ? c == pathSeparator.charAt(0) : pathSeparator.indexOf(c) != -1);
+	}
+
+	private static boolean isLineTerminator(char c) {
+		// Characters not matched by '.' in a regular expression
+		return (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029');
+	}
+
+	private static boolean containsLineTerminator(String str, int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (isLineTerminator(str.charAt(i))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Compare characters like a {@link java.util.regex.Pattern} does, i.e. with
+	 * case-insensitive comparison restricted to US-ASCII characters.
+	 */
+	static boolean charEquals(char c1, char c2, boolean caseSensitive) {
+		if (c1 == c2) {
+			return true;
+		}
+		if (caseSensitive || c1 >= 128 || c2 >= 128) {
+			return false;
+		}
+		return (Character.toLowerCase(c1) == Character.toLowerCase(c2));
+	}
+
+	static boolean regionEquals(String text, String str, int start, int end, boolean caseSensitive) {
+		if (text.length() != end - start) {
+			return false;
+		}
+		for (int i = 0; i < text.length(); i++) {
+			if (!charEquals(text.charAt(i), str.charAt(start + i), caseSensitive)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * A path split into segment boundaries, ignoring empty segments
+	 * as {@link AntPathMatcher} does.
+	 */
+	public static final class SplitPath {
+
+		final String path;
+
+		final boolean leadingSeparator;
+
+		final boolean trailingSeparator;
+
+		final int[] starts;
+
+		final int[] ends;
+
+		final int count;
+
+		SplitPath(String path, String pathSeparator) {
+			this.path = path;
+			this.leadingSeparator = path.startsWith(pathSeparator);
+			this.trailingSeparator = path.endsWith(pathSeparator);
+			int[] starts = new int[8];
+			int[] ends = new int[8];
+			int count = 0;
+			int start = -1;
+			int length = path.length();
+			for (int i = 0; i <= length; i++) {
+				if (i == length || isSeparator(path.charAt(i), pathSeparator)) {
+					if (start != -1) {
+						if (count == starts.length) {
+							starts = Arrays.copyOf(starts, count * 2);
+							ends = Arrays.copyOf(ends, count * 2);
+						}
+						starts[count] = start;
+						ends[count] = i;
+						count++;
+						start = -1;
+					}
+				}
+				else if (start == -1) {
+					start = i;
+				}
+			}
+			this.starts = starts;
+			this.ends = ends;
+			this.count = count;
+		}
+
+		/**
+		 * Return the original path.
+		 */
+		public String getPath() {
+			return this.path;
+		}
+
+		/**
+		 * Return the number of (non-empty) segments.
+		 */
+		public int getSegmentCount() {
+			return this.count;
+		}
+
+		/**
+		 * Return the segment at the given index.
+		 */
+		public String getSegment(int index) {
+			Assert.isTrue(index >= 0 && index < this.count, "Segment index out of bounds");
+			return this.path.substring(this.starts[index], this.ends[index]);
+		}
+
+		@Override
+		public String toString() {
+			return this.path;
+		}
+	}
+
+
+	/**
+	 * A pattern compiled into typed segments, matching paths like
+	 * {@link AntPathMatcher#match} / {@link AntPathMatcher#matchStart} would.
+	 */
+	public static final class CompiledPattern {
+
+		private final String pattern;
+
+		private final boolean caseSensitive;
+
+		private final boolean leadingSeparator;
+
+		private final boolean trailingSeparator;
+
+		private final int[] types;
+
+		private final String[] texts;
+
+		private final AntPathStringMatcher[] stringMatchers;
+
+		private final int literalPrefixLength;
+
+		CompiledPattern(String pattern, String pathSeparator, boolean caseSensitive) {
+			this.pattern = pattern;
+			this.caseSensitive = caseSensitive;
+			this.leadingSeparator = pattern.startsWith(pathSeparator);
+			this.trailingSeparator = pattern.endsWith(pathSeparator);
+			this.texts = StringUtils.tokenizeToStringArray(pattern, pathSeparator, false, true);
+			this.types = new int[this.texts.length];
+			this.stringMatchers = new AntPathStringMatcher[this.texts.length];
+			int literalPrefixLength = -1;
+			for (int i = 0; i < this.texts.length; i++) {
+				String text = this.texts[i];
+				if ("*".equals(text)) {
+					this.types[i] = WILDCARD;
+				}
+				else if ("**".equals(text)) {
+					this.types[i] = DOUBLE_WILDCARD;
+				}
+				else if (text.indexOf('{') != -1) {
+					this.types[i] = TEMPLATE;
+				}
+				else if (text.indexOf('*') != -1 || text.indexOf('?') != -1) {
+					this.types[i] = GLOB;
+				}
+				else {
+					this.types[i] = LITERAL;
+				}
+				if (this.types[i] != LITERAL && literalPrefixLength == -1) {
+					literalPrefixLength = i;
+				}
+				if (this.types[i] == TEMPLATE || this.types[i] == GLOB) {
+					this.stringMatchers[i] = new AntPathStringMatcher(text, caseSensitive);
+				}
+			}
+			this.literalPrefixLength = (literalPrefixLength != -1 ? literalPrefixLength : this.texts.length);
+		}
+
+		/**
+		 * Return the original pattern.
+		 */
+		public String getPattern() {
+			return this.pattern;
+		}
+
+		/**
+		 * Return whether the given path matches this pattern in full.
+		 */
+		public boolean matches(SplitPath path) {
+			return matches(path, true, null);
+		}
+
+		/**
+		 * Match the given path against this pattern.
+		 * @param path the path to match
+		 * @param fullMatch whether a full match is required (otherwise a pattern
+		 * match as far as the given path goes is sufficient)
+		 * @param uriTemplateVariables a map to add extracted template variables to,
+		 * or {@code null} if not needed
+		 */
+		public boolean matches(SplitPath path, boolean fullMatch, @Nullable Map<String, String> uriTemplateVariables) {
+			if (path.leadingSeparator != this.leadingSeparator) {
+				return false;
+			}
+
+			int pattIdxStart = 0;
+			int pattIdxEnd = this.types.length - 1;
+			int pathIdxStart = 0;
+			int pathIdxEnd = path.count - 1;
+
+			// Match all elements up to the first **
+			while (pattIdxStart <= pattIdxEnd && pathIdxStart <= pathIdxEnd) {
+				if (this.types[pattIdxStart] == DOUBLE_WILDCARD) {
+					break;
+				}
+				if (!matchSegment(pattIdxStart, path, pathIdxStart, uriTemplateVariables)) {
+					return false;
+				}
+				pattIdxStart++;
+				pathIdxStart++;
+			}
+
+			if (pathIdxStart > pathIdxEnd) {
+				// Path is exhausted, only match if rest of pattern is * or **'s
+				if (pattIdxStart > pattIdxEnd) {
+					return (this.trailingSeparator == path.trailingSeparator);
+				}
+				if (!fullMatch) {
+					return true;
+				}
+				if (pattIdxStart == pattIdxEnd && this.types[pattIdxStart] == WILDCARD && path.trailingSeparator) {
+					return true;
+				}
+				return onlyDoubleWildcards(pattIdxStart, pattIdxEnd);
+			}
+			else if (pattIdxStart > pattIdxEnd) {
+				// String not exhausted, but pattern is. Failure.
+				return false;
+			}
+			else if (!fullMatch && this.types[pattIdxStart] == DOUBLE_WILDCARD) {
+				// Path start definitely matches due to "**" part in pattern.
+				return true;
+			}
+
+			// up to last '**'
+			while (pattIdxStart <= pattIdxEnd && pathIdxStart <= pathIdxEnd) {
+				if (this.types[pattIdxEnd] == DOUBLE_WILDCARD) {
+					break;
+				}
+				if (!matchSegment(pattIdxEnd, path, pathIdxEnd, uriTemplateVariables)) {
+					return false;
+				}
+				pattIdxEnd--;
+				pathIdxEnd--;
+			}
+			if (pathIdxStart > pathIdxEnd) {
+				// String is exhausted
+				return onlyDoubleWildcards(pattIdxStart, pattIdxEnd);
+			}
+
+			while (pattIdxStart != pattIdxEnd && pathIdxStart <= pathIdxEnd) {
+				int patIdxTmp = -1;
+				for (int i = pattIdxStart + 1; i <= pattIdxEnd; i++) {
+					if (this.types[i] == DOUBLE_WILDCARD) {
+						patIdxTmp = i;
+						break;
+					}
+				}
+				if (patIdxTmp == pattIdxStart + 1) {
+					// '**/**' situation, so skip one
+					pattIdxStart++;
+					continue;
+				}
+				// Find the pattern between pattIdxStart & patIdxTmp in the path
+				// between pathIdxStart & pathIdxEnd
+				int patLength = (patIdxTmp - pattIdxStart - 1);
+				int strLength = (pathIdxEnd - pathIdxStart + 1);
+				int foundIdx = -1;
+
+				strLoop:
+				for (int i = 0; i <= strLength - patLength; i++) {
+					for (int j = 0; j < patLength; j++) {
+						if (!matchSegment(pattIdxStart + j + 1, path, pathIdxStart + i + j, uriTemplateVariables)) {
+							continue strLoop;
+						}
+					}
+					foundIdx = pathIdxStart + i;
+					break;
+				}
+
+				if (foundIdx == -1) {
+					return false;
+				}
+
+				pattIdxStart = patIdxTmp;
+				pathIdxStart = foundIdx + patLength;
+			}
+
+			return onlyDoubleWildcards(pattIdxStart, pattIdxEnd);
+		}
+
+		private boolean onlyDoubleWildcards(int from, int to) {
+			for (int i = from; i <= to; i++) {
+				if (this.types[i] != DOUBLE_WILDCARD) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private boolean matchSegment(int index, SplitPath path, int pathIndex,
+				@Nullable Map<String, String> uriTemplateVariables) {
+
+			String str = path.path;
+			int start = path.starts[pathIndex];
+			int end = path.ends[pathIndex];
+			switch (this.types[index]) {
+				case LITERAL:
+					return regionEquals(this.texts[index], str, start, end, this.caseSensitive);
+				case WILDCARD:
+					return !containsLineTerminator(str, start, end);
+				case GLOB:
+					if (!containsLineTerminator(str, start, end)) {
+						return matchGlob(this.texts[index], str, start, end);
+					}
+					return this.stringMatchers[index].matchStrings(str.substring(start, end), null);
+				default:
+					return this.stringMatchers[index].matchStrings(str.substring(start, end), uriTemplateVariables);
+			}
+		}
+
+		private boolean matchGlob(String glob, String str, int start, int end) {
+			int p = 0;
+			int s = start;
+			int starP = -1;
+			int starS = -1;
+			while (s < end) {
+				if (p < glob.length()) {
+					char c = glob.charAt(p);
+					if (c == '*') {
+						starP = p++;
+						starS = s;
+						continue;
+					}
+					if (c == '?' || charEquals(c, str.charAt(s), this.caseSensitive)) {
+						p++;
+						s++;
+						continue;
+					}
+				}
+				if (starP == -1) {
+					return false;
+				}
+				// Let the last '*' consume one more character
+				p = starP + 1;
+				s = ++starS;
+			}
+			while (p < glob.length() && glob.charAt(p) == '*') {
+				p++;
+			}
+			return (p == glob.length());
+		}
+
+		int getLiteralPrefixLength() {
+			return this.literalPrefixLength;
+		}
+
+		String getSegmentText(int index) {
+			return this.texts[index];
+		}
+
+		boolean hasLeadingSeparator() {
+			return this.leadingSeparator;
+		}
+
+		boolean isCaseSensitive() {
+			return this.caseSensitive;
+		}
+
+		@Override
+		public String toString() {
+			return this.pattern;
+		}
+	}
+
+}
@@ -279,6 +279,66 @@ public abstract class NumberUtils {
 		}
 	}
 
+	/**
+	 * Parse the given {@code text} into an {@code int} value, with the same
+	 * rules as {@link #parseNumber(String, Class) parseNumber(text, Integer.class)}
+	 * but without creating an {@link Integer} instance.
+	 * @param text the text to convert
+	 * @return the parsed value
+	 * @throws NumberFormatException if the text does not contain a parsable {@code int}
+	 * @since 5.1.6
+	 * @see #parseNumber(String, Class)
+	 */
+	public static int parseInt(String text) {
+		Assert.notNull(text, "Text must not be null");
+		String trimmed = trimAllWhitespace(text);
+		return (isHexNumber(trimmed) ? Integer.decode(trimmed) : Integer.parseInt(trimmed));
+	}
+
+	/**
+	 * Parse the given {@code text} into a {@code long} value, with the same
+	 * rules as {@link #parseNumber(String, Class) parseNumber(text, Long.class)}
+	 * but without creating a {@link Long} instance.
+	 * @param text the text to convert
+	 * @return the parsed value
+	 * @throws NumberFormatException if the text does not contain a parsable {@code long}
+	 * @since 5.1.6
+	 * @see #parseNumber(String, Class)
+	 */
+	public static long parseLong(String text) {
+		Assert.notNull(text, "Text must not be null");
+		String trimmed = trimAllWhitespace(text);
+		return (isHexNumber(trimmed) ? Long.decode(trimmed) : Long.parseLong(trimmed));
+	}
+
+	/**
+	 * Parse the given {@code text} into a {@code double} value, with the same
+	 * rules as {@link #parseNumber(String, Class) parseNumber(text, Double.class)}
+	 * but without creating a {@link Double} instance.
+	 * @param text the text to convert
+	 * @return the parsed value
+	 * @throws NumberFormatException if the text does not contain a parsable {@code double}
+	 * @since 5.1.6
+	 * @see #parseNumber(String, Class)
+	 */
+	public static double parseDouble(String text) {
+		Assert.notNull(text, "Text must not be null");
+		return Double.parseDouble(trimAllWhitespace(text));
+	}
+
+	/**
+	 * Trim all whitespace from the given String, as {@link StringUtils#trimAllWhitespace}
+	 * does, but return the given String itself if it does not contain any whitespace.
+	 */
+	private static String trimAllWhitespace(String text) {
+		for (int i = 0; i < text.length(); i++) {
+			if (Character.isWhitespace(text.charAt(i))) {
+				return StringUtils.trimAllWhitespace(text);
+			}
+		}
+		return text;
+	}
+
 	/**
 	 * Determine whether the given {@code value} String indicates a hex number,
 	 * i.e. needs to be passed into {@code Integer.decode} instead of
@@ -0,0 +1,747 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentReferenceHashMap.ReferenceType;
+
+/**
+ * A {@link ConcurrentMap} with the same contract as {@link ConcurrentReferenceHashMap},
+ * using {@link ReferenceType#SOFT soft} or {@linkplain ReferenceType#WEAK weak}
+ * references for its entries, but storing them in a single open-addressing table
+ * instead of segments of linked reference chains.
+ *
+ * <p>Reads are lock-free and never block. Writes update table slots via
+ * compare-and-swap and only wait while the table is being resized, which
+ * happens under a lock. Entries cleared by the garbage collector are purged
+ * in batches from the reference queue on access.
+ *
+ * <p>Like {@link ConcurrentReferenceHashMap}, this implementation supports
+ * {@code null} keys and {@code null} values, and the garbage collector may
+ * discard entries at any time.
+ *
+ * @since 5.1.6
+ * @param <K> the key type
+ * @param <V> the value type
+ * @see ConcurrentReferenceHashMap
+ */
+public class OpenAddressingReferenceHashMap<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+
+	private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+	private static final ReferenceType DEFAULT_REFERENCE_TYPE = ReferenceType.SOFT;
+
+	private static final int MINIMUM_TABLE_SIZE = 4;
+
+	private static final int MAXIMUM_TABLE_SIZE = 1 << 30;
+
+	/**
+	 * Marker for a slot whose entry has been removed, keeping probe sequences intact.
+	 */
+	private static final Object TOMBSTONE = new Object();
+
+	/**
+	 * Marker for an empty slot in a table that is being replaced.
+	 */
+	private static final Forwarded FORWARDED_EMPTY = new Forwarded(null);
+
+	private static final int PUT = 0;
+
+	private static final int PUT_IF_ABSENT = 1;
+
+	private static final int REPLACE = 2;
+
+	private static final int REMOVE = 3;
+
+
+	private final int initialTableSize;
+
+	private final ReferenceType referenceType;
+
+	private final ReferenceQueue<Entry<K, V>> queue = new ReferenceQueue<>();
+
+	/**
+	 * Lock held while replacing the table; writers encountering a
+	 * forwarded slot wait for it.
+	 */
+	private final ReentrantLock resizeLock = new ReentrantLock();
+
+	/**
+	 * Number of entry references in the current table, including
+	 * references that have been cleared but not purged yet.
+	 */
+	private final AtomicInteger count = new AtomicInteger();
+
+	private volatile Table table;
+
+	/**
+	 * Late binding entry set.
+	 */
+	@Nullable
+	private volatile Set<Map.Entry<K, V>> entrySet;
+
+
+	/**
+	 * Create a new {@code OpenAddressingReferenceHashMap} instance.
+	 */
+	public OpenAddressingReferenceHashMap() {
+		this(DEFAULT_INITIAL_CAPACITY, DEFAULT_REFERENCE_TYPE);
+	}
+
+	/**
+	 * Create a new {@code OpenAddressingReferenceHashMap} instance.
+	 * @param initialCapacity the initial capacity of the map
+	 */
+	public OpenAddressingReferenceHashMap(int initialCapacity) {
+		this(initialCapacity, DEFAULT_REFERENCE_TYPE);
+	}
+
+	/**
+	 * Create a new {@code OpenAddressingReferenceHashMap} instance.
+	 * @param initialCapacity the initial capacity of the map
+	 * @param referenceType the reference type used for entries (soft or weak)
+	 */
+	public OpenAddressingReferenceHashMap(int initialCapacity, ReferenceType referenceType) {
+		Assert.isTrue(initialCapacity >= 0, "Initial capacity must not be negative");
+		Assert.notNull(referenceType, "Reference type must not be null");
+		this.initialTableSize = calculateTableSize(initialCapacity);
+		this.referenceType = referenceType;
+		this.table = new Table(this.initialTableSize);
+	}
+
+
+	/**
+	 * Get the hash for a given object, apply an additional hash function to reduce
+	 * collisions. This implementation uses the same Wang/Jenkins algorithm as
+	 * {@link ConcurrentReferenceHashMap}. Subclasses can override to provide
+	 * alternative hashing.
+	 * @param o the object to hash (may be null)
+	 * @return the resulting hash code
+	 */
+	protected int getHash(@Nullable Object o) {
+		int hash = (o != null ? o.hashCode() : 0);
+		hash += (hash << 15) ^ 0xffffcd7d;
+		hash ^= (hash >>> 10);
+		hash += (hash << 3);
+		hash ^= (hash >>> 6);
+		hash += (hash << 2) + (hash << 14);
+		hash ^= (hash >>> 16);
+		return hash;
+	}
+
+	@Override
+	@Nullable
+	public V get(@Nullable Object key) {
+		Entry<K, V> entry = getEntry(key);
+		return (entry != null ? entry.value : null);
+	}
+
+	@Override
+	@Nullable
+	public V getOrDefault(@Nullable Object key, @Nullable V defaultValue) {
+		Entry<K, V> entry = getEntry(key);
+		return (entry != null ? entry.value : defaultValue);
+	}
+
+	@Override
+	public boolean containsKey(@Nullable Object key) {
+		return (getEntry(key) != null);
+	}
+
+	@Override
+	@Nullable
+	public V put(@Nullable K key, @Nullable V value) {
+		return valueOf(update(key, PUT, value, false, null));
+	}
+
+	@Override
+	@Nullable
+	public V putIfAbsent(@Nullable K key, @Nullable V value) {
+		return valueOf(update(key, PUT_IF_ABSENT, value, false, null));
+	}
+
+	@Override
+	@Nullable
+	public V remove(Object key) {
+		return valueOf(update(key, REMOVE, null, false, null));
+	}
+
+	@Override
+	public boolean remove(Object key, final Object value) {
+		Entry<K, V> previous = update(key, REMOVE, null, true, value);
+		return (previous != null && ObjectUtils.nullSafeEquals(previous.value, value));
+	}
+
+	@Override
+	public boolean replace(K key, final V oldValue, final V newValue) {
+		Entry<K, V> previous = update(key, REPLACE, newValue, true, oldValue);
+		return (previous != null && ObjectUtils.nullSafeEquals(previous.value, oldValue));
+	}
+
+	@Override
+	@Nullable
+	public V replace(K key, final V value) {
+		return valueOf(update(key, REPLACE, value, false, null));
+	}
+
+	@Override
+	public void clear() {
+		this.resizeLock.lock();
+		try {
+			Table table = this.table;
+			this.count.addAndGet(-countReferences(freeze(table)));
+			this.table = new Table(this.initialTableSize);
+		}
+		finally {
+			this.resizeLock.unlock();
+		}
+	}
+
+	/**
+	 * Remove any entries that have been garbage collected and are no longer referenced.
+	 * Under normal circumstances garbage collected entries are automatically purged
+	 * as items are added to or read from the map. This method can be used to force
+	 * a purge, and is useful when the map is read frequently but updated less often.
+	 */
+	@SuppressWarnings("unchecked")
+	public void purgeUnreferencedEntries() {
+		Reference<? extends Entry<K, V>> ref = this.queue.poll();
+		while (ref != null) {
+			purge((EntryReference<K, V>) ref);
+			ref = this.queue.poll();
+		}
+	}
+
+	@Override
+	public int size() {
+		purgeUnreferencedEntries();
+		return Math.max(this.count.get(), 0);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return (size() == 0);
+	}
+
+	@Override
+	public Set<Map.Entry<K, V>> entrySet() {
+		Set<Map.Entry<K, V>> entrySet = this.entrySet;
+		if (entrySet == null) {
+			entrySet = new EntrySet();
+			this.entrySet = entrySet;
+		}
+		return entrySet;
+	}
+
+
+	@Nullable
+	private Entry<K, V> getEntry(@Nullable Object key) {
+		purgeUnreferencedEntries();
+		int hash = getHash(key);
+		Table table = this.table;
+		AtomicReferenceArray<Object> slots = table.slots;
+		int index = hash & table.mask;
+		for (int probes = 0; probes <= table.mask; probes++) {
+			Object slot = slots.get(index);
+			if (slot instanceof Forwarded) {
+				// Frozen by a concurrent resize: still valid for reading
+				slot = ((Forwarded) slot).target;
+			}
+			if (slot == null) {
+				return null;
+			}
+			Entry<K, V> entry = getEntryIfMatch(slot, hash, key);
+			if (entry != null) {
+				return entry;
+			}
+			index = (index + 1) & table.mask;
+		}
+		return null;
+	}
+
+	/**
+	 * Apply an update to the mapping for the given key.
+	 * @param key the key of the mapping
+	 * @param mode the kind of update
+	 * @param value the new value (ignored for {@link #REMOVE})
+	 * @param matchValue whether to only update an existing mapping
+	 * with the given expected value
+	 * @param expectedValue the expected value if {@code matchValue} is set
+	 * @return the existing entry for the key, or {@code null} if none
+	 */
+	@Nullable
+	@SuppressWarnings("unchecked")
+	private Entry<K, V> update(@Nullable Object key, int mode, @Nullable V value,
+			boolean matchValue, @Nullable Object expectedValue) {
+
+		purgeUnreferencedEntries();
+		boolean insert = (mode == PUT || mode == PUT_IF_ABSENT);
+		int hash = getHash(key);
+		retry:
+		for (;;) {
+			Table table = this.table;
+			AtomicReferenceArray<Object> slots = table.slots;
+			int index = hash & table.mask;
+			int probes = 0;
+			while (probes <= table.mask) {
+				Object slot = slots.get(index);
+				if (slot instanceof Forwarded) {
+					awaitResize(table);
+					continue retry;
+				}
+				if (slot == null) {
+					if (!insert) {
+						return null;
+					}
+					if (table.used.get() >= table.threshold) {
+						resize(table);
+						continue retry;
+					}
+					if (slots.compareAndSet(index, null, createReference(new Entry<>((K) key, value), hash))) {
+						table.used.incrementAndGet();
+						this.count.incrementAndGet();
+						return null;
+					}
+					// Lost the race for this slot: re-read it
+					continue;
+				}
+				Entry<K, V> entry = getEntryIfMatch(slot, hash, key);
+				if (entry != null) {
+					if (mode == PUT_IF_ABSENT ||
+							(matchValue && !ObjectUtils.nullSafeEquals(entry.value, expectedValue))) {
+						return entry;
+					}
+					Object replacement = (mode == REMOVE ? TOMBSTONE :
+							createReference(new Entry<>(entry.key, value), hash));
+					if (slots.compareAndSet(index, slot, replacement)) {
+						if (mode == REMOVE) {
+							this.count.decrementAndGet();
+						}
+						return entry;
+					}
+					// Concurrently updated: re-read the slot
+					continue;
+				}
+				index = (index + 1) & table.mask;
+				probes++;
+			}
+			// Probed the entire table without finding the key or a free slot
+			if (!insert) {
+				return null;
+			}
+			resize(table);
+		}
+	}
+
+	@Nullable
+	@SuppressWarnings("unchecked")
+	private Entry<K, V> getEntryIfMatch(Object slot, int hash, @Nullable Object key) {
+		if (slot == TOMBSTONE) {
+			return null;
+		}
+		EntryReference<K, V> ref = (EntryReference<K, V>) slot;
+		if (ref.getHash() != hash) {
+			return null;
+		}
+		Entry<K, V> entry = ref.get();
+		if (entry != null && (entry.key == key || ObjectUtils.nullSafeEquals(entry.key, key))) {
+			return entry;
+		}
+		return null;
+	}
+
+	/**
+	 * Replace the given cleared reference with a tombstone, if still present.
+	 */
+	private void purge(EntryReference<K, V> ref) {
+		Table table = this.table;
+		AtomicReferenceArray<Object> slots = table.slots;
+		int index = ref.getHash() & table.mask;
+		for (int probes = 0; probes <= table.mask; probes++) {
+			Object slot = slots.get(index);
+			if (slot == null || slot instanceof Forwarded) {
+				// Not present anymore, or about to be dropped by a concurrent resize
+				return;
+			}
+			if (slot == ref) {
+				if (slots.compareAndSet(index, ref, TOMBSTONE)) {
+					this.count.decrementAndGet();
+				}
+				return;
+			}
+			index = (index + 1) & table.mask;
+		}
+	}
+
+	/**
+	 * Replace the given table with a new one holding its live entries,
+	 * growing it if necessary. Cleared references and tombstones are dropped.
+	 */
+	@SuppressWarnings("unchecked")
+	private void resize(Table table) {
+		this.resizeLock.lock();
+		try {
+			if (this.table != table) {
+				// Already replaced by another writer
+				return;
+			}
+			Object[] frozen = freeze(table);
+			int live = 0;
+			for (Object slot : frozen) {
+				if (slot instanceof EntryReference && ((EntryReference<K, V>) slot).get() != null) {
+					live++;
+				}
+			}
+			int tableSize = table.slots.length();
+			while (live >= (tableSize >> 1) - (tableSize >> 3) && tableSize < MAXIMUM_TABLE_SIZE) {
+				tableSize <<= 1;
+			}
+			Table newTable = new Table(tableSize);
+			int dropped = 0;
+			for (Object slot : frozen) {
+				if (slot instanceof EntryReference) {
+					EntryReference<K, V> ref = (EntryReference<K, V>) slot;
+					if (ref.get() != null) {
+						newTable.transfer(ref);
+					}
+					else {
+						dropped++;
+					}
+				}
+			}
+			this.count.addAndGet(-dropped);
+			this.table = newTable;
+		}
+		finally {
+			this.resizeLock.unlock();
+		}
+	}
+
+	/**
+	 * Freeze all slots of the given table, preventing any further update.
+	 * Must be called while holding the resize lock.
+	 * @return the frozen slot contents
+	 */
+	private Object[] freeze(Table table) {
+		AtomicReferenceArray<Object> slots = table.slots;
+		Object[] frozen = new Object[slots.length()];
+		for (int i = 0; i < frozen.length; i++) {
+			Object slot;
+			do {
+				slot = slots.get(i);
+			}
+			while (!slots.compareAndSet(i, slot, (slot != null ? new Forwarded(slot) : FORWARDED_EMPTY)));
+			frozen[i] = slot;
+		}
+		return frozen;
+	}
+
+	private void awaitResize(Table table) {
+		if (this.table == table) {
+			this.resizeLock.lock();
+			this.resizeLock.unlock();
+		}
+	}
+
+	private EntryReference<K, V> createReference(Entry<K, V> entry, int hash) {
+		if (this.referenceType == ReferenceType.WEAK) {
+			return new WeakEntryReference<>(entry, hash, this.queue);
+		}
+		return new SoftEntryReference<>(entry, hash, this.queue);
+	}
+
+
+	@Nullable
+	private static <V> V valueOf(@Nullable Entry<?, V> entry) {
+		return (entry != null ? entry.value : null);
+	}
+
+	private static int countReferences(Object[] slots) {
+		int references = 0;
+		for (Object slot : slots) {
+			if (slot instanceof EntryReference) {
+				references++;
+			}
+		}
+		return references;
+	}
+
+	private static int calculateTableSize(int initialCapacity) {
+		// Keep the initial capacity below the resize threshold
+		int required = initialCapacity + (initialCapacity >> 1) + 1;
+		int tableSize = MINIMUM_TABLE_SIZE;
+		while (tableSize < required && tableSize < MAXIMUM_TABLE_SIZE) {
+			tableSize <<= 1;
+		}
+		return tableSize;
+	}
+
+
+	/**
+	 * A single open-addressing table. Slots hold {@code null} (never used),
+	 * an {@link EntryReference}, {@link #TOMBSTONE}, or a {@link Forwarded}
+	 * wrapper once the table is being replaced.
+	 */
+	private static final class Table {
+
+		final AtomicReferenceArray<Object> slots;
+
+		final int mask;
+
+		/**
+		 * Maximum number of used slots (references and tombstones) before resizing.
+		 */
+		final int threshold;
+
+		final AtomicInteger used = new AtomicInteger();
+
+		Table(int size) {
+			this.slots = new AtomicReferenceArray<>(size);
+			this.mask = size - 1;
+			this.threshold = size - (size >> 2);
+		}
+
+		/**
+		 * Add the given reference to this table before it gets published.
+		 */
+		void transfer(EntryReference<?, ?> ref) {
+			int index = ref.getHash() & this.mask;
+			while (this.slots.get(index) != null) {
+				index = (index + 1) & this.mask;
+			}
+			this.slots.lazySet(index, ref);
+			this.used.incrementAndGet();
+		}
+	}
+
+
+	/**
+	 * Frozen slot content of a table that is being replaced.
+	 */
+	private static final class Forwarded {
+
+		@Nullable
+		final Object target;
+
+		Forwarded(@Nullable Object target) {
+			this.target = target;
+		}
+	}
+
+
+	/**
+	 * A single map entry, referenced softly or weakly as a whole.
+	 * @param <K> the key type
+	 * @param <V> the value type
+	 */
+	private static final class Entry<K, V> {
+
+		@Nullable
+		final K key;
+
+		@Nullable
+		final V value;
+
+		Entry(@Nullable K key, @Nullable V value) {
+			this.key = key;
+			this.value = value;
+		}
+	}
+
+
+	/**
+	 * Reference to an {@link Entry}, also exposing the hash of its key
+	 * for purging once the entry itself has been cleared.
+	 * @param <K> the key type
+	 * @param <V> the value type
+	 */
+	private interface EntryReference<K, V> {
+
+		int getHash();
+
+		@Nullable
+		Entry<K, V> get();
+	}
+
+
+	private static final class SoftEntryReference<K, V> extends SoftReference<Entry<K, V>>
+			implements EntryReference<K, V> {
+
+		private final int hash;
+
+		SoftEntryReference(Entry<K, V> entry, int hash, ReferenceQueue<Entry<K, V>> queue) {
+			super(entry, queue);
+			this.hash = hash;
+		}
+
+		@Override
+		public int getHash() {
+			return this.hash;
+		}
+	}
+
+
+	private static final class WeakEntryReference<K, V> extends WeakReference<Entry<K, V>>
+			implements EntryReference<K, V> {
+
+		private final int hash;
+
+		WeakEntryReference(Entry<K, V> entry, int hash, ReferenceQueue<Entry<K, V>> queue) {
+			super(entry, queue);
+			this.hash = hash;
+		}
+
+		@Override
+		public int getHash() {
+			return this.hash;
+		}
+	}
+
+
+	/**
+	 * Internal entry-set implementation.
+	 */
+	private class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+
+		@Override
+		public Iterator<Map.Entry<K, V>> iterator() {
+			return new EntryIterator();
+		}
+
+		@Override
+		public boolean contains(@Nullable Object o) {
+			if (o instanceof Map.Entry<?, ?>) {
+				Map.Entry<?, ?> candidate = (Map.Entry<?, ?>) o;
+				Entry<K, V> entry = getEntry(candidate.getKey());
+				return (entry != null && ObjectUtils.nullSafeEquals(entry.value, candidate.getValue()));
+			}
+			return false;
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			if (o instanceof Map.Entry<?, ?>) {
+				Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+				return OpenAddressingReferenceHashMap.this.remove(entry.getKey(), entry.getValue());
+			}
+			return false;
+		}
+
+		@Override
+		public int size() {
+			return OpenAddressingReferenceHashMap.this.size();
+		}
+
+		@Override
+		public void clear() {
+			OpenAddressingReferenceHashMap.this.clear();
+		}
+	}
+
+
+	/**
+	 * Weakly consistent iterator over the table that was current when
+	 * the iteration started.
+	 */
+	private class EntryIterator implements Iterator<Map.Entry<K, V>> {
+
+		private final AtomicReferenceArray<Object> slots = table.slots;
+
+		private int index;
+
+		@Nullable
+		private Entry<K, V> next;
+
+		@Nullable
+		private Entry<K, V> last;
+
+		@Override
+		public boolean hasNext() {
+			advance();
+			return (this.next != null);
+		}
+
+		@Override
+		public Map.Entry<K, V> next() {
+			advance();
+			Entry<K, V> entry = this.next;
+			if (entry == null) {
+				throw new NoSuchElementException();
+			}
+			this.last = entry;
+			this.next = null;
+			return new WriteThroughEntry(entry.key, entry.value);
+		}
+
+		@SuppressWarnings("unchecked")
+		private void advance() {
+			while (this.next == null && this.index < this.slots.length()) {
+				Object slot = this.slots.get(this.index++);
+				if (slot instanceof Forwarded) {
+					slot = ((Forwarded) slot).target;
+				}
+				if (slot instanceof EntryReference) {
+					this.next = ((EntryReference<K, V>) slot).get();
+				}
+			}
+		}
+
+		@Override
+		public void remove() {
+			Assert.state(this.last != null, "No element to remove");
+			OpenAddressingReferenceHashMap.this.remove(this.last.key);
+			this.last = null;
+		}
+	}
+
+
+	/**
+	 * Map entry handed out by the iterator, writing value changes through to the map.
+	 */
+	private class WriteThroughEntry extends SimpleEntry<K, V> {
+
+		private static final long serialVersionUID = -2817343954853364482L;
+
+		WriteThroughEntry(@Nullable K key, @Nullable V value) {
+			super(key, value);
+		}
+
+		@Override
+		@Nullable
+		public V setValue(@Nullable V value) {
+			V previous = super.setValue(value);
+			put(getKey(), value);
+			return previous;
+		}
+	}
+
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.CompiledPathMatcher.CompiledPattern;
+import org.springframework.util.CompiledPathMatcher.SplitPath;
+
+/**
+ * Set of path patterns that a single path can be matched against at once.
+ *
+ * <p>Patterns are arranged in a trie keyed by their leading literal segments,
+ * so that only patterns sharing the literal prefix of a path get evaluated:
+ * e.g. for {@code /api/orders/42}, patterns below {@code /static} or
+ * {@code /api/customers} are never looked at. Each remaining candidate is
+ * evaluated as a {@link CompiledPattern} against the path, which is split
+ * only once.
+ *
+ * <p>Patterns are compiled with the settings of the given
+ * {@link CompiledPathMatcher} at the time they are added, so the matcher
+ * should not be reconfigured once patterns have been added. This class is not
+ * thread-safe for adding patterns, but once populated, it can be used for
+ * matching by concurrent threads.
+ *
+ * @since 5.1.6
+ * @see CompiledPathMatcher
+ */
+public class PathPatternTrie {
+
+	private final CompiledPathMatcher pathMatcher;
+
+	private final List<CompiledPattern> patterns = new ArrayList<>();
+
+	private final Node relativeRoot = new Node();
+
+	private final Node absoluteRoot = new Node();
+
+
+	/**
+	 * Create a new trie, using a {@link CompiledPathMatcher} with default settings.
+	 */
+	public PathPatternTrie() {
+		this(new CompiledPathMatcher());
+	}
+
+	/**
+	 * Create a new trie, using the given {@link CompiledPathMatcher}
+	 * for compiling patterns and splitting paths.
+	 */
+	public PathPatternTrie(CompiledPathMatcher pathMatcher) {
+		Assert.notNull(pathMatcher, "PathMatcher must not be null");
+		this.pathMatcher = pathMatcher;
+	}
+
+
+	/**
+	 * Add the given pattern.
+	 * @param pattern the pattern to add
+	 */
+	public void addPattern(String pattern) {
+		CompiledPattern compiled = this.pathMatcher.compile(pattern);
+		Node node = (compiled.hasLeadingSeparator() ? this.absoluteRoot : this.relativeRoot);
+		for (int i = 0; i < compiled.getLiteralPrefixLength(); i++) {
+			node = node.getOrCreateChild(compiled.getSegmentText(i), compiled.isCaseSensitive());
+		}
+		node.addPattern(this.patterns.size());
+		this.patterns.add(compiled);
+	}
+
+	/**
+	 * Return the number of patterns added so far.
+	 */
+	public int size() {
+		return this.patterns.size();
+	}
+
+	/**
+	 * Return all patterns that match the given path in full,
+	 * in the order they were added.
+	 * @param path the path to match
+	 * @return the matching patterns (possibly empty)
+	 */
+	public List<String> getMatchingPatterns(String path) {
+		SplitPath splitPath = this.pathMatcher.split(path);
+		BitSet matches = new BitSet(this.patterns.size());
+		Node node = (splitPath.leadingSeparator ? this.absoluteRoot : this.relativeRoot);
+		int depth = 0;
+		while (node != null) {
+			for (int i = 0; i < node.patternCount; i++) {
+				int index = node.patternIndexes[i];
+				if (this.patterns.get(index).matches(splitPath)) {
+					matches.set(index);
+				}
+			}
+			node = (depth < splitPath.count ? node.getChild(splitPath, depth) : null);
+			depth++;
+		}
+		List<String> result = new ArrayList<>(matches.cardinality());
+		for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+			result.add(this.patterns.get(i).getPattern());
+		}
+		return result;
+	}
+
+	/**
+	 * Determine whether any pattern matches the given path in full.
+	 * @param path the path to match
+	 */
+	public boolean matchesAny(String path) {
+		SplitPath splitPath = this.pathMatcher.split(path);
+		Node node = (splitPath.leadingSeparator ? this.absoluteRoot : this.relativeRoot);
+		int depth = 0;
+		while (node != null) {
+			for (int i = 0; i < node.patternCount; i++) {
+				if (this.patterns.get(node.patternIndexes[i]).matches(splitPath)) {
+					return true;
+				}
+			}
+			node = (depth < splitPath.count ? node.getChild(splitPath, depth) : null);
+			depth++;
+		}
+		return false;
+	}
+
+
+	/**
+	 * Compare the given key with a region of a string, ignoring the case of
+	 * US-ASCII characters unless case-sensitive.
+	 */
+	private static int compare(String key, String str, int start, int end, boolean caseSensitive) {
+		int length = Math.min(key.length(), end - start);
+		for (int i = 0; i < length; i++) {
+			char c1 = key.charAt(i);
+			char c2 = str.charAt(start + i);
+			if (!caseSensitive) {
+				c1 = toLowerCase(c1);
+				c2 = toLowerCase(c2);
+			}
+			if (c1 != c2) {
+				return c1 - c2;
+			}
+		}
+		return key.length() - (end - start);
+	}
+
+	private static char toLowerCase(char c) {
+		return (c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c);
+	}
+
+
+	/**
+	 * A trie node: child nodes sorted by literal segment, and the
+	 * indexes of the patterns whose literal prefix ends at this node.
+	 */
+	private static final class Node {
+
+		private String[] keys = new String[0];
+
+		private Node[] children = new Node[0];
+
+		private boolean caseSensitive = true;
+
+		private int[] patternIndexes = new int[0];
+
+		private int patternCount;
+
+		Node getOrCreateChild(String key, boolean caseSensitive) {
+			if (this.keys.length == 0) {
+				this.caseSensitive = caseSensitive;
+			}
+			int index = search(key, 0, key.length());
+			if (index >= 0) {
+				return this.children[index];
+			}
+			int insertion = -index - 1;
+			Node child = new Node();
+			String[] keys = new String[this.keys.length + 1];
+			Node[] children = new Node[this.children.length + 1];
+			System.arraycopy(this.keys, 0, keys, 0, insertion);
+			System.arraycopy(this.children, 0, children, 0, insertion);
+			keys[insertion] = key;
+			children[insertion] = child;
+			System.arraycopy(this.keys, insertion, keys, insertion + 1, this.keys.length - insertion);
+			System.arraycopy(this.children, insertion, children, insertion + 1, this.children.length - insertion);
+			this.keys = keys;
+			this.children = children;
+			return child;
+		}
+
+		@Nullable
+		Node getChild(SplitPath path, int segment) {
+			int index = search(path.path, path.starts[segment], path.ends[segment]);
+			return (index >= 0 ? this.children[index] : null);
+		}
+
+		private int search(String str, int start, int end) {
+			int low = 0;
+			int high = this.keys.length - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				int cmp = compare(this.keys[mid], str, start, end, this.caseSensitive);
+				if (cmp < 0) {
+					low = mid + 1;
+				}
+				else if (cmp > 0) {
+					high = mid - 1;
+				}
+				else {
+					return mid;
+				}
+			}
+			return -(low + 1);
+		}
+
+		void addPattern(int index) {
+			if (this.patternCount == this.patternIndexes.length) {
+				int[] patternIndexes = new int[Math.max(4, this.patternCount * 2)];
+				System.arraycopy(this.patternIndexes, 0, patternIndexes, 0, this.patternCount);
+				this.patternIndexes = patternIndexes;
+			}
+			this.patternIndexes[this.patternCount++] = index;
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,11 +16,14 @@
 
 package org.springframework.util;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -33,6 +36,13 @@ import org.springframework.lang.Nullable;
  * user-supplied values. <p> Values for substitution can be supplied using a {@link Properties} instance or
  * using a {@link PlaceholderResolver}.
  *
+ * <p>As of 5.1.6, every value passed in that contains a placeholder prefix is
+ * parsed only once into a sequence of literal text and placeholder segments,
+ * cached per helper instance (up to a fixed number of values), so repeated
+ * resolution of the same value merely evaluates its placeholders. Placeholder
+ * keys and resolved placeholder values are still resolved through
+ * {@link #parseStringValue}, without being cached.
+ *
  * @author Juergen Hoeller
  * @author Rob Harrop
  * @since 3.0
@@ -43,6 +53,10 @@ public class PropertyPlaceholderHelper {
 
 	private static final Map<String, String> wellKnownSimplePrefixes = new HashMap<>(4);
 
+	private static final Object[] NO_PARTS = new Object[0];
+
+	private static final int TEMPLATE_CACHE_LIMIT = 1024;
+
 	static {
 		wellKnownSimplePrefixes.put("}", "{");
 		wellKnownSimplePrefixes.put("]", "[");
@@ -61,6 +75,12 @@ public class PropertyPlaceholderHelper {
 
 	private final boolean ignoreUnresolvablePlaceholders;
 
+	private final Map<String, Template> templateCache = new ConcurrentReferenceHashMap<>(256);
+
+	private final LongAdder templateCacheHits = new LongAdder();
+
+	private final LongAdder templateCacheMisses = new LongAdder();
+
 
 	/**
 	 * Creates a new {@code PropertyPlaceholderHelper} that uses the supplied prefix and suffix.
@@ -124,64 +144,167 @@ public class PropertyPlaceholderHelper {
 		return parseStringValue(value, placeholderResolver, new HashSet<>());
 	}
 
+	/**
+	 * Return the number of times a previously parsed value was reused.
+	 * @since 5.1.6
+	 */
+	public long getTemplateCacheHitCount() {
+		return this.templateCacheHits.sum();
+	}
+
+	/**
+	 * Return the number of times a value had to be parsed.
+	 * @since 5.1.6
+	 */
+	public long getTemplateCacheMissCount() {
+		return this.templateCacheMisses.sum();
+	}
+
+	/**
+	 * Remove all parsed values from the cache, e.g. after a large number of
+	 * one-off values has been resolved.
+	 * @since 5.1.6
+	 */
+	public void clearTemplateCache() {
+		this.templateCache.clear();
+	}
+
+	/**
+	 * Resolve the placeholders in the given value, recursively invoked for
+	 * placeholder keys and resolved placeholder values.
+	 * <p>As of 5.1.6, top-level values get parsed once and cached, whereas nested
+	 * values (resolved while {@code visitedPlaceholders} is not empty) are parsed
+	 * on every invocation.
+	 * @param value the value containing the placeholders to be replaced
+	 * @param placeholderResolver the {@code PlaceholderResolver} to use for replacement
+	 * @param visitedPlaceholders the placeholders currently being resolved
+	 * @return the supplied value with placeholders replaced inline
+	 */
 	protected String parseStringValue(
 			String value, PlaceholderResolver placeholderResolver, Set<String> visitedPlaceholders) {
 
-		StringBuilder result = new StringBuilder(value);
+		if (value.indexOf(this.placeholderPrefix) == -1) {
+			return value;
+		}
+		Template template = (visitedPlaceholders.isEmpty() ? getTemplate(value) : parseTemplate(value));
+		return resolveTemplate(template, placeholderResolver, visitedPlaceholders);
+	}
+
+	/**
+	 * Return the parsed form of the given value, parsing it on first access.
+	 */
+	private Template getTemplate(String value) {
+		Template template = this.templateCache.get(value);
+		if (template != null) {
+			this.templateCacheHits.increment();
+			return template;
+		}
+		this.templateCacheMisses.increment();
+		template = parseTemplate(value);
+		if (this.templateCache.size() >= TEMPLATE_CACHE_LIMIT) {
+			this.templateCache.clear();
+		}
+		this.templateCache.put(value, template);
+		return template;
+	}
 
+	private Template parseTemplate(String value) {
+		List<Object> parts = null;
+		int literalStart = 0;
 		int startIndex = value.indexOf(this.placeholderPrefix);
 		while (startIndex != -1) {
-			int endIndex = findPlaceholderEndIndex(result, startIndex);
-			if (endIndex != -1) {
-				String placeholder = result.substring(startIndex + this.placeholderPrefix.length(), endIndex);
-				String originalPlaceholder = placeholder;
-				if (!visitedPlaceholders.add(originalPlaceholder)) {
-					throw new IllegalArgumentException(
-							"Circular placeholder reference '" + originalPlaceholder + "' in property definitions");
-				}
-				// Recursive invocation, parsing placeholders contained in the placeholder key.
-				placeholder = parseStringValue(placeholder, placeholderResolver, visitedPlaceholders);
-				// Now obtain the value for the fully resolved key...
-				String propVal = placeholderResolver.resolvePlaceholder(placeholder);
-				if (propVal == null && this.valueSeparator != null) {
-					int separatorIndex = placeholder.indexOf(this.valueSeparator);
-					if (separatorIndex != -1) {
-						String actualPlaceholder = placeholder.substring(0, separatorIndex);
-						String defaultValue = placeholder.substring(separatorIndex + this.valueSeparator.length());
-						propVal = placeholderResolver.resolvePlaceholder(actualPlaceholder);
-						if (propVal == null) {
-							propVal = defaultValue;
-						}
-					}
-				}
-				if (propVal != null) {
-					// Recursive invocation, parsing placeholders contained in the
-					// previously resolved placeholder value.
-					propVal = parseStringValue(propVal, placeholderResolver, visitedPlaceholders);
-					result.replace(startIndex, endIndex + this.placeholderSuffix.length(), propVal);
-					if (logger.isTraceEnabled()) {
-						logger.trace("Resolved placeholder '" + placeholder + "'");
-					}
-					startIndex = result.indexOf(this.placeholderPrefix, startIndex + propVal.length());
-				}
-				else if (this.ignoreUnresolvablePlaceholders) {
-					// Proceed with unprocessed value.
-					startIndex = result.indexOf(this.placeholderPrefix, endIndex + this.placeholderSuffix.length());
-				}
-				else {
-					throw new IllegalArgumentException("Could not resolve placeholder '" +
-							placeholder + "'" + " in value \"" + value + "\"");
-				}
-				visitedPlaceholders.remove(originalPlaceholder);
+			int endIndex = findPlaceholderEndIndex(value, startIndex);
+			if (endIndex == -1) {
+				break;
 			}
-			else {
-				startIndex = -1;
+			if (parts == null) {
+				parts = new ArrayList<>(4);
 			}
+			if (startIndex > literalStart) {
+				parts.add(value.substring(literalStart, startIndex));
+			}
+			String placeholder = value.substring(startIndex + this.placeholderPrefix.length(), endIndex);
+			int placeholderEnd = endIndex + this.placeholderSuffix.length();
+			String text = value.substring(startIndex, placeholderEnd);
+			parts.add(new Placeholder(placeholder, text));
+			literalStart = placeholderEnd;
+			startIndex = value.indexOf(this.placeholderPrefix, placeholderEnd);
+		}
+		if (parts == null) {
+			return new Template(value, NO_PARTS);
 		}
+		if (literalStart < value.length()) {
+			parts.add(value.substring(literalStart));
+		}
+		return new Template(value, parts.toArray());
+	}
+
+	private String resolveTemplate(
+			Template template, PlaceholderResolver placeholderResolver, Set<String> visitedPlaceholders) {
 
+		Object[] parts = template.parts;
+		if (parts.length == 0) {
+			return template.value;
+		}
+		if (parts.length == 1) {
+			return resolvePlaceholder(template, (Placeholder) parts[0], placeholderResolver, visitedPlaceholders);
+		}
+		StringBuilder result = new StringBuilder(template.value.length() + 16);
+		for (Object part : parts) {
+			if (part instanceof Placeholder) {
+				result.append(resolvePlaceholder(
+						template, (Placeholder) part, placeholderResolver, visitedPlaceholders));
+			}
+			else {
+				result.append((String) part);
+			}
+		}
 		return result.toString();
 	}
 
+	private String resolvePlaceholder(Template template, Placeholder part,
+			PlaceholderResolver placeholderResolver, Set<String> visitedPlaceholders) {
+
+		String originalPlaceholder = part.placeholder;
+		if (!visitedPlaceholders.add(originalPlaceholder)) {
+			throw new IllegalArgumentException(
+					"Circular placeholder reference '" + originalPlaceholder + "' in property definitions");
+		}
+		// Recursive invocation, parsing placeholders contained in the placeholder key.
+		String placeholder = parseStringValue(originalPlaceholder, placeholderResolver, visitedPlaceholders);
+		// Now obtain the value for the fully resolved key...
+		String propVal = placeholderResolver.resolvePlaceholder(placeholder);
+		if (propVal == null && this.valueSeparator != null) {
+			int separatorIndex = placeholder.indexOf(this.valueSeparator);
+			if (separatorIndex != -1) {
+				String actualPlaceholder = placeholder.substring(0, separatorIndex);
+				String defaultValue = placeholder.substring(separatorIndex + this.valueSeparator.length());
+				propVal = placeholderResolver.resolvePlaceholder(actualPlaceholder);
+				if (propVal == null) {
+					propVal = defaultValue;
+				}
+			}
+		}
+		if (propVal != null) {
+			// Recursive invocation, parsing placeholders contained in the
+			// previously resolved placeholder value.
+			propVal = parseStringValue(propVal, placeholderResolver, visitedPlaceholders);
+			if (logger.isTraceEnabled()) {
+				logger.trace("Resolved placeholder '" + placeholder + "'");
+			}
+		}
+		else if (this.ignoreUnresolvablePlaceholders) {
+			// Proceed with unprocessed value.
+			propVal = part.text;
+		}
+		else {
+			throw new IllegalArgumentException("Could not resolve placeholder '" +
+					placeholder + "'" + " in value \"" + template.value + "\"");
+		}
+		visitedPlaceholders.remove(originalPlaceholder);
+		return propVal;
+	}
+
 	private int findPlaceholderEndIndex(CharSequence buf, int startIndex) {
 		int index = startIndex + this.placeholderPrefix.length();
 		int withinNestedPlaceholder = 0;
@@ -207,6 +330,41 @@ public class PropertyPlaceholderHelper {
 	}
 
 
+	/**
+	 * A parsed value: literal Strings and {@link Placeholder} parts,
+	 * or no parts at all if the value does not contain any placeholder.
+	 */
+	private static final class Template {
+
+		final String value;
+
+		final Object[] parts;
+
+		Template(String value, Object[] parts) {
+			this.value = value;
+			this.parts = parts;
+		}
+	}
+
+
+	/**
+	 * A placeholder within a {@link Template}.
+	 */
+	private static final class Placeholder {
+
+		/** The placeholder key, possibly containing nested placeholders. */
+		final String placeholder;
+
+		/** The original text, including prefix and suffix. */
+		final String text;
+
+		Placeholder(String placeholder, String text) {
+			this.placeholder = placeholder;
+			this.text = text;
+		}
+	}
+
+
 	/**
 	 * Strategy interface used to resolve replacement values for placeholders contained in Strings.
 	 */
@@ -1333,6 +1333,57 @@ public class ResolvableTypeTests {
 		assertThat(type.resolveGeneric(), equalTo(Integer.class));
 	}
 
+	@Test
+	public void canonicalInstances() throws Exception {
+		assertSame(ResolvableType.forClass(String.class), ResolvableType.forClass(String.class));
+		assertSame(ResolvableType.forClass(String.class), ResolvableType.forType(String.class));
+		assertSame(ResolvableType.forClass(null), ResolvableType.forClass(Object.class));
+		Type listType = Fields.class.getField("stringList").getGenericType();
+		ResolvableType type = ResolvableType.forType(listType);
+		assertSame(type, ResolvableType.forType(listType));
+		assertThat(type.resolveGeneric(), equalTo(String.class));
+
+		ResolvableType fieldType = ResolvableType.forField(Fields.class.getField("stringList"));
+		assertNotSame(type, fieldType);
+		assertThat(fieldType.getSource(), equalTo(Fields.class.getField("stringList")));
+		assertNotSame(ResolvableType.forRawClass(String.class), ResolvableType.forRawClass(String.class));
+	}
+
+	@Test
+	public void cachedAssignability() throws Exception {
+		ResolvableType charSequenceList = ResolvableType.forField(Fields.class.getField("charSequenceList"));
+		ResolvableType stringList = ResolvableType.forField(Fields.class.getField("stringList"));
+		ResolvableType.CacheStatistics before = ResolvableType.getCacheStatistics();
+		for (int i = 0; i < 3; i++) {
+			assertFalse(charSequenceList.isAssignableFrom(stringList));
+			assertTrue(charSequenceList.isAssignableFrom(charSequenceList));
+			assertTrue(ResolvableType.forClass(CharSequence.class).isAssignableFrom(String.class));
+			assertTrue(ResolvableType.forRawClass(List.class).isAssignableFrom(stringList));
+		}
+		ResolvableType.CacheStatistics after = ResolvableType.getCacheStatistics();
+		assertTrue(after.getAssignabilityHitCount() - before.getAssignabilityHitCount() >= 6);
+		assertTrue(after.getCanonicalTypeHitCount() > before.getCanonicalTypeHitCount());
+
+		ResolvableType.clearCache();
+		assertEquals(0, ResolvableType.getCacheStatistics().getAssignabilityCount());
+		assertFalse(charSequenceList.isAssignableFrom(stringList));
+	}
+
+	@Test
+	public void noCachingForClassesFromChildClassLoader() throws Exception {
+		ClassLoader childClassLoader = new OverridingClassLoader(getClass().getClassLoader());
+		Class<?> childClass = childClassLoader.loadClass(Fields.class.getName());
+		assertNotSame(Fields.class, childClass);
+		assertNotSame(ResolvableType.forClass(childClass), ResolvableType.forClass(childClass));
+		assertSame(ResolvableType.forClass(Fields.class), ResolvableType.forClass(Fields.class));
+
+		ResolvableType.clearCache();
+		ResolvableType childType = ResolvableType.forClass(childClass);
+		assertTrue(childType.isAssignableFrom(childType));
+		assertTrue(ResolvableType.forClass(Object.class).isAssignableFrom(childType));
+		assertEquals(0, ResolvableType.getCacheStatistics().getAssignabilityCount());
+	}
+
 
 	private ResolvableType testSerialization(ResolvableType type) throws Exception {
 		ByteArrayOutputStream bos = new ByteArrayOutputStream();
@@ -475,6 +475,41 @@ public class AnnotatedElementUtilsTests {
 		assertArrayEquals("value", expected, attributes.getStringArray("value"));
 	}
 
+	@Test
+	public void mergedAnnotationAttributesAreCachedAsIndependentCopies() {
+		Class<?> element = SubClassWithInheritedComposedAnnotation.class;
+		AnnotationAttributes attributes = getMergedAnnotationAttributes(element, Transactional.class);
+		assertNotNull(attributes);
+		assertEquals("composed2", attributes.getString("qualifier"));
+		attributes.put("qualifier", "modified");
+
+		AnnotationAttributes cachedAttributes = getMergedAnnotationAttributes(element, Transactional.class);
+		assertNotSame(attributes, cachedAttributes);
+		assertEquals("composed2", cachedAttributes.getString("qualifier"));
+		assertTrue(cachedAttributes.getBoolean("readOnly"));
+		assertEquals(Transactional.class, cachedAttributes.annotationType());
+	}
+
+	@Test
+	public void mergedAnnotationIsCached() {
+		Class<?> element = SubClassWithInheritedComposedAnnotation.class;
+		Transactional transactional = findMergedAnnotation(element, Transactional.class);
+		assertNotNull(transactional);
+		assertThat(transactional, instanceOf(SynthesizedAnnotation.class));
+		assertEquals("composed2", transactional.qualifier());
+		assertTrue(transactional.readOnly());
+		assertSame(transactional, findMergedAnnotation(element, Transactional.class));
+		assertNull(findMergedAnnotation(element, Order.class));
+		assertNull(findMergedAnnotation(element, Order.class));
+	}
+
+	@Test
+	public void mergedAnnotationCacheClearedWhenAddingSearchFilter() {
+		assertNotNull(findMergedAnnotation(SubMergedSearchFilteredClass.class, Order.class));
+		AnnotationUtils.addSearchFilter(type -> type == MergedSearchFilteredClass.class);
+		assertNull(findMergedAnnotation(SubMergedSearchFilteredClass.class, Order.class));
+	}
+
 	@Test
 	public void findMergedAnnotationAttributesOnInheritedAnnotationInterface() {
 		AnnotationAttributes attributes = findMergedAnnotationAttributes(InheritedAnnotationInterface.class, Transactional.class);
@@ -1291,6 +1326,16 @@ public class AnnotatedElementUtilsTests {
 	static class ResourceHolder {
 	}
 
+	@Order(1)
+	static class MergedSearchFilterBaseClass {
+	}
+
+	static class MergedSearchFilteredClass extends MergedSearchFilterBaseClass {
+	}
+
+	static class SubMergedSearchFilteredClass extends MergedSearchFilteredClass {
+	}
+
 	interface TransactionalService {
 
 		@Transactional
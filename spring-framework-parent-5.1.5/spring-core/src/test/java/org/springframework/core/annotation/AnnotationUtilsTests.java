@@ -17,12 +17,15 @@
 package org.springframework.core.annotation;
 
 import java.lang.annotation.Annotation;
+import java.lang.annotation.Documented;
 import java.lang.annotation.Inherited;
 import java.lang.annotation.Repeatable;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -306,6 +309,32 @@ public class AnnotationUtilsTests {
 		assertNotNull("Should find @Order on SubSubNonInheritedAnnotationInterface", order);
 	}
 
+	@Test
+	public void findAnnotationStopsAtJavaTypes() throws Exception {
+		long filteredSearchCount = getSearchStatistics().getFilteredSearchCount();
+		assertNull(findAnnotation(ArrayList.class, Order.class));
+		assertNull(findAnnotation(ArrayList.class.getMethod("size"), Order.class));
+		assertEquals(filteredSearchCount + 2, getSearchStatistics().getFilteredSearchCount());
+
+		// Directly present annotations are still found
+		assertNotNull(findAnnotation(Deprecated.class, Documented.class));
+	}
+
+	@Test
+	public void findAnnotationStopsAtAnnotationFreeHierarchy() {
+		long annotationFreeSearchCount = getSearchStatistics().getAnnotationFreeSearchCount();
+		assertNull(findAnnotation(NonAnnotatedClass.class, Order.class));
+		assertNull(findAnnotation(NonAnnotatedClass.class, Order.class));
+		assertEquals(annotationFreeSearchCount + 2, getSearchStatistics().getAnnotationFreeSearchCount());
+	}
+
+	@Test
+	public void findAnnotationWithSearchFilter() {
+		addSearchFilter(type -> type == SearchFilteredClass.class);
+		assertNull(findAnnotation(SubSearchFilteredClass.class, Order.class));
+		assertNotNull(findAnnotation(SearchFilteredClass.class.getSuperclass(), Order.class));
+	}
+
 	@Test
 	public void findAnnotationDeclaringClassForAllScenarios() {
 		// no class-level annotation
@@ -1009,6 +1038,36 @@ public class AnnotationUtilsTests {
 		assertArrayEquals("actual value attribute: ", asArray("/test"), synthesizedWebMapping2.value());
 	}
 
+	@Test
+	public void synthesizeAnnotationAsJdkProxyByDefault() throws Exception {
+		Method method = WebController.class.getMethod("handleMappedWithValueAttribute");
+		WebMapping synthesizedWebMapping = synthesizeAnnotation(method.getAnnotation(WebMapping.class));
+		assertTrue(Proxy.isProxyClass(synthesizedWebMapping.getClass()));
+		assertThat(synthesizedWebMapping, instanceOf(SynthesizedAnnotation.class));
+	}
+
+	@Test
+	public void synthesizeAnnotationAsGeneratedClass() throws Exception {
+		Method method = WebController.class.getMethod("handleMappedWithValueAttribute");
+		WebMapping webMapping = method.getAnnotation(WebMapping.class);
+		WebMapping synthesizedWebMapping = generateSynthesizedAnnotation(webMapping, method);
+
+		assertFalse(Proxy.isProxyClass(synthesizedWebMapping.getClass()));
+		assertThat(synthesizedWebMapping, instanceOf(AbstractSynthesizedAnnotation.class));
+		Class<?> generatedClass = synthesizedWebMapping.getClass();
+		assertSame(AbstractSynthesizedAnnotation.class.getClassLoader(), generatedClass.getClassLoader());
+		assertSame(AbstractSynthesizedAnnotation.class.getPackage(), generatedClass.getPackage());
+		assertSame(generatedClass, generateSynthesizedAnnotation(webMapping, method).getClass());
+		assertEquals(WebMapping.class, synthesizedWebMapping.annotationType());
+		assertEquals("foo", synthesizedWebMapping.name());
+		assertArrayEquals(asArray("/test"), synthesizedWebMapping.path());
+		assertEquals(0, synthesizedWebMapping.method().length);
+		assertEquals(webMapping.name(), synthesizedWebMapping.name());
+		assertEquals(synthesizedWebMapping, synthesizeAnnotation(webMapping));
+		assertEquals(synthesizedWebMapping.hashCode(), synthesizeAnnotation(webMapping).hashCode());
+		assertThat(synthesizedWebMapping.toString(), startsWith("@" + WebMapping.class.getName() + "("));
+	}
+
 	@Test
 	public void synthesizeAnnotationWithImplicitAliases() throws Exception {
 		assertAnnotationSynthesisWithImplicitAliases(ValueImplicitAliasesContextConfigClass.class, "value");
@@ -1017,6 +1076,15 @@ public class AnnotationUtilsTests {
 		assertAnnotationSynthesisWithImplicitAliases(GroovyImplicitAliasesContextConfigClass.class, "groovyScript");
 	}
 
+	@SuppressWarnings("unchecked")
+	private static <A extends Annotation> A generateSynthesizedAnnotation(A annotation, Method method) {
+		SynthesizedAnnotationInvocationHandler handler = new SynthesizedAnnotationInvocationHandler(
+				new DefaultAnnotationAttributeExtractor(annotation, method));
+		A generated = SynthesizedAnnotationGenerator.newInstance((Class<A>) annotation.annotationType(), handler);
+		assertNotNull(generated);
+		return generated;
+	}
+
 	private void assertAnnotationSynthesisWithImplicitAliases(Class<?> clazz, String expected) throws Exception {
 		ImplicitAliasesContextConfig config = clazz.getAnnotation(ImplicitAliasesContextConfig.class);
 		assertNotNull(config);
@@ -1740,6 +1808,16 @@ public class AnnotationUtilsTests {
 	public interface SubSubNonInheritedAnnotationInterface extends SubNonInheritedAnnotationInterface {
 	}
 
+	@Order(1)
+	static class SearchFilterBaseClass {
+	}
+
+	static class SearchFilteredClass extends SearchFilterBaseClass {
+	}
+
+	static class SubSearchFilteredClass extends SearchFilteredClass {
+	}
+
 	public static class NonAnnotatedClass {
 	}
 
@@ -640,6 +640,95 @@ public class GenericConversionServiceTests {
 				conversionService.convert("test", TypeDescriptor.valueOf(String.class), new TypeDescriptor(getClass().getField("integerCollection"))));
 	}
 
+	@Test
+	public void frozenConversionService() {
+		DefaultConversionService.addDefaultConverters(conversionService);
+		conversionService.freeze();
+		assertTrue(conversionService.isFrozen());
+
+		for (int i = 0; i < 2; i++) {
+			assertEquals(Integer.valueOf(3), conversionService.convert("3", Integer.class));
+			assertEquals(Long.valueOf(3), conversionService.convert(3, Long.class));
+			assertEquals("3", conversionService.convert(3, String.class));
+			assertEquals(Boolean.TRUE, conversionService.convert("yes", Boolean.class));
+			assertEquals(Arrays.asList("1", "2"), conversionService.convert("1,2", List.class));
+			assertTrue(conversionService.canConvert(String.class, Integer.class));
+			assertFalse(conversionService.canConvert(String.class, Runnable.class));
+		}
+		assertNull(conversionService.convert(null, Integer.class));
+		try {
+			conversionService.convert("3", Runnable.class);
+			fail("Should have thrown ConverterNotFoundException");
+		}
+		catch (ConverterNotFoundException ex) {
+			// expected
+		}
+		try {
+			conversionService.convert("x", Integer.class);
+			fail("Should have thrown ConversionFailedException");
+		}
+		catch (ConversionFailedException ex) {
+			assertTrue(ex.getCause() instanceof NumberFormatException);
+		}
+	}
+
+	@Test
+	public void frozenConversionServiceWithGenericAndAnnotatedTypes() throws Exception {
+		DefaultConversionService.addDefaultConverters(conversionService);
+		conversionService.addConverter(new ColorConverter());
+		conversionService.addConverter(new MyConditionalColorConverter());
+		conversionService.freeze();
+
+		assertEquals(Color.BLACK, conversionService.convert("#000000", Color.class));
+		assertEquals(Color.BLACK, conversionService.convert("000000xxxx",
+				new TypeDescriptor(getClass().getField("activeColor"))));
+		assertEquals(Color.BLACK, conversionService.convert(" #000000 ",
+				new TypeDescriptor(getClass().getField("inactiveColor"))));
+		assertEquals(Collections.singletonList(1), conversionService.convert("1",
+				TypeDescriptor.valueOf(String.class), new TypeDescriptor(getClass().getField("list"))));
+	}
+
+	@Test
+	public void frozenConversionServiceSubclassOverridingConvert() {
+		List<Object> convertedValues = new ArrayList<>();
+		GenericConversionService conversionService = new GenericConversionService() {
+			@Override
+			public Object convert(@Nullable Object source, @Nullable TypeDescriptor sourceType,
+					TypeDescriptor targetType) {
+				convertedValues.add(source);
+				return super.convert(source, sourceType, targetType);
+			}
+		};
+		conversionService.addConverterFactory(new StringToNumberConverterFactory());
+		conversionService.freeze();
+
+		for (int i = 0; i < 2; i++) {
+			assertEquals(Integer.valueOf(3), conversionService.convert("3", Integer.class));
+		}
+		assertEquals(Arrays.asList("3", "3"), convertedValues);
+	}
+
+	@Test
+	public void frozenConversionServiceRejectsModification() {
+		conversionService.addConverterFactory(new StringToNumberConverterFactory());
+		conversionService.freeze();
+		try {
+			conversionService.addConverter(new ColorConverter());
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			// expected
+		}
+		try {
+			conversionService.removeConvertible(String.class, Number.class);
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			// expected
+		}
+		assertEquals(Integer.valueOf(3), conversionService.convert("3", Integer.class));
+	}
+
 
 	@ExampleAnnotation(active = true)
 	public String annotatedString;
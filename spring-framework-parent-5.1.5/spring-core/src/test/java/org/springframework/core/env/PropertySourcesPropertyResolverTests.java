@@ -16,6 +16,7 @@
 
 package org.springframework.core.env;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
@@ -367,4 +368,68 @@ public class PropertySourcesPropertyResolverTests {
 		}
 	}
 
+	@Test
+	public void indexedLookupPreservesPrecedence() {
+		PropertySourcesPropertyResolver resolver = new PropertySourcesPropertyResolver(propertySources);
+		resolver.setPropertyIndexing(true);
+		testProperties.put("foo", "fromTestProperties");
+		testProperties.put("bar", "${foo}-bar");
+		propertySources.addFirst(new PropertySource<Object>("opaque") {
+			@Override
+			public Object getProperty(String name) {
+				return ("foo".equals(name) || "baz".equals(name) ? "fromOpaque" : null);
+			}
+		});
+		propertySources.addLast(new SystemEnvironmentPropertySource("env",
+				Collections.<String, Object>singletonMap("QUX_VALUE", "fromEnv")));
+
+		assertThat(resolver.getProperty("foo"), equalTo("fromOpaque"));
+		assertThat(resolver.getProperty("bar"), equalTo("fromOpaque-bar"));
+		assertThat(resolver.getProperty("qux.value"), equalTo("fromEnv"));
+		assertThat(resolver.getProperty("missing"), nullValue());
+		assertThat(resolver.containsProperty("bar"), is(true));
+		assertThat(resolver.containsProperty("baz"), is(true));
+		assertThat(resolver.containsProperty("missing"), is(false));
+		assertThat(resolver.containsProperty("qux.value"), is(true));
+	}
+
+	@Test
+	public void indexRebuiltWhenPropertySourcesChange() {
+		PropertySourcesPropertyResolver resolver = new PropertySourcesPropertyResolver(propertySources);
+		resolver.setPropertyIndexing(true);
+		testProperties.put("foo", "bar");
+		assertThat(resolver.getProperty("foo"), equalTo("bar"));
+		assertThat(resolver.getProperty("baz"), nullValue());
+
+		propertySources.addFirst(new MockPropertySource("first").withProperty("foo", "first"));
+		assertThat(resolver.getProperty("foo"), equalTo("first"));
+		propertySources.addLast(new MockPropertySource("last").withProperty("baz", "last"));
+		assertThat(resolver.getProperty("baz"), equalTo("last"));
+		propertySources.replace("first", new MockPropertySource("first").withProperty("foo", "replaced"));
+		assertThat(resolver.getProperty("foo"), equalTo("replaced"));
+		propertySources.remove("first");
+		assertThat(resolver.getProperty("foo"), equalTo("bar"));
+
+		// Changes within a property source require explicit invalidation
+		testProperties.put("foo", "changed");
+		assertThat(resolver.getProperty("foo"), equalTo("bar"));
+		resolver.clearPropertyIndex();
+		assertThat(resolver.getProperty("foo"), equalTo("changed"));
+	}
+
+	@Test
+	public void indexedLookupWithConversion() {
+		PropertySourcesPropertyResolver resolver = new PropertySourcesPropertyResolver(propertySources);
+		resolver.setPropertyIndexing(true);
+		testProperties.put("number", "42");
+		testProperties.put("list", "a,b");
+		assertThat(resolver.getProperty("number", Integer.class), equalTo(42));
+		assertThat(resolver.getProperty("number", Long.class), equalTo(42L));
+		assertThat(resolver.getProperty("number"), equalTo("42"));
+		String[] list = resolver.getProperty("list", String[].class);
+		assertThat(list, equalTo(new String[] {"a", "b"}));
+		// Mutable values are not cached
+		assertThat(resolver.getProperty("list", String[].class), not(sameInstance(list)));
+	}
+
 }
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.support;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.core.io.Resource;
+import org.springframework.util.FileCopyUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link MappedJarFile}.
+ *
+ * @since 5.1.6
+ */
+public class MappedJarFileTests {
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+
+	@Test
+	public void entriesByPrefix() throws IOException {
+		MappedJarFile jarFile = MappedJarFile.forFile(createJar());
+		assertNotNull(jarFile);
+		assertEquals(Arrays.asList("com/example/", "com/example/a.txt", "com/example/b.txt",
+				"com/example/sub/c.txt", "com/example/ä.txt"), names(jarFile.getEntries("com/example/")));
+		assertEquals(Arrays.asList("com/example/sub/c.txt"), names(jarFile.getEntries("com/example/sub/")));
+		assertEquals(7, jarFile.getEntries("").size());
+		assertTrue(jarFile.getEntries("org/").isEmpty());
+		assertTrue(jarFile.getEntries("zzz").isEmpty());
+	}
+
+	@Test
+	public void storedAndDeflatedContent() throws IOException {
+		MappedJarFile jarFile = MappedJarFile.forFile(createJar());
+		assertNotNull(jarFile);
+		for (MappedJarFile.Entry entry : jarFile.getEntries("com/example/")) {
+			if (!entry.isDirectory()) {
+				byte[] content = new byte[(int) entry.getSize()];
+				entry.getContent().get(content);
+				assertEquals(entry.getName(), contentFor(entry.getName()), new String(content, StandardCharsets.UTF_8));
+			}
+		}
+	}
+
+	@Test
+	public void cachedUntilModified() throws IOException {
+		File file = createJar();
+		MappedJarFile jarFile = MappedJarFile.forFile(file);
+		assertSame(jarFile, MappedJarFile.forFile(file));
+		assertTrue(file.setLastModified(file.lastModified() - 10000));
+		assertNotSame(jarFile, MappedJarFile.forFile(file));
+	}
+
+	@Test
+	public void staleMappingReleasedWhenModified() throws IOException {
+		File file = createJar();
+		MappedJarFile jarFile = MappedJarFile.forFile(file);
+		assertNotNull(jarFile);
+		MappedJarFile.Entry entry = jarFile.getEntries("com/example/a.txt").get(0);
+		assertTrue(entry.isReadable());
+		assertTrue(file.setLastModified(file.lastModified() - 10000));
+
+		MappedJarFile newJarFile = MappedJarFile.forFile(file);
+		assertNotNull(newJarFile);
+		assertFalse(newJarFile.isReleased());
+		assertTrue(jarFile.isReleased());
+		assertFalse(entry.isReadable());
+		try {
+			entry.getContent();
+			fail("Should have thrown ZipException");
+		}
+		catch (ZipException ex) {
+			// expected
+		}
+	}
+
+	@Test
+	public void invalidJarFile() throws IOException {
+		File file = this.temporaryFolder.newFile("invalid.jar");
+		FileCopyUtils.copy(new byte[100], file);
+		assertNull(MappedJarFile.forFile(file));
+	}
+
+	@Test
+	public void resolverWithMappedJarScanning() throws IOException {
+		File file = createJar();
+		ClassLoader classLoader = new URLClassLoader(new URL[] {file.toURI().toURL()}, null);
+		PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver(classLoader);
+		resolver.setMappedJarScanning(true);
+		Resource[] resources = resolver.getResources("classpath*:com/example/**/*.txt");
+		assertEquals(4, resources.length);
+		for (Resource resource : resources) {
+			assertTrue(resource instanceof MappedJarFile.MappedJarEntryResource);
+			String entryName = resource.getURL().getFile().substring(resource.getURL().getFile().indexOf("!/") + 2);
+			assertEquals(contentFor(entryName), new String(
+					FileCopyUtils.copyToByteArray(resource.getInputStream()), StandardCharsets.UTF_8));
+			assertEquals(contentFor(entryName).getBytes(StandardCharsets.UTF_8).length, resource.contentLength());
+		}
+	}
+
+
+	private File createJar() throws IOException {
+		File file = this.temporaryFolder.newFile();
+		try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(file.toPath()))) {
+			out.setComment("Test jar");
+			addEntry(out, "com/example/", ZipEntry.STORED);
+			addEntry(out, "com/example/b.txt", ZipEntry.DEFLATED);
+			addEntry(out, "com/example/a.txt", ZipEntry.STORED);
+			addEntry(out, "com/example/ä.txt", ZipEntry.DEFLATED);
+			addEntry(out, "com/example/sub/c.txt", ZipEntry.DEFLATED);
+			addEntry(out, "com/other.txt", ZipEntry.STORED);
+			addEntry(out, "root.txt", ZipEntry.DEFLATED);
+		}
+		return file;
+	}
+
+	private static void addEntry(JarOutputStream out, String name, int method) throws IOException {
+		byte[] content = (name.endsWith("/") ? new byte[0] : contentFor(name).getBytes(StandardCharsets.UTF_8));
+		ZipEntry entry = new ZipEntry(name);
+		entry.setMethod(method);
+		if (method == ZipEntry.STORED) {
+			CRC32 crc = new CRC32();
+			crc.update(content);
+			entry.setCrc(crc.getValue());
+			entry.setSize(content.length);
+		}
+		out.putNextEntry(entry);
+		out.write(content);
+		out.closeEntry();
+	}
+
+	private static String contentFor(String name) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 50; i++) {
+			sb.append(name).append(' ').append(i).append('\n');
+		}
+		return sb.toString();
+	}
+
+	private static List<String> names(List<MappedJarFile.Entry> entries) {
+		List<String> names = new ArrayList<>();
+		for (MappedJarFile.Entry entry : entries) {
+			names.add(entry.getName());
+		}
+		return names;
+	}
+
+}
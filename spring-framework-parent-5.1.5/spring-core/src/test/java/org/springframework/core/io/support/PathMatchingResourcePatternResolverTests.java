@@ -20,12 +20,15 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 
 import org.junit.Ignore;
 import org.junit.Test;
 
 import org.springframework.core.io.Resource;
+import org.springframework.core.io.UrlResource;
+import org.springframework.util.FileCopyUtils;
 import org.springframework.util.StringUtils;
 
 import static org.junit.Assert.*;
@@ -106,6 +109,20 @@ public class PathMatchingResourcePatternResolverTests {
 		assertProtocolAndFilenames(resources, "jar", CLASSES_IN_REACTIVESTREAMS);
 	}
 
+	@Test
+	public void classpathStarWithPatternInMappedJar() throws IOException {
+		Resource[] expected = resolver.getResources("classpath*:org/reactivestreams/*.class");
+		resolver.setMappedJarScanning(true);
+		Resource[] resources = resolver.getResources("classpath*:org/reactivestreams/*.class");
+		assertProtocolAndFilenames(resources, "jar", CLASSES_IN_REACTIVESTREAMS);
+		assertEquals(new HashSet<>(Arrays.asList(expected)), new HashSet<>(Arrays.asList(resources)));
+		for (Resource resource : resources) {
+			assertTrue(resource.isReadable());
+			assertArrayEquals(FileCopyUtils.copyToByteArray(new UrlResource(resource.getURL()).getInputStream()),
+					FileCopyUtils.copyToByteArray(resource.getInputStream()));
+		}
+	}
+
 	@Test
 	public void rootPatternRetrievalInJarFiles() throws IOException {
 		Resource[] resources = resolver.getResources("classpath*:*.dtd");
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.ObjectUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link ClassMetadataIndex}.
+ *
+ * @since 5.1.6
+ */
+public class ClassMetadataIndexTests {
+
+	private static final String ANNOTATED_COMPONENT =
+			"org.springframework.core.type.AnnotationMetadataTests$AnnotatedComponent";
+
+	private static final String ANNOTATED_COMPONENT_SUBCLASS =
+			"org.springframework.core.type.AnnotationMetadataTests$AnnotatedComponentSubClass";
+
+	private static final String[] INDEXED_CLASSES = {ANNOTATED_COMPONENT, ANNOTATED_COMPONENT_SUBCLASS,
+			ClassMetadataIndexTests.class.getName(), PrimitiveAttributesComponent.class.getName()};
+
+	private static final String[] METHOD_ANNOTATIONS = {TestAnnotation.class.getName(),
+			"org.springframework.core.type.TestAutowired",
+			"org.springframework.core.type.AnnotationMetadataTests$DirectAnnotation",
+			"org.springframework.core.type.AnnotationMetadataTests$MetaAnnotation"};
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+
+	@Test
+	public void indexedMetadataMatchesClassFile() throws IOException {
+		ClassLoader classLoader = createIndexedClassLoader(INDEXED_CLASSES);
+		MetadataReaderFactory indexedFactory = new SimpleMetadataReaderFactory(classLoader);
+		MetadataReaderFactory classFileFactory = new SimpleMetadataReaderFactory(getClass().getClassLoader());
+		for (String className : INDEXED_CLASSES) {
+			MetadataReader indexedReader = indexedFactory.getMetadataReader(className);
+			assertTrue(indexedReader instanceof IndexedMetadataReader);
+			assertEquals(ClassUtils.convertClassNameToResourcePath(className) + ClassUtils.CLASS_FILE_SUFFIX,
+					((ClassPathResource) indexedReader.getResource()).getPath());
+			assertSameMetadata(classFileFactory.getMetadataReader(className).getAnnotationMetadata(),
+					indexedReader.getAnnotationMetadata());
+		}
+	}
+
+	@Test
+	public void primitiveAttributeValues() throws IOException {
+		ClassLoader classLoader = createIndexedClassLoader(PrimitiveAttributesComponent.class.getName());
+		MetadataReader reader = new SimpleMetadataReaderFactory(classLoader)
+				.getMetadataReader(PrimitiveAttributesComponent.class.getName());
+		assertTrue(reader instanceof IndexedMetadataReader);
+		Map<String, Object> attributes =
+				reader.getAnnotationMetadata().getAnnotationAttributes(PrimitiveAttributes.class.getName());
+		assertEquals('x', attributes.get("character"));
+		assertEquals(Long.MAX_VALUE, attributes.get("longValue"));
+		assertEquals(0.5d, attributes.get("doubleValue"));
+		assertArrayEquals(new int[] {1, 2, 3}, (int[]) attributes.get("ints"));
+		assertArrayEquals(new byte[] {4, 5}, (byte[]) attributes.get("bytes"));
+		assertTrue(Arrays.equals(new boolean[] {true, false}, (boolean[]) attributes.get("booleans")));
+	}
+
+	@Test
+	public void classNotInIndexReadFromClassFile() throws IOException {
+		ClassLoader classLoader = createIndexedClassLoader(ANNOTATED_COMPONENT);
+		MetadataReader reader = new SimpleMetadataReaderFactory(classLoader)
+				.getMetadataReader(ANNOTATED_COMPONENT_SUBCLASS);
+		assertFalse(reader instanceof IndexedMetadataReader);
+		assertEquals(ANNOTATED_COMPONENT, reader.getClassMetadata().getSuperClassName());
+	}
+
+	@Test
+	public void cachingFactoryUsesIndex() throws IOException {
+		ClassLoader classLoader = createIndexedClassLoader(ANNOTATED_COMPONENT);
+		CachingMetadataReaderFactory factory = new CachingMetadataReaderFactory(classLoader);
+		MetadataReader reader = factory.getMetadataReader(ANNOTATED_COMPONENT);
+		assertTrue(reader instanceof IndexedMetadataReader);
+		assertSame(reader, factory.getMetadataReader(ANNOTATED_COMPONENT));
+	}
+
+	@Test
+	public void writeIndexForDirectory() throws IOException {
+		File classesDirectory = this.temporaryFolder.newFolder("classes");
+		for (String className : INDEXED_CLASSES) {
+			String resourcePath = ClassUtils.convertClassNameToResourcePath(className) + ClassUtils.CLASS_FILE_SUFFIX;
+			File classFile = new File(classesDirectory, resourcePath);
+			Files.createDirectories(classFile.getParentFile().toPath());
+			FileCopyUtils.copy(new ClassPathResource(resourcePath).getInputStream(),
+					Files.newOutputStream(classFile.toPath()));
+		}
+		ClassMetadataIndex.writeIndex(classesDirectory);
+		assertTrue(new File(classesDirectory, ClassMetadataIndex.INDEX_LOCATION).isFile());
+
+		ClassLoader classLoader = new URLClassLoader(new URL[] {classesDirectory.toURI().toURL()}, null);
+		ClassMetadataIndex index = ClassMetadataIndex.loadIndex(classLoader);
+		assertNotNull(index);
+		assertEquals(INDEXED_CLASSES.length, index.getClassNames().size());
+		for (String className : INDEXED_CLASSES) {
+			assertTrue(index.containsClass(className));
+		}
+	}
+
+	@Test
+	public void noIndex() throws IOException {
+		ClassLoader classLoader = new URLClassLoader(new URL[] {this.temporaryFolder.newFolder().toURI().toURL()}, null);
+		assertNull(ClassMetadataIndex.loadIndex(classLoader));
+	}
+
+
+	private ClassLoader createIndexedClassLoader(String... classNames) throws IOException {
+		List<Resource> classResources = new ArrayList<>();
+		for (String className : classNames) {
+			classResources.add(new ClassPathResource(
+					ClassUtils.convertClassNameToResourcePath(className) + ClassUtils.CLASS_FILE_SUFFIX));
+		}
+		File root = this.temporaryFolder.newFolder();
+		File indexFile = new File(root, ClassMetadataIndex.INDEX_LOCATION);
+		Files.createDirectories(indexFile.getParentFile().toPath());
+		try (OutputStream out = Files.newOutputStream(indexFile.toPath())) {
+			ClassMetadataIndex.writeIndex(classResources, out);
+		}
+		return new URLClassLoader(new URL[] {root.toURI().toURL()}, getClass().getClassLoader());
+	}
+
+	private static void assertSameMetadata(AnnotationMetadata expected, AnnotationMetadata actual) {
+		assertEquals(expected.getClassName(), actual.getClassName());
+		assertEquals(expected.isInterface(), actual.isInterface());
+		assertEquals(expected.isAnnotation(), actual.isAnnotation());
+		assertEquals(expected.isAbstract(), actual.isAbstract());
+		assertEquals(expected.isFinal(), actual.isFinal());
+		assertEquals(expected.isIndependent(), actual.isIndependent());
+		assertEquals(expected.getEnclosingClassName(), actual.getEnclosingClassName());
+		assertEquals(expected.getSuperClassName(), actual.getSuperClassName());
+		assertArrayEquals(expected.getInterfaceNames(), actual.getInterfaceNames());
+		assertArrayEquals(expected.getMemberClassNames(), actual.getMemberClassNames());
+		assertEquals(expected.getAnnotationTypes(), actual.getAnnotationTypes());
+		for (String annotationType : expected.getAnnotationTypes()) {
+			assertEquals(expected.getMetaAnnotationTypes(annotationType), actual.getMetaAnnotationTypes(annotationType));
+			assertEquals(toString(expected.getAnnotationAttributes(annotationType)),
+					toString(actual.getAnnotationAttributes(annotationType)));
+			assertEquals(toString(expected.getAnnotationAttributes(annotationType, true)),
+					toString(actual.getAnnotationAttributes(annotationType, true)));
+		}
+		for (String annotationType : METHOD_ANNOTATIONS) {
+			assertEquals(expected.hasAnnotatedMethods(annotationType), actual.hasAnnotatedMethods(annotationType));
+			assertSameMethods(expected.getAnnotatedMethods(annotationType), actual.getAnnotatedMethods(annotationType));
+		}
+	}
+
+	private static void assertSameMethods(Set<MethodMetadata> expected, Set<MethodMetadata> actual) {
+		assertEquals(expected.size(), actual.size());
+		List<MethodMetadata> actualMethods = new ArrayList<>(actual);
+		int i = 0;
+		for (MethodMetadata expectedMethod : expected) {
+			MethodMetadata actualMethod = actualMethods.get(i++);
+			assertEquals(expectedMethod.getMethodName(), actualMethod.getMethodName());
+			assertEquals(expectedMethod.getReturnTypeName(), actualMethod.getReturnTypeName());
+			assertEquals(expectedMethod.isStatic(), actualMethod.isStatic());
+			for (String annotationType : METHOD_ANNOTATIONS) {
+				assertEquals(toString(expectedMethod.getAnnotationAttributes(annotationType)),
+						toString(actualMethod.getAnnotationAttributes(annotationType)));
+			}
+		}
+	}
+
+	private static String toString(@Nullable Map<String, Object> attributes) {
+		if (attributes == null) {
+			return "null";
+		}
+		StringBuilder sb = new StringBuilder();
+		attributes.forEach((name, value) ->
+				sb.append(name).append('=').append(ObjectUtils.nullSafeToString(value)).append(';'));
+		return sb.toString();
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	public @interface TestAnnotation {
+
+		String value() default "";
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	public @interface PrimitiveAttributes {
+
+		char character();
+
+		long longValue();
+
+		double doubleValue();
+
+		int[] ints();
+
+		byte[] bytes();
+
+		boolean[] booleans();
+	}
+
+
+	@PrimitiveAttributes(character = 'x', longValue = Long.MAX_VALUE, doubleValue = 0.5d,
+			ints = {1, 2, 3}, bytes = {4, 5}, booleans = {true, false})
+	public static class PrimitiveAttributesComponent {
+
+		@TestAnnotation("method")
+		public static String annotatedMethod() {
+			return "";
+		}
+	}
+
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import org.junit.Test;
+
+import org.springframework.asm.ClassReader;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ObjectUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link LazyAnnotationMetadata}.
+ *
+ * @since 5.1.6
+ */
+public class LazyAnnotationMetadataTests {
+
+	private static final String ANNOTATED_COMPONENT =
+			"org.springframework.core.type.AnnotationMetadataTests$AnnotatedComponent";
+
+
+	@Test
+	public void annotatedClassMatchesEagerlyReadMetadata() throws IOException {
+		AnnotationMetadata expected = readEagerly(ANNOTATED_COMPONENT);
+		AnnotationMetadata actual = new LazyAnnotationMetadata(classReader(ANNOTATED_COMPONENT), getClassLoader());
+		assertEquals(expected.getClassName(), actual.getClassName());
+		assertEquals(expected.getSuperClassName(), actual.getSuperClassName());
+		assertArrayEquals(expected.getInterfaceNames(), actual.getInterfaceNames());
+		assertArrayEquals(expected.getMemberClassNames(), actual.getMemberClassNames());
+		assertEquals(expected.isIndependent(), actual.isIndependent());
+		assertEquals(expected.getAnnotationTypes(), actual.getAnnotationTypes());
+		for (String annotationType : expected.getAnnotationTypes()) {
+			assertEquals(expected.getMetaAnnotationTypes(annotationType), actual.getMetaAnnotationTypes(annotationType));
+			assertEquals(expected.isAnnotated(annotationType), actual.isAnnotated(annotationType));
+			assertEquals(ObjectUtils.nullSafeToString(expected.getAnnotationAttributes(annotationType, true)),
+					ObjectUtils.nullSafeToString(actual.getAnnotationAttributes(annotationType, true)));
+		}
+		String autowired = "org.springframework.core.type.TestAutowired";
+		assertTrue(actual.hasAnnotatedMethods(autowired));
+		assertEquals(methodNames(expected.getAnnotatedMethods(autowired)),
+				methodNames(actual.getAnnotatedMethods(autowired)));
+	}
+
+	@Test
+	public void annotationAttributesReadOnDemand() throws IOException {
+		RecordingClassLoader classLoader = new RecordingClassLoader(getClassLoader());
+		AnnotationMetadata metadata = new LazyAnnotationMetadata(classReader(ANNOTATED_COMPONENT), classLoader);
+		assertTrue(metadata.hasAnnotation(Component.class.getName()));
+		assertFalse(metadata.getAnnotationTypes().isEmpty());
+		assertTrue(classLoader.loadedClassNames.isEmpty());
+
+		assertEquals("myName", metadata.getAnnotationAttributes(Component.class.getName()).get("value"));
+		assertTrue(classLoader.loadedClassNames.contains(Component.class.getName()));
+	}
+
+	@Test
+	public void classWithoutAnnotations() throws IOException {
+		String className = NonAnnotatedClass.class.getName();
+		AnnotationMetadata metadata = new LazyAnnotationMetadata(classReader(className), getClassLoader());
+		assertEquals(className, metadata.getClassName());
+		assertEquals(Collections.emptySet(), metadata.getAnnotationTypes());
+		assertFalse(metadata.isAnnotated(Component.class.getName()));
+		assertFalse(metadata.hasMetaAnnotation(Component.class.getName()));
+		assertNull(metadata.getAnnotationAttributes(Component.class.getName()));
+		assertNull(metadata.getAllAnnotationAttributes(Component.class.getName()));
+		assertFalse(metadata.hasAnnotatedMethods(Component.class.getName()));
+		assertTrue(metadata.getAnnotatedMethods(Component.class.getName()).isEmpty());
+	}
+
+	@Test
+	public void readFromReusedBuffer() throws IOException {
+		AnnotationMetadata expected = readEagerly(ANNOTATED_COMPONENT);
+		ClassFileBuffer buffer = ClassFileBuffer.acquire();
+		AnnotationMetadata annotated;
+		AnnotationMetadata nonAnnotated;
+		try {
+			read(buffer, ANNOTATED_COMPONENT);
+			annotated = new LazyAnnotationMetadata(buffer, getClassLoader());
+			read(buffer, NonAnnotatedClass.class.getName());
+			nonAnnotated = new LazyAnnotationMetadata(buffer, getClassLoader());
+			assertNotSame(buffer, ClassFileBuffer.acquire());
+		}
+		finally {
+			buffer.release();
+		}
+		assertSame(buffer, ClassFileBuffer.acquire());
+		buffer.release();
+
+		assertEquals(NonAnnotatedClass.class.getName(), nonAnnotated.getClassName());
+		assertEquals(Collections.emptySet(), nonAnnotated.getAnnotationTypes());
+		assertEquals(ANNOTATED_COMPONENT, annotated.getClassName());
+		assertEquals(expected.getAnnotationTypes(), annotated.getAnnotationTypes());
+		assertEquals("myName", annotated.getAnnotationAttributes(Component.class.getName()).get("value"));
+	}
+
+
+	private ClassLoader getClassLoader() {
+		return getClass().getClassLoader();
+	}
+
+	private static ClassReader classReader(String className) throws IOException {
+		String resourcePath = ClassUtils.convertClassNameToResourcePath(className) + ClassUtils.CLASS_FILE_SUFFIX;
+		try (InputStream is = new ClassPathResource(resourcePath).getInputStream()) {
+			return new ClassReader(is);
+		}
+	}
+
+	private static void read(ClassFileBuffer buffer, String className) throws IOException {
+		String resourcePath = ClassUtils.convertClassNameToResourcePath(className) + ClassUtils.CLASS_FILE_SUFFIX;
+		try (InputStream is = new ClassPathResource(resourcePath).getInputStream()) {
+			buffer.read(is);
+		}
+	}
+
+	private AnnotationMetadata readEagerly(String className) throws IOException {
+		AnnotationMetadataReadingVisitor visitor = new AnnotationMetadataReadingVisitor(getClassLoader());
+		classReader(className).accept(visitor, ClassReader.SKIP_DEBUG);
+		return visitor;
+	}
+
+	private static String methodNames(Set<MethodMetadata> methods) {
+		StringBuilder sb = new StringBuilder();
+		methods.forEach(method -> sb.append(method.getMethodName()).append(';'));
+		return sb.toString();
+	}
+
+
+	public static class NonAnnotatedClass {
+
+		public void method() {
+		}
+	}
+
+
+	private static class RecordingClassLoader extends ClassLoader {
+
+		final Set<String> loadedClassNames = new CopyOnWriteArraySet<>();
+
+		RecordingClassLoader(ClassLoader parent) {
+			super(parent);
+		}
+
+		@Override
+		protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+			this.loadedClassNames.add(name);
+			return super.loadClass(name, resolve);
+		}
+	}
+
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import org.junit.Test;
+
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.FileCopyUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link MetadataReaderCache}.
+ *
+ * @since 5.1.6
+ */
+public class MetadataReaderCacheTests {
+
+	private final ResourceLoader resourceLoader = new DefaultResourceLoader();
+
+	private final ClassLoader classLoader = this.resourceLoader.getClassLoader();
+
+
+	@Test
+	public void lookupByClassNameAndResource() throws Exception {
+		MetadataReaderCache cache = new MetadataReaderCache();
+		Resource resource = classResource(First.class);
+		MetadataReader metadataReader = new SimpleMetadataReaderFactory().getMetadataReader(resource);
+		assertNull(cache.get(resource, this.classLoader));
+
+		cache.put(metadataReader, this.classLoader);
+		assertSame(metadataReader, cache.get(resource, this.classLoader));
+		assertSame(metadataReader, cache.get(First.class.getName(), this.classLoader));
+		assertNull(cache.get(First.class.getName(), new DefaultResourceLoader().getClassLoader().getParent()));
+
+		MetadataReaderCache.Statistics statistics = cache.getStatistics();
+		assertEquals(1, statistics.getSize());
+		assertTrue(statistics.getWeight() > 0);
+		assertEquals(2, statistics.getHitCount());
+		assertEquals(2, statistics.getMissCount());
+		assertEquals(0.5, statistics.getHitRatio(), 0.0);
+	}
+
+	@Test
+	public void duplicateClassFileCachedByResource() throws Exception {
+		MetadataReaderCache cache = new MetadataReaderCache();
+		SimpleMetadataReaderFactory factory = new SimpleMetadataReaderFactory();
+		Resource resource = classResource(First.class);
+		Resource duplicate = new ByteArrayResource(FileCopyUtils.copyToByteArray(resource.getInputStream()));
+		MetadataReader metadataReader = factory.getMetadataReader(resource);
+		MetadataReader duplicateReader = factory.getMetadataReader(duplicate);
+
+		cache.put(metadataReader, this.classLoader);
+		cache.put(duplicateReader, this.classLoader);
+		assertEquals(2, cache.size());
+		assertSame(metadataReader, cache.get(resource, this.classLoader));
+		assertSame(duplicateReader, cache.get(duplicate, this.classLoader));
+		assertSame(metadataReader, cache.get(First.class.getName(), this.classLoader));
+
+		cache.clear();
+		assertEquals(0, cache.size());
+		assertNull(cache.get(First.class.getName(), this.classLoader));
+	}
+
+	@Test
+	public void evictsByWeight() throws Exception {
+		SimpleMetadataReaderFactory factory = new SimpleMetadataReaderFactory();
+		MetadataReader firstReader = factory.getMetadataReader(First.class.getName());
+		MetadataReader secondReader = factory.getMetadataReader(Second.class.getName());
+		MetadataReader thirdReader = factory.getMetadataReader(Third.class.getName());
+		long maximumWeight = MetadataReaderCache.estimateWeight(firstReader) +
+				MetadataReaderCache.estimateWeight(secondReader);
+		MetadataReaderCache cache = new MetadataReaderCache(maximumWeight);
+
+		cache.put(firstReader, this.classLoader);
+		cache.put(secondReader, this.classLoader);
+		assertEquals(2, cache.size());
+		assertNotNull(cache.get(First.class.getName(), this.classLoader));
+
+		cache.put(thirdReader, this.classLoader);
+		assertTrue(cache.getStatistics().getWeight() <= maximumWeight);
+		assertEquals(1, cache.getStatistics().getEvictionCount());
+		// Recently accessed entry gets a second chance
+		assertSame(firstReader, cache.get(First.class.getName(), this.classLoader));
+		assertNull(cache.get(classResource(Second.class), this.classLoader));
+	}
+
+	@Test
+	public void sharedAcrossFactories() throws Exception {
+		MetadataReaderCache cache = new MetadataReaderCache();
+		CachingMetadataReaderFactory factory1 = new CachingMetadataReaderFactory(this.resourceLoader, cache);
+		CachingMetadataReaderFactory factory2 = new CachingMetadataReaderFactory(new DefaultResourceLoader(), cache);
+		assertSame(cache, factory1.getMetadataReaderCache());
+
+		MetadataReader metadataReader = factory1.getMetadataReader(classResource(First.class));
+		assertSame(metadataReader, factory2.getMetadataReader(First.class.getName()));
+		assertSame(metadataReader, factory2.getMetadataReader(classResource(First.class)));
+
+		factory1.clearCache();
+		assertSame(cache, factory1.getMetadataReaderCache());
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.getStatistics().getWeight());
+		assertNotSame(metadataReader, factory2.getMetadataReader(classResource(First.class)));
+		assertEquals(1, cache.size());
+		cache.clear();
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void clearForClassLoader() throws Exception {
+		MetadataReaderCache cache = new MetadataReaderCache();
+		ClassLoader otherClassLoader = new URLClassLoader(new URL[0], this.classLoader);
+		MetadataReader metadataReader = new SimpleMetadataReaderFactory().getMetadataReader(classResource(First.class));
+		cache.put(metadataReader, this.classLoader);
+		cache.put(metadataReader, otherClassLoader);
+		assertEquals(2, cache.size());
+
+		cache.clear(this.classLoader);
+		assertEquals(1, cache.size());
+		assertNull(cache.get(First.class.getName(), this.classLoader));
+		assertSame(metadataReader, cache.get(First.class.getName(), otherClassLoader));
+		assertEquals(MetadataReaderCache.estimateWeight(metadataReader), cache.getStatistics().getWeight());
+	}
+
+	@Test
+	public void sharedInstanceIgnoresChildClassLoaders() throws Exception {
+		ClassLoader childClassLoader = new URLClassLoader(new URL[0], MetadataReaderCache.class.getClassLoader());
+		assertTrue(MetadataReaderCache.isSharedCacheSafe(MetadataReaderCache.class.getClassLoader()));
+		assertTrue(MetadataReaderCache.isSharedCacheSafe(ClassLoader.getSystemClassLoader().getParent()));
+		assertFalse(MetadataReaderCache.isSharedCacheSafe(childClassLoader));
+
+		MetadataReaderCache sharedInstance = MetadataReaderCache.getSharedInstance();
+		MetadataReader metadataReader = new SimpleMetadataReaderFactory().getMetadataReader(classResource(Third.class));
+		sharedInstance.put(metadataReader, childClassLoader);
+		assertNull(sharedInstance.get(Third.class.getName(), childClassLoader));
+	}
+
+
+	private Resource classResource(Class<?> clazz) {
+		return this.resourceLoader.getResource(ResourceLoader.CLASSPATH_URL_PREFIX +
+				ClassUtils.convertClassNameToResourcePath(clazz.getName()) + ClassUtils.CLASS_FILE_SUFFIX);
+	}
+
+
+	public static class First {
+	}
+
+
+	public static class Second {
+	}
+
+
+	public static class Third {
+	}
+
+}
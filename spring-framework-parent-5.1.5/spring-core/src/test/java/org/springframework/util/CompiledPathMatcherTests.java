@@ -0,0 +1,184 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import org.springframework.util.CompiledPathMatcher.CompiledPattern;
+import org.springframework.util.CompiledPathMatcher.SplitPath;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link CompiledPathMatcher} and {@link PathPatternTrie},
+ * verifying results against {@link AntPathMatcher}.
+ *
+ * @since 5.1.6
+ */
+public class CompiledPathMatcherTests {
+
+	private static final List<String> PATTERNS = Arrays.asList("", "/", "test", "/test", "/test/", "t?st", "??st",
+			"tes?", "*", "/*", "*/", "/*/", "test*", "test/*", "*test*", "*.*", "test*aaa", "/?", "/?/a", "/a/?",
+			"/**", "/*/**", "/**/*", "/**/", "**", "**/*.class", "/bla/**/bla", "/**/test", "/bla/**/**/bla",
+			"/bla*bla/test", "/*bla/test", "/*bla*/**/bla/**", "/*bla*/**/bla/*", "*bla*/**/bla/**",
+			"/x/x/**/bla", "/foo/bar/**", "/{bla}.*", "/hotels/{hotel}", "/hotels/{hotel}/bookings/{booking}",
+			"/{name:[a-z]+}-{version:\\d+}.jar", "/a/{b}/**/c", "org/**/*.class", "org/spring*/**",
+			"/Test/*", "/TEST/**/A?C", "a//b", "/a/*/c/*", "/test.jpg", "{x}", "/**/**/x");
+
+	private static final List<String> PATHS = Arrays.asList("", "/", "test", "/test", "/test/", "test/",
+			"tes", "testt", "tsst", "testTest", "test/Test", "test/t", "AnothertestTest", "test.", "test.test",
+			"testblaaaa", "testblaaab", "/a", "/a/a", "/a/b", "/aa/a", "/testing/testing", "/bla/bla/test",
+			"/bla/testing/testing/bla", "/bla/testing/testing/bla/bla", "/bla/bla/bla/bla/bla/bla",
+			"/blaXXXbla/test", "/XXXbla/test", "/blaXXXbl/test", "XXXblab/test", "/bala/bla",
+			"/XXXblaXXXX/testing/testing/bla/testing/testing/", "/XXXblaXXXX/testing/testing/bla/testing",
+			"XXXblaXXXX/testing/testing/bla/testing/testing", "/x/x/x/", "/foo/bar", "/testing.html",
+			"/hotels/1", "/hotels/1/bookings/2", "/hotels/1/bookings/", "/com-1.jar", "/com-x.jar",
+			"/a/x/y/z/c", "/a/x/c", "org/springframework/Foo.class", "org/Foo.class", "org/springframework",
+			"/test/A", "/Test/a", "/test/x/abc", "/TEST/x/aBc", "a/b", "a//b", "/a//b/c/d", "/a/b/c/d/",
+			"/te\nst", "/x", "/x/x", "/a/b\n/c/x");
+
+
+	@Test
+	public void matchAsAntPathMatcher() {
+		assertSameResults(new AntPathMatcher(), new CompiledPathMatcher(), PATTERNS, PATHS);
+	}
+
+	@Test
+	public void matchAsCaseInsensitiveAntPathMatcher() {
+		AntPathMatcher antPathMatcher = new AntPathMatcher();
+		antPathMatcher.setCaseSensitive(false);
+		CompiledPathMatcher compiledPathMatcher = new CompiledPathMatcher();
+		compiledPathMatcher.setCaseSensitive(false);
+		assertSameResults(antPathMatcher, compiledPathMatcher, PATTERNS, PATHS);
+	}
+
+	@Test
+	public void matchAsAntPathMatcherWithCustomSeparator() {
+		List<String> patterns = new ArrayList<>();
+		List<String> paths = new ArrayList<>();
+		PATTERNS.forEach(pattern -> patterns.add(pattern.replace('/', '.')));
+		PATHS.forEach(path -> paths.add(path.replace('/', '.')));
+		assertSameResults(new AntPathMatcher("."), new CompiledPathMatcher("."), patterns, paths);
+	}
+
+	@Test
+	public void matchAsAntPathMatcherWithRandomPatterns() {
+		Random random = new Random(42);
+		String[] patternParts = {"a", "b", "ab", "*", "?", "**", "a*", "*b", "a?b", "{v}", "/", "/", "/"};
+		String[] pathParts = {"a", "b", "ab", "ba", "aab", "abb", "/", "/", "/"};
+		List<String> patterns = new ArrayList<>();
+		List<String> paths = new ArrayList<>();
+		for (int i = 0; i < 300; i++) {
+			patterns.add(randomString(random, patternParts));
+			paths.add(randomString(random, pathParts));
+		}
+		assertSameResults(new AntPathMatcher(), new CompiledPathMatcher(), patterns, paths);
+	}
+
+	@Test
+	public void extractUriTemplateVariables() {
+		CompiledPathMatcher pathMatcher = new CompiledPathMatcher();
+		Map<String, String> expected = new LinkedHashMap<>();
+		expected.put("hotel", "1");
+		expected.put("booking", "2");
+		assertEquals(expected,
+				pathMatcher.extractUriTemplateVariables("/hotels/{hotel}/bookings/{booking}", "/hotels/1/bookings/2"));
+		assertEquals(Collections.singletonMap("b", "x"), pathMatcher.extractUriTemplateVariables("/a/{b}/**/c", "/a/x/y/c"));
+	}
+
+	@Test
+	public void compiledPatternReusedForSplitPath() {
+		CompiledPathMatcher pathMatcher = new CompiledPathMatcher();
+		CompiledPattern pattern = pathMatcher.compile("/api/**/*.json");
+		assertSame(pattern, pathMatcher.compile("/api/**/*.json"));
+		SplitPath path = pathMatcher.split("/api//v1/orders.json");
+		assertEquals(3, path.getSegmentCount());
+		assertEquals("v1", path.getSegment(1));
+		assertTrue(pattern.matches(path));
+		assertFalse(pathMatcher.compile("/api/*.json").matches(path));
+		assertTrue(pathMatcher.compile("/api/v1/*/x.json").matches(pathMatcher.split("/api/v1"), false, null));
+	}
+
+	@Test
+	public void trimTokensFallsBackToAntPathMatcher() {
+		CompiledPathMatcher pathMatcher = new CompiledPathMatcher();
+		pathMatcher.setTrimTokens(true);
+		assertTrue(pathMatcher.match("/foo/bar", "/foo /bar"));
+	}
+
+	@Test
+	public void trieMatchesAsIndividualPatterns() {
+		AntPathMatcher antPathMatcher = new AntPathMatcher();
+		PathPatternTrie trie = new PathPatternTrie();
+		PATTERNS.forEach(trie::addPattern);
+		assertEquals(PATTERNS.size(), trie.size());
+		for (String path : PATHS) {
+			List<String> expected = new ArrayList<>();
+			for (String pattern : PATTERNS) {
+				if (antPathMatcher.match(pattern, path)) {
+					expected.add(pattern);
+				}
+			}
+			assertEquals("Path [" + path + "]", expected, trie.getMatchingPatterns(path));
+			assertEquals("Path [" + path + "]", !expected.isEmpty(), trie.matchesAny(path));
+		}
+	}
+
+	@Test
+	public void caseInsensitiveTrie() {
+		CompiledPathMatcher pathMatcher = new CompiledPathMatcher();
+		pathMatcher.setCaseSensitive(false);
+		PathPatternTrie trie = new PathPatternTrie(pathMatcher);
+		trie.addPattern("/Static/**");
+		trie.addPattern("/static/*.css");
+		trie.addPattern("/api/{id}");
+		assertEquals(Arrays.asList("/Static/**", "/static/*.css"), trie.getMatchingPatterns("/STATIC/main.CSS"));
+		assertEquals(Collections.singletonList("/api/{id}"), trie.getMatchingPatterns("/API/42"));
+		assertFalse(trie.matchesAny("/other/42"));
+	}
+
+
+	private static void assertSameResults(AntPathMatcher expected, CompiledPathMatcher actual,
+			List<String> patterns, List<String> paths) {
+
+		for (String pattern : patterns) {
+			for (String path : paths) {
+				String message = "Pattern [" + pattern + "], path [" + path + "]";
+				assertEquals(message, expected.match(pattern, path), actual.match(pattern, path));
+				assertEquals(message, expected.matchStart(pattern, path), actual.matchStart(pattern, path));
+			}
+		}
+	}
+
+	private static String randomString(Random random, String[] parts) {
+		StringBuilder sb = new StringBuilder();
+		int count = random.nextInt(7);
+		for (int i = 0; i < count; i++) {
+			sb.append(parts[random.nextInt(parts.length)]);
+		}
+		return sb.toString();
+	}
+
+}
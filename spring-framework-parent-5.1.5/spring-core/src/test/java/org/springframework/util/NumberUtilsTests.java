@@ -133,6 +133,27 @@ public class NumberUtilsTests {
 				new BigInteger(aReallyBigInt, 16).negate(), NumberUtils.parseNumber("-0x" + aReallyBigInt, BigInteger.class));
 	}
 
+	@Test
+	public void parsePrimitives() {
+		assertEquals(Integer.MAX_VALUE, NumberUtils.parseInt(" " + Integer.MAX_VALUE + " "));
+		assertEquals(-0x80000000, NumberUtils.parseInt("-0x80000000"));
+		assertEquals(255, NumberUtils.parseInt("#FF"));
+		assertEquals(Long.MIN_VALUE, NumberUtils.parseLong("-0x8000000000000000"));
+		assertEquals(Long.MAX_VALUE, NumberUtils.parseLong("9 223 372 036 854 775 807"));
+		assertEquals(Double.MAX_VALUE, NumberUtils.parseDouble(" " + Double.MAX_VALUE + " "), 0d);
+		assertEquals(NumberUtils.parseNumber("1.5e3", Double.class), NumberUtils.parseDouble("1.5e3"), 0d);
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void parseIntWithOverflow() {
+		NumberUtils.parseInt(String.valueOf(Long.MAX_VALUE));
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void parseLongWithInvalidText() {
+		NumberUtils.parseLong("");
+	}
+
 	@Test
 	public void convertDoubleToBigInteger() {
 		Double decimal = Double.valueOf(3.14d);
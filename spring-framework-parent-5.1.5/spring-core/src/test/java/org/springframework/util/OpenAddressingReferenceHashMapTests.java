@@ -0,0 +1,266 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentReferenceHashMap.ReferenceType;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link OpenAddressingReferenceHashMap}.
+ *
+ * @since 5.1.6
+ */
+public class OpenAddressingReferenceHashMapTests {
+
+	private final OpenAddressingReferenceHashMap<Integer, String> map = new OpenAddressingReferenceHashMap<>();
+
+
+	@Test(expected = IllegalArgumentException.class)
+	public void negativeInitialCapacity() {
+		new OpenAddressingReferenceHashMap<Integer, String>(-1);
+	}
+
+	@Test
+	public void putAndGet() {
+		assertNull(this.map.put(123, "123"));
+		assertEquals("123", this.map.get(123));
+		assertEquals("123", this.map.put(123, "321"));
+		assertEquals("321", this.map.get(123));
+		assertNull(this.map.get(321));
+		assertEquals("default", this.map.getOrDefault(321, "default"));
+		assertEquals(1, this.map.size());
+	}
+
+	@Test
+	public void nullKeyAndValue() {
+		this.map.put(null, "null");
+		this.map.put(123, null);
+		assertEquals("null", this.map.get(null));
+		assertNull(this.map.get(123));
+		assertTrue(this.map.containsKey(123));
+		assertTrue(this.map.containsValue(null));
+		assertEquals("default", this.map.getOrDefault(321, "default"));
+		assertNull(this.map.getOrDefault(123, "default"));
+		assertEquals(2, this.map.size());
+	}
+
+	@Test
+	public void putIfAbsent() {
+		assertNull(this.map.putIfAbsent(123, "123"));
+		assertEquals("123", this.map.putIfAbsent(123, "123b"));
+		assertEquals("123", this.map.get(123));
+		this.map.put(321, null);
+		assertNull(this.map.putIfAbsent(321, "321"));
+		assertNull(this.map.get(321));
+	}
+
+	@Test
+	public void removeKeyAndValue() {
+		this.map.put(123, "123");
+		assertFalse(this.map.remove(123, "456"));
+		assertEquals("123", this.map.get(123));
+		assertTrue(this.map.remove(123, "123"));
+		assertFalse(this.map.containsKey(123));
+		assertTrue(this.map.isEmpty());
+		assertNull(this.map.remove(123));
+	}
+
+	@Test
+	public void replace() {
+		this.map.put(123, "123");
+		assertFalse(this.map.replace(123, "456", "789"));
+		assertEquals("123", this.map.get(123));
+		assertTrue(this.map.replace(123, "123", "789"));
+		assertEquals("789", this.map.get(123));
+		assertEquals("789", this.map.replace(123, "000"));
+		assertEquals("000", this.map.get(123));
+		assertNull(this.map.replace(321, "000"));
+		assertFalse(this.map.containsKey(321));
+	}
+
+	@Test
+	public void resize() {
+		OpenAddressingReferenceHashMap<Integer, String> map = new OpenAddressingReferenceHashMap<>(1);
+		for (int i = 0; i < 1000; i++) {
+			map.put(i, String.valueOf(i));
+		}
+		assertEquals(1000, map.size());
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(String.valueOf(i), map.get(i));
+		}
+	}
+
+	@Test
+	public void collidingHashes() {
+		OpenAddressingReferenceHashMap<Integer, String> map = new OpenAddressingReferenceHashMap<Integer, String>(4) {
+			@Override
+			protected int getHash(@Nullable Object o) {
+				return 7;
+			}
+		};
+		for (int i = 0; i < 20; i++) {
+			map.put(i, String.valueOf(i));
+		}
+		for (int i = 0; i < 20; i += 2) {
+			assertEquals(String.valueOf(i), map.remove(i));
+		}
+		for (int i = 0; i < 20; i++) {
+			assertEquals((i % 2 == 0 ? null : String.valueOf(i)), map.get(i));
+		}
+		assertNull(map.put(4, "4b"));
+		assertEquals("4b", map.get(4));
+		assertEquals(11, map.size());
+		for (int i = 100; i < 200; i++) {
+			map.put(i, String.valueOf(i));
+			map.remove(i);
+		}
+		assertEquals(11, map.size());
+	}
+
+	@Test
+	public void clear() {
+		this.map.put(123, "123");
+		this.map.put(456, null);
+		this.map.put(null, "789");
+		this.map.clear();
+		assertEquals(0, this.map.size());
+		assertFalse(this.map.containsKey(123));
+		assertFalse(this.map.containsKey(null));
+		this.map.put(123, "123");
+		assertEquals(1, this.map.size());
+	}
+
+	@Test
+	public void entrySet() {
+		Map<Integer, String> expected = new HashMap<>();
+		expected.put(123, "123");
+		expected.put(456, null);
+		expected.put(null, "789");
+		this.map.putAll(expected);
+		assertEquals(expected, new HashMap<>(this.map));
+		assertEquals(expected.entrySet(), this.map.entrySet());
+	}
+
+	@Test
+	public void removeViaEntrySet() {
+		this.map.put(1, "1");
+		this.map.put(2, "2");
+		this.map.put(3, "3");
+		Iterator<Map.Entry<Integer, String>> iterator = this.map.entrySet().iterator();
+		while (iterator.hasNext()) {
+			if (iterator.next().getKey() == 2) {
+				iterator.remove();
+			}
+		}
+		assertEquals(2, this.map.size());
+		assertFalse(this.map.containsKey(2));
+	}
+
+	@Test
+	public void setViaEntrySet() {
+		this.map.put(1, "1");
+		this.map.put(2, "2");
+		for (Map.Entry<Integer, String> entry : this.map.entrySet()) {
+			if (entry.getKey() == 2) {
+				entry.setValue("2b");
+			}
+		}
+		assertEquals("1", this.map.get(1));
+		assertEquals("2b", this.map.get(2));
+	}
+
+	@Test
+	public void purgeCollectedEntries() throws InterruptedException {
+		OpenAddressingReferenceHashMap<Integer, String> map = new OpenAddressingReferenceHashMap<>(16, ReferenceType.WEAK);
+		for (int i = 0; i < 100; i++) {
+			map.put(i, String.valueOf(i));
+		}
+		for (int attempt = 0; attempt < 50 && !map.isEmpty(); attempt++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertEquals(0, map.size());
+		assertNull(map.get(1));
+		map.put(1, "1");
+		assertEquals(1, map.size());
+	}
+
+	@Test
+	public void concurrentWriters() throws InterruptedException {
+		int threadCount = 8;
+		int keysPerThread = 2000;
+		OpenAddressingReferenceHashMap<Integer, String> map = new OpenAddressingReferenceHashMap<>(1);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicInteger failures = new AtomicInteger();
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < threadCount; t++) {
+			int offset = t * keysPerThread;
+			Thread thread = new Thread(() -> {
+				try {
+					start.await();
+					for (int i = 0; i < keysPerThread; i++) {
+						int key = offset + i;
+						map.put(key, "a" + key);
+						// Shared keys, contended by all threads
+						map.putIfAbsent(-(i % 64) - 1, "shared");
+						if (i % 3 == 0) {
+							map.remove(key);
+						}
+						else if (!map.replace(key, "a" + key, "b" + key)) {
+							failures.incrementAndGet();
+						}
+					}
+				}
+				catch (Throwable ex) {
+					failures.incrementAndGet();
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(0, failures.get());
+		int expectedSize = 64;
+		for (int key = 0; key < threadCount * keysPerThread; key++) {
+			if (key % keysPerThread % 3 == 0) {
+				assertFalse(map.containsKey(key));
+			}
+			else {
+				assertEquals("b" + key, map.get(key));
+				expectedSize++;
+			}
+		}
+		assertEquals(expectedSize, map.size());
+		assertEquals(expectedSize, new HashMap<>(map).size());
+	}
+
+}
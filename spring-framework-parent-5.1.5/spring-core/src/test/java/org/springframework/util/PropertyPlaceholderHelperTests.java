@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,7 +16,10 @@
 
 package org.springframework.util;
 
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.Properties;
+import java.util.Set;
 
 import org.junit.Test;
 
@@ -114,4 +117,93 @@ public class PropertyPlaceholderHelperTests {
 		assertEquals("foo=bar,bar=${bar}", helper.replacePlaceholders(text, props));
 	}
 
+	@Test
+	public void testUnresolvedNestedPlaceholderIsIgnored() {
+		String text = "foo=${foo},bar=${${bar}.${foo}}";
+		Properties props = new Properties();
+		props.setProperty("foo", "bar");
+
+		assertEquals("foo=bar,bar=${${bar}.${foo}}", this.helper.replacePlaceholders(text, props));
+	}
+
+	@Test
+	public void testDefaultValueWithNestedPlaceholders() {
+		String text = "${missing:${foo}-${bar:baz}}";
+		Properties props = new Properties();
+		props.setProperty("foo", "${bar:qux}");
+
+		PropertyPlaceholderHelper helper = new PropertyPlaceholderHelper("${", "}", ":", false);
+		assertEquals("qux-baz", helper.replacePlaceholders(text, props));
+	}
+
+	@Test
+	public void testParsedValuesAreReused() {
+		Properties props = new Properties();
+		props.setProperty("foo", "bar");
+		props.setProperty("bar", "${foo}");
+
+		assertEquals("foo=bar", this.helper.replacePlaceholders("foo=${bar}", props));
+		assertEquals(1, this.helper.getTemplateCacheMissCount());
+		assertEquals(0, this.helper.getTemplateCacheHitCount());
+
+		props.setProperty("foo", "baz");
+		assertEquals("foo=baz", this.helper.replacePlaceholders("foo=${bar}", props));
+		assertEquals(1, this.helper.getTemplateCacheMissCount());
+		assertEquals(1, this.helper.getTemplateCacheHitCount());
+
+		this.helper.clearTemplateCache();
+		assertEquals("foo=baz", this.helper.replacePlaceholders("foo=${bar}", props));
+		assertEquals(2, this.helper.getTemplateCacheMissCount());
+	}
+
+	@Test
+	public void testResolvedValuesAreNotCached() {
+		Properties props = new Properties();
+		props.setProperty("secret", "s3cr3t");
+		for (int i = 0; i < 10; i++) {
+			props.setProperty("value", "v" + i);
+			assertEquals("v" + i, this.helper.replacePlaceholders("${value}", props));
+		}
+		assertEquals("s3cr3t", this.helper.replacePlaceholders("${secret}", props));
+		assertEquals(2, this.helper.getTemplateCacheMissCount());
+		assertEquals(9, this.helper.getTemplateCacheHitCount());
+	}
+
+	@Test
+	public void testValuesWithoutPlaceholderAreNotCached() {
+		Properties props = new Properties();
+		assertEquals("foo", this.helper.replacePlaceholders("foo", props));
+		assertEquals("foo", this.helper.replacePlaceholders("foo", props));
+		assertEquals(0, this.helper.getTemplateCacheMissCount());
+		assertEquals(0, this.helper.getTemplateCacheHitCount());
+	}
+
+	@Test
+	public void testNestedValuesResolvedThroughParseStringValue() {
+		Set<String> parsedValues = new LinkedHashSet<>();
+		PropertyPlaceholderHelper helper = new PropertyPlaceholderHelper("${", "}") {
+			@Override
+			protected String parseStringValue(String value, PlaceholderResolver placeholderResolver,
+					Set<String> visitedPlaceholders) {
+				parsedValues.add(value);
+				return super.parseStringValue(value, placeholderResolver, visitedPlaceholders);
+			}
+		};
+		Properties props = new Properties();
+		props.setProperty("bar", "${baz}");
+		props.setProperty("baz", "qux");
+
+		assertEquals("foo=qux", helper.replacePlaceholders("foo=${bar}", props));
+		assertEquals(new LinkedHashSet<>(Arrays.asList("foo=${bar}", "bar", "${baz}", "baz", "qux")), parsedValues);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCircularReference() {
+		Properties props = new Properties();
+		props.setProperty("foo", "${bar}");
+		props.setProperty("bar", "${foo}");
+
+		this.helper.replacePlaceholders("${foo}", props);
+	}
+
 }